@@ -18,7 +18,9 @@
  */
 package org.jpmml.translator;
 
-import com.google.common.collect.Iterators;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import com.sun.codemodel.JBlock;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JExpr;
@@ -27,12 +29,19 @@ import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
 import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPrimitiveType;
 import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
 import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
 import org.dmg.pmml.Field;
 import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MiningField;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.OutlierTreatmentMethod;
+import org.jpmml.evaluator.EvaluationContext;
 import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.TypeUtil;
 import org.jpmml.evaluator.UnsupportedAttributeException;
 
 public class ArgumentsRef extends JVarRef {
@@ -58,45 +67,65 @@ public class ArgumentsRef extends JVarRef {
 			return method;
 		}
 
-		JMethod constructor = Iterators.getOnlyElement(argumentsClazz.constructors());
+		List<MiningField> miningFields = fieldInfo.getMiningFields();
+		if(!miningFields.isEmpty()){
+			return createTreatmentMethod(fieldInfo, context);
+		}
 
-		JBlock constructorBody = constructor.body();
+		JFieldVar chainedFieldVar = context.getChainedFieldVar(argumentsClazz, name);
+		if(chainedFieldVar != null){
+			return createChainedMethod(fieldInfo, chainedFieldVar, context);
+		}
 
-		JType type;
+		if(field instanceof DerivedField){
+			DerivedField derivedField = (DerivedField)field;
 
-		switch(dataType){
-			case STRING:
-				type = context.ref(String.class);
-				break;
-			case INTEGER:
-				type = context.ref(Integer.class);
-				break;
-			case FLOAT:
-				type = context.ref(Float.class);
-				break;
-			case DOUBLE:
-				type = context.ref(Double.class);
-				break;
-			case BOOLEAN:
-				type = context.ref(Boolean.class);
-				break;
-			default:
-				throw new UnsupportedAttributeException(field, dataType);
+			if(ExpressionTranslator.isTranslatable(derivedField, context)){
+				return createDerivedMethod(fieldInfo, context);
+			}
 		}
 
+		JMethod resetMethod = argumentsClazz.getMethod("reset", new JType[]{context.ref(EvaluationContext.class)});
+
+		JBlock resetBody = resetMethod.body();
+
 		JMethod encoderMethod = null;
 
+		JType type;
+
 		if(encoder != null){
 
 			try {
 				context.pushOwner(argumentsClazz);
 
-				encoderMethod = encoder.createEncoderMethod(type, name, context);
+				encoderMethod = encoder.createEncoderMethod(field, context);
 			} finally {
 				context.popOwner();
 			}
 
 			type = encoderMethod.type();
+		} else
+
+		{
+			switch(dataType){
+				case STRING:
+					type = context.ref(String.class);
+					break;
+				case INTEGER:
+					type = context.ref(Integer.class);
+					break;
+				case FLOAT:
+					type = context.ref(Float.class);
+					break;
+				case DOUBLE:
+					type = context.ref(Double.class);
+					break;
+				case BOOLEAN:
+					type = context.ref(Boolean.class);
+					break;
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
 		}
 
 		method = argumentsClazz.method(JMod.PUBLIC, type, stringName);
@@ -106,12 +135,14 @@ public class ArgumentsRef extends JVarRef {
 		JBlock initializerBlock;
 
 		if(primary){
-			initializerBlock = constructorBody;
+			initializerBlock = resetBody;
 		} else
 
 		{
 			JFieldVar fieldFlagVar = argumentsClazz.field(JMod.PRIVATE, boolean.class, "_" + stringName, JExpr.FALSE);
 
+			resetBody.assign(JExpr.refthis(fieldFlagVar.name()), JExpr.FALSE);
+
 			JBlock thenBlock = methodBody._if(JExpr.refthis(fieldFlagVar.name()).not())._then();
 
 			thenBlock.assign(JExpr.refthis(fieldFlagVar.name()), JExpr.TRUE);
@@ -123,40 +154,490 @@ public class ArgumentsRef extends JVarRef {
 
 		JVar valueVar = initializerBlock.decl(context.ref(FieldValue.class), IdentifierUtil.create("value", name), context.invoke(JExpr.refthis("context"), "evaluate", name));
 
-		FieldValueRef fieldValueRef = new FieldValueRef(valueVar);
-
 		JExpression valueExpr;
 
+		// Encoded fields are primitive-typed, and are initialized without boxed intermediates
+		if(encoderMethod != null){
+			valueExpr = JExpr.invoke(encoderMethod).arg(valueVar);
+		} else
+
+		{
+			FieldValueRef fieldValueRef = new FieldValueRef(valueVar);
+
+			switch(dataType){
+				case STRING:
+					valueExpr = fieldValueRef.asString();
+					break;
+				case INTEGER:
+					valueExpr = fieldValueRef.asInteger();
+					break;
+				case FLOAT:
+					valueExpr = fieldValueRef.asFloat();
+					break;
+				case DOUBLE:
+					valueExpr = fieldValueRef.asDouble();
+					break;
+				case BOOLEAN:
+					valueExpr = fieldValueRef.asBoolean();
+					break;
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
+
+			valueExpr = JOp.cond(valueVar.ne(JExpr._null()), valueExpr, JExpr._null());
+		}
+
+		initializerBlock.assign(JExpr.refthis(fieldVar.name()), valueExpr);
+
+		context.putArgumentFieldInfo(argumentsClazz, fieldInfo);
+
+		methodBody._return(JExpr.refthis(fieldVar.name()));
+
+		return method;
+	}
+
+	/**
+	 * <p>
+	 * Ensures a field that holds the primitive value of an output field of a preceding model chain segment.
+	 * The field is assigned by the model chain before the evaluation of subsequent segments,
+	 * which then read it (instead of the evaluation context) using regular field accessor methods.
+	 * </p>
+	 */
+	public JFieldVar ensureChainedFieldVar(Field<?> field, TranslationContext context){
+		JDefinedClass argumentsClazz = (JDefinedClass)type();
+
+		FieldName name = field.getName();
+		DataType dataType = field.getDataType();
+
+		JFieldVar fieldVar = context.getChainedFieldVar(argumentsClazz, name);
+		if(fieldVar != null){
+			return fieldVar;
+		}
+
+		JType type;
+
 		switch(dataType){
-			case STRING:
-				valueExpr = fieldValueRef.asString();
-				break;
-			case INTEGER:
-				valueExpr = fieldValueRef.asInteger();
-				break;
 			case FLOAT:
-				valueExpr = fieldValueRef.asFloat();
+				type = context._ref(float.class);
 				break;
 			case DOUBLE:
-				valueExpr = fieldValueRef.asDouble();
-				break;
-			case BOOLEAN:
-				valueExpr = fieldValueRef.asBoolean();
+				type = context._ref(double.class);
 				break;
 			default:
 				throw new UnsupportedAttributeException(field, dataType);
 		}
 
-		valueExpr = JOp.cond(valueVar.ne(JExpr._null()), valueExpr, JExpr._null());
+		fieldVar = argumentsClazz.field(JMod.PRIVATE, type, IdentifierUtil.create("chained", name));
+
+		context.putChainedFieldVar(argumentsClazz, name, fieldVar);
+
+		return fieldVar;
+	}
+
+	private JMethod createChainedMethod(FieldInfo fieldInfo, JFieldVar chainedFieldVar, TranslationContext context){
+		JDefinedClass argumentsClazz = (JDefinedClass)type();
 
-		if(encoder != null && encoderMethod != null){
-			valueExpr = JExpr.invoke(encoderMethod).arg(valueExpr);
+		Field<?> field = fieldInfo.getField();
+		Encoder encoder = fieldInfo.getEncoder();
+
+		String stringName = fieldInfo.getVariableName();
+
+		// Chained values are never missing, so they are already in their floating-point primitive encoding
+		if(encoder != null && !(encoder instanceof FpPrimitiveEncoder)){
+			throw new UnsupportedAttributeException(field, field.getOpType());
 		}
 
-		initializerBlock.assign(JExpr.refthis(fieldVar.name()), valueExpr);
+		JMethod method = argumentsClazz.method(JMod.PUBLIC, chainedFieldVar.type(), stringName);
+
+		(method.body())._return(JExpr.refthis(chainedFieldVar.name()));
+
+		return method;
+	}
+
+	/**
+	 * <p>
+	 * Creates a lazily initialized field, whose value is computed from the values of referenced fields
+	 * by evaluating the translated expression of a derived field.
+	 * </p>
+	 *
+	 * <p>
+	 * The field is invalidated by the clear method (rather than registered as an argument field),
+	 * so that the derived field does not prevent the direct loading of its referenced fields.
+	 * </p>
+	 */
+	private JMethod createDerivedMethod(FieldInfo fieldInfo, TranslationContext context){
+		JDefinedClass argumentsClazz = (JDefinedClass)type();
+
+		DerivedField derivedField = (DerivedField)fieldInfo.getField();
+		Encoder encoder = fieldInfo.getEncoder();
+
+		DataType dataType = derivedField.getDataType();
+
+		String stringName = fieldInfo.getVariableName();
+
+		JMethod valueEncoderMethod = null;
+
+		JType type;
+
+		if(encoder instanceof FpPrimitiveEncoder){
+
+			if(!(DataType.DOUBLE).equals(dataType)){
+				throw new UnsupportedAttributeException(derivedField, dataType);
+			}
+
+			type = context._ref(double.class);
+		} else
+
+		if(encoder instanceof OrdinalEncoder){
+
+			if(!(DataType.STRING).equals(dataType)){
+				throw new UnsupportedAttributeException(derivedField, dataType);
+			}
+
+			OrdinalEncoder ordinalEncoder = (OrdinalEncoder)encoder;
+
+			try {
+				context.pushOwner(argumentsClazz);
+
+				valueEncoderMethod = ordinalEncoder.ensureValueEncoderMethod(derivedField, context);
+			} finally {
+				context.popOwner();
+			}
+
+			type = valueEncoderMethod.type();
+		} else
+
+		if(encoder == null){
+
+			switch(dataType){
+				case STRING:
+					type = context.ref(String.class);
+					break;
+				case DOUBLE:
+					type = context.ref(Double.class);
+					break;
+				default:
+					throw new UnsupportedAttributeException(derivedField, dataType);
+			}
+		} else
+
+		{
+			throw new IllegalArgumentException();
+		}
+
+		JMethod clearMethod = ensureClearMethod(argumentsClazz, context);
+
+		JFieldVar fieldFlagVar = argumentsClazz.field(JMod.PRIVATE, boolean.class, "_" + stringName, JExpr.FALSE);
+
+		(clearMethod.body()).assign(JExpr.refthis(fieldFlagVar.name()), JExpr.FALSE);
+
+		JFieldVar fieldVar = argumentsClazz.field(JMod.PRIVATE, type, stringName);
+
+		JMethod method = argumentsClazz.method(JMod.PUBLIC, type, stringName);
+
+		JBlock methodBody = method.body();
+
+		JBlock thenBlock = methodBody._if(JExpr.refthis(fieldFlagVar.name()).not())._then();
+
+		thenBlock.assign(JExpr.refthis(fieldFlagVar.name()), JExpr.TRUE);
+
+		ExpressionTranslator expressionTranslator = new ExpressionTranslator(this, thenBlock, context);
+
+		JExpression valueExpr = expressionTranslator.translate(derivedField);
+
+		if(valueEncoderMethod != null){
+			valueExpr = JExpr.invoke(valueEncoderMethod).arg(valueExpr);
+		} else
+
+		if((DataType.DOUBLE).equals(dataType) && encoder == null){
+			JVar valueVar = thenBlock.decl(context._ref(double.class), "value", valueExpr);
+
+			valueExpr = JOp.cond(context.staticInvoke(Double.class, "isNaN", valueVar), JExpr._null(), valueVar);
+		}
+
+		thenBlock.assign(JExpr.refthis(fieldVar.name()), valueExpr);
+
+		methodBody._return(JExpr.refthis(fieldVar.name()));
+
+		return method;
+	}
+
+	/**
+	 * <p>
+	 * Gets a method that computes the product of two or more field values.
+	 * </p>
+	 *
+	 * <p>
+	 * Products are lazily initialized fields, which are shared between all callers.
+	 * The product of <code>n</code> field values is computed by multiplying the product of the first <code>n - 1</code> field values,
+	 * so that common leading sub-products are computed only once.
+	 * </p>
+	 */
+	public JMethod getProductMethod(List<FieldInfo> fieldInfos, JPrimitiveType type, TranslationContext context){
+		JDefinedClass argumentsClazz = (JDefinedClass)type();
+
+		if(fieldInfos.size() < 2){
+			throw new IllegalArgumentException();
+		}
+
+		String stringName = fieldInfos.stream()
+			.map(FieldInfo::getVariableName)
+			.collect(Collectors.joining("$", "product$" + type.name() + "$", ""));
+
+		JMethod method = argumentsClazz.getMethod(stringName, new JType[0]);
+		if(method != null){
+			return method;
+		}
+
+		List<FieldInfo> prefixFieldInfos = fieldInfos.subList(0, fieldInfos.size() - 1);
+
+		JExpression prefixExpr;
+
+		if(prefixFieldInfos.size() == 1){
+			prefixExpr = toPrimitive(getMethod(prefixFieldInfos.get(0), context), type);
+		} else
+
+		{
+			prefixExpr = JExpr.invoke(getProductMethod(prefixFieldInfos, type, context));
+		}
+
+		JExpression factorExpr = toPrimitive(getMethod(fieldInfos.get(fieldInfos.size() - 1), context), type);
+
+		JMethod clearMethod = ensureClearMethod(argumentsClazz, context);
+
+		JFieldVar fieldFlagVar = argumentsClazz.field(JMod.PRIVATE, boolean.class, "_" + stringName, JExpr.FALSE);
+
+		(clearMethod.body()).assign(JExpr.refthis(fieldFlagVar.name()), JExpr.FALSE);
+
+		JFieldVar fieldVar = argumentsClazz.field(JMod.PRIVATE, type, stringName);
+
+		method = argumentsClazz.method(JMod.PUBLIC, type, stringName);
+
+		JBlock methodBody = method.body();
+
+		JBlock thenBlock = methodBody._if(JExpr.refthis(fieldFlagVar.name()).not())._then();
+
+		thenBlock.assign(JExpr.refthis(fieldFlagVar.name()), JExpr.TRUE);
+		thenBlock.assign(JExpr.refthis(fieldVar.name()), prefixExpr.mul(factorExpr));
 
 		methodBody._return(JExpr.refthis(fieldVar.name()));
 
 		return method;
 	}
+
+	/**
+	 * <p>
+	 * Ensures a method that invalidates all lazily initialized fields that are not backed by a field value.
+	 * Such fields must be invalidated whenever field values are loaded directly (ie. bypassing the evaluation context).
+	 * </p>
+	 */
+	static
+	public JMethod ensureClearMethod(JDefinedClass argumentsClazz, TranslationContext context){
+		JMethod clearMethod = argumentsClazz.getMethod("clear", new JType[0]);
+		if(clearMethod != null){
+			return clearMethod;
+		}
+
+		clearMethod = argumentsClazz.method(JMod.PUBLIC, void.class, "clear");
+
+		JMethod resetMethod = argumentsClazz.getMethod("reset", new JType[]{context.ref(EvaluationContext.class)});
+
+		(resetMethod.body()).add(JExpr.invoke(clearMethod));
+
+		return clearMethod;
+	}
+
+	static
+	private JExpression toPrimitive(JMethod method, JPrimitiveType type){
+		JType methodType = method.type();
+
+		JExpression expr = JExpr.invoke(method);
+
+		if(methodType.isPrimitive()){
+			return (methodType).equals(type) ? expr : JExpr.cast(type, expr);
+		}
+
+		return expr.invoke(type.name() + "Value");
+	}
+
+	/**
+	 * <p>
+	 * Creates a lazily initialized field, whose value is computed from the value of the enclosing model
+	 * by applying the input value treatment of the innermost nested model.
+	 * </p>
+	 */
+	private JMethod createTreatmentMethod(FieldInfo fieldInfo, TranslationContext context){
+		JDefinedClass argumentsClazz = (JDefinedClass)type();
+
+		Field<?> field = fieldInfo.getField();
+		Encoder encoder = fieldInfo.getEncoder();
+		List<MiningField> miningFields = fieldInfo.getMiningFields();
+
+		String stringName = fieldInfo.getVariableName();
+
+		FieldInfo parentFieldInfo = new FieldInfo(field, encoder);
+		parentFieldInfo.setPrimary(fieldInfo.isPrimary());
+		parentFieldInfo.setMiningFields(miningFields.subList(0, miningFields.size() - 1));
+
+		MiningField miningField = miningFields.get(miningFields.size() - 1);
+
+		JMethod parentMethod = getMethod(parentFieldInfo, context);
+
+		JType type = parentMethod.type();
+
+		JMethod resetMethod = argumentsClazz.getMethod("reset", new JType[]{context.ref(EvaluationContext.class)});
+
+		JBlock resetBody = resetMethod.body();
+
+		JMethod method = argumentsClazz.method(JMod.PUBLIC, type, stringName);
+
+		JBlock methodBody = method.body();
+
+		JFieldVar fieldFlagVar = argumentsClazz.field(JMod.PRIVATE, boolean.class, "_" + stringName, JExpr.FALSE);
+
+		resetBody.assign(JExpr.refthis(fieldFlagVar.name()), JExpr.FALSE);
+
+		JBlock thenBlock = methodBody._if(JExpr.refthis(fieldFlagVar.name()).not())._then();
+
+		thenBlock.assign(JExpr.refthis(fieldFlagVar.name()), JExpr.TRUE);
+
+		JFieldVar fieldVar = argumentsClazz.field(JMod.PRIVATE, type, stringName);
+
+		JVar valueVar = thenBlock.decl(type, "value", JExpr.invoke(parentMethod));
+
+		OperableRef valueRef = createOperableRef(field, encoder, valueVar);
+
+		OutlierTreatmentMethod outlierTreatment = miningField.getOutlierTreatment();
+		switch(outlierTreatment){
+			case AS_IS:
+				break;
+			case AS_MISSING_VALUES:
+			case AS_EXTREME_VALUES:
+				{
+					checkContinuous(field, miningField, outlierTreatment);
+
+					Number lowValue = miningField.getLowValue();
+					Number highValue = miningField.getHighValue();
+
+					JExpression lowValueExpr = createLiteral(type, lowValue);
+					JExpression highValueExpr = createLiteral(type, highValue);
+
+					// Missing values fail both comparisons
+					if((OutlierTreatmentMethod.AS_MISSING_VALUES).equals(outlierTreatment)){
+						thenBlock._if((valueRef.lessThan(lowValue, context)).cor(valueRef.greaterThan(highValue, context)))._then().assign(valueVar, createMissingLiteral(field, type));
+					} else
+
+					{
+						thenBlock._if(valueRef.lessThan(lowValue, context))._then().assign(valueVar, lowValueExpr);
+						thenBlock._if(valueRef.greaterThan(highValue, context))._then().assign(valueVar, highValueExpr);
+					}
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(miningField, outlierTreatment);
+		}
+
+		Object missingValueReplacement = miningField.getMissingValueReplacement();
+		if(missingValueReplacement != null){
+			DataType dataType = field.getDataType();
+
+			Object value = TypeUtil.parseOrCast(dataType, missingValueReplacement);
+
+			if(encoder != null){
+				value = encoder.encode(value);
+			}
+
+			thenBlock._if(valueRef.isMissing())._then().assign(valueVar, createLiteral(type, value));
+		}
+
+		thenBlock.assign(JExpr.refthis(fieldVar.name()), valueVar);
+
+		context.putArgumentFieldInfo(argumentsClazz, fieldInfo);
+
+		methodBody._return(JExpr.refthis(fieldVar.name()));
+
+		return method;
+	}
+
+	static
+	private OperableRef createOperableRef(Field<?> field, Encoder encoder, JVar variable){
+		DataType dataType = field.getDataType();
+
+		if(encoder != null){
+			return encoder.ref(variable);
+		}
+
+		switch(dataType){
+			case STRING:
+				return new StringRef(variable);
+			case INTEGER:
+			case FLOAT:
+			case DOUBLE:
+			case BOOLEAN:
+				return new NumberRef(variable);
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
+	}
+
+	static
+	private void checkContinuous(Field<?> field, MiningField miningField, OutlierTreatmentMethod outlierTreatment){
+		OpType opType = field.getOpType();
+		DataType dataType = field.getDataType();
+
+		if(!(OpType.CONTINUOUS).equals(opType)){
+			throw new UnsupportedAttributeException(miningField, outlierTreatment);
+		}
+
+		switch(dataType){
+			case FLOAT:
+			case DOUBLE:
+				break;
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
+	}
+
+	static
+	private JExpression createLiteral(JType type, Object value){
+		JType primitiveType = type.unboxify();
+
+		switch(primitiveType.name()){
+			case "float":
+				return JExpr.lit(((Number)value).floatValue());
+			case "double":
+				return JExpr.lit(((Number)value).doubleValue());
+			case "int":
+				return JExpr.lit(((Number)value).intValue());
+			case "boolean":
+				return JExpr.lit((Boolean)value);
+			default:
+				break;
+		}
+
+		if(value instanceof String){
+			return JExpr.lit((String)value);
+		}
+
+		throw new IllegalArgumentException(type.fullName());
+	}
+
+	static
+	private JExpression createMissingLiteral(Field<?> field, JType type){
+
+		if(type.isPrimitive()){
+			DataType dataType = field.getDataType();
+
+			switch(dataType){
+				case FLOAT:
+					return JExpr.lit(Float.NaN);
+				case DOUBLE:
+					return JExpr.lit(Double.NaN);
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
+		}
+
+		return JExpr._null();
+	}
 }
\ No newline at end of file
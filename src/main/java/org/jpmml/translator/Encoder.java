@@ -19,9 +19,9 @@
 package org.jpmml.translator;
 
 import com.sun.codemodel.JMethod;
-import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
-import org.dmg.pmml.FieldName;
+import org.dmg.pmml.Field;
+import org.jpmml.evaluator.FieldValue;
 
 public interface Encoder {
 
@@ -31,5 +31,10 @@ public interface Encoder {
 
 	OperableRef ref(JVar variable);
 
-	JMethod createEncoderMethod(JType type, FieldName name, TranslationContext context);
+	/**
+	 * <p>
+	 * Creates a method that encodes a {@link FieldValue} straight into the encoded representation.
+	 * </p>
+	 */
+	JMethod createEncoderMethod(Field<?> field, TranslationContext context);
 }
\ No newline at end of file
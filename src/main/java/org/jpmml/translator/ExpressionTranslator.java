@@ -0,0 +1,1053 @@
+/*
+ * Copyright (c) 2019 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.Table;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.Apply;
+import org.dmg.pmml.Constant;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Discretize;
+import org.dmg.pmml.DiscretizeBin;
+import org.dmg.pmml.Expression;
+import org.dmg.pmml.Field;
+import org.dmg.pmml.FieldColumnPair;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.InlineTable;
+import org.dmg.pmml.Interval;
+import org.dmg.pmml.InvalidValueTreatmentMethod;
+import org.dmg.pmml.LinearNorm;
+import org.dmg.pmml.MapValues;
+import org.dmg.pmml.NormContinuous;
+import org.dmg.pmml.NormDiscrete;
+import org.dmg.pmml.OutlierTreatmentMethod;
+import org.dmg.pmml.PMMLAttributes;
+import org.jpmml.evaluator.InlineTableUtil;
+import org.jpmml.evaluator.TypeUtil;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+
+/**
+ * <p>
+ * Translates the expression of a derived field into Java source code.
+ * </p>
+ *
+ * <p>
+ * Numeric expressions are computed as <code>double</code> values, with <code>Double.NaN</code> denoting a missing value.
+ * String expressions are computed as <code>String</code> values, with <code>null</code> denoting a missing value.
+ * </p>
+ *
+ * <p>
+ * An invalid numeric result (eg. <code>0 / 0</code>, <code>sqrt(-1)</code>) would be indistinguishable from a missing result.
+ * Therefore, functions that may produce one are translated only if their <code>invalidValueTreatment</code> attribute is <code>asMissing</code>.
+ * </p>
+ */
+public class ExpressionTranslator {
+
+	private ArgumentsRef argumentsRef = null;
+
+	private JBlock block = null;
+
+	private TranslationContext context = null;
+
+	private Map<FieldName, JVar> numericVars = new HashMap<>();
+
+	private Map<FieldName, JVar> stringVars = new HashMap<>();
+
+
+	public ExpressionTranslator(ArgumentsRef argumentsRef, JBlock block, TranslationContext context){
+		setArgumentsRef(argumentsRef);
+		setBlock(block);
+		setContext(context);
+	}
+
+	public JExpression translate(DerivedField derivedField){
+		return translate(derivedField.getExpression(), derivedField.getDataType());
+	}
+
+	public JExpression translate(Expression expression, DataType dataType){
+
+		switch(dataType){
+			case DOUBLE:
+				return translateNumeric(expression);
+			case STRING:
+				return translateString(expression);
+			default:
+				throw new IllegalArgumentException(dataType.name());
+		}
+	}
+
+	private JExpression translateNumeric(Expression expression){
+		TranslationContext context = getContext();
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			return JExpr.lit(toDouble(constant.getValue()));
+		} else
+
+		if(expression instanceof FieldRef){
+			FieldRef fieldRef = (FieldRef)expression;
+
+			JVar valueVar = declareNumericValue(fieldRef.getField());
+
+			Object mapMissingTo = fieldRef.getMapMissingTo();
+			if(mapMissingTo != null){
+				return JOp.cond(isMissing(valueVar), JExpr.lit(toDouble(mapMissingTo)), valueVar);
+			}
+
+			return valueVar;
+		} else
+
+		if(expression instanceof Apply){
+			return translateApply((Apply)expression);
+		} else
+
+		if(expression instanceof NormContinuous){
+			return translateNormContinuous((NormContinuous)expression);
+		} else
+
+		if(expression instanceof NormDiscrete){
+			return translateNormDiscrete((NormDiscrete)expression);
+		} else
+
+		if(expression instanceof Discretize){
+			return translateDiscretize((Discretize)expression, context._ref(double.class));
+		} else
+
+		if(expression instanceof MapValues){
+			return translateMapValues((MapValues)expression, context._ref(double.class));
+		}
+
+		throw new UnsupportedElementException(expression);
+	}
+
+	private JExpression translateString(Expression expression){
+		TranslationContext context = getContext();
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			return JExpr.lit(toString(constant.getValue()));
+		} else
+
+		if(expression instanceof FieldRef){
+			FieldRef fieldRef = (FieldRef)expression;
+
+			JVar valueVar = declareStringValue(fieldRef.getField());
+
+			Object mapMissingTo = fieldRef.getMapMissingTo();
+			if(mapMissingTo != null){
+				return JOp.cond(valueVar.eq(JExpr._null()), JExpr.lit(toString(mapMissingTo)), valueVar);
+			}
+
+			return valueVar;
+		} else
+
+		if(expression instanceof Discretize){
+			return translateDiscretize((Discretize)expression, context.ref(String.class));
+		} else
+
+		if(expression instanceof MapValues){
+			return translateMapValues((MapValues)expression, context.ref(String.class));
+		}
+
+		throw new UnsupportedElementException(expression);
+	}
+
+	private JExpression translateApply(Apply apply){
+		JBlock block = getBlock();
+		TranslationContext context = getContext();
+
+		String function = apply.getFunction();
+		List<Expression> expressions = apply.getExpressions();
+
+		switch(function){
+			case "+":
+				return translateNumeric(expressions.get(0)).plus(translateNumeric(expressions.get(1)));
+			case "-":
+				return translateNumeric(expressions.get(0)).minus(translateNumeric(expressions.get(1)));
+			case "*":
+				return translateNumeric(expressions.get(0)).mul(translateNumeric(expressions.get(1)));
+			case "/":
+				return translateNumeric(expressions.get(0)).div(translateNumeric(expressions.get(1)));
+			case "exp":
+			case "sqrt":
+			case "abs":
+			case "floor":
+			case "ceil":
+				return context.staticInvoke(Math.class, function, translateNumeric(expressions.get(0)));
+			case "ln":
+				return context.staticInvoke(Math.class, "log", translateNumeric(expressions.get(0)));
+			case "log10":
+				return context.staticInvoke(Math.class, "log10", translateNumeric(expressions.get(0)));
+			case "pow":
+				{
+					JVar baseVar = block.decl(context._ref(double.class), IdentifierUtil.create("base", apply), translateNumeric(expressions.get(0)));
+
+					// Math#pow(double, double) maps (NaN, 0) to 1
+					return JOp.cond(isMissing(baseVar), JExpr.lit(Double.NaN), context.staticInvoke(Math.class, "pow", baseVar, translateNumeric(expressions.get(1))));
+				}
+			default:
+				throw new UnsupportedAttributeException(apply, PMMLAttributes.APPLY_FUNCTION, function);
+		}
+	}
+
+	private JExpression translateNormContinuous(NormContinuous normContinuous){
+		JBlock block = getBlock();
+		TranslationContext context = getContext();
+
+		JVar valueVar = declareNumericValue(normContinuous.getField());
+
+		List<LinearNorm> linearNorms = normContinuous.getLinearNorms();
+
+		LinearNorm start = linearNorms.get(0);
+		LinearNorm end = linearNorms.get(linearNorms.size() - 1);
+
+		Number mapMissingTo = normContinuous.getMapMissingTo();
+
+		JVar resultVar = block.decl(context._ref(double.class), IdentifierUtil.create("result", normContinuous), JExpr.lit(mapMissingTo != null ? mapMissingTo.doubleValue() : Double.NaN));
+
+		JConditional ifStatement = block._if(isMissing(valueVar).not());
+
+		JBlock thenBlock = ifStatement._then();
+
+		JExpression lowExpr;
+		JExpression highExpr;
+
+		switch(normContinuous.getOutliers()){
+			case AS_IS:
+				lowExpr = interpolate(valueVar, start, linearNorms.get(1));
+				highExpr = interpolate(valueVar, linearNorms.get(linearNorms.size() - 2), end);
+				break;
+			case AS_MISSING_VALUES:
+				lowExpr = JExpr.lit(Double.NaN);
+				highExpr = JExpr.lit(Double.NaN);
+				break;
+			case AS_EXTREME_VALUES:
+				lowExpr = JExpr.lit(start.getNorm().doubleValue());
+				highExpr = JExpr.lit(end.getNorm().doubleValue());
+				break;
+			default:
+				throw new UnsupportedAttributeException(normContinuous, normContinuous.getOutliers());
+		}
+
+		JConditional lowStatement = thenBlock._if(valueVar.lt(JExpr.lit(start.getOrig().doubleValue())));
+		lowStatement._then().assign(resultVar, lowExpr);
+
+		JBlock elseBlock = lowStatement._else();
+
+		for(int i = 1; i < linearNorms.size(); i++){
+			LinearNorm rangeStart = linearNorms.get(i - 1);
+			LinearNorm rangeEnd = linearNorms.get(i);
+
+			JConditional rangeStatement = elseBlock._if(valueVar.lte(JExpr.lit(rangeEnd.getOrig().doubleValue())));
+			rangeStatement._then().assign(resultVar, interpolate(valueVar, rangeStart, rangeEnd));
+
+			elseBlock = rangeStatement._else();
+		}
+
+		elseBlock.assign(resultVar, highExpr);
+
+		return resultVar;
+	}
+
+	private JExpression translateNormDiscrete(NormDiscrete normDiscrete){
+		FieldName name = normDiscrete.getField();
+		Object value = normDiscrete.getValue();
+
+		Number mapMissingTo = normDiscrete.getMapMissingTo();
+
+		JExpression missingExpr = JExpr.lit(mapMissingTo != null ? mapMissingTo.doubleValue() : Double.NaN);
+
+		Field<?> field = resolveField(name);
+
+		DataType dataType = field.getDataType();
+		switch(dataType){
+			case STRING:
+				{
+					JVar valueVar = declareStringValue(name);
+
+					JExpression matchExpr = JOp.cond((JExpr.lit(toString(value)).invoke("equals")).arg(valueVar), JExpr.lit(1d), JExpr.lit(0d));
+
+					return JOp.cond(valueVar.eq(JExpr._null()), missingExpr, matchExpr);
+				}
+			case INTEGER:
+			case DOUBLE:
+				{
+					JVar valueVar = declareNumericValue(name);
+
+					JExpression matchExpr = JOp.cond(valueVar.eq(JExpr.lit(toDouble(value))), JExpr.lit(1d), JExpr.lit(0d));
+
+					return JOp.cond(isMissing(valueVar), missingExpr, matchExpr);
+				}
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
+	}
+
+	private JExpression translateDiscretize(Discretize discretize, JType type){
+		JBlock block = getBlock();
+
+		JVar valueVar = declareNumericValue(discretize.getField());
+
+		JVar resultVar = block.decl(type, IdentifierUtil.create("result", discretize), createLiteral(type, discretize.getMapMissingTo()));
+
+		JConditional ifStatement = block._if(isMissing(valueVar).not());
+
+		JBlock elseBlock = ifStatement._then();
+
+		List<DiscretizeBin> discretizeBins = discretize.getDiscretizeBins();
+		for(DiscretizeBin discretizeBin : discretizeBins){
+			Interval interval = discretizeBin.getInterval();
+
+			JConditional binStatement = elseBlock._if(translateInterval(valueVar, interval));
+			binStatement._then().assign(resultVar, createLiteral(type, discretizeBin.getBinValue()));
+
+			elseBlock = binStatement._else();
+		}
+
+		elseBlock.assign(resultVar, createLiteral(type, discretize.getDefaultValue()));
+
+		return resultVar;
+	}
+
+	private JExpression translateMapValues(MapValues mapValues, JType type){
+		JBlock block = getBlock();
+
+		List<FieldColumnPair> fieldColumnPairs = mapValues.getFieldColumnPairs();
+		String outputColumn = mapValues.getOutputColumn();
+
+		FieldColumnPair fieldColumnPair = fieldColumnPairs.get(0);
+
+		JVar valueVar = declareStringValue(fieldColumnPair.getField());
+
+		JVar resultVar = block.decl(type, IdentifierUtil.create("result", mapValues), createLiteral(type, mapValues.getMapMissingTo()));
+
+		JConditional ifStatement = block._if(valueVar.ne(JExpr._null()));
+
+		JBlock thenBlock = ifStatement._then();
+
+		thenBlock.assign(resultVar, createLiteral(type, mapValues.getDefaultValue()));
+
+		JSwitch switchStatement = thenBlock._switch(valueVar);
+
+		Table<Integer, String, Object> table = InlineTableUtil.getContent(mapValues.getInlineTable());
+
+		Set<String> inputValues = new HashSet<>();
+
+		Map<Integer, Map<String, Object>> rows = table.rowMap();
+		for(Map<String, Object> row : rows.values()){
+			String inputValue = toString(row.get(fieldColumnPair.getColumn()));
+
+			// The first matching row wins
+			if(!inputValues.add(inputValue)){
+				continue;
+			}
+
+			JBlock caseBlock = (switchStatement._case(JExpr.lit(inputValue))).body();
+
+			caseBlock.assign(resultVar, createLiteral(type, row.get(outputColumn)));
+			caseBlock._break();
+		}
+
+		return resultVar;
+	}
+
+	private JExpression translateInterval(JVar valueVar, Interval interval){
+		Number leftMargin = interval.getLeftMargin();
+		Number rightMargin = interval.getRightMargin();
+
+		JExpression result = null;
+
+		if(leftMargin != null){
+			JExpression marginExpr = JExpr.lit(leftMargin.doubleValue());
+
+			switch(interval.getClosure()){
+				case OPEN_OPEN:
+				case OPEN_CLOSED:
+					result = valueVar.gt(marginExpr);
+					break;
+				case CLOSED_OPEN:
+				case CLOSED_CLOSED:
+					result = valueVar.gte(marginExpr);
+					break;
+				default:
+					throw new UnsupportedAttributeException(interval, interval.getClosure());
+			}
+		} // End if
+
+		if(rightMargin != null){
+			JExpression marginExpr = JExpr.lit(rightMargin.doubleValue());
+
+			JExpression rightExpr;
+
+			switch(interval.getClosure()){
+				case OPEN_OPEN:
+				case CLOSED_OPEN:
+					rightExpr = valueVar.lt(marginExpr);
+					break;
+				case OPEN_CLOSED:
+				case CLOSED_CLOSED:
+					rightExpr = valueVar.lte(marginExpr);
+					break;
+				default:
+					throw new UnsupportedAttributeException(interval, interval.getClosure());
+			}
+
+			result = (result != null ? result.cand(rightExpr) : rightExpr);
+		}
+
+		return (result != null ? result : JExpr.TRUE);
+	}
+
+	private JExpression interpolate(JVar valueVar, LinearNorm rangeStart, LinearNorm rangeEnd){
+		double origStart = (rangeStart.getOrig()).doubleValue();
+		double normStart = (rangeStart.getNorm()).doubleValue();
+
+		double origEnd = (rangeEnd.getOrig()).doubleValue();
+		double normEnd = (rangeEnd.getNorm()).doubleValue();
+
+		JExpression ratioExpr = (valueVar.minus(JExpr.lit(origStart))).div(JExpr.lit(origEnd - origStart));
+
+		return JExpr.lit(normStart).plus(ratioExpr.mul(JExpr.lit(normEnd - normStart)));
+	}
+
+	protected JVar declareNumericValue(FieldName name){
+		JVar valueVar = this.numericVars.get(name);
+		if(valueVar != null){
+			return valueVar;
+		}
+
+		ArgumentsRef argumentsRef = getArgumentsRef();
+		JBlock block = getBlock();
+		TranslationContext context = getContext();
+
+		Field<?> field = resolveField(name);
+
+		DataType dataType = field.getDataType();
+
+		switch(dataType){
+			case INTEGER:
+				{
+					JMethod method = argumentsRef.getMethod(new FieldInfo(field), context);
+
+					JVar objectVar = block.decl(method.type(), IdentifierUtil.create("object", name), JExpr.invoke(method));
+
+					valueVar = block.decl(context._ref(double.class), IdentifierUtil.create("value", name), JOp.cond(objectVar.ne(JExpr._null()), objectVar.invoke("doubleValue"), JExpr.lit(Double.NaN)));
+				}
+				break;
+			case DOUBLE:
+				{
+					JMethod method = argumentsRef.getMethod(new FieldInfo(field, new FpPrimitiveEncoder()), context);
+
+					valueVar = block.decl(context._ref(double.class), IdentifierUtil.create("value", name), JExpr.invoke(method));
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
+
+		this.numericVars.put(name, valueVar);
+
+		return valueVar;
+	}
+
+	protected JVar declareStringValue(FieldName name){
+		JVar valueVar = this.stringVars.get(name);
+		if(valueVar != null){
+			return valueVar;
+		}
+
+		ArgumentsRef argumentsRef = getArgumentsRef();
+		JBlock block = getBlock();
+		TranslationContext context = getContext();
+
+		Field<?> field = resolveField(name);
+
+		DataType dataType = field.getDataType();
+
+		switch(dataType){
+			case STRING:
+				{
+					JMethod method = argumentsRef.getMethod(new FieldInfo(field), context);
+
+					valueVar = block.decl(context.ref(String.class), IdentifierUtil.create("value", name), JExpr.invoke(method));
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
+
+		this.stringVars.put(name, valueVar);
+
+		return valueVar;
+	}
+
+	protected Field<?> resolveField(FieldName name){
+		TranslationContext context = getContext();
+
+		Field<?> field = context.resolveField(name);
+
+		if(field == null){
+			throw new IllegalArgumentException(name.getValue());
+		}
+
+		return field;
+	}
+
+	private JExpression isMissing(JExpression valueExpr){
+		TranslationContext context = getContext();
+
+		return context.staticInvoke(Double.class, "isNaN", valueExpr);
+	}
+
+	static
+	private JExpression createLiteral(JType type, Object value){
+
+		if(type.isPrimitive()){
+			return JExpr.lit(value != null ? toDouble(value) : Double.NaN);
+		}
+
+		return (value != null ? JExpr.lit(toString(value)) : JExpr._null());
+	}
+
+	/**
+	 * <p>
+	 * Checks if the expression of a derived field can be translated.
+	 * Derived fields that cannot be translated are left to the interpreter.
+	 * </p>
+	 */
+	static
+	public boolean isTranslatable(DerivedField derivedField, TranslationContext context){
+		return isTranslatable(derivedField.getExpression(), derivedField.getDataType(), context::resolveField);
+	}
+
+	/**
+	 * @param resolver A function that resolves the fields that are referenced by the expression.
+	 */
+	static
+	public boolean isTranslatable(Expression expression, DataType dataType, Function<FieldName, Field<?>> resolver){
+
+		if(expression == null || dataType == null){
+			return false;
+		}
+
+		switch(dataType){
+			case DOUBLE:
+				return isNumeric(expression, resolver);
+			case STRING:
+				return isString(expression, resolver);
+			default:
+				return false;
+		}
+	}
+
+	static
+	private boolean isNumeric(Expression expression, Function<FieldName, Field<?>> resolver){
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			DataType dataType = constant.getDataType();
+
+			if(constant.isMissing() || (DataType.FLOAT).equals(dataType) || (DataType.STRING).equals(dataType)){
+				return false;
+			}
+
+			return isNumber(constant.getValue());
+		} else
+
+		if(expression instanceof FieldRef){
+			FieldRef fieldRef = (FieldRef)expression;
+
+			Object mapMissingTo = fieldRef.getMapMissingTo();
+
+			return isNumericField(fieldRef.getField(), resolver) && (mapMissingTo == null || isNumber(mapMissingTo));
+		} else
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			if(apply.getMapMissingTo() != null || apply.getDefaultValue() != null){
+				return false;
+			}
+
+			int arity;
+
+			switch(apply.getFunction()){
+				case "+":
+				case "-":
+				case "*":
+				case "/":
+				case "pow":
+					arity = 2;
+					break;
+				case "exp":
+				case "ln":
+				case "log10":
+				case "sqrt":
+				case "abs":
+				case "floor":
+				case "ceil":
+					arity = 1;
+					break;
+				default:
+					return false;
+			}
+
+			List<Expression> expressions = apply.getExpressions();
+			if(expressions.size() != arity){
+				return false;
+			}
+
+			for(Expression argument : expressions){
+
+				if(!isNumeric(argument, resolver)){
+					return false;
+				}
+			}
+
+			if(!isValid(apply, resolver)){
+				InvalidValueTreatmentMethod invalidValueTreatment = apply.getInvalidValueTreatment();
+
+				return (InvalidValueTreatmentMethod.AS_MISSING).equals(invalidValueTreatment);
+			}
+
+			return true;
+		} else
+
+		if(expression instanceof NormContinuous){
+			NormContinuous normContinuous = (NormContinuous)expression;
+
+			List<LinearNorm> linearNorms = normContinuous.getLinearNorms();
+			if(!isNumericField(normContinuous.getField(), resolver) || linearNorms.size() < 2){
+				return false;
+			} // End if
+
+			// Extrapolating an infinite value along a flat segment yields NaN
+			if((OutlierTreatmentMethod.AS_IS).equals(normContinuous.getOutliers()) && !isFinite(new FieldRef(normContinuous.getField()), resolver)){
+				return !isFlat(linearNorms.get(0), linearNorms.get(1)) && !isFlat(linearNorms.get(linearNorms.size() - 2), linearNorms.get(linearNorms.size() - 1));
+			}
+
+			return true;
+		} else
+
+		if(expression instanceof NormDiscrete){
+			NormDiscrete normDiscrete = (NormDiscrete)expression;
+
+			Field<?> field = resolver.apply(normDiscrete.getField());
+			if(field == null){
+				return false;
+			}
+
+			DataType dataType = field.getDataType();
+			switch(dataType){
+				case STRING:
+					return true;
+				case INTEGER:
+				case DOUBLE:
+					return isNumber(normDiscrete.getValue());
+				default:
+					return false;
+			}
+		} else
+
+		if(expression instanceof Discretize){
+			Discretize discretize = (Discretize)expression;
+
+			return isDiscretize(discretize, resolver) && isNumbers(discretize.getMapMissingTo(), discretize.getDefaultValue()) && discretize.getDiscretizeBins().stream().allMatch(discretizeBin -> isNumber(discretizeBin.getBinValue()));
+		} else
+
+		if(expression instanceof MapValues){
+			MapValues mapValues = (MapValues)expression;
+
+			return isMapValues(mapValues, resolver) && isNumbers(mapValues.getMapMissingTo(), mapValues.getDefaultValue()) && (InlineTableUtil.getContent(mapValues.getInlineTable())).column(mapValues.getOutputColumn()).values().stream().allMatch(ExpressionTranslator::isNumber);
+		}
+
+		return false;
+	}
+
+	static
+	private boolean isString(Expression expression, Function<FieldName, Field<?>> resolver){
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			DataType dataType = constant.getDataType();
+
+			return !constant.isMissing() && constant.getValue() != null && (dataType == null || (DataType.STRING).equals(dataType));
+		} else
+
+		if(expression instanceof FieldRef){
+			FieldRef fieldRef = (FieldRef)expression;
+
+			return isStringField(fieldRef.getField(), resolver);
+		} else
+
+		if(expression instanceof Discretize){
+			Discretize discretize = (Discretize)expression;
+
+			return isDiscretize(discretize, resolver);
+		} else
+
+		if(expression instanceof MapValues){
+			MapValues mapValues = (MapValues)expression;
+
+			return isMapValues(mapValues, resolver);
+		}
+
+		return false;
+	}
+
+	static
+	private boolean isDiscretize(Discretize discretize, Function<FieldName, Field<?>> resolver){
+		return isNumericField(discretize.getField(), resolver) && discretize.getDiscretizeBins().stream().allMatch(discretizeBin -> discretizeBin.getInterval() != null && discretizeBin.getBinValue() != null);
+	}
+
+	static
+	private boolean isMapValues(MapValues mapValues, Function<FieldName, Field<?>> resolver){
+		InlineTable inlineTable = mapValues.getInlineTable();
+
+		if(inlineTable == null || mapValues.getOutputColumn() == null){
+			return false;
+		}
+
+		List<FieldColumnPair> fieldColumnPairs = mapValues.getFieldColumnPairs();
+		if(fieldColumnPairs.size() != 1){
+			return false;
+		}
+
+		FieldColumnPair fieldColumnPair = fieldColumnPairs.get(0);
+
+		Table<Integer, String, Object> table = InlineTableUtil.getContent(inlineTable);
+
+		return isStringField(fieldColumnPair.getField(), resolver) && table.containsColumn(fieldColumnPair.getColumn()) && table.containsColumn(mapValues.getOutputColumn());
+	}
+
+	static
+	private boolean isNumericField(FieldName name, Function<FieldName, Field<?>> resolver){
+		Field<?> field = resolver.apply(name);
+
+		if(field == null){
+			return false;
+		}
+
+		DataType dataType = field.getDataType();
+		switch(dataType){
+			// Float values would be computed using float arithmetic by the interpreter
+			case INTEGER:
+				return true;
+			case DOUBLE:
+				// The value of a derived field that is computed by the interpreter may be invalid
+				if(field instanceof DerivedField){
+					DerivedField derivedField = (DerivedField)field;
+
+					return isTranslatable(derivedField.getExpression(), dataType, resolver);
+				}
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	static
+	private boolean isStringField(FieldName name, Function<FieldName, Field<?>> resolver){
+		Field<?> field = resolver.apply(name);
+
+		return (field != null) && (DataType.STRING).equals(field.getDataType());
+	}
+
+	/**
+	 * <p>
+	 * Checks if the function is guaranteed to produce a valid result when none of its arguments is missing.
+	 * </p>
+	 */
+	static
+	private boolean isValid(Apply apply, Function<FieldName, Field<?>> resolver){
+		String function = apply.getFunction();
+		List<Expression> expressions = apply.getExpressions();
+
+		switch(function){
+			// Inf - Inf
+			case "+":
+			case "-":
+				return isFinite(expressions.get(0), resolver) || isFinite(expressions.get(1), resolver);
+			// 0 * Inf
+			case "*":
+				return (isFinite(expressions.get(0), resolver) && isFinite(expressions.get(1), resolver)) || isNonZeroConstant(expressions.get(0)) || isNonZeroConstant(expressions.get(1));
+			// 0 / 0, Inf / Inf
+			case "/":
+				return isNonZeroConstant(expressions.get(0)) || isNonZeroConstant(expressions.get(1));
+			case "exp":
+			case "abs":
+			case "floor":
+			case "ceil":
+				return true;
+			// Negative arguments
+			case "ln":
+			case "log10":
+			case "sqrt":
+				return isNonNegative(expressions.get(0), resolver);
+			// Negative base, non-integer exponent
+			case "pow":
+				return isIntegerConstant(expressions.get(1));
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Checks if the value of a numeric expression is guaranteed to be finite when it is not missing.
+	 * </p>
+	 */
+	static
+	private boolean isFinite(Expression expression, Function<FieldName, Field<?>> resolver){
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			return isFinite(constant.getValue());
+		} else
+
+		if(expression instanceof FieldRef){
+			FieldRef fieldRef = (FieldRef)expression;
+
+			Field<?> field = resolver.apply(fieldRef.getField());
+			if(field == null || !isFinite(fieldRef.getMapMissingTo())){
+				return false;
+			}
+
+			DataType dataType = field.getDataType();
+			switch(dataType){
+				case INTEGER:
+					return true;
+				case DOUBLE:
+					if(field instanceof DerivedField){
+						DerivedField derivedField = (DerivedField)field;
+
+						return isFinite(derivedField.getExpression(), resolver);
+					}
+					return false;
+				default:
+					return false;
+			}
+		} else
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			List<Expression> expressions = apply.getExpressions();
+
+			switch(apply.getFunction()){
+				case "abs":
+				case "floor":
+				case "ceil":
+					return isFinite(expressions.get(0), resolver);
+				default:
+					return false;
+			}
+		} else
+
+		if(expression instanceof NormContinuous){
+			NormContinuous normContinuous = (NormContinuous)expression;
+
+			return !(OutlierTreatmentMethod.AS_IS).equals(normContinuous.getOutliers()) && isFinite(normContinuous.getMapMissingTo());
+		} else
+
+		if(expression instanceof NormDiscrete){
+			NormDiscrete normDiscrete = (NormDiscrete)expression;
+
+			return isFinite(normDiscrete.getMapMissingTo());
+		} else
+
+		if(expression instanceof Discretize){
+			Discretize discretize = (Discretize)expression;
+
+			return isFinite(discretize.getMapMissingTo(), discretize.getDefaultValue()) && discretize.getDiscretizeBins().stream().allMatch(discretizeBin -> isFinite(discretizeBin.getBinValue()));
+		} else
+
+		if(expression instanceof MapValues){
+			MapValues mapValues = (MapValues)expression;
+
+			return isFinite(mapValues.getMapMissingTo(), mapValues.getDefaultValue()) && (InlineTableUtil.getContent(mapValues.getInlineTable())).column(mapValues.getOutputColumn()).values().stream().allMatch(ExpressionTranslator::isFinite);
+		}
+
+		return false;
+	}
+
+	static
+	private boolean isNonNegative(Expression expression, Function<FieldName, Field<?>> resolver){
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			return toDouble(constant.getValue()) >= 0d;
+		} else
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			switch(apply.getFunction()){
+				case "exp":
+				case "abs":
+				case "sqrt":
+					return true;
+				default:
+					return false;
+			}
+		} else
+
+		if(expression instanceof NormDiscrete){
+			NormDiscrete normDiscrete = (NormDiscrete)expression;
+
+			Number mapMissingTo = normDiscrete.getMapMissingTo();
+
+			return (mapMissingTo == null || mapMissingTo.doubleValue() >= 0d);
+		}
+
+		return false;
+	}
+
+	static
+	private boolean isNonZeroConstant(Expression expression){
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			double value = toDouble(constant.getValue());
+
+			return Double.isFinite(value) && value != 0d;
+		}
+
+		return false;
+	}
+
+	static
+	private boolean isIntegerConstant(Expression expression){
+
+		if(expression instanceof Constant){
+			Constant constant = (Constant)expression;
+
+			double value = toDouble(constant.getValue());
+
+			return Double.isFinite(value) && value == Math.rint(value);
+		}
+
+		return false;
+	}
+
+	static
+	private boolean isFlat(LinearNorm rangeStart, LinearNorm rangeEnd){
+		return (rangeStart.getNorm()).doubleValue() == (rangeEnd.getNorm()).doubleValue();
+	}
+
+	static
+	private boolean isFinite(Object... values){
+
+		for(Object value : values){
+
+			if(value != null && !Double.isFinite(toDouble(value))){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	static
+	private boolean isNumbers(Object... values){
+
+		for(Object value : values){
+
+			if(value != null && !isNumber(value)){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	static
+	private boolean isNumber(Object value){
+
+		if(value == null){
+			return false;
+		}
+
+		// A NaN value would be indistinguishable from a missing value
+		try {
+			return !Double.isNaN(toDouble(value));
+		} catch(IllegalArgumentException iae){
+			return false;
+		}
+	}
+
+	static
+	private double toDouble(Object value){
+		return ((Number)TypeUtil.parseOrCast(DataType.DOUBLE, value)).doubleValue();
+	}
+
+	static
+	private String toString(Object value){
+		return (String)TypeUtil.parseOrCast(DataType.STRING, value);
+	}
+
+	public ArgumentsRef getArgumentsRef(){
+		return this.argumentsRef;
+	}
+
+	private void setArgumentsRef(ArgumentsRef argumentsRef){
+		this.argumentsRef = argumentsRef;
+	}
+
+	public JBlock getBlock(){
+		return this.block;
+	}
+
+	private void setBlock(JBlock block){
+		this.block = block;
+	}
+
+	public TranslationContext getContext(){
+		return this.context;
+	}
+
+	private void setContext(TranslationContext context){
+		this.context = context;
+	}
+}
@@ -18,8 +18,13 @@
  */
 package org.jpmml.translator;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.dmg.pmml.Field;
 import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MiningField;
 
 public class FieldInfo {
 
@@ -29,6 +34,8 @@ public class FieldInfo {
 
 	private Encoder encoder = null;
 
+	private List<MiningField> miningFields = Collections.emptyList();
+
 	private String variableName = null;
 
 
@@ -41,6 +48,23 @@ public class FieldInfo {
 		setEncoder(encoder);
 	}
 
+	/**
+	 * <p>
+	 * Creates a copy of the specified field info,
+	 * whose value is additionally subjected to the input value treatment of a nested model.
+	 * </p>
+	 */
+	public FieldInfo(FieldInfo fieldInfo, MiningField miningField){
+		setField(fieldInfo.getField());
+		setPrimary(fieldInfo.isPrimary());
+		setEncoder(fieldInfo.getEncoder());
+
+		List<MiningField> miningFields = new ArrayList<>(fieldInfo.getMiningFields());
+		miningFields.add(miningField);
+
+		setMiningFields(miningFields);
+	}
+
 	public Field<?> getField(){
 		return this.field;
 	}
@@ -65,6 +89,19 @@ public class FieldInfo {
 		this.encoder = encoder;
 	}
 
+	/**
+	 * <p>
+	 * Gets the input value treatments of nested models, ordered from the outermost to the innermost.
+	 * </p>
+	 */
+	public List<MiningField> getMiningFields(){
+		return this.miningFields;
+	}
+
+	public void setMiningFields(List<MiningField> miningFields){
+		this.miningFields = miningFields;
+	}
+
 	public String getVariableName(){
 
 		if(this.variableName == null){
@@ -90,6 +127,11 @@ public class FieldInfo {
 			result = (result + "2" + encoder.getName());
 		}
 
+		List<MiningField> miningFields = getMiningFields();
+		for(MiningField miningField : miningFields){
+			result = IdentifierUtil.create(result, miningField);
+		}
+
 		return result;
 	}
 }
\ No newline at end of file
@@ -23,9 +23,12 @@ import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JPrimitiveType;
-import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.Field;
 import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.UnsupportedAttributeException;
 
 public class FpPrimitiveEncoder implements Encoder {
 
@@ -54,32 +57,40 @@ public class FpPrimitiveEncoder implements Encoder {
 	}
 
 	@Override
-	public JMethod createEncoderMethod(JType type, FieldName name, TranslationContext context){
+	public JMethod createEncoderMethod(Field<?> field, TranslationContext context){
 		JDefinedClass owner = context.getOwner();
 
-		JPrimitiveType primitiveType = (JPrimitiveType)type.unboxify();
+		FieldName name = field.getName();
+		DataType dataType = field.getDataType();
+
+		JPrimitiveType primitiveType;
+
+		JExpression nanExpr;
+
+		switch(dataType){
+			case FLOAT:
+				primitiveType = (JPrimitiveType)context._ref(float.class);
+				nanExpr = JExpr.lit(Float.NaN);
+				break;
+			case DOUBLE:
+				primitiveType = (JPrimitiveType)context._ref(double.class);
+				nanExpr = JExpr.lit(Double.NaN);
+				break;
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
 
 		JMethod encoderMethod = owner.method(ModelTranslator.MEMBER_PRIVATE, primitiveType, IdentifierUtil.create("toFloatingPointPrimitive", name));
 
-		JVar valueParam = encoderMethod.param(type, "value");
+		JVar valueParam = encoderMethod.param(FieldValue.class, "value");
 
 		try {
 			context.pushScope(new MethodScope(encoderMethod));
 
-			JExpression nanExpr;
-
-			switch(primitiveType.name()){
-				case "float":
-					nanExpr = JExpr.lit(Float.NaN);
-					break;
-				case "double":
-					nanExpr = JExpr.lit(Double.NaN);
-					break;
-				default:
-					throw new IllegalArgumentException(primitiveType.fullName());
-			}
+			FieldValueRef fieldValueRef = new FieldValueRef(valueParam);
 
-			context._return(valueParam.eq(JExpr._null()), nanExpr, valueParam);
+			// Unwrap the Number value as-is, and convert it to the primitive value in one go
+			context._return(valueParam.eq(JExpr._null()), nanExpr, (fieldValueRef.asNumber()).invoke(primitiveType.name() + "Value"));
 		} finally {
 			context.popScope();
 		}
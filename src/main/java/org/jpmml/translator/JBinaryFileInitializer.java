@@ -33,6 +33,7 @@ import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
 import com.sun.codemodel.JFormatter;
 import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JPackage;
@@ -230,6 +231,132 @@ public class JBinaryFileInitializer extends JClassInitializer {
 		return constant;
 	}
 
+	public JFieldVar initIntArray(String name, int[] values){
+		TranslationContext context = getContext();
+		JBinaryFile binaryFile = getBinaryFile();
+
+		JDefinedClass owner = context.getOwner();
+
+		JType intType = context._ref(int.class);
+
+		JFieldVar constant = owner.field(ModelTranslator.MEMBER_PRIVATE, intType.array(), name, JExpr.newArray(intType, values.length));
+
+		try(OutputStream os = binaryFile.getDataStore()){
+			DataOutput dataOutput = new DataOutputStream(os);
+
+			for(int value : values){
+				dataOutput.writeInt(value);
+			}
+		} catch(IOException ioe){
+			throw new RuntimeException(ioe);
+		}
+
+		JForLoop forLoop = this.tryBody._for();
+
+		JVar indexVar = forLoop.init(intType, "i", JExpr.lit(0));
+		forLoop.test(indexVar.lt(constant.ref("length")));
+		forLoop.update(indexVar.incr());
+
+		forLoop.body().assign(constant.component(indexVar), this.dataInputVar.invoke("readInt"));
+
+		return constant;
+	}
+
+	public JFieldVar initFpPrimitiveArray(String name, MathContext mathContext, Number[] values){
+		TranslationContext context = getContext();
+		JBinaryFile binaryFile = getBinaryFile();
+
+		JDefinedClass owner = context.getOwner();
+
+		JType intType = context._ref(int.class);
+		JType valueType;
+
+		String readMethod;
+
+		switch(mathContext){
+			case FLOAT:
+				valueType = context._ref(float.class);
+				readMethod = "readFloat";
+				break;
+			case DOUBLE:
+				valueType = context._ref(double.class);
+				readMethod = "readDouble";
+				break;
+			default:
+				throw new IllegalArgumentException();
+		}
+
+		JFieldVar constant = owner.field(ModelTranslator.MEMBER_PRIVATE, valueType.array(), name, JExpr.newArray(valueType, values.length));
+
+		try(OutputStream os = binaryFile.getDataStore()){
+			DataOutput dataOutput = new DataOutputStream(os);
+
+			for(Number value : values){
+
+				switch(mathContext){
+					case FLOAT:
+						dataOutput.writeFloat(value.floatValue());
+						break;
+					case DOUBLE:
+						dataOutput.writeDouble(value.doubleValue());
+						break;
+					default:
+						throw new IllegalArgumentException();
+				}
+			}
+		} catch(IOException ioe){
+			throw new RuntimeException(ioe);
+		}
+
+		JForLoop forLoop = this.tryBody._for();
+
+		JVar indexVar = forLoop.init(intType, "i", JExpr.lit(0));
+		forLoop.test(indexVar.lt(constant.ref("length")));
+		forLoop.update(indexVar.incr());
+
+		forLoop.body().assign(constant.component(indexVar), this.dataInputVar.invoke(readMethod));
+
+		return constant;
+	}
+
+	public JFieldVar initStringArray(String name, String[] values){
+		TranslationContext context = getContext();
+		JBinaryFile binaryFile = getBinaryFile();
+
+		JDefinedClass owner = context.getOwner();
+
+		JType intType = context._ref(int.class);
+		JType stringType = context.ref(String.class);
+
+		JFieldVar constant = owner.field(ModelTranslator.MEMBER_PRIVATE, stringType.array(), name, JExpr.newArray(stringType, values.length));
+
+		try(OutputStream os = binaryFile.getDataStore()){
+			DataOutput dataOutput = new DataOutputStream(os);
+
+			for(String value : values){
+				dataOutput.writeBoolean(value != null);
+
+				if(value != null){
+					dataOutput.writeUTF(value);
+				}
+			}
+		} catch(IOException ioe){
+			throw new RuntimeException(ioe);
+		}
+
+		JForLoop forLoop = this.tryBody._for();
+
+		JVar indexVar = forLoop.init(intType, "i", JExpr.lit(0));
+		forLoop.test(indexVar.lt(constant.ref("length")));
+		forLoop.update(indexVar.incr());
+
+		JBlock block = forLoop.body();
+
+		block._if(this.dataInputVar.invoke("readBoolean"))._then().assign(constant.component(indexVar), this.dataInputVar.invoke("readUTF"));
+
+		return constant;
+	}
+
 	public JBinaryFile getBinaryFile(){
 		return this.binaryFile;
 	}
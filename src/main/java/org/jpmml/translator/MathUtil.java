@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * <p>
+ * Floating-point arithmetic helpers that are shared between model translators.
+ * </p>
+ */
+public class MathUtil {
+
+	private MathUtil(){
+	}
+
+	static
+	public JExpression toPrimitive(JVar variable, JPrimitiveType type){
+		JType variableType = variable.type();
+
+		if(variableType.isPrimitive()){
+			return (variableType).equals(type) ? variable : JExpr.cast(type, variable);
+		}
+
+		return variable.invoke(type.name() + "Value");
+	}
+
+	static
+	public JExpression castPrimitive(JExpression expr, JPrimitiveType type){
+
+		// Math functions operate on double values
+		switch(type.name()){
+			case "float":
+				return JExpr.cast(type, expr);
+			case "double":
+				return expr;
+			default:
+				throw new IllegalArgumentException(type.fullName());
+		}
+	}
+
+	/**
+	 * <p>
+	 * 1 / (1 + exp(-x))
+	 * </p>
+	 */
+	static
+	public JExpression logistic(JExpression valueExpr, TranslationContext context){
+		return JExpr.lit(1d).div(JExpr.lit(1d).plus(context.staticInvoke(Math.class, "exp", valueExpr.minus())));
+	}
+
+	/**
+	 * <p>
+	 * 1 - exp(-exp(x))
+	 * </p>
+	 */
+	static
+	public JExpression inverseCloglog(JExpression valueExpr, TranslationContext context){
+		return JExpr.lit(1d).minus(context.staticInvoke(Math.class, "exp", (context.staticInvoke(Math.class, "exp", valueExpr)).minus()));
+	}
+
+	/**
+	 * <p>
+	 * exp(-exp(-x))
+	 * </p>
+	 */
+	static
+	public JExpression inverseLoglog(JExpression valueExpr, TranslationContext context){
+		return context.staticInvoke(Math.class, "exp", (context.staticInvoke(Math.class, "exp", valueExpr.minus())).minus());
+	}
+
+	/**
+	 * <p>
+	 * 0.5 + atan(x) / pi
+	 * </p>
+	 */
+	static
+	public JExpression inverseCauchit(JExpression valueExpr, TranslationContext context){
+		return JExpr.lit(0.5d).plus((context.staticInvoke(Math.class, "atan", valueExpr)).div(context.ref(Math.class).staticRef("PI")));
+	}
+
+	static
+	public JExpression sum(List<? extends JExpression> exprs){
+		JExpression result = exprs.get(0);
+
+		for(int i = 1; i < exprs.size(); i++){
+			result = result.plus(exprs.get(i));
+		}
+
+		return result;
+	}
+
+	static
+	public JExpression max(List<? extends JExpression> exprs, TranslationContext context){
+		JExpression result = exprs.get(0);
+
+		for(int i = 1; i < exprs.size(); i++){
+			result = context.staticInvoke(Math.class, "max", result, exprs.get(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Declares the max, exp and sum variables of a numerically stable softmax.
+	 * </p>
+	 *
+	 * @param expNames The names of exp variables, one per value expression.
+	 *
+	 * @return The probability expressions.
+	 */
+	static
+	public List<JExpression> softmax(List<? extends JExpression> valueExprs, List<String> expNames, String maxName, String sumName, JPrimitiveType type, TranslationContext context){
+
+		if(valueExprs.size() != expNames.size()){
+			throw new IllegalArgumentException();
+		}
+
+		JVar maxVar = context.declare(type, maxName, max(valueExprs, context));
+
+		List<JVar> expVars = new ArrayList<>();
+
+		for(int i = 0; i < valueExprs.size(); i++){
+			JExpression expExpr = context.staticInvoke(Math.class, "exp", (valueExprs.get(i)).minus(maxVar));
+
+			expVars.add(context.declare(type, expNames.get(i), castPrimitive(expExpr, type)));
+		}
+
+		JVar sumVar = context.declare(type, sumName, sum(expVars));
+
+		List<JExpression> result = new ArrayList<>();
+
+		for(JVar expVar : expVars){
+			result.add(expVar.div(sumVar));
+		}
+
+		return result;
+	}
+}
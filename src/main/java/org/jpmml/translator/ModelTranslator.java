@@ -20,6 +20,7 @@ package org.jpmml.translator;
 
 import java.lang.reflect.TypeVariable;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -28,33 +29,54 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Iterables;
 import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JConditional;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
 import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JTryBlock;
 import com.sun.codemodel.JType;
 import com.sun.codemodel.JTypeVar;
 import com.sun.codemodel.JVar;
+import com.sun.codemodel.fmt.JPropertyFile;
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
 import org.dmg.pmml.Field;
 import org.dmg.pmml.FieldName;
 import org.dmg.pmml.HasFieldReference;
 import org.dmg.pmml.MathContext;
+import org.dmg.pmml.MiningField;
 import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.MiningSchema;
 import org.dmg.pmml.Model;
+import org.dmg.pmml.Output;
+import org.dmg.pmml.OutputField;
 import org.dmg.pmml.PMML;
 import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.ResultFeature;
 import org.dmg.pmml.Target;
 import org.dmg.pmml.Visitor;
 import org.dmg.pmml.VisitorAction;
 import org.jpmml.evaluator.EvaluationContext;
+import org.jpmml.evaluator.HasEntityId;
+import org.jpmml.evaluator.HasProbability;
+import org.jpmml.evaluator.InputField;
+import org.jpmml.evaluator.InputFieldUtil;
 import org.jpmml.evaluator.ModelManager;
 import org.jpmml.evaluator.TargetField;
+import org.jpmml.evaluator.TypeUtil;
 import org.jpmml.evaluator.UnsupportedAttributeException;
 import org.jpmml.evaluator.Value;
 import org.jpmml.evaluator.ValueFactory;
@@ -90,6 +112,8 @@ public class ModelTranslator<M extends Model> extends ModelManager<M> {
 			context.pushOwner(javaModelClazz);
 
 			createEvaluateMethod(context);
+
+			translateReleaseMethod(context);
 		} finally {
 			context.popOwner();
 		}
@@ -110,6 +134,9 @@ public class ModelTranslator<M extends Model> extends ModelManager<M> {
 				{
 					JMethod regressorMethod = translateRegressor(context);
 
+					createEvaluateBatchMethod(regressorMethod, context);
+					createEvaluateRawMethod(regressorMethod, context);
+					createPredictMethod(regressorMethod, context);
 					createEvaluateRegressionMethod(regressorMethod, context);
 				}
 				break;
@@ -117,81 +144,950 @@ public class ModelTranslator<M extends Model> extends ModelManager<M> {
 				{
 					JMethod classifierMethod = translateClassifier(context);
 
+					createEvaluateBatchMethod(classifierMethod, context);
+					createEvaluateRawMethod(classifierMethod, context);
+					createPredictMethod(classifierMethod, context);
 					createEvaluateClassificationMethod(classifierMethod, context);
 				}
 				break;
+			case CLUSTERING:
+				{
+					JMethod clustererMethod = translateClusterer(context);
+
+					// The JavaModel class does not declare an evaluateClustering method
+					createEvaluateRawMethod(clustererMethod, context);
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(model, miningFunction);
+		}
+	}
+
+	public JMethod translateRegressor(TranslationContext context){
+		throw new UnsupportedOperationException();
+	}
+
+	public JMethod translateClassifier(TranslationContext context){
+		throw new UnsupportedOperationException();
+	}
+
+	public JMethod translateClusterer(TranslationContext context){
+		throw new UnsupportedOperationException();
+	}
+
+	public JMethod createEvaluateRegressionMethod(JMethod evaluateMethod, TranslationContext context){
+		M model = getModel();
+
+		JMethod evaluateRegressionMethod = createEvaluatorMethod("evaluateRegression", context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateRegressionMethod));
+
+			context.pushScope(declareArgumentsWorkspace(context));
+
+			try {
+				translateRegressionResult(evaluateMethod, context);
+			} finally {
+				context.popScope();
+			}
+		} finally {
+			context.popScope();
+		}
+
+		// XXX
+		model.setTargets(null);
+
+		return evaluateRegressionMethod;
+	}
+
+	public JMethod createEvaluateClassificationMethod(JMethod evaluateMethod, TranslationContext context){
+		JMethod evaluateClassificationMethod = createEvaluatorMethod("evaluateClassification", context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateClassificationMethod));
+
+			context.pushScope(declareArgumentsWorkspace(context));
+
+			try {
+				translateClassificationResult(evaluateMethod, context);
+			} finally {
+				context.popScope();
+			}
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateClassificationMethod;
+	}
+
+	/**
+	 * <p>
+	 * Creates a trusted-input scoring method <code>evaluateRaw(Map&lt;FieldName, ?&gt; values)</code>,
+	 * which loads already-typed raw values straight into the <code>Arguments</code> object.
+	 * The result is the same as that of the <code>evaluateRegression</code> or <code>evaluateClassification</code> method.
+	 * Clustering models are not supported by the <code>JavaModel</code> class, and can only be evaluated using this method.
+	 * </p>
+	 *
+	 * <p>
+	 * If all output fields can be translated, then the result additionally contains their values,
+	 * the same way as the result of {@link org.jpmml.evaluator.Evaluator#evaluate(Map)}.
+	 * </p>
+	 *
+	 * <p>
+	 * Raw values are not prepared in any way.
+	 * Continuous float and double values may be any {@link Number}s,
+	 * all other values must be instances of the field data type Java class.
+	 * Missing values are <code>null</code> references.
+	 * </p>
+	 *
+	 * @return The raw scoring method, or <code>null</code> if the model depends on fields other than active fields, or some active field has input value treatments.
+	 *
+	 * @see RawEvaluator
+	 */
+	public JMethod createEvaluateRawMethod(JMethod evaluateMethod, TranslationContext context){
+		M model = getModel();
+
+		MiningFunction miningFunction = model.getMiningFunction();
+		switch(miningFunction){
+			case REGRESSION:
+			case CLASSIFICATION:
+			case CLUSTERING:
+				break;
+			default:
+				return null;
+		}
+
+		JDefinedClass owner = context.getOwner();
+
+		JDefinedClass argumentsClazz = ensureArgumentsType(context);
+
+		Map<String, FieldInfo> argumentFieldInfos = getDirectlyLoadableFieldInfos(argumentsClazz, context);
+		if(argumentFieldInfos == null){
+			return null;
+		}
+
+		owner._implements(RawEvaluator.class);
+
+		JMethod method = owner.method(JMod.PUBLIC, context.ref(Map.class).narrow(Arrays.asList(context.ref(FieldName.class), context.ref(Object.class).wildcard())), "evaluateRaw");
+		method.annotate(Override.class);
+
+		method.param(context.ref(Map.class).narrow(Arrays.asList(context.ref(FieldName.class), context.ref(Object.class).wildcard())), "values");
+
+		JMethod delegateMethod = createGenericDelegateMethod(method, context);
+
+		JTypeVar numberTypeVar = delegateMethod.typeParams()[0];
+
+		JVar valuesParam = (delegateMethod.params()).get(0);
+
+		try {
+			context.pushScope(new MethodScope(delegateMethod));
+
+			declareValueFactory(numberTypeVar, context);
+
+			JVar argumentsVar = context.declare(argumentsClazz, Scope.VAR_ARGUMENTS, JExpr._new(argumentsClazz));
+
+			Map<FieldName, JVar> valueVars = new LinkedHashMap<>();
+
+			loadArguments(argumentsVar, argumentFieldInfos, (fieldInfo) -> {
+				Field<?> field = fieldInfo.getField();
+
+				FieldName name = field.getName();
+
+				JVar valueVar = valueVars.get(name);
+				if(valueVar == null){
+					valueVar = context.declare(Object.class, IdentifierUtil.create("value", name), valuesParam.invoke("get").arg(context.constantFieldName(name)));
+
+					valueVars.put(name, valueVar);
+				}
+
+				return createRawArgument(fieldInfo, argumentsClazz, valueVar, context);
+			}, context);
+
+			List<OutputField> outputFields = getTranslatableOutputFields(evaluateMethod, context);
+
+			switch(miningFunction){
+				case REGRESSION:
+					if(outputFields != null){
+						translateRegressionOutput(evaluateMethod, outputFields, context);
+					} else
+
+					{
+						translateRegressionResult(evaluateMethod, context);
+					}
+					break;
+				case CLASSIFICATION:
+					if(outputFields != null){
+						translateClassificationOutput(evaluateMethod, outputFields, context);
+					} else
+
+					{
+						translateClassificationResult(evaluateMethod, context);
+					}
+					break;
+				case CLUSTERING:
+					translateClusteringResult(evaluateMethod, context);
+					break;
+				default:
+					throw new UnsupportedAttributeException(model, miningFunction);
+			}
+		} finally {
+			context.popScope();
+		}
+
+		return method;
+	}
+
+	private void translateRegressionResult(JMethod evaluateMethod, TranslationContext context){
+		TargetField targetField = getTargetField();
+
+		JInvocation methodInvocation = createEvaluatorMethodInvocation(evaluateMethod, context);
+
+		JType valueClazz = context.ref(Value.class);
+
+		boolean valueTyped = ((evaluateMethod.type()).erasure()).equals(valueClazz);
+
+		if(!valueTyped){
+			methodInvocation = context.getValueFactoryVariable().newValue(methodInvocation);
+		}
+
+		ValueBuilder valueBuilder = new ValueBuilder(context)
+			.declare("value", methodInvocation);
+
+		if(valueTyped){
+			context._returnIf((valueBuilder.getVariable()).eq(JExpr._null()), context.staticInvoke(Collections.class, "singletonMap", targetField.getName(), JExpr._null()));
+		}
+
+		Target target = targetField.getTarget();
+		if(target != null){
+			translateRegressorTarget(target, valueBuilder);
+		}
+
+		JVar valueVar = valueBuilder.getVariable();
+
+		context._return(context.staticInvoke(Collections.class, "singletonMap", targetField.getName(), valueVar.invoke("getValue")));
+	}
+
+	private void translateClassificationResult(JMethod evaluateMethod, TranslationContext context){
+		TargetField targetField = getTargetField();
+
+		ClassificationBuilder classificationBuilder = new ClassificationBuilder(context)
+			.declare("classification", createEvaluatorMethodInvocation(evaluateMethod, context));
+
+		context._returnIf((classificationBuilder.getVariable()).eq(JExpr._null()), context.staticInvoke(Collections.class, "singletonMap", context.constantFieldName(targetField.getName()), JExpr._null()));
+
+		classificationBuilder.computeResult(targetField.getDataType());
+
+		context._return(context.staticInvoke(Collections.class, "singletonMap", context.constantFieldName(targetField.getName()), classificationBuilder));
+	}
+
+	private void translateClusteringResult(JMethod evaluateMethod, TranslationContext context){
+		context._return(context.staticInvoke(Collections.class, "singletonMap", context.constantFieldName(getTargetName()), createEvaluatorMethodInvocation(evaluateMethod, context)));
+	}
+
+	private void translateRegressionOutput(JMethod evaluateMethod, List<OutputField> outputFields, TranslationContext context){
+		TargetField targetField = getTargetField();
+
+		JInvocation methodInvocation = createEvaluatorMethodInvocation(evaluateMethod, context);
+
+		JExpression valueExpr = methodInvocation;
+
+		if(!((evaluateMethod.type()).erasure()).equals(context.ref(Value.class))){
+			JVar numberVar = context.declare(Number.class, "number", methodInvocation);
+
+			valueExpr = JOp.cond(numberVar.ne(JExpr._null()), (context.getValueFactoryVariable()).newValue(numberVar), JExpr._null());
+		}
+
+		ValueBuilder valueBuilder = new ValueBuilder(context);
+
+		valueBuilder.declare(context.getValueType(), "value", valueExpr);
+
+		JVar valueVar = valueBuilder.getVariable();
+
+		JVar predictionVar = context.declare(Number.class, "prediction", JExpr._null());
+
+		JConditional ifStatement = (context.block())._if(valueVar.ne(JExpr._null()));
+
+		context.pushScope(new Scope(ifStatement._then()));
+
+		try {
+			Target target = targetField.getTarget();
+			if(target != null){
+				translateRegressorTarget(target, valueBuilder);
+			}
+
+			context.block().assign(predictionVar, valueVar.invoke("getValue"));
+		} finally {
+			context.popScope();
+		}
+
+		translateOutputFields(outputFields, predictionVar, predictionVar, null, context);
+	}
+
+	private void translateClassificationOutput(JMethod evaluateMethod, List<OutputField> outputFields, TranslationContext context){
+		TargetField targetField = getTargetField();
+
+		ClassificationBuilder classificationBuilder = new ClassificationBuilder(context)
+			.declare("classification", createEvaluatorMethodInvocation(evaluateMethod, context));
+
+		JVar classificationVar = classificationBuilder.getVariable();
+
+		JVar predictionVar = context.declare(Object.class, "prediction", JExpr._null());
+
+		JConditional ifStatement = (context.block())._if(classificationVar.ne(JExpr._null()));
+
+		context.pushScope(new Scope(ifStatement._then()));
+
+		try {
+			classificationBuilder.computeResult(targetField.getDataType());
+
+			context.block().assign(predictionVar, classificationVar.invoke("getResult"));
+		} finally {
+			context.popScope();
+		}
+
+		translateOutputFields(outputFields, classificationVar, predictionVar, classificationVar, context);
+	}
+
+	/**
+	 * <p>
+	 * Translates output fields into a result map, which holds the target value followed by the values of final output fields.
+	 * </p>
+	 *
+	 * <p>
+	 * Numeric output field values are computed as <code>double</code> values, with <code>Double.NaN</code> denoting a missing value.
+	 * Transformed values and decisions may refer to preceding output fields.
+	 * </p>
+	 *
+	 * @param predictionVar The predicted value, or <code>null</code>.
+	 * @param classificationVar The classification result, or <code>null</code> if the model is a regression model.
+	 */
+	private void translateOutputFields(List<OutputField> outputFields, JExpression targetValueExpr, JVar predictionVar, JVar classificationVar, TranslationContext context){
+		TargetField targetField = getTargetField();
+
+		Map<FieldName, OutputField> fields = new HashMap<>();
+
+		Map<FieldName, JVar> numericVars = new HashMap<>();
+		Map<FieldName, JVar> stringVars = new HashMap<>();
+
+		ExpressionTranslator expressionTranslator = new ExpressionTranslator(null, context.block(), context){
+
+			@Override
+			protected Field<?> resolveField(FieldName name){
+				return fields.get(name);
+			}
+
+			@Override
+			protected JVar declareNumericValue(FieldName name){
+				return numericVars.get(name);
+			}
+
+			@Override
+			protected JVar declareStringValue(FieldName name){
+				return stringVars.get(name);
+			}
+		};
+
+		JVar resultsVar = context.declare(context.ref(Map.class).narrow(Arrays.asList(context.ref(FieldName.class), context.ref(Object.class))), "results", context._new(context.ref(LinkedHashMap.class)));
+
+		(context.block()).add(resultsVar.invoke("put").arg(context.constantFieldName(targetField.getName())).arg(targetValueExpr));
+
+		for(OutputField outputField : outputFields){
+			FieldName name = outputField.getName();
+			DataType dataType = outputField.getDataType();
+			ResultFeature resultFeature = outputField.getResultFeature();
+
+			JExpression valueExpr;
+
+			switch(resultFeature){
+				case PREDICTED_VALUE:
+					{
+						if(classificationVar != null){
+							valueExpr = JExpr.cast(context.ref(String.class), predictionVar);
+						} else
+
+						{
+							valueExpr = JOp.cond(predictionVar.ne(JExpr._null()), predictionVar.invoke("doubleValue"), JExpr.lit(Double.NaN));
+						}
+					}
+					break;
+				case PROBABILITY:
+					{
+						Object value = outputField.getValue();
+
+						JExpression categoryExpr = (value != null ? PMMLObjectUtil.createExpression(TypeUtil.parseOrCast(targetField.getDataType(), value), context) : classificationVar.invoke("getResult"));
+
+						JExpression hasProbabilityExpr = JExpr.cast(context.ref(HasProbability.class), classificationVar);
+
+						JVar probabilityVar = context.declare(Double.class, IdentifierUtil.create("probability", name), JOp.cond(classificationVar.ne(JExpr._null()), hasProbabilityExpr.invoke("getProbability").arg(categoryExpr), JExpr._null()));
+
+						valueExpr = JOp.cond(probabilityVar.ne(JExpr._null()), probabilityVar.invoke("doubleValue"), JExpr.lit(Double.NaN));
+					}
+					break;
+				case ENTITY_ID:
+					{
+						JExpression hasEntityIdExpr = JExpr.cast(context.ref(HasEntityId.class), classificationVar);
+
+						valueExpr = JOp.cond(classificationVar.ne(JExpr._null()), hasEntityIdExpr.invoke("getEntityId"), JExpr._null());
+					}
+					break;
+				case TRANSFORMED_VALUE:
+				case DECISION:
+					{
+						valueExpr = expressionTranslator.translate(outputField.getExpression(), dataType);
+					}
+					break;
+				default:
+					throw new UnsupportedAttributeException(outputField, resultFeature);
+			}
+
+			JExpression resultExpr;
+
+			switch(dataType){
+				case FLOAT:
+				case DOUBLE:
+					{
+						JVar valueVar = context.declare(double.class, IdentifierUtil.create("value", name), valueExpr);
+
+						numericVars.put(name, valueVar);
+
+						resultExpr = JOp.cond(context.staticInvoke(Double.class, "isNaN", valueVar), JExpr._null(), (DataType.FLOAT).equals(dataType) ? JExpr.cast(context._ref(float.class), valueVar) : valueVar);
+					}
+					break;
+				case STRING:
+					{
+						JVar valueVar = context.declare(String.class, IdentifierUtil.create("value", name), valueExpr);
+
+						stringVars.put(name, valueVar);
+
+						resultExpr = valueVar;
+					}
+					break;
+				default:
+					throw new UnsupportedAttributeException(outputField, dataType);
+			}
+
+			fields.put(name, outputField);
+
+			// Non-final output fields are available to subsequent output fields, but are not part of the result
+			if(outputField.isFinalResult()){
+				(context.block()).add(resultsVar.invoke("put").arg(context.constantFieldName(name)).arg(resultExpr));
+			}
+		}
+
+		context._return(resultsVar);
+	}
+
+	/**
+	 * <p>
+	 * Gets the output fields of this model, if all of them can be translated.
+	 * </p>
+	 *
+	 * @param evaluateMethod The method that computes the model result.
+	 *
+	 * @return The output fields, or <code>null</code> if the model does not have any, or some of them cannot be translated.
+	 */
+	private List<OutputField> getTranslatableOutputFields(JMethod evaluateMethod, TranslationContext context){
+		M model = getModel();
+
+		Output output = model.getOutput();
+		if(output == null || !output.hasOutputFields()){
+			return null;
+		}
+
+		MiningFunction miningFunction = model.getMiningFunction();
+		TargetField targetField = getTargetField();
+
+		JType resultType = evaluateMethod.type();
+
+		// Entity identifiers can be queried only if the declared type of the model result provides them
+		boolean hasEntityId = (resultType instanceof JClass) && (context.ref(HasEntityId.class)).isAssignableFrom(((JClass)resultType).erasure());
+
+		Map<FieldName, Field<?>> fields = new HashMap<>();
+
+		List<OutputField> outputFields = output.getOutputFields();
+		for(OutputField outputField : outputFields){
+
+			if(!isTranslatable(outputField, miningFunction, targetField, hasEntityId, fields::get)){
+				return null;
+			}
+
+			fields.put(outputField.getName(), outputField);
+		}
+
+		return outputFields;
+	}
+
+	static
+	private boolean isTranslatable(OutputField outputField, MiningFunction miningFunction, TargetField targetField, boolean hasEntityId, Function<FieldName, Field<?>> resolver){
+		FieldName targetName = outputField.getTargetField();
+		DataType dataType = outputField.getDataType();
+		Integer rank = outputField.getRank();
+
+		if(outputField.getSegmentId() != null || (targetName != null && !(targetName).equals(targetField.getName())) || (rank != null && rank != 1)){
+			return false;
+		} // End if
+
+		if(dataType == null){
+			return false;
+		}
+
+		ResultFeature resultFeature = outputField.getResultFeature();
+		switch(resultFeature){
+			case PREDICTED_VALUE:
+				switch(miningFunction){
+					case REGRESSION:
+						return (DataType.FLOAT).equals(dataType) || (DataType.DOUBLE).equals(dataType);
+					case CLASSIFICATION:
+						return (DataType.STRING).equals(dataType) && (DataType.STRING).equals(targetField.getDataType());
+					default:
+						return false;
+				}
+			case PROBABILITY:
+				return (MiningFunction.CLASSIFICATION).equals(miningFunction) && ((DataType.FLOAT).equals(dataType) || (DataType.DOUBLE).equals(dataType));
+			case ENTITY_ID:
+				return hasEntityId && (MiningFunction.CLASSIFICATION).equals(miningFunction) && (DataType.STRING).equals(dataType);
+			case TRANSFORMED_VALUE:
+			case DECISION:
+				return ExpressionTranslator.isTranslatable(outputField.getExpression(), dataType, resolver);
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Declares a <code>double</code> variable that holds the raw predicted value,
+	 * with <code>Double.NaN</code> denoting a missing result.
+	 * </p>
+	 */
+	private JVar translateRawRegressionResult(JMethod evaluateMethod, TranslationContext context){
+		TargetField targetField = getTargetField();
+
+		JVar predictionVar = context.declare(double.class, "prediction", JExpr.lit(Double.NaN));
+
+		JInvocation methodInvocation = createEvaluatorMethodInvocation(evaluateMethod, context);
+
+		JExpression valueExpr = methodInvocation;
+
+		if(!((evaluateMethod.type()).erasure()).equals(context.ref(Value.class))){
+			JVar numberVar = context.declare(Number.class, "number", methodInvocation);
+
+			valueExpr = JOp.cond(numberVar.ne(JExpr._null()), (context.getValueFactoryVariable()).newValue(numberVar), JExpr._null());
+		}
+
+		ValueBuilder valueBuilder = new ValueBuilder(context);
+
+		valueBuilder.declare(context.getValueType(), "value", valueExpr);
+
+		JVar valueVar = valueBuilder.getVariable();
+
+		JConditional ifStatement = (context.block())._if(valueVar.ne(JExpr._null()));
+
+		context.pushScope(new Scope(ifStatement._then()));
+
+		try {
+			Target target = targetField.getTarget();
+			if(target != null){
+				translateRegressorTarget(target, valueBuilder);
+			}
+
+			context.block().assign(predictionVar, (valueVar.invoke("getValue")).invoke("doubleValue"));
+		} finally {
+			context.popScope();
+		}
+
+		return predictionVar;
+	}
+
+	/**
+	 * <p>
+	 * Declares an <code>int</code> variable that holds the index of the predicted target category,
+	 * with <code>-1</code> denoting a missing result.
+	 * </p>
+	 *
+	 * @param probabilitiesVar An optional <code>double[]</code> array for collecting the values of target categories.
+	 */
+	private JVar translateRawClassificationResult(JMethod evaluateMethod, JExpression categoriesExpr, JVar probabilitiesVar, TranslationContext context){
+		TargetField targetField = getTargetField();
+
+		JVar indexVar = context.declare(int.class, "index", JExpr.lit(-1));
+
+		ClassificationBuilder classificationBuilder = new ClassificationBuilder(context)
+			.declare("classification", createEvaluatorMethodInvocation(evaluateMethod, context));
+
+		JVar classificationVar = classificationBuilder.getVariable();
+
+		JConditional ifStatement = (context.block())._if(classificationVar.ne(JExpr._null()));
+
+		context.pushScope(new Scope(ifStatement._then()));
+
+		try {
+			classificationBuilder.computeResult(targetField.getDataType());
+
+			JBlock block = context.block();
+
+			block.assign(indexVar, categoriesExpr.invoke("indexOf").arg(classificationVar.invoke("getResult")));
+
+			if(probabilitiesVar != null){
+				JForLoop forLoop = block._if(probabilitiesVar.ne(JExpr._null()))._then()._for();
+
+				JVar loopVar = forLoop.init(context._ref(int.class), "i", JExpr.lit(0));
+				forLoop.test(loopVar.lt(probabilitiesVar.ref("length")));
+				forLoop.update(loopVar.incr());
+
+				JBlock forBody = forLoop.body();
+
+				JVar categoryValueVar = forBody.decl(context.getValueType(), "categoryValue", (classificationVar.invoke("getValues")).invoke("get").arg(categoriesExpr.invoke("get").arg(loopVar)));
+
+				forBody.assign(probabilitiesVar.component(loopVar), JOp.cond(categoryValueVar.ne(JExpr._null()), (categoryValueVar.invoke("getValue")).invoke("doubleValue"), JExpr.lit(Double.NaN)));
+			}
+		} finally {
+			context.popScope();
+		}
+
+		return indexVar;
+	}
+
+	/**
+	 * <p>
+	 * Creates a feature vector scoring method <code>double predict(double[] x)</code> (regression)
+	 * or <code>int classify(double[] x, double[] probabilities)</code> (classification).
+	 * </p>
+	 *
+	 * <p>
+	 * The <code>x</code> array is aligned with active fields, with <code>Double.NaN</code> denoting a missing value.
+	 * Integer fields take the integer part of the element, boolean fields take <code>true</code> for all non-zero elements.
+	 * String fields take the index of the category in the feature schema; all other indices denote an unknown category.
+	 * The feature schema is written to a class resource file <code>&lt;JavaModel class simple name&gt;.features.properties</code>.
+	 * </p>
+	 *
+	 * <p>
+	 * The results are encoded the same way as the results of the <code>evaluateBatch</code> method.
+	 * If the <code>probabilities</code> array is not <code>null</code>, then it receives the values of target categories (eg. probabilities).
+	 * </p>
+	 *
+	 * @return The feature vector scoring method, or <code>null</code> if some field cannot be represented as a <code>double</code> element, or some active field has input value treatments.
+	 *
+	 * @see FeatureVectorRegressor
+	 * @see FeatureVectorClassifier
+	 */
+	public JMethod createPredictMethod(JMethod evaluateMethod, TranslationContext context){
+		M model = getModel();
+
+		MiningFunction miningFunction = model.getMiningFunction();
+		switch(miningFunction){
+			case REGRESSION:
+			case CLASSIFICATION:
+				break;
+			default:
+				return null;
+		}
+
+		JDefinedClass owner = context.getOwner();
+
+		JDefinedClass argumentsClazz = ensureArgumentsType(context);
+
+		Map<String, FieldInfo> argumentFieldInfos = getDirectlyLoadableFieldInfos(argumentsClazz, context);
+		if(argumentFieldInfos == null){
+			return null;
+		}
+
+		Map<FieldName, OrdinalEncoder> categoricalEncoders = new LinkedHashMap<>();
+
+		Collection<FieldInfo> fieldInfos = argumentFieldInfos.values();
+		for(FieldInfo fieldInfo : fieldInfos){
+			Field<?> field = fieldInfo.getField();
+			Encoder encoder = fieldInfo.getEncoder();
+
+			DataType dataType = field.getDataType();
+
+			// String values are represented by their category index, which requires an ordinal encoder
+			if((DataType.STRING).equals(dataType)){
+
+				if(!(encoder instanceof OrdinalEncoder)){
+					return null;
+				}
+
+				categoricalEncoders.put(field.getName(), (OrdinalEncoder)encoder);
+			}
+		}
+
+		List<InputField> activeFields = getActiveFields();
+
+		Map<FieldName, Integer> featureIndices = new LinkedHashMap<>();
+
+		JPropertyFile schemaFile = new JPropertyFile(owner.name() + ".features.properties");
+
+		schemaFile.add("size", String.valueOf(activeFields.size()));
+
+		for(int i = 0; i < activeFields.size(); i++){
+			InputField activeField = activeFields.get(i);
+
+			FieldName name = activeField.getName();
+
+			featureIndices.put(name, i);
+
+			schemaFile.add("feature." + i + ".name", name.getValue());
+			schemaFile.add("feature." + i + ".dataType", (activeField.getDataType()).value());
+
+			OrdinalEncoder encoder = categoricalEncoders.get(name);
+			if(encoder != null){
+				int index = 0;
+
+				for(Object value : encoder.getValues()){
+					schemaFile.add("feature." + i + ".category." + index, String.valueOf(value));
+
+					index++;
+				}
+			}
+		}
+
+		(owner.getPackage()).addResourceFile(schemaFile);
+
+		JMethod method;
+
+		switch(miningFunction){
+			case REGRESSION:
+				owner._implements(FeatureVectorRegressor.class);
+
+				method = owner.method(JMod.PUBLIC, double.class, "predict");
+				break;
+			case CLASSIFICATION:
+				owner._implements(FeatureVectorClassifier.class);
+
+				method = owner.method(JMod.PUBLIC, int.class, "classify");
+				break;
 			default:
 				throw new UnsupportedAttributeException(model, miningFunction);
 		}
+
+		method.annotate(Override.class);
+
+		method.param(double[].class, "x");
+
+		if((MiningFunction.CLASSIFICATION).equals(miningFunction)){
+			method.param(double[].class, "probabilities");
+		}
+
+		JMethod delegateMethod = createGenericDelegateMethod(method, context);
+
+		JTypeVar numberTypeVar = delegateMethod.typeParams()[0];
+
+		List<JVar> params = delegateMethod.params();
+
+		JVar xParam = params.get(0);
+		JVar probabilitiesParam = (params.size() > 1 ? params.get(1) : null);
+
+		try {
+			context.pushScope(new MethodScope(delegateMethod));
+
+			declareValueFactory(numberTypeVar, context);
+
+			JVar argumentsVar = context.declare(argumentsClazz, Scope.VAR_ARGUMENTS, JExpr._new(argumentsClazz));
+
+			loadArguments(argumentsVar, argumentFieldInfos, (fieldInfo) -> {
+				Field<?> field = fieldInfo.getField();
+
+				JExpression elementExpr = xParam.component(JExpr.lit(featureIndices.get(field.getName())));
+
+				return createFeatureArgument(fieldInfo, argumentsClazz, elementExpr, context);
+			}, context);
+
+			switch(miningFunction){
+				case REGRESSION:
+					{
+						JVar predictionVar = translateRawRegressionResult(evaluateMethod, context);
+
+						context._return(predictionVar);
+					}
+					break;
+				case CLASSIFICATION:
+					{
+						JDirectInitializer codeInitializer = new JDirectInitializer(context);
+
+						JFieldVar categoriesVar = codeInitializer.initTargetCategories(IdentifierUtil.create("categories", model), Arrays.asList(getTargetCategories()));
+
+						JVar indexVar = translateRawClassificationResult(evaluateMethod, categoriesVar, probabilitiesParam, context);
+
+						context._return(indexVar);
+					}
+					break;
+				default:
+					throw new UnsupportedAttributeException(model, miningFunction);
+			}
+		} finally {
+			context.popScope();
+		}
+
+		return method;
 	}
 
-	public JMethod translateRegressor(TranslationContext context){
-		throw new UnsupportedOperationException();
-	}
+	/**
+	 * <p>
+	 * Creates a columnar batch scoring method <code>evaluateBatch(Object[] columns, BitSet[] missing, int size, double[]|int[] result)</code>.
+	 * </p>
+	 *
+	 * <p>
+	 * The <code>columns</code> array is aligned with active fields.
+	 * A column is a <code>double[]</code> (continuous float and double fields), <code>int[]</code>, <code>String[]</code> or <code>boolean[]</code> array,
+	 * which holds prepared (ie. valid, non-outlier) values.
+	 * A record is missing a value if the corresponding bit is set in the <code>missing</code> array, or if the value is a <code>null</code> reference.
+	 * Regression results are raw predicted values, with <code>Double.NaN</code> denoting a missing result.
+	 * Classification results are target category indices, with <code>-1</code> denoting a missing result.
+	 * </p>
+	 *
+	 * @return The batch scoring method, or <code>null</code> if the model depends on fields other than active fields, or some active field has input value treatments.
+	 *
+	 * @see BatchEvaluator
+	 */
+	public JMethod createEvaluateBatchMethod(JMethod evaluateMethod, TranslationContext context){
+		M model = getModel();
+
+		MiningFunction miningFunction = model.getMiningFunction();
+
+		JType resultType;
+
+		switch(miningFunction){
+			case REGRESSION:
+				resultType = context._ref(double[].class);
+				break;
+			case CLASSIFICATION:
+				resultType = context._ref(int[].class);
+				break;
+			default:
+				return null;
+		}
+
+		JDefinedClass owner = context.getOwner();
+
+		JDefinedClass argumentsClazz = ensureArgumentsType(context);
+
+		Map<String, FieldInfo> argumentFieldInfos = getDirectlyLoadableFieldInfos(argumentsClazz, context);
+		if(argumentFieldInfos == null){
+			return null;
+		}
+
+		Map<FieldName, Integer> columnIndices = new LinkedHashMap<>();
+
+		List<InputField> activeFields = getActiveFields();
+		for(int i = 0; i < activeFields.size(); i++){
+			InputField activeField = activeFields.get(i);
+
+			columnIndices.put(activeField.getName(), i);
+		}
+
+		owner._implements(context.ref(BatchEvaluator.class).narrow(resultType));
+
+		JMethod method = owner.method(JMod.PUBLIC, void.class, "evaluateBatch");
+		method.annotate(Override.class);
+
+		method.param(Object[].class, "columns");
+		method.param(BitSet[].class, "missing");
+		method.param(int.class, "size");
+		method.param(resultType, "result");
+
+		JMethod delegateMethod = createGenericDelegateMethod(method, context);
+
+		JTypeVar numberTypeVar = delegateMethod.typeParams()[0];
+
+		List<JVar> params = delegateMethod.params();
+
+		JVar columnsParam = params.get(0);
+		JVar missingParam = params.get(1);
+		JVar sizeParam = params.get(2);
+		JVar resultParam = params.get(3);
+
+		try {
+			context.pushScope(new MethodScope(delegateMethod));
+
+			declareValueFactory(numberTypeVar, context);
 
-	public JMethod translateClassifier(TranslationContext context){
-		throw new UnsupportedOperationException();
-	}
+			Map<FieldName, JVar> columnVars = new LinkedHashMap<>();
+			Map<FieldName, JVar> missingVars = new LinkedHashMap<>();
 
-	public JMethod createEvaluateRegressionMethod(JMethod evaluateMethod, TranslationContext context){
-		M model = getModel();
+			Collection<FieldInfo> fieldInfos = argumentFieldInfos.values();
+			for(FieldInfo fieldInfo : fieldInfos){
+				Field<?> field = fieldInfo.getField();
 
-		TargetField targetField = getTargetField();
+				FieldName name = field.getName();
 
-		JMethod evaluateRegressionMethod = createEvaluatorMethod("evaluateRegression", context);
+				if(columnVars.containsKey(name)){
+					continue;
+				}
 
-		try {
-			context.pushScope(new MethodScope(evaluateRegressionMethod));
+				JExpression indexExpr = JExpr.lit(columnIndices.get(name));
 
-			JInvocation methodInvocation = createEvaluatorMethodInvocation(evaluateMethod, context);
+				JType columnType = getColumnType(field, context);
 
-			JType valueClazz = context.ref(Value.class);
+				JVar columnVar = context.declare(columnType, IdentifierUtil.create("column", name), JExpr.cast(columnType, columnsParam.component(indexExpr)));
+				JVar missingVar = context.declare(BitSet.class, IdentifierUtil.create("missing", name), JOp.cond(missingParam.ne(JExpr._null()), missingParam.component(indexExpr), JExpr._null()));
 
-			if(!((evaluateMethod.type()).erasure()).equals(valueClazz)){
-				methodInvocation = context.getValueFactoryVariable().newValue(methodInvocation);
+				columnVars.put(name, columnVar);
+				missingVars.put(name, missingVar);
 			}
 
-			ValueBuilder valueBuilder = new ValueBuilder(context)
-				.declare("value", methodInvocation);
+			JVar argumentsVar = context.declare(argumentsClazz, Scope.VAR_ARGUMENTS, JExpr._new(argumentsClazz));
 
-			Target target = targetField.getTarget();
-			if(target != null){
-				translateRegressorTarget(target, valueBuilder);
+			JVar categoriesVar = null;
 
-				// XXX
-				model.setTargets(null);
+			if((MiningFunction.CLASSIFICATION).equals(miningFunction)){
+				JInvocation categoriesExpr = context.staticInvoke(Arrays.class, "asList", getTargetCategories());
+
+				categoriesVar = context.declare(context.ref(List.class).narrow(Object.class), "categories", categoriesExpr);
 			}
 
-			JVar valueVar = valueBuilder.getVariable();
+			JForLoop forLoop = (context.block())._for();
 
-			context._return(context.staticInvoke(Collections.class, "singletonMap", targetField.getName(), valueVar.invoke("getValue")));
-		} finally {
-			context.popScope();
-		}
+			JVar loopVar = forLoop.init(context._ref(int.class), "i", JExpr.lit(0));
+			forLoop.test(loopVar.lt(sizeParam));
+			forLoop.update(loopVar.incr());
 
-		return evaluateRegressionMethod;
-	}
+			context.pushScope(new Scope(forLoop.body()));
 
-	public JMethod createEvaluateClassificationMethod(JMethod evaluateMethod, TranslationContext context){
-		M model = getModel();
+			try {
+				// The Arguments object is reused between records
+				JMethod clearMethod = argumentsClazz.getMethod("clear", new JType[0]);
+				if(clearMethod != null){
+					(context.block()).add(argumentsVar.invoke(clearMethod));
+				}
 
-		TargetField targetField = getTargetField();
+				loadArguments(argumentsVar, argumentFieldInfos, (fieldInfo) -> {
+					Field<?> field = fieldInfo.getField();
 
-		JMethod evaluateClassificationMethod = createEvaluatorMethod("evaluateClassification", context);
+					JVar columnVar = columnVars.get(field.getName());
+					JVar missingVar = missingVars.get(field.getName());
 
-		try {
-			context.pushScope(new MethodScope(evaluateClassificationMethod));
+					JExpression missingExpr = (missingVar.ne(JExpr._null())).cand(missingVar.invoke("get").arg(loopVar));
+
+					return createBatchArgument(fieldInfo, argumentsClazz, missingExpr, columnVar.component(loopVar), context);
+				}, context);
+
+				switch(miningFunction){
+					case REGRESSION:
+						{
+							JVar predictionVar = translateRawRegressionResult(evaluateMethod, context);
 
-			ClassificationBuilder classificationBuilder = new ClassificationBuilder(context)
-				.declare("classification", createEvaluatorMethodInvocation(evaluateMethod, context))
-				.computeResult(targetField.getDataType());
+							context.block().assign(resultParam.component(loopVar), predictionVar);
+						}
+						break;
+					case CLASSIFICATION:
+						{
+							JVar indexVar = translateRawClassificationResult(evaluateMethod, categoriesVar, null, context);
 
-			context._return(context.staticInvoke(Collections.class, "singletonMap", context.constantFieldName(targetField.getName()), classificationBuilder));
+							context.block().assign(resultParam.component(loopVar), indexVar);
+						}
+						break;
+					default:
+						throw new UnsupportedAttributeException(model, miningFunction);
+				}
+			} finally {
+				context.popScope();
+			}
 		} finally {
 			context.popScope();
 		}
 
-		return evaluateClassificationMethod;
+		return method;
 	}
 
 	public Map<FieldName, FieldInfo> getFieldInfos(Set<? extends PMMLObject> bodyObjects){
@@ -244,6 +1140,54 @@ public class ModelTranslator<M extends Model> extends ModelManager<M> {
 			result.put(name, fieldInfo);
 		}
 
+		// The input value treatment of a top-level model is performed by the evaluation context
+		if(!(pmml.getModels()).contains(model)){
+			result = applyMiningSchema(model, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Replaces the field infos of active fields that have a non-default input value treatment in the specified nested model.
+	 * </p>
+	 */
+	static
+	public Map<FieldName, FieldInfo> applyMiningSchema(Model model, Map<FieldName, FieldInfo> fieldInfos){
+		MiningSchema miningSchema = model.getMiningSchema();
+
+		if(miningSchema == null || !miningSchema.hasMiningFields()){
+			return fieldInfos;
+		}
+
+		Map<FieldName, FieldInfo> result = fieldInfos;
+
+		List<MiningField> miningFields = miningSchema.getMiningFields();
+		for(MiningField miningField : miningFields){
+			FieldName name = miningField.getName();
+			MiningField.UsageType usageType = miningField.getUsageType();
+
+			switch(usageType){
+				case ACTIVE:
+					break;
+				default:
+					continue;
+			}
+
+			FieldInfo fieldInfo = fieldInfos.get(name);
+
+			if(fieldInfo == null || InputFieldUtil.isDefault(null, miningField)){
+				continue;
+			} // End if
+
+			if(result == fieldInfos){
+				result = new LinkedHashMap<>(fieldInfos);
+			}
+
+			result.put(name, new FieldInfo(fieldInfo, miningField));
+		}
+
 		return result;
 	}
 
@@ -271,6 +1215,20 @@ public class ModelTranslator<M extends Model> extends ModelManager<M> {
 		}
 	}
 
+	static
+	public JPrimitiveType getPrimitiveType(Model model, TranslationContext context){
+		MathContext mathContext = model.getMathContext();
+
+		switch(mathContext){
+			case FLOAT:
+				return (JPrimitiveType)context._ref(float.class);
+			case DOUBLE:
+				return (JPrimitiveType)context._ref(double.class);
+			default:
+				throw new UnsupportedAttributeException(model, mathContext);
+		}
+	}
+
 	static
 	public FieldInfo getFieldInfo(HasFieldReference<?> hasFieldReference, Map<FieldName, FieldInfo> fieldInfos){
 		return getFieldInfo(hasFieldReference.getField(), fieldInfos);
@@ -286,6 +1244,350 @@ public class ModelTranslator<M extends Model> extends ModelManager<M> {
 		return fieldInfo;
 	}
 
+	/**
+	 * <p>
+	 * Declares a private generic method that takes the same parameters as the specified method,
+	 * and makes the specified method delegate to it.
+	 * </p>
+	 *
+	 * <p>
+	 * The typed scoring interfaces do not declare a number type variable,
+	 * which is needed for working with {@link Value} objects.
+	 * </p>
+	 */
+	static
+	private JMethod createGenericDelegateMethod(JMethod method, TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		JMethod delegateMethod = owner.method(JMod.PRIVATE | JMod.FINAL, method.type(), "_" + method.name());
+
+		delegateMethod.generify(MethodScope.TYPEVAR_NUMBER, Number.class);
+
+		JInvocation invocation = JExpr.invoke(delegateMethod);
+
+		List<JVar> params = method.params();
+		for(JVar param : params){
+			delegateMethod.param(param.type(), param.name());
+
+			invocation.arg(param);
+		}
+
+		JBlock block = method.body();
+
+		if((method.type()).equals(context._ref(void.class))){
+			block.add(invocation);
+		} else
+
+		{
+			block._return(invocation);
+		}
+
+		return delegateMethod;
+	}
+
+	private void declareValueFactory(JTypeVar numberTypeVar, TranslationContext context){
+		M model = getModel();
+
+		MathContext mathContext = model.getMathContext();
+
+		JClass valueFactoryClazz = context.ref(ValueFactory.class).narrow(numberTypeVar);
+
+		context.declare(valueFactoryClazz, Scope.VAR_VALUEFACTORY, JExpr.cast(valueFactoryClazz, context.invoke(context.staticInvoke(ValueFactoryFactory.class, "newInstance"), "newValueFactory", mathContext)));
+	}
+
+	/**
+	 * <p>
+	 * Gets the field infos of the <code>Arguments</code> type,
+	 * and prepares it for direct loading.
+	 * </p>
+	 *
+	 * @return The field infos, or <code>null</code> if some field cannot be loaded directly.
+	 *
+	 * @see #loadArguments(JVar, Map, Function, TranslationContext)
+	 */
+	private Map<String, FieldInfo> getDirectlyLoadableFieldInfos(JDefinedClass argumentsClazz, TranslationContext context){
+		Map<String, FieldInfo> argumentFieldInfos = context.getArgumentFieldInfos(argumentsClazz);
+
+		if(!isDirectlyLoadable(argumentFieldInfos.values(), context)){
+			return null;
+		}
+
+		ensureDirectConstructor(argumentsClazz);
+
+		return argumentFieldInfos;
+	}
+
+	private boolean isDirectlyLoadable(Collection<FieldInfo> fieldInfos, TranslationContext context){
+		List<InputField> activeFields = getActiveFields();
+
+		Set<FieldName> activeFieldNames = activeFields.stream()
+			.map(InputField::getName)
+			.collect(Collectors.toSet());
+
+		for(FieldInfo fieldInfo : fieldInfos){
+			Field<?> field = fieldInfo.getField();
+			Encoder encoder = fieldInfo.getEncoder();
+
+			// Derived fields that are not translated can only be computed by the interpreter
+			if(!(field instanceof DataField) || !activeFieldNames.contains(field.getName())){
+				return false;
+			} // End if
+
+			if(getColumnType(field, context) == null){
+				return false;
+			} // End if
+
+			if(encoder != null && !(encoder instanceof FpPrimitiveEncoder) && !(encoder instanceof OrdinalEncoder)){
+				return false;
+			} // End if
+
+			// Input value treatments are computed lazily from the untreated field value
+			if(!(fieldInfo.getMiningFields()).isEmpty()){
+				return false;
+			}
+		}
+
+		// Top-level input value treatments are applied by the evaluation context, which is bypassed
+		for(InputField activeField : activeFields){
+
+			if(!InputFieldUtil.isDefault(activeField.getField(), activeField.getMiningField())){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	static
+	private void ensureDirectConstructor(JDefinedClass argumentsClazz){
+		JMethod constructor = argumentsClazz.getConstructor(new JType[0]);
+
+		// The direct constructor leaves the evaluation context unset
+		if(constructor == null){
+			argumentsClazz.constructor(JMod.PRIVATE);
+		}
+	}
+
+	static
+	private void loadArguments(JVar argumentsVar, Map<String, FieldInfo> argumentFieldInfos, Function<FieldInfo, JExpression> valueFunction, TranslationContext context){
+		JDefinedClass argumentsClazz = (JDefinedClass)argumentsVar.type();
+
+		Collection<Map.Entry<String, FieldInfo>> entries = argumentFieldInfos.entrySet();
+		for(Map.Entry<String, FieldInfo> entry : entries){
+			String stringName = entry.getKey();
+			FieldInfo fieldInfo = entry.getValue();
+
+			JExpression valueExpr;
+
+			try {
+				context.pushOwner(argumentsClazz);
+
+				valueExpr = valueFunction.apply(fieldInfo);
+			} finally {
+				context.popOwner();
+			}
+
+			loadArgument(argumentsVar, stringName, fieldInfo, valueExpr, context);
+		}
+	}
+
+	static
+	private void loadArgument(JVar argumentsVar, String stringName, FieldInfo fieldInfo, JExpression valueExpr, TranslationContext context){
+		JBlock block = context.block();
+
+		block.assign(argumentsVar.ref(stringName), valueExpr);
+
+		if(!fieldInfo.isPrimary()){
+			block.assign(argumentsVar.ref("_" + stringName), JExpr.TRUE);
+		}
+	}
+
+	static
+	private JExpression createRawArgument(FieldInfo fieldInfo, JDefinedClass argumentsClazz, JVar valueVar, TranslationContext context){
+		Field<?> field = fieldInfo.getField();
+		Encoder encoder = fieldInfo.getEncoder();
+
+		DataType dataType = field.getDataType();
+
+		JExpression missingExpr = valueVar.eq(JExpr._null());
+
+		if(encoder instanceof FpPrimitiveEncoder){
+			JExpression numberExpr = JExpr.cast(context.ref(Number.class), valueVar);
+
+			switch(dataType){
+				case FLOAT:
+					return JOp.cond(missingExpr, JExpr.lit(Float.NaN), numberExpr.invoke("floatValue"));
+				case DOUBLE:
+					return JOp.cond(missingExpr, JExpr.lit(Double.NaN), numberExpr.invoke("doubleValue"));
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
+		} else
+
+		if(encoder instanceof OrdinalEncoder){
+			OrdinalEncoder ordinalEncoder = (OrdinalEncoder)encoder;
+
+			JMethod valueEncoderMethod = ordinalEncoder.ensureValueEncoderMethod(field, context);
+
+			switch(dataType){
+				case STRING:
+					return argumentsClazz.staticInvoke(valueEncoderMethod).arg(JExpr.cast(context.ref(String.class), valueVar));
+				case INTEGER:
+					return JOp.cond(missingExpr, OrdinalEncoder.MISSING_VALUE, argumentsClazz.staticInvoke(valueEncoderMethod).arg(JExpr.cast(context.ref(Integer.class), valueVar)));
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
+		} else
+
+		if(encoder != null){
+			throw new IllegalArgumentException();
+		}
+
+		switch(dataType){
+			case STRING:
+				return JExpr.cast(context.ref(String.class), valueVar);
+			case INTEGER:
+				return JExpr.cast(context.ref(Integer.class), valueVar);
+			case FLOAT:
+				return JExpr.cast(context.ref(Float.class), valueVar);
+			case DOUBLE:
+				return JExpr.cast(context.ref(Double.class), valueVar);
+			case BOOLEAN:
+				return JExpr.cast(context.ref(Boolean.class), valueVar);
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
+	}
+
+	static
+	private JType getColumnType(Field<?> field, TranslationContext context){
+		DataType dataType = field.getDataType();
+
+		switch(dataType){
+			case STRING:
+				return context._ref(String[].class);
+			case INTEGER:
+				return context._ref(int[].class);
+			case FLOAT:
+			case DOUBLE:
+				return context._ref(double[].class);
+			case BOOLEAN:
+				return context._ref(boolean[].class);
+			default:
+				return null;
+		}
+	}
+
+	static
+	private JExpression createBatchArgument(FieldInfo fieldInfo, JDefinedClass argumentsClazz, JExpression missingExpr, JExpression valueExpr, TranslationContext context){
+		Field<?> field = fieldInfo.getField();
+		Encoder encoder = fieldInfo.getEncoder();
+
+		DataType dataType = field.getDataType();
+
+		if(encoder instanceof FpPrimitiveEncoder){
+
+			switch(dataType){
+				case FLOAT:
+					return JOp.cond(missingExpr, JExpr.lit(Float.NaN), JExpr.cast(context._ref(float.class), valueExpr));
+				case DOUBLE:
+					return JOp.cond(missingExpr, JExpr.lit(Double.NaN), valueExpr);
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
+		} else
+
+		if(encoder instanceof OrdinalEncoder){
+			OrdinalEncoder ordinalEncoder = (OrdinalEncoder)encoder;
+
+			JMethod valueEncoderMethod = ordinalEncoder.ensureValueEncoderMethod(field, context);
+
+			return JOp.cond(missingExpr, OrdinalEncoder.MISSING_VALUE, argumentsClazz.staticInvoke(valueEncoderMethod).arg(valueExpr));
+		} else
+
+		if(encoder != null){
+			throw new IllegalArgumentException();
+		}
+
+		switch(dataType){
+			case STRING:
+				return JOp.cond(missingExpr, JExpr._null(), valueExpr);
+			case INTEGER:
+				return JOp.cond(missingExpr, JExpr._null(), context.staticInvoke(Integer.class, "valueOf", valueExpr));
+			case FLOAT:
+				return JOp.cond(missingExpr, JExpr._null(), context.staticInvoke(Float.class, "valueOf", JExpr.cast(context._ref(float.class), valueExpr)));
+			case DOUBLE:
+				return JOp.cond(missingExpr, JExpr._null(), context.staticInvoke(Double.class, "valueOf", valueExpr));
+			case BOOLEAN:
+				return JOp.cond(missingExpr, JExpr._null(), context.staticInvoke(Boolean.class, "valueOf", valueExpr));
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
+	}
+
+	static
+	private JExpression createFeatureArgument(FieldInfo fieldInfo, JDefinedClass argumentsClazz, JExpression elementExpr, TranslationContext context){
+		Field<?> field = fieldInfo.getField();
+		Encoder encoder = fieldInfo.getEncoder();
+
+		DataType dataType = field.getDataType();
+
+		JExpression missingExpr = context.staticInvoke(Double.class, "isNaN", elementExpr);
+
+		JExpression intExpr = JExpr.cast(context._ref(int.class), elementExpr);
+
+		if(encoder instanceof FpPrimitiveEncoder){
+
+			switch(dataType){
+				case FLOAT:
+					return JExpr.cast(context._ref(float.class), elementExpr);
+				case DOUBLE:
+					return elementExpr;
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
+		} else
+
+		if(encoder instanceof OrdinalEncoder){
+			OrdinalEncoder ordinalEncoder = (OrdinalEncoder)encoder;
+
+			switch(dataType){
+				case STRING:
+					{
+						int size = (ordinalEncoder.getValues()).size();
+
+						// Category indices are zero-based, ordinals are one-based
+						return JOp.cond((elementExpr.gte(JExpr.lit(0))).cand(elementExpr.lt(JExpr.lit(size))), intExpr.plus(JExpr.lit(1)), JOp.cond(missingExpr, OrdinalEncoder.MISSING_VALUE, JExpr.lit(0)));
+					}
+				case INTEGER:
+					{
+						JMethod valueEncoderMethod = ordinalEncoder.ensureValueEncoderMethod(field, context);
+
+						return JOp.cond(missingExpr, OrdinalEncoder.MISSING_VALUE, argumentsClazz.staticInvoke(valueEncoderMethod).arg(intExpr));
+					}
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
+		} else
+
+		if(encoder != null){
+			throw new IllegalArgumentException();
+		}
+
+		switch(dataType){
+			case INTEGER:
+				return JOp.cond(missingExpr, JExpr._null(), context.staticInvoke(Integer.class, "valueOf", intExpr));
+			case FLOAT:
+				return JOp.cond(missingExpr, JExpr._null(), context.staticInvoke(Float.class, "valueOf", JExpr.cast(context._ref(float.class), elementExpr)));
+			case DOUBLE:
+				return JOp.cond(missingExpr, JExpr._null(), context.staticInvoke(Double.class, "valueOf", elementExpr));
+			case BOOLEAN:
+				return JOp.cond(missingExpr, JExpr._null(), context.staticInvoke(Boolean.class, "valueOf", elementExpr.ne(JExpr.lit(0d))));
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
+	}
+
 	static
 	private void translateRegressorTarget(Target target, ValueBuilder valueBuilder){
 		Number rescaleFactor = target.getRescaleFactor();
@@ -370,9 +1672,11 @@ public class ModelTranslator<M extends Model> extends ModelManager<M> {
 
 			switch(name){
 				case Scope.VAR_ARGUMENTS:
-					try {
+					if(context.hasVariable(Scope.VAR_ARGUMENTS)){
 						arg = (context.getArgumentsVariable()).getVariable();
-					} catch(IllegalArgumentException iae){
+					} else
+
+					{
 						arg = JExpr._new(ensureArgumentsType(context)).arg((context.getContextVariable()).getVariable());
 					}
 					break;
@@ -408,17 +1712,127 @@ public class ModelTranslator<M extends Model> extends ModelManager<M> {
 
 		JFieldVar contextVar = argumentsClazz.field(JMod.PRIVATE, EvaluationContext.class, "context");
 
-		JMethod constructor = argumentsClazz.constructor(JMod.PUBLIC);
+		JMethod resetMethod = argumentsClazz.method(JMod.PUBLIC, void.class, "reset");
 
-		JVar contextParam = constructor.param(EvaluationContext.class, "context");
+		JVar contextParam = resetMethod.param(EvaluationContext.class, "context");
 
-		JBlock block = constructor.body();
+		JBlock block = resetMethod.body();
 
 		block.assign(JExpr.refthis(contextVar.name()), contextParam);
 
+		JMethod constructor = argumentsClazz.constructor(JMod.PUBLIC);
+
+		contextParam = constructor.param(EvaluationContext.class, "context");
+
+		block = constructor.body();
+
+		block.add(JExpr.invoke(resetMethod).arg(contextParam));
+
 		return argumentsClazz;
 	}
 
+	/**
+	 * <p>
+	 * Declares an <code>Arguments</code> variable, which holds the thread-confined <code>Arguments</code> instance.
+	 * The instance is released in a <code>finally</code> block,
+	 * so that it does not retain the evaluation context or field values between evaluations.
+	 * </p>
+	 *
+	 * @return The scope of the <code>try</code> block.
+	 */
+	static
+	public Scope declareArgumentsWorkspace(TranslationContext context){
+		JMethod workspaceMethod = ensureArgumentsWorkspaceMethod(context);
+
+		JVar argumentsVar = context.declare(workspaceMethod.type(), Scope.VAR_ARGUMENTS, JExpr.invoke(workspaceMethod).arg((context.getContextVariable()).getVariable()));
+
+		JTryBlock tryBlock = (context.block())._try();
+
+		(tryBlock._finally()).add(argumentsVar.invoke("release"));
+
+		return new Scope(tryBlock.body());
+	}
+
+	/**
+	 * <p>
+	 * Ensures a method that returns a thread-confined <code>Arguments</code> instance,
+	 * which has been reset to the specified evaluation context.
+	 * </p>
+	 *
+	 * @see #declareArgumentsWorkspace(TranslationContext)
+	 */
+	static
+	public JMethod ensureArgumentsWorkspaceMethod(TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		JDefinedClass argumentsClazz = ensureArgumentsType(context);
+
+		JMethod workspaceMethod = owner.getMethod("arguments", new JType[]{context.ref(EvaluationContext.class)});
+		if(workspaceMethod != null){
+			return workspaceMethod;
+		}
+
+		ensureDirectConstructor(argumentsClazz);
+
+		// The body is translated after all fields have been declared
+		argumentsClazz.method(JMod.PUBLIC, void.class, "release");
+
+		JClass workspaceClazz = (context.ref(ThreadLocal.class)).narrow(argumentsClazz);
+
+		JFieldVar workspaceVar = owner.field(ModelTranslator.MEMBER_PRIVATE, workspaceClazz, "workspace", context.staticInvoke(ThreadLocal.class, "withInitial", JExpr.direct(argumentsClazz.name() + "::new")));
+
+		workspaceMethod = owner.method(ModelTranslator.MEMBER_PRIVATE, argumentsClazz, "arguments");
+
+		JVar contextParam = workspaceMethod.param(EvaluationContext.class, Scope.VAR_CONTEXT);
+
+		JBlock block = workspaceMethod.body();
+
+		JVar argumentsVar = block.decl(argumentsClazz, Scope.VAR_ARGUMENTS, workspaceVar.invoke("get"));
+
+		block.add(argumentsVar.invoke("reset").arg(contextParam));
+
+		block._return(argumentsVar);
+
+		return workspaceMethod;
+	}
+
+	/**
+	 * <p>
+	 * Translates the body of the <code>release()</code> method, which clears all reference fields of the <code>Arguments</code> type.
+	 * </p>
+	 */
+	static
+	private void translateReleaseMethod(TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		for(Iterator<JDefinedClass> it = owner.classes(); it.hasNext(); ){
+			JDefinedClass clazz = it.next();
+
+			if(!("Arguments").equals(clazz.name())){
+				continue;
+			}
+
+			JMethod releaseMethod = clazz.getMethod("release", new JType[0]);
+			if(releaseMethod == null){
+				return;
+			}
+
+			JBlock block = releaseMethod.body();
+
+			Collection<JFieldVar> fieldVars = (clazz.fields()).values();
+			for(JFieldVar fieldVar : fieldVars){
+				JType type = fieldVar.type();
+				int mods = (fieldVar.mods()).getValue();
+
+				if(type.isPrimitive() || (mods & (JMod.STATIC | JMod.FINAL)) != 0){
+					continue;
+				}
+
+				block.assign(JExpr.refthis(fieldVar.name()), JExpr._null());
+			}
+		}
+	}
+
 	public static final int MEMBER_PUBLIC = (JMod.PUBLIC | JMod.FINAL | JMod.STATIC);
 	public static final int MEMBER_PRIVATE = (JMod.PRIVATE | JMod.FINAL | JMod.STATIC);
 }
\ No newline at end of file
@@ -18,7 +18,11 @@
  */
 package org.jpmml.translator;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -26,15 +30,23 @@ import com.sun.codemodel.JBlock;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
 import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.Field;
 import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.UnsupportedAttributeException;
 
 public class OrdinalEncoder implements Encoder {
 
 	private Map<Object, Integer> indexMap = new LinkedHashMap<>();
 
+	private JMethod valueEncoderMethod = null;
+
 	private JMethod isSetMethod = null;
 
 
@@ -58,25 +70,54 @@ public class OrdinalEncoder implements Encoder {
 		return this.indexMap.getOrDefault(value, 0);
 	}
 
+	/**
+	 * <p>
+	 * Gets the encodable values, in the order of their ordinals (starting from <code>1</code>).
+	 * </p>
+	 */
+	public Set<?> getValues(){
+		return this.indexMap.keySet();
+	}
+
 	@Override
 	public OrdinalRef ref(JVar variable){
 		return new OrdinalRef(variable, this);
 	}
 
 	@Override
-	public JMethod createEncoderMethod(JType type, FieldName name, TranslationContext context){
+	public JMethod createEncoderMethod(Field<?> field, TranslationContext context){
 		JDefinedClass owner = context.getOwner();
 
+		FieldName name = field.getName();
+		DataType dataType = field.getDataType();
+
+		JMethod valueEncoderMethod = ensureValueEncoderMethod(field, context);
+
 		JMethod encoderMethod = owner.method(ModelTranslator.MEMBER_PRIVATE, context._ref(int.class), IdentifierUtil.create("toOrdinal", name));
 
-		JVar valueParam = encoderMethod.param(type, "value");
+		JVar valueParam = encoderMethod.param(FieldValue.class, "value");
 
 		try {
 			context.pushScope(new MethodScope(encoderMethod));
 
 			context._returnIf(valueParam.eq(JExpr._null()), OrdinalEncoder.MISSING_VALUE);
 
-			context._return(valueParam, this.indexMap, 0);
+			FieldValueRef fieldValueRef = new FieldValueRef(valueParam);
+
+			JExpression valueExpr;
+
+			switch(dataType){
+				case STRING:
+					valueExpr = fieldValueRef.asString();
+					break;
+				case INTEGER:
+					valueExpr = (fieldValueRef.asNumber()).invoke("intValue");
+					break;
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
+
+			context._return(JExpr.invoke(valueEncoderMethod).arg(valueExpr));
 		} finally {
 			context.popScope();
 		}
@@ -84,6 +125,126 @@ public class OrdinalEncoder implements Encoder {
 		return encoderMethod;
 	}
 
+	/**
+	 * <p>
+	 * Ensures a method that encodes a raw <code>String</code> or <code>int</code> value.
+	 * </p>
+	 */
+	public JMethod ensureValueEncoderMethod(Field<?> field, TranslationContext context){
+
+		if(this.valueEncoderMethod == null){
+			this.valueEncoderMethod = createValueEncoderMethod(field, context);
+		}
+
+		return this.valueEncoderMethod;
+	}
+
+	private JMethod createValueEncoderMethod(Field<?> field, TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		FieldName name = field.getName();
+		DataType dataType = field.getDataType();
+
+		JType type;
+
+		switch(dataType){
+			case STRING:
+				type = context.ref(String.class);
+				break;
+			case INTEGER:
+				type = context._ref(int.class);
+				break;
+			default:
+				throw new UnsupportedAttributeException(field, dataType);
+		}
+
+		JMethod valueEncoderMethod = owner.method(ModelTranslator.MEMBER_PRIVATE, context._ref(int.class), IdentifierUtil.create("toOrdinal", name));
+
+		JVar valueParam = valueEncoderMethod.param(type, "value");
+
+		PerfectHash perfectHash = null;
+
+		if((DataType.STRING).equals(dataType) && this.indexMap.size() >= OrdinalEncoder.PERFECT_HASH_THRESHOLD){
+			perfectHash = PerfectHash.build(this.indexMap);
+		}
+
+		try {
+			context.pushScope(new MethodScope(valueEncoderMethod));
+
+			if(type.isReference()){
+				context._returnIf(valueParam.eq(JExpr._null()), OrdinalEncoder.MISSING_VALUE);
+			} // End if
+
+			if(perfectHash != null){
+				translatePerfectHash(valueParam, perfectHash, context);
+			} else
+
+			{
+				context._return(valueParam, this.indexMap, 0);
+			}
+		} finally {
+			context.popScope();
+		}
+
+		return valueEncoderMethod;
+	}
+
+	/**
+	 * <p>
+	 * Replaces a large <code>String</code> switch statement with a minimal perfect hash lookup,
+	 * which is resolved using exactly one <code>String#equals(Object)</code> method call.
+	 * </p>
+	 */
+	private void translatePerfectHash(JVar valueParam, PerfectHash perfectHash, TranslationContext context){
+		JMethod mixMethod = ensureMixMethod(context);
+
+		JBinaryFileInitializer resourceInitializer = new JBinaryFileInitializer(context, IdentifierUtil.create(PerfectHash.class.getSimpleName(), this) + ".data");
+
+		JFieldVar seedsVar = resourceInitializer.initIntArray(IdentifierUtil.create("seeds", this), perfectHash.getSeeds());
+		JFieldVar keysVar = resourceInitializer.initStringArray(IdentifierUtil.create("keys", this), perfectHash.getKeys());
+		JFieldVar ordinalsVar = resourceInitializer.initIntArray(IdentifierUtil.create("ordinals", this), perfectHash.getOrdinals());
+
+		JType intType = context._ref(int.class);
+
+		JExpression sizeExpr = JExpr.lit(perfectHash.size());
+
+		JVar hashVar = context.declare(intType, "hash", valueParam.invoke("hashCode"));
+		JVar seedVar = context.declare(intType, "seed", seedsVar.component((JExpr.invoke(mixMethod).arg(hashVar).arg(JExpr.lit(0))).mod(sizeExpr)));
+		JVar indexVar = context.declare(intType, "index", JOp.cond(seedVar.lt(JExpr.lit(0)), (JExpr.lit(-1)).minus(seedVar), (JExpr.invoke(mixMethod).arg(hashVar).arg(seedVar)).mod(sizeExpr)));
+
+		context._return(valueParam.invoke("equals").arg(keysVar.component(indexVar)), ordinalsVar.component(indexVar), JExpr.lit(0));
+	}
+
+	private JMethod ensureMixMethod(TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		JType intType = context._ref(int.class);
+
+		JMethod mixMethod = owner.getMethod("mix", new JType[]{intType, intType});
+		if(mixMethod != null){
+			return mixMethod;
+		}
+
+		mixMethod = owner.method(ModelTranslator.MEMBER_PRIVATE, intType, "mix");
+
+		JVar hashParam = mixMethod.param(intType, "hash");
+		JVar seedParam = mixMethod.param(intType, "seed");
+
+		JBlock block = mixMethod.body();
+
+		JVar hVar = block.decl(intType, "h", hashParam.xor(seedParam.mul(JExpr.lit(PerfectHash.GOLDEN_RATIO))));
+
+		block.assign(hVar, hVar.xor(hVar.shrz(JExpr.lit(16))));
+		block.assign(hVar, hVar.mul(JExpr.lit(PerfectHash.MULTIPLIER_1)));
+		block.assign(hVar, hVar.xor(hVar.shrz(JExpr.lit(13))));
+		block.assign(hVar, hVar.mul(JExpr.lit(PerfectHash.MULTIPLIER_2)));
+		block.assign(hVar, hVar.xor(hVar.shrz(JExpr.lit(16))));
+
+		block._return(hVar.band(JExpr.lit(0x7FFFFFFF)));
+
+		return mixMethod;
+	}
+
 	public JMethod ensureIsSetMethod(TranslationContext context){
 
 		if(this.isSetMethod == null){
@@ -121,5 +282,207 @@ public class OrdinalEncoder implements Encoder {
 		return isSetMethod;
 	}
 
+	/**
+	 * <p>
+	 * A hash-and-displace minimal perfect hash function over a set of <code>String</code> categories.
+	 * </p>
+	 *
+	 * <p>
+	 * Keys are distributed into buckets using their "unseeded" mixed hash code.
+	 * Multi-key buckets are processed in the order of decreasing size, and are assigned the first seed value that maps all their keys to free slots.
+	 * Single-key buckets are placed directly into the remaining free slots, which is recorded as a negative seed value.
+	 * </p>
+	 */
+	static
+	class PerfectHash {
+
+		private int[] seeds = null;
+
+		private String[] keys = null;
+
+		private int[] ordinals = null;
+
+
+		private PerfectHash(int size){
+			this.seeds = new int[size];
+			this.keys = new String[size];
+			this.ordinals = new int[size];
+		}
+
+		public int size(){
+			return this.keys.length;
+		}
+
+		public int[] getSeeds(){
+			return this.seeds;
+		}
+
+		public String[] getKeys(){
+			return this.keys;
+		}
+
+		public int[] getOrdinals(){
+			return this.ordinals;
+		}
+
+		public int lookup(String value){
+			int hash = value.hashCode();
+
+			int size = size();
+
+			int seed = this.seeds[mix(hash, 0) % size];
+			int index = (seed < 0) ? (-1 - seed) : (mix(hash, seed) % size);
+
+			return value.equals(this.keys[index]) ? this.ordinals[index] : 0;
+		}
+
+		/**
+		 * @return A perfect hash, or <code>null</code> if the keys cannot be separated by hash code.
+		 */
+		static
+		public PerfectHash build(Map<?, Integer> indexMap){
+			int size = indexMap.size();
+
+			List<List<String>> buckets = new ArrayList<>(size);
+
+			for(int i = 0; i < size; i++){
+				buckets.add(new ArrayList<>());
+			}
+
+			Set<Integer> hashes = new HashSet<>();
+
+			Collection<?> values = indexMap.keySet();
+			for(Object value : values){
+
+				if(!(value instanceof String)){
+					return null;
+				}
+
+				String key = (String)value;
+
+				int hash = key.hashCode();
+
+				// Keys with colliding hash codes cannot be separated by any seed value
+				if(!hashes.add(hash)){
+					return null;
+				}
+
+				(buckets.get(mix(hash, 0) % size)).add(key);
+			}
+
+			List<Integer> bucketIndices = new ArrayList<>(size);
+
+			for(int i = 0; i < size; i++){
+				bucketIndices.add(i);
+			}
+
+			bucketIndices.sort((left, right) -> Integer.compare((buckets.get(right)).size(), (buckets.get(left)).size()));
+
+			PerfectHash perfectHash = new PerfectHash(size);
+
+			boolean[] occupied = new boolean[size];
+
+			int freeIndex = 0;
+
+			buckets:
+			for(Integer bucketIndex : bucketIndices){
+				List<String> bucket = buckets.get(bucketIndex);
+
+				switch(bucket.size()){
+					case 0:
+						break buckets;
+					case 1:
+						{
+							while(occupied[freeIndex]){
+								freeIndex++;
+							}
+
+							perfectHash.put(freeIndex, bucket.get(0), indexMap);
+
+							occupied[freeIndex] = true;
+
+							perfectHash.seeds[bucketIndex] = (-1 - freeIndex);
+						}
+						break;
+					default:
+						{
+							int[] indices = new int[bucket.size()];
+
+							seeds:
+							for(int seed = 1; seed < PerfectHash.MAX_SEED; seed++){
+
+								for(int i = 0; i < bucket.size(); i++){
+									int index = mix((bucket.get(i)).hashCode(), seed) % size;
+
+									if(occupied[index]){
+										continue seeds;
+									}
+
+									for(int j = 0; j < i; j++){
+
+										if(indices[j] == index){
+											continue seeds;
+										}
+									}
+
+									indices[i] = index;
+								}
+
+								for(int i = 0; i < bucket.size(); i++){
+									perfectHash.put(indices[i], bucket.get(i), indexMap);
+
+									occupied[indices[i]] = true;
+								}
+
+								perfectHash.seeds[bucketIndex] = seed;
+
+								continue buckets;
+							}
+
+							return null;
+						}
+				}
+			}
+
+			return perfectHash;
+		}
+
+		private void put(int index, String key, Map<?, Integer> indexMap){
+			this.keys[index] = key;
+			this.ordinals[index] = indexMap.get(key);
+		}
+
+		/**
+		 * <p>
+		 * Must be kept in sync with {@link OrdinalEncoder#ensureMixMethod(TranslationContext)}.
+		 * </p>
+		 */
+		static
+		int mix(int hash, int seed){
+			int h = hash ^ (seed * PerfectHash.GOLDEN_RATIO);
+
+			h ^= (h >>> 16);
+			h *= PerfectHash.MULTIPLIER_1;
+			h ^= (h >>> 13);
+			h *= PerfectHash.MULTIPLIER_2;
+			h ^= (h >>> 16);
+
+			return h & 0x7FFFFFFF;
+		}
+
+		private static final int GOLDEN_RATIO = 0x9E3779B9;
+		private static final int MULTIPLIER_1 = 0x85EBCA6B;
+		private static final int MULTIPLIER_2 = 0xC2B2AE35;
+
+		private static final int MAX_SEED = 1 << 20;
+	}
+
 	public static final JExpression MISSING_VALUE = JExpr.lit(-1);
+
+	/**
+	 * <p>
+	 * The minimum number of <code>String</code> categories for switching from a <code>switch</code> statement to a perfect hash lookup.
+	 * </p>
+	 */
+	public static final int PERFECT_HASH_THRESHOLD = 64;
 }
\ No newline at end of file
@@ -40,6 +40,7 @@ import org.dmg.pmml.DataDictionary;
 import org.dmg.pmml.FieldName;
 import org.dmg.pmml.Header;
 import org.dmg.pmml.LocalTransformations;
+import org.dmg.pmml.MathContext;
 import org.dmg.pmml.MiningSchema;
 import org.dmg.pmml.Model;
 import org.dmg.pmml.ModelExplanation;
@@ -236,6 +237,19 @@ public class PMMLObjectUtil {
 		return invocation;
 	}
 
+	static
+	public JExpression createExpression(Number value, MathContext mathContext){
+
+		switch(mathContext){
+			case FLOAT:
+				return JExpr.lit(value.floatValue());
+			case DOUBLE:
+				return JExpr.lit(value.doubleValue());
+			default:
+				throw new IllegalArgumentException();
+		}
+	}
+
 	static
 	public JExpression createExpression(Object value, TranslationContext context){
 
@@ -288,7 +302,9 @@ public class PMMLObjectUtil {
 
 		if((Enum.class).isAssignableFrom(clazz)){
 			Enum<?> enumValue = (Enum<?>)value;
-			JClass enumClass = context.ref(clazz);
+
+			// Constants with a body are instances of an anonymous subclass
+			JClass enumClass = context.ref(enumValue.getDeclaringClass());
 
 			return enumClass.staticRef(enumValue.name());
 		} else
@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +38,7 @@ import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JOp;
@@ -45,16 +47,21 @@ import com.sun.codemodel.JSwitch;
 import com.sun.codemodel.JType;
 import com.sun.codemodel.JTypeVar;
 import com.sun.codemodel.JVar;
+import org.dmg.pmml.DataField;
 import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
 import org.dmg.pmml.Field;
 import org.dmg.pmml.FieldName;
 import org.dmg.pmml.PMML;
 import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.Visitor;
+import org.dmg.pmml.VisitorAction;
 import org.jpmml.evaluator.FieldValue;
 import org.jpmml.evaluator.PMMLException;
 import org.jpmml.evaluator.UnsupportedAttributeException;
 import org.jpmml.evaluator.Value;
 import org.jpmml.evaluator.ValueMap;
+import org.jpmml.model.visitors.AbstractVisitor;
 
 public class TranslationContext {
 
@@ -70,6 +77,12 @@ public class TranslationContext {
 
 	private Map<PMMLObject, JExpression> representations = new LinkedHashMap<>();
 
+	private Map<JDefinedClass, Map<String, FieldInfo>> argumentFieldInfos = new LinkedHashMap<>();
+
+	private Map<JDefinedClass, Map<FieldName, JFieldVar>> chainedFieldVars = new LinkedHashMap<>();
+
+	private Map<FieldName, Field<?>> fields = null;
+
 	private ArrayManager<FieldName> fieldNameManager = null;
 
 	private ArrayManager<QName> xmlNameManager = null;
@@ -148,6 +161,18 @@ public class TranslationContext {
 		throw new IllegalArgumentException(name);
 	}
 
+	public boolean hasVariable(String name){
+
+		for(Scope scope : this.scopes){
+
+			if(scope.getVariable(name) != null){
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	public ArgumentsRef getArgumentsVariable(){
 		JVar variable = getVariable(Scope.VAR_ARGUMENTS);
 
@@ -481,4 +506,79 @@ public class TranslationContext {
 	public void putRepresentation(PMMLObject pmmlObject, JExpression reprExpr){
 		this.representations.put(pmmlObject, reprExpr);
 	}
-}
\ No newline at end of file
+
+	public Map<String, FieldInfo> getArgumentFieldInfos(JDefinedClass argumentsClazz){
+		return this.argumentFieldInfos.getOrDefault(argumentsClazz, Collections.emptyMap());
+	}
+
+	public void putArgumentFieldInfo(JDefinedClass argumentsClazz, FieldInfo fieldInfo){
+		Map<String, FieldInfo> fieldInfos = this.argumentFieldInfos.computeIfAbsent(argumentsClazz, key -> new LinkedHashMap<>());
+
+		fieldInfos.put(fieldInfo.getVariableName(), fieldInfo);
+	}
+
+	/**
+	 * <p>
+	 * Resolves a data field or a derived field by name.
+	 * </p>
+	 *
+	 * @return The field, or <code>null</code> if the name is unknown or ambiguous (ie. declared in more than one place).
+	 */
+	public Field<?> resolveField(FieldName name){
+
+		if(this.fields == null){
+			this.fields = collectFields(getPMML());
+		}
+
+		return this.fields.get(name);
+	}
+
+	public JFieldVar getChainedFieldVar(JDefinedClass argumentsClazz, FieldName name){
+		Map<FieldName, JFieldVar> fieldVars = this.chainedFieldVars.getOrDefault(argumentsClazz, Collections.emptyMap());
+
+		return fieldVars.get(name);
+	}
+
+	public void putChainedFieldVar(JDefinedClass argumentsClazz, FieldName name, JFieldVar fieldVar){
+		Map<FieldName, JFieldVar> fieldVars = this.chainedFieldVars.computeIfAbsent(argumentsClazz, key -> new LinkedHashMap<>());
+
+		fieldVars.put(name, fieldVar);
+	}
+
+	static
+	private Map<FieldName, Field<?>> collectFields(PMML pmml){
+		Map<FieldName, Field<?>> result = new HashMap<>();
+
+		Visitor visitor = new AbstractVisitor(){
+
+			@Override
+			public VisitorAction visit(DataField dataField){
+				register(dataField);
+
+				return super.visit(dataField);
+			}
+
+			@Override
+			public VisitorAction visit(DerivedField derivedField){
+				register(derivedField);
+
+				return super.visit(derivedField);
+			}
+
+			private void register(Field<?> field){
+				FieldName name = field.getName();
+
+				if(result.containsKey(name)){
+					result.put(name, null);
+				} else
+
+				{
+					result.put(name, field);
+				}
+			}
+		};
+		visitor.applyTo(pmml);
+
+		return result;
+	}
+}
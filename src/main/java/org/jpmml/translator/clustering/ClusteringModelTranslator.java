@@ -0,0 +1,554 @@
+/*
+ * Copyright (c) 2019 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JTypeVar;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.Array;
+import org.dmg.pmml.Chebychev;
+import org.dmg.pmml.CityBlock;
+import org.dmg.pmml.CompareFunction;
+import org.dmg.pmml.ComparisonMeasure;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.Euclidean;
+import org.dmg.pmml.Field;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.Measure;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.SquaredEuclidean;
+import org.dmg.pmml.clustering.Cluster;
+import org.dmg.pmml.clustering.ClusteringField;
+import org.dmg.pmml.clustering.ClusteringModel;
+import org.dmg.pmml.clustering.MissingValueWeights;
+import org.dmg.pmml.clustering.PMMLElements;
+import org.jpmml.evaluator.ArrayUtil;
+import org.jpmml.evaluator.Classification;
+import org.jpmml.evaluator.EntityClassification;
+import org.jpmml.evaluator.HasAffinityRanking;
+import org.jpmml.evaluator.HasDisplayValue;
+import org.jpmml.evaluator.HasEntityAffinity;
+import org.jpmml.evaluator.HasEntityIdRanking;
+import org.jpmml.evaluator.InvalidElementException;
+import org.jpmml.evaluator.MissingElementException;
+import org.jpmml.evaluator.Report;
+import org.jpmml.evaluator.TargetUtil;
+import org.jpmml.evaluator.TypeUtil;
+import org.jpmml.evaluator.UndefinedResultException;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.evaluator.ValueMap;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.JBinaryFileInitializer;
+import org.jpmml.translator.JDirectInitializer;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.MathUtil;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.OperableRef;
+import org.jpmml.translator.PMMLObjectUtil;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.ValueFactoryRef;
+
+public class ClusteringModelTranslator extends ModelTranslator<ClusteringModel> {
+
+	public ClusteringModelTranslator(PMML pmml, ClusteringModel clusteringModel){
+		super(pmml, clusteringModel);
+
+		MiningFunction miningFunction = clusteringModel.getMiningFunction();
+		switch(miningFunction){
+			case CLUSTERING:
+				break;
+			default:
+				throw new UnsupportedAttributeException(clusteringModel, miningFunction);
+		}
+
+		ClusteringModel.ModelClass modelClass = clusteringModel.getModelClass();
+		switch(modelClass){
+			case CENTER_BASED:
+				break;
+			default:
+				throw new UnsupportedAttributeException(clusteringModel, modelClass);
+		}
+
+		ComparisonMeasure comparisonMeasure = clusteringModel.getComparisonMeasure();
+		if(comparisonMeasure == null){
+			throw new MissingElementException(clusteringModel, PMMLElements.CLUSTERINGMODEL_COMPARISONMEASURE);
+		}
+
+		ComparisonMeasure.Kind kind = comparisonMeasure.getKind();
+		switch(kind){
+			case DISTANCE:
+				break;
+			default:
+				throw new UnsupportedAttributeException(comparisonMeasure, kind);
+		}
+
+		Measure measure = comparisonMeasure.getMeasure();
+		if(!(measure instanceof SquaredEuclidean) && !(measure instanceof Euclidean) && !(measure instanceof CityBlock) && !(measure instanceof Chebychev)){
+			throw new UnsupportedElementException(measure);
+		}
+
+		checkCompareFunction(comparisonMeasure, comparisonMeasure.getCompareFunction());
+
+		MissingValueWeights missingValueWeights = clusteringModel.getMissingValueWeights();
+		if(missingValueWeights != null){
+			throw new UnsupportedElementException(missingValueWeights);
+		}
+
+		List<ClusteringField> clusteringFields = getCenterClusteringFields(clusteringModel);
+		if(clusteringFields.isEmpty()){
+			throw new InvalidElementException(clusteringModel);
+		}
+
+		for(ClusteringField clusteringField : clusteringFields){
+			CompareFunction compareFunction = clusteringField.getCompareFunction();
+
+			if(compareFunction != null){
+				checkCompareFunction(clusteringField, compareFunction);
+			}
+
+			Number fieldWeight = clusteringField.getFieldWeight();
+			if(fieldWeight.doubleValue() < 0d){
+				throw new InvalidElementException(clusteringField);
+			}
+		}
+
+		List<Cluster> clusters = clusteringModel.getClusters();
+		for(Cluster cluster : clusters){
+			Array array = cluster.getArray();
+
+			if(array == null){
+				throw new MissingElementException(cluster, PMMLElements.CLUSTER_ARRAY);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Computes cluster distances using primitive <code>float</code> or <code>double</code> arithmetic.
+	 * </p>
+	 *
+	 * <p>
+	 * Cluster centers are stored in a flat row-major array.
+	 * The per-field distance terms are unrolled inside a single loop over clusters.
+	 * Field weights are folded into the unrolled terms as constants.
+	 * Every term is computed the same way as in the interpreter, by multiplying the (squared) absolute difference with the field weight.
+	 * The distances to all clusters are collected into the result, so that cluster affinities are available the same way as in the interpreter.
+	 * </p>
+	 */
+	@Override
+	public JMethod translateClusterer(TranslationContext context){
+		ClusteringModel clusteringModel = getModel();
+
+		MathContext mathContext = clusteringModel.getMathContext();
+		ComparisonMeasure comparisonMeasure = clusteringModel.getComparisonMeasure();
+
+		Measure measure = comparisonMeasure.getMeasure();
+
+		List<ClusteringField> clusteringFields = getCenterClusteringFields(clusteringModel);
+		List<Cluster> clusters = clusteringModel.getClusters();
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(new LinkedHashSet<>(clusteringFields));
+
+		JPrimitiveType type = getPrimitiveType(clusteringModel, context);
+		JType intType = context._ref(int.class);
+
+		JDefinedClass owner = context.getOwner();
+
+		JArray idArray = JExpr.newArray(context.ref(String.class));
+		JArray clusterArray = JExpr.newArray(context.ref(Cluster.class));
+
+		for(int i = 0; i < clusters.size(); i++){
+			Cluster cluster = clusters.get(i);
+
+			String id = cluster.getId();
+			String name = cluster.getName();
+
+			// Clusters without an explicit identifier are identified by their 1-based position
+			idArray.add(JExpr.lit(id != null ? id : String.valueOf(i + 1)));
+
+			JExpression clusterExpr = context._new(Cluster.class);
+
+			if(id != null){
+				clusterExpr = context.invoke(clusterExpr, "setId", id);
+			} // End if
+
+			if(name != null){
+				clusterExpr = context.invoke(clusterExpr, "setName", name);
+			}
+
+			clusterArray.add(clusterExpr);
+		}
+
+		JClass registryClazz = context.ref(BiMap.class).narrow(context.ref(String.class), context.ref(Cluster.class));
+
+		JFieldVar idsVar = owner.field(ModelTranslator.MEMBER_PRIVATE, context.ref(String.class).array(), IdentifierUtil.create("ids", clusteringModel), idArray);
+		JFieldVar clustersVar = owner.field(ModelTranslator.MEMBER_PRIVATE, context.ref(Cluster.class).array(), IdentifierUtil.create("clusters", clusteringModel), clusterArray);
+		JFieldVar registryVar = owner.field(ModelTranslator.MEMBER_PRIVATE, registryClazz, IdentifierUtil.create("entityRegistry", clusteringModel), context.staticInvoke(HashBiMap.class, "create"));
+
+		JDirectInitializer directInitializer = new JDirectInitializer(context);
+
+		for(int i = 0; i < clusters.size(); i++){
+			directInitializer.add(context.invoke(registryVar, "put", idsVar.component(JExpr.lit(i)), clustersVar.component(JExpr.lit(i))));
+		}
+
+		int numberOfFields = clusteringFields.size();
+
+		Number[] centerValues = new Number[clusters.size() * numberOfFields];
+
+		for(int i = 0; i < clusters.size(); i++){
+			Cluster cluster = clusters.get(i);
+
+			Array array = cluster.getArray();
+
+			List<?> content = ArrayUtil.getContent(array);
+			if(content.size() != numberOfFields){
+				throw new InvalidElementException(array);
+			}
+
+			for(int j = 0; j < numberOfFields; j++){
+				Number value = (Number)TypeUtil.parseOrCast(DataType.DOUBLE, content.get(j));
+
+				centerValues[i * numberOfFields + j] = value.doubleValue();
+			}
+		}
+
+		JBinaryFileInitializer resourceInitializer = new JBinaryFileInitializer(context, IdentifierUtil.create(ClusteringModel.class.getSimpleName(), clusteringModel) + ".data");
+
+		JFieldVar centersVar = resourceInitializer.initFpPrimitiveArray(IdentifierUtil.create("centers", clusteringModel), mathContext, centerValues);
+
+		JDefinedClass distributionClazz = ensureClusterAffinityDistributionType(context);
+
+		JMethod evaluateMethod = createEvaluatorMethod(Classification.class, clusteringModel, true, context);
+		evaluateMethod.type(distributionClazz.narrow((evaluateMethod.typeParams())[0]));
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			List<JVar> inputVars = new ArrayList<>();
+			List<JVar> presentVars = new ArrayList<>();
+
+			JExpression presentCountExpr = null;
+
+			for(int i = 0; i < numberOfFields; i++){
+				ClusteringField clusteringField = clusteringFields.get(i);
+
+				FieldInfo fieldInfo = getFieldInfo(clusteringField.getField(), fieldInfos);
+
+				Field<?> field = fieldInfo.getField();
+
+				DataType dataType = field.getDataType();
+				switch(dataType){
+					case INTEGER:
+					case FLOAT:
+					case DOUBLE:
+						break;
+					default:
+						throw new UnsupportedAttributeException(field, dataType);
+				}
+
+				OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+				JVar variable = operableRef.getVariable();
+
+				JExpression valueExpr = MathUtil.toPrimitive(variable, type);
+
+				if(context.isNonMissing(variable)){
+					inputVars.add(context.declare(type, IdentifierUtil.create("input", clusteringField), valueExpr));
+					presentVars.add(null);
+
+					continue;
+				}
+
+				JVar presentVar = context.declare(boolean.class, IdentifierUtil.create("present", clusteringField), operableRef.isMissing().not());
+
+				inputVars.add(context.declare(type, IdentifierUtil.create("input", clusteringField), JOp.cond(presentVar, valueExpr, PMMLObjectUtil.createExpression(0d, mathContext))));
+				presentVars.add(presentVar);
+
+				JExpression countExpr = JOp.cond(presentVar, JExpr.lit(1), JExpr.lit(0));
+
+				presentCountExpr = (presentCountExpr != null ? presentCountExpr.plus(countExpr) : countExpr);
+			}
+
+			JVar adjustmentVar = null;
+
+			if(presentCountExpr != null){
+				int nonMissingCount = Math.toIntExact(presentVars.stream().filter(presentVar -> presentVar == null).count());
+
+				if(nonMissingCount > 0){
+					presentCountExpr = JExpr.lit(nonMissingCount).plus(presentCountExpr);
+				}
+
+				JVar presentCountVar = context.declare(intType, "presentCount", presentCountExpr);
+
+				// The missing value adjustment is undefined
+				context.block()._if(presentCountVar.eq(JExpr.lit(0)))._then()._throw(context._new(UndefinedResultException.class));
+
+				// Distances are scaled up in proportion to the number of missing field values
+				adjustmentVar = context.declare(type, "adjustment", JOp.div(JExpr.cast(type, JExpr.lit(numberOfFields)), presentCountVar));
+			}
+
+			ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+			JClass valueMapClazz = context.ref(ValueMap.class).narrow(Arrays.asList(context.ref(String.class), context.getNumberTypeVariable()));
+
+			JInvocation distributionInvocation = JExpr._new(distributionClazz.narrow(context.getNumberTypeVariable()))
+				.arg(PMMLObjectUtil.createExpression(Classification.Type.DISTANCE, context))
+				.arg(context._new(valueMapClazz, JExpr.lit(2 * clusters.size())))
+				.arg(registryVar);
+
+			JVar resultVar = context.declare(distributionClazz.narrow(context.getNumberTypeVariable()), "result", distributionInvocation);
+
+			JForLoop forLoop = context.block()._for();
+
+			JVar iVar = forLoop.init(intType, "i", JExpr.lit(0));
+			forLoop.test(iVar.lt(JExpr.lit(clusters.size())));
+			forLoop.update(iVar.incr());
+
+			JBlock forBody = forLoop.body();
+
+			JVar offsetVar = forBody.decl(intType, "offset", iVar.mul(JExpr.lit(numberOfFields)));
+			JVar distanceVar = forBody.decl(type, "distance", PMMLObjectUtil.createExpression(0d, mathContext));
+
+			for(int i = 0; i < numberOfFields; i++){
+				ClusteringField clusteringField = clusteringFields.get(i);
+
+				JVar inputVar = inputVars.get(i);
+				JVar presentVar = presentVars.get(i);
+
+				JBlock block = forBody;
+
+				if(presentVar != null){
+					block = (forBody._if(presentVar))._then();
+				}
+
+				JVar diffVar = block.decl(type, "diff" + i, inputVar.minus(centersVar.component(offsetVar.plus(JExpr.lit(i)))));
+
+				JExpression termExpr;
+
+				if((measure instanceof SquaredEuclidean) || (measure instanceof Euclidean)){
+					termExpr = diffVar.mul(diffVar);
+				} else
+
+				if((measure instanceof CityBlock) || (measure instanceof Chebychev)){
+					termExpr = context.staticInvoke(Math.class, "abs", diffVar);
+				} else
+
+				{
+					throw new UnsupportedElementException(measure);
+				}
+
+				double fieldWeight = (clusteringField.getFieldWeight()).doubleValue();
+				if(fieldWeight != 1d){
+					termExpr = termExpr.mul(PMMLObjectUtil.createExpression(fieldWeight, mathContext));
+				} // End if
+
+				if(measure instanceof Chebychev){
+					block.assign(distanceVar, context.staticInvoke(Math.class, "max", distanceVar, termExpr));
+				} else
+
+				{
+					block.assignPlus(distanceVar, termExpr);
+				}
+			}
+
+			JExpression distanceExpr = translateDistance(measure, distanceVar, adjustmentVar, type, context);
+
+			forBody.add(context.invoke(resultVar, "put", clustersVar.component(iVar), idsVar.component(iVar), valueFactoryRef.newValue(distanceExpr)));
+
+			context.add(context.staticInvoke(TargetUtil.class, "computeResult", DataType.STRING, resultVar));
+
+			context._return(resultVar);
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	static
+	private JExpression translateDistance(Measure measure, JVar distanceVar, JVar adjustmentVar, JPrimitiveType type, TranslationContext context){
+		JExpression result = distanceVar;
+
+		if(adjustmentVar != null){
+			result = result.mul(adjustmentVar);
+		} // End if
+
+		if(measure instanceof Euclidean){
+			// The interpreter raises to the power of 1/2, which may differ from the square root in the last digit
+			result = MathUtil.castPrimitive(context.staticInvoke(Math.class, "pow", result, JExpr.lit(0.5d)), type);
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Ensures a cluster affinity distribution class.
+	 * The interpreter's cluster affinity distribution class cannot be instantiated outside of its package.
+	 * </p>
+	 */
+	static
+	private JDefinedClass ensureClusterAffinityDistributionType(TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		for(Iterator<JDefinedClass> it = owner.classes(); it.hasNext(); ){
+			JDefinedClass clazz = it.next();
+
+			if(("ClusterAffinityDistribution").equals(clazz.name())){
+				return clazz;
+			}
+		}
+
+		JDefinedClass distributionClazz = PMMLObjectUtil.createMemberClass(ModelTranslator.MEMBER_PUBLIC, "ClusterAffinityDistribution", context);
+
+		JTypeVar numberTypeVar = distributionClazz.generify(MethodScope.TYPEVAR_NUMBER, Number.class);
+
+		JClass stringClazz = context.ref(String.class);
+		JClass doubleClazz = context.ref(Double.class);
+		JClass clusterClazz = context.ref(Cluster.class);
+
+		JClass registryClazz = context.ref(BiMap.class).narrow(stringClazz, clusterClazz);
+
+		distributionClazz._extends(context.ref(EntityClassification.class).narrow(clusterClazz, stringClazz, numberTypeVar));
+		distributionClazz._implements(HasEntityIdRanking.class);
+		distributionClazz._implements(HasDisplayValue.class);
+		distributionClazz._implements(HasAffinityRanking.class);
+		distributionClazz._implements(HasEntityAffinity.class);
+
+		JFieldVar registryVar = distributionClazz.field(JMod.PRIVATE, registryClazz, "entityRegistry");
+
+		JMethod constructor = distributionClazz.constructor(JMod.PUBLIC);
+
+		JVar typeParam = constructor.param(Classification.Type.class, "type");
+		JVar valuesParam = constructor.param(context.ref(ValueMap.class).narrow(stringClazz, numberTypeVar), "values");
+		JVar registryParam = constructor.param(registryClazz, "entityRegistry");
+
+		JBlock block = constructor.body();
+
+		block.invoke("super").arg(typeParam).arg(valuesParam);
+		block.assign(JExpr.refthis(registryVar.name()), registryParam);
+
+		JMethod registryMethod = distributionClazz.method(JMod.PUBLIC, registryClazz, "getEntityRegistry");
+		registryMethod.annotate(Override.class);
+
+		registryMethod.body()._return(registryVar);
+
+		JMethod categoriesMethod = distributionClazz.method(JMod.PUBLIC, context.ref(Set.class).narrow(stringClazz), "getCategories");
+		categoriesMethod.annotate(Override.class);
+
+		categoriesMethod.body()._return(JExpr.invoke("keySet"));
+
+		JMethod entityIdRankingMethod = distributionClazz.method(JMod.PUBLIC, context.ref(List.class).narrow(stringClazz), "getEntityIdRanking");
+		entityIdRankingMethod.annotate(Override.class);
+
+		entityIdRankingMethod.body()._return(JExpr.invoke("getWinnerKeys"));
+
+		JMethod displayValueMethod = distributionClazz.method(JMod.PUBLIC, stringClazz, "getDisplayValue");
+		displayValueMethod.annotate(Override.class);
+
+		displayValueMethod.body()._return((JExpr.invoke("getEntity")).invoke("getName"));
+
+		JMethod affinityMethod = distributionClazz.method(JMod.PUBLIC, doubleClazz, "getAffinity");
+		affinityMethod.annotate(Override.class);
+
+		JVar idParam = affinityMethod.param(stringClazz, "id");
+
+		affinityMethod.body()._return(JExpr.invoke("getValue").arg(idParam));
+
+		JMethod affinityReportMethod = distributionClazz.method(JMod.PUBLIC, Report.class, "getAffinityReport");
+		affinityReportMethod.annotate(Override.class);
+
+		idParam = affinityReportMethod.param(stringClazz, "id");
+
+		affinityReportMethod.body()._return(JExpr.invoke("getValueReport").arg(idParam));
+
+		JMethod affinityRankingMethod = distributionClazz.method(JMod.PUBLIC, context.ref(List.class).narrow(doubleClazz), "getAffinityRanking");
+		affinityRankingMethod.annotate(Override.class);
+
+		affinityRankingMethod.body()._return(JExpr.invoke("getWinnerValues"));
+
+		JMethod entityAffinityMethod = distributionClazz.method(JMod.PUBLIC, doubleClazz, "getEntityAffinity");
+		entityAffinityMethod.annotate(Override.class);
+
+		entityAffinityMethod.body()._return(JExpr.invoke(affinityMethod).arg(JExpr.invoke("getEntityId")));
+
+		return distributionClazz;
+	}
+
+	static
+	private List<ClusteringField> getCenterClusteringFields(ClusteringModel clusteringModel){
+		List<ClusteringField> result = new ArrayList<>();
+
+		List<ClusteringField> clusteringFields = clusteringModel.getClusteringFields();
+		for(ClusteringField clusteringField : clusteringFields){
+			ClusteringField.CenterField centerField = clusteringField.getCenterField();
+
+			switch(centerField){
+				case TRUE:
+					result.add(clusteringField);
+					break;
+				case FALSE:
+					break;
+				default:
+					throw new UnsupportedAttributeException(clusteringField, centerField);
+			}
+		}
+
+		return result;
+	}
+
+	static
+	private void checkCompareFunction(PMMLObject object, CompareFunction compareFunction){
+
+		switch(compareFunction){
+			case ABS_DIFF:
+				break;
+			default:
+				throw new UnsupportedAttributeException(object, compareFunction);
+		}
+	}
+}
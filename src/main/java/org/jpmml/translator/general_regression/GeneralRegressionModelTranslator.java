@@ -0,0 +1,771 @@
+/*
+ * Copyright (c) 2020 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.general_regression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.Field;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.general_regression.CovariateList;
+import org.dmg.pmml.general_regression.FactorList;
+import org.dmg.pmml.general_regression.GeneralRegressionModel;
+import org.dmg.pmml.general_regression.PCell;
+import org.dmg.pmml.general_regression.PMMLAttributes;
+import org.dmg.pmml.general_regression.PMMLElements;
+import org.dmg.pmml.general_regression.PPCell;
+import org.dmg.pmml.general_regression.PPMatrix;
+import org.dmg.pmml.general_regression.ParamMatrix;
+import org.dmg.pmml.general_regression.Predictor;
+import org.jpmml.evaluator.Classification;
+import org.jpmml.evaluator.InvalidElementException;
+import org.jpmml.evaluator.MissingAttributeException;
+import org.jpmml.evaluator.MissingElementException;
+import org.jpmml.evaluator.ProbabilityDistribution;
+import org.jpmml.evaluator.TargetField;
+import org.jpmml.evaluator.TypeUtil;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.evaluator.Value;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.MathUtil;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.OperableRef;
+import org.jpmml.translator.OrdinalEncoder;
+import org.jpmml.translator.PMMLObjectUtil;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.ValueFactoryRef;
+import org.jpmml.translator.ValueMapBuilder;
+
+public class GeneralRegressionModelTranslator extends ModelTranslator<GeneralRegressionModel> {
+
+	public GeneralRegressionModelTranslator(PMML pmml, GeneralRegressionModel generalRegressionModel){
+		super(pmml, generalRegressionModel);
+
+		GeneralRegressionModel.ModelType modelType = generalRegressionModel.getModelType();
+		MiningFunction miningFunction = generalRegressionModel.getMiningFunction();
+
+		switch(modelType){
+			case REGRESSION:
+			case GENERAL_LINEAR:
+			case GENERALIZED_LINEAR:
+				{
+					switch(miningFunction){
+						case REGRESSION:
+							break;
+						default:
+							throw new UnsupportedAttributeException(generalRegressionModel, miningFunction);
+					}
+				}
+				break;
+			case MULTINOMIAL_LOGISTIC:
+			case ORDINAL_MULTINOMIAL:
+				{
+					switch(miningFunction){
+						case CLASSIFICATION:
+							break;
+						default:
+							throw new UnsupportedAttributeException(generalRegressionModel, miningFunction);
+					}
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(generalRegressionModel, modelType);
+		}
+
+		switch(modelType){
+			case GENERALIZED_LINEAR:
+				{
+					GeneralRegressionModel.LinkFunction linkFunction = generalRegressionModel.getLinkFunction();
+					if(linkFunction == null){
+						throw new MissingAttributeException(generalRegressionModel, PMMLAttributes.GENERALREGRESSIONMODEL_LINKFUNCTION);
+					}
+
+					switch(linkFunction){
+						case CLOGLOG:
+						case IDENTITY:
+						case LOG:
+						case LOGC:
+						case LOGIT:
+						case LOGLOG:
+							break;
+						case POWER:
+							{
+								Number linkParameter = generalRegressionModel.getLinkParameter();
+								if(linkParameter == null){
+									throw new MissingAttributeException(generalRegressionModel, PMMLAttributes.GENERALREGRESSIONMODEL_LINKPARAMETER);
+								}
+							}
+							break;
+						default:
+							throw new UnsupportedAttributeException(generalRegressionModel, linkFunction);
+					}
+				}
+				break;
+			case ORDINAL_MULTINOMIAL:
+				{
+					GeneralRegressionModel.CumulativeLinkFunction cumulativeLinkFunction = generalRegressionModel.getCumulativeLinkFunction();
+					if(cumulativeLinkFunction == null){
+						throw new MissingAttributeException(generalRegressionModel, PMMLAttributes.GENERALREGRESSIONMODEL_CUMULATIVELINKFUNCTION);
+					}
+
+					switch(cumulativeLinkFunction){
+						case CLOGLOG:
+						case LOGIT:
+						case LOGLOG:
+						case CAUCHIT:
+							break;
+						default:
+							throw new UnsupportedAttributeException(generalRegressionModel, cumulativeLinkFunction);
+					}
+				}
+				break;
+			default:
+				break;
+		}
+
+		FieldName offsetVariable = generalRegressionModel.getOffsetVariable();
+		if(offsetVariable != null){
+			throw new UnsupportedAttributeException(generalRegressionModel, PMMLAttributes.GENERALREGRESSIONMODEL_OFFSETVARIABLE, offsetVariable);
+		}
+
+		Number offsetValue = generalRegressionModel.getOffsetValue();
+		if(offsetValue != null && !(GeneralRegressionModel.ModelType.GENERALIZED_LINEAR).equals(modelType)){
+			throw new UnsupportedAttributeException(generalRegressionModel, PMMLAttributes.GENERALREGRESSIONMODEL_OFFSETVALUE, offsetValue);
+		}
+
+		FieldName trialsVariable = generalRegressionModel.getTrialsVariable();
+		if(trialsVariable != null){
+			throw new UnsupportedAttributeException(generalRegressionModel, PMMLAttributes.GENERALREGRESSIONMODEL_TRIALSVARIABLE, trialsVariable);
+		}
+
+		Integer trialsValue = generalRegressionModel.getTrialsValue();
+		if(trialsValue != null){
+			throw new UnsupportedAttributeException(generalRegressionModel, PMMLAttributes.GENERALREGRESSIONMODEL_TRIALSVALUE, trialsValue);
+		}
+
+		FactorList factorList = generalRegressionModel.getFactorList();
+		if(factorList != null && factorList.hasPredictors()){
+			List<Predictor> predictors = factorList.getPredictors();
+
+			for(Predictor predictor : predictors){
+
+				if(predictor.getMatrix() != null){
+					throw new UnsupportedElementException(predictor.getMatrix());
+				}
+			}
+		}
+
+		PPMatrix ppMatrix = generalRegressionModel.getPPMatrix();
+		if(ppMatrix != null && ppMatrix.hasPPCells()){
+			List<PPCell> ppCells = ppMatrix.getPPCells();
+
+			for(PPCell ppCell : ppCells){
+				Object targetCategory = ppCell.getTargetCategory();
+
+				if(targetCategory != null){
+					throw new UnsupportedAttributeException(ppCell, PMMLAttributes.PPCELL_TARGETCATEGORY, targetCategory);
+				}
+			}
+		}
+
+		ParamMatrix paramMatrix = generalRegressionModel.getParamMatrix();
+		if(paramMatrix == null){
+			throw new MissingElementException(generalRegressionModel, PMMLElements.GENERALREGRESSIONMODEL_PARAMMATRIX);
+		}
+	}
+
+	@Override
+	public JMethod translateRegressor(TranslationContext context){
+		GeneralRegressionModel generalRegressionModel = getModel();
+
+		GeneralRegressionModel.ModelType modelType = generalRegressionModel.getModelType();
+		ParamMatrix paramMatrix = generalRegressionModel.getParamMatrix();
+
+		Map<Object, List<PCell>> targetCategoryCells = groupParameterCells(paramMatrix, null);
+		if(targetCategoryCells.size() > 1){
+			throw new InvalidElementException(paramMatrix);
+		}
+
+		List<PCell> pCells = paramMatrix.hasPCells() ? paramMatrix.getPCells() : Collections.emptyList();
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(getBodyObjects(generalRegressionModel));
+
+		JMethod evaluateMethod = createEvaluatorMethod(Value.class, generalRegressionModel, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			ensurePredictors(generalRegressionModel, fieldInfos, context);
+
+			JVar resultVar = translateParameterCells(paramMatrix, pCells, generalRegressionModel, fieldInfos, context);
+
+			JExpression valueExpr = resultVar;
+
+			switch(modelType){
+				case REGRESSION:
+				case GENERAL_LINEAR:
+					break;
+				case GENERALIZED_LINEAR:
+					valueExpr = translateLinkFunction(resultVar, generalRegressionModel, context);
+					break;
+				default:
+					throw new UnsupportedAttributeException(generalRegressionModel, modelType);
+			}
+
+			context._return(context.getValueFactoryVariable().newValue(valueExpr));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	@Override
+	public JMethod translateClassifier(TranslationContext context){
+		GeneralRegressionModel generalRegressionModel = getModel();
+
+		GeneralRegressionModel.ModelType modelType = generalRegressionModel.getModelType();
+		MathContext mathContext = generalRegressionModel.getMathContext();
+		ParamMatrix paramMatrix = generalRegressionModel.getParamMatrix();
+
+		TargetField targetField = getTargetField();
+
+		Map<Object, List<PCell>> targetCategoryCells = groupParameterCells(paramMatrix, targetField.getDataType());
+
+		List<Object> targetCategories = orderTargetCategories(generalRegressionModel, targetField, targetCategoryCells);
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(getBodyObjects(generalRegressionModel));
+
+		JMethod evaluateMethod = createEvaluatorMethod(Classification.class, generalRegressionModel, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			ensurePredictors(generalRegressionModel, fieldInfos, context);
+
+			JPrimitiveType type = getPrimitiveType(generalRegressionModel, context);
+
+			ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+			List<JExpression> probabilityExprs = new ArrayList<>();
+
+			switch(modelType){
+				case MULTINOMIAL_LOGISTIC:
+					{
+						if(targetCategoryCells.containsKey(null)){
+							throw new InvalidElementException(paramMatrix);
+						}
+
+						List<JVar> valueVars = new ArrayList<>();
+
+						// The value of the reference category (ie. the last category) is zero
+						for(int i = 0; i < targetCategories.size() - 1; i++){
+							Object targetCategory = targetCategories.get(i);
+
+							List<PCell> pCells = targetCategoryCells.getOrDefault(targetCategory, Collections.emptyList());
+
+							valueVars.add(translateParameterCells(targetCategory, pCells, generalRegressionModel, fieldInfos, context));
+						}
+
+						List<JExpression> valueExprs = new ArrayList<>(valueVars);
+						valueExprs.add(PMMLObjectUtil.createExpression(0d, mathContext));
+
+						List<String> expNames = targetCategories.stream()
+							.map(targetCategory -> IdentifierUtil.create("exp", targetCategory))
+							.collect(Collectors.toList());
+
+						probabilityExprs.addAll(MathUtil.softmax(valueExprs, expNames, "max", "sum", type, context));
+					}
+					break;
+				case ORDINAL_MULTINOMIAL:
+					{
+						List<PCell> commonPCells = targetCategoryCells.getOrDefault(null, Collections.emptyList());
+
+						JVar previousCumulativeVar = null;
+
+						for(int i = 0; i < targetCategories.size() - 1; i++){
+							Object targetCategory = targetCategories.get(i);
+
+							List<PCell> pCells = new ArrayList<>();
+							pCells.addAll(targetCategoryCells.getOrDefault(targetCategory, Collections.emptyList()));
+							pCells.addAll(commonPCells);
+
+							JVar resultVar = translateParameterCells(targetCategory, pCells, generalRegressionModel, fieldInfos, context);
+
+							JVar cumulativeVar = context.declare(type, IdentifierUtil.create("cumulative", targetCategory), translateCumulativeLinkFunction(resultVar, generalRegressionModel, context));
+
+							probabilityExprs.add(previousCumulativeVar != null ? cumulativeVar.minus(previousCumulativeVar) : cumulativeVar);
+
+							previousCumulativeVar = cumulativeVar;
+						}
+
+						probabilityExprs.add(PMMLObjectUtil.createExpression(1d, mathContext).minus(previousCumulativeVar));
+					}
+					break;
+				default:
+					throw new UnsupportedAttributeException(generalRegressionModel, modelType);
+			}
+
+			ValueMapBuilder valueMapBuilder = new ValueMapBuilder(context)
+				.construct("values");
+
+			for(int i = 0; i < targetCategories.size(); i++){
+				valueMapBuilder.update("put", targetCategories.get(i), valueFactoryRef.newValue(probabilityExprs.get(i)));
+			}
+
+			context._return(context._new(ProbabilityDistribution.class, valueMapBuilder));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	@Override
+	public Map<FieldName, FieldInfo> getFieldInfos(Set<? extends PMMLObject> bodyObjects){
+		GeneralRegressionModel generalRegressionModel = getModel();
+
+		Map<FieldName, FieldInfo> fieldInfos = super.getFieldInfos(bodyObjects);
+
+		fieldInfos = GeneralRegressionModelTranslator.enhanceFieldInfos(generalRegressionModel, fieldInfos);
+
+		return fieldInfos;
+	}
+
+	/**
+	 * <p>
+	 * Computes the dot product between parameter values and their coefficients using primitive <code>float</code> or <code>double</code> arithmetic.
+	 * </p>
+	 *
+	 * <p>
+	 * The value of a parameter is the product of its covariate (raised to the specified power) predictor values.
+	 * Factor predictors act as indicators, the parameter is skipped if any of them does not match.
+	 * Parameters without predictors are intercepts.
+	 * </p>
+	 */
+	static
+	private JVar translateParameterCells(Object object, List<PCell> pCells, GeneralRegressionModel generalRegressionModel, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		MathContext mathContext = generalRegressionModel.getMathContext();
+
+		JPrimitiveType type = getPrimitiveType(generalRegressionModel, context);
+
+		Set<FieldName> factorNames = getPredictorNames(generalRegressionModel.getFactorList());
+		Set<FieldName> covariateNames = getPredictorNames(generalRegressionModel.getCovariateList());
+
+		Map<String, List<PPCell>> parameterPPCells = groupPredictorCells(generalRegressionModel.getPPMatrix());
+
+		JVar resultVar = context.declare(type, IdentifierUtil.create("result", object), PMMLObjectUtil.createExpression(0d, mathContext));
+
+		JBlock block = context.block();
+
+		for(PCell pCell : pCells){
+			String parameterName = pCell.getParameterName();
+			Number beta = pCell.getBeta();
+
+			List<PPCell> ppCells = parameterPPCells.getOrDefault(parameterName, Collections.emptyList());
+
+			JExpression conditionExpr = null;
+			JExpression valueExpr = null;
+
+			for(PPCell ppCell : ppCells){
+				FieldName name = ppCell.getField();
+
+				FieldInfo fieldInfo = getFieldInfo(name, fieldInfos);
+
+				OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+				if(factorNames.contains(name)){
+					JExpression equalToExpr = operableRef.equalTo(ppCell.getValue(), context);
+
+					conditionExpr = (conditionExpr != null ? conditionExpr.cand(equalToExpr) : equalToExpr);
+				} else
+
+				if(covariateNames.contains(name)){
+					Number exponent = (Number)TypeUtil.parseOrCast(DataType.DOUBLE, ppCell.getValue());
+
+					JExpression covariateExpr = MathUtil.toPrimitive(operableRef.getVariable(), type);
+
+					if(exponent.doubleValue() != 1d){
+						covariateExpr = MathUtil.castPrimitive(context.staticInvoke(Math.class, "pow", covariateExpr, JExpr.lit(exponent.doubleValue())), type);
+					}
+
+					valueExpr = (valueExpr != null ? valueExpr.mul(covariateExpr) : covariateExpr);
+				} else
+
+				{
+					throw new InvalidElementException(ppCell);
+				}
+			}
+
+			JExpression termExpr;
+
+			if(valueExpr != null){
+				termExpr = (beta.doubleValue() != 1d ? PMMLObjectUtil.createExpression(beta, mathContext).mul(valueExpr) : valueExpr);
+			} else
+
+			{
+				termExpr = PMMLObjectUtil.createExpression(beta, mathContext);
+			} // End if
+
+			if(conditionExpr != null){
+				block._if(conditionExpr)._then().assignPlus(resultVar, termExpr);
+			} else
+
+			{
+				block.assignPlus(resultVar, termExpr);
+			}
+		}
+
+		return resultVar;
+	}
+
+	static
+	private JExpression translateLinkFunction(JVar resultVar, GeneralRegressionModel generalRegressionModel, TranslationContext context){
+		GeneralRegressionModel.LinkFunction linkFunction = generalRegressionModel.getLinkFunction();
+		MathContext mathContext = generalRegressionModel.getMathContext();
+
+		JPrimitiveType type = getPrimitiveType(generalRegressionModel, context);
+
+		JExpression valueExpr = resultVar;
+
+		Number offsetValue = generalRegressionModel.getOffsetValue();
+		if(offsetValue != null && offsetValue.doubleValue() != 0d){
+			valueExpr = valueExpr.plus(PMMLObjectUtil.createExpression(offsetValue, mathContext));
+		}
+
+		JExpression result;
+
+		switch(linkFunction){
+			case CLOGLOG:
+				result = MathUtil.inverseCloglog(valueExpr, context);
+				break;
+			case IDENTITY:
+				return valueExpr;
+			case LOG:
+				// exp(x)
+				result = context.staticInvoke(Math.class, "exp", valueExpr);
+				break;
+			case LOGC:
+				// 1 - exp(x)
+				result = JExpr.lit(1d).minus(context.staticInvoke(Math.class, "exp", valueExpr));
+				break;
+			case LOGIT:
+				result = MathUtil.logistic(valueExpr, context);
+				break;
+			case LOGLOG:
+				result = MathUtil.inverseLoglog(valueExpr, context);
+				break;
+			case POWER:
+				{
+					Number linkParameter = generalRegressionModel.getLinkParameter();
+
+					// x ^ (1 / d), or exp(x) if d == 0
+					if(linkParameter.doubleValue() != 0d){
+						result = context.staticInvoke(Math.class, "pow", valueExpr, JExpr.lit(1d / linkParameter.doubleValue()));
+					} else
+
+					{
+						result = context.staticInvoke(Math.class, "exp", valueExpr);
+					}
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(generalRegressionModel, linkFunction);
+		}
+
+		return MathUtil.castPrimitive(result, type);
+	}
+
+	static
+	private JExpression translateCumulativeLinkFunction(JVar resultVar, GeneralRegressionModel generalRegressionModel, TranslationContext context){
+		GeneralRegressionModel.CumulativeLinkFunction cumulativeLinkFunction = generalRegressionModel.getCumulativeLinkFunction();
+
+		JPrimitiveType type = getPrimitiveType(generalRegressionModel, context);
+
+		JExpression result;
+
+		switch(cumulativeLinkFunction){
+			case CLOGLOG:
+				result = MathUtil.inverseCloglog(resultVar, context);
+				break;
+			case LOGIT:
+				result = MathUtil.logistic(resultVar, context);
+				break;
+			case LOGLOG:
+				result = MathUtil.inverseLoglog(resultVar, context);
+				break;
+			case CAUCHIT:
+				result = MathUtil.inverseCauchit(resultVar, context);
+				break;
+			default:
+				throw new UnsupportedAttributeException(generalRegressionModel, cumulativeLinkFunction);
+		}
+
+		return MathUtil.castPrimitive(result, type);
+	}
+
+	/**
+	 * <p>
+	 * Returns early with a <code>null</code> result if any factor or covariate predictor value is missing.
+	 * </p>
+	 */
+	static
+	private void ensurePredictors(GeneralRegressionModel generalRegressionModel, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		Set<FieldName> names = new LinkedHashSet<>();
+		names.addAll(getPredictorNames(generalRegressionModel.getFactorList()));
+		names.addAll(getPredictorNames(generalRegressionModel.getCovariateList()));
+
+		for(FieldName name : names){
+			FieldInfo fieldInfo = getFieldInfo(name, fieldInfos);
+
+			OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+			context._returnIf(operableRef.isMissing(), JExpr._null());
+
+			context.markNonMissing(operableRef.getVariable());
+		}
+	}
+
+	static
+	public Map<FieldName, FieldInfo> enhanceFieldInfos(GeneralRegressionModel generalRegressionModel, Map<FieldName, FieldInfo> fieldInfos){
+		Set<FieldName> factorNames = getPredictorNames(generalRegressionModel.getFactorList());
+
+		PPMatrix ppMatrix = generalRegressionModel.getPPMatrix();
+		if(ppMatrix == null || !ppMatrix.hasPPCells()){
+			return fieldInfos;
+		}
+
+		Map<FieldName, Set<Object>> discreteFieldValues = new LinkedHashMap<>();
+
+		List<PPCell> ppCells = ppMatrix.getPPCells();
+		for(PPCell ppCell : ppCells){
+			FieldName name = ppCell.getField();
+
+			if(factorNames.contains(name)){
+				Set<Object> values = discreteFieldValues.computeIfAbsent(name, key -> new LinkedHashSet<>());
+
+				values.add(ppCell.getValue());
+			}
+		}
+
+		Collection<Map.Entry<FieldName, Set<Object>>> entries = discreteFieldValues.entrySet();
+		for(Map.Entry<FieldName, Set<Object>> entry : entries){
+			FieldInfo fieldInfo = getFieldInfo(entry.getKey(), fieldInfos);
+
+			Field<?> field = fieldInfo.getField();
+
+			OpType opType = field.getOpType();
+			DataType dataType = field.getDataType();
+
+			switch(opType){
+				case CATEGORICAL:
+					break;
+				default:
+					continue;
+			}
+
+			switch(dataType){
+				case STRING:
+				case INTEGER:
+					break;
+				default:
+					continue;
+			}
+
+			fieldInfo.setEncoder(new OrdinalEncoder(entry.getValue()));
+		}
+
+		return fieldInfos;
+	}
+
+	/**
+	 * <p>
+	 * Orders target categories for the computation of probabilities.
+	 * The reference category of a multinomial logistic model is moved to the last position.
+	 * </p>
+	 */
+	static
+	private List<Object> orderTargetCategories(GeneralRegressionModel generalRegressionModel, TargetField targetField, Map<Object, List<PCell>> targetCategoryCells){
+		GeneralRegressionModel.ModelType modelType = generalRegressionModel.getModelType();
+
+		List<Object> result = new ArrayList<>(targetField.getCategories());
+
+		if(result.size() < 2){
+			throw new InvalidElementException(generalRegressionModel);
+		}
+
+		switch(modelType){
+			case MULTINOMIAL_LOGISTIC:
+				{
+					Object targetReferenceCategory = generalRegressionModel.getTargetReferenceCategory();
+
+					if(targetReferenceCategory != null){
+						targetReferenceCategory = TypeUtil.parseOrCast(targetField.getDataType(), targetReferenceCategory);
+					} else
+
+					{
+						// The reference category is the only category that has no parameter cells
+						List<Object> targetReferenceCategories = result.stream()
+							.filter(targetCategory -> !targetCategoryCells.containsKey(targetCategory))
+							.collect(Collectors.toList());
+
+						if(targetReferenceCategories.size() != 1){
+							throw new InvalidElementException(generalRegressionModel.getParamMatrix());
+						}
+
+						targetReferenceCategory = targetReferenceCategories.get(0);
+					} // End if
+
+					if(!result.remove(targetReferenceCategory)){
+						throw new InvalidElementException(generalRegressionModel);
+					}
+
+					result.add(targetReferenceCategory);
+				}
+				break;
+			default:
+				break;
+		}
+
+		return result;
+	}
+
+	static
+	private Set<? extends PMMLObject> getBodyObjects(GeneralRegressionModel generalRegressionModel){
+		Set<PMMLObject> result = new LinkedHashSet<>();
+
+		FactorList factorList = generalRegressionModel.getFactorList();
+		if(factorList != null){
+			result.add(factorList);
+		}
+
+		CovariateList covariateList = generalRegressionModel.getCovariateList();
+		if(covariateList != null){
+			result.add(covariateList);
+		}
+
+		PPMatrix ppMatrix = generalRegressionModel.getPPMatrix();
+		if(ppMatrix != null){
+			result.add(ppMatrix);
+		}
+
+		result.add(generalRegressionModel.getParamMatrix());
+
+		return result;
+	}
+
+	static
+	private Set<FieldName> getPredictorNames(FactorList factorList){
+
+		if(factorList == null || !factorList.hasPredictors()){
+			return Collections.emptySet();
+		}
+
+		return getPredictorNames(factorList.getPredictors());
+	}
+
+	static
+	private Set<FieldName> getPredictorNames(CovariateList covariateList){
+
+		if(covariateList == null || !covariateList.hasPredictors()){
+			return Collections.emptySet();
+		}
+
+		return getPredictorNames(covariateList.getPredictors());
+	}
+
+	static
+	private Set<FieldName> getPredictorNames(List<Predictor> predictors){
+		return predictors.stream()
+			.map(Predictor::getField)
+			.collect(Collectors.toCollection(LinkedHashSet::new));
+	}
+
+	static
+	private Map<String, List<PPCell>> groupPredictorCells(PPMatrix ppMatrix){
+
+		if(ppMatrix == null || !ppMatrix.hasPPCells()){
+			return Collections.emptyMap();
+		}
+
+		List<PPCell> ppCells = ppMatrix.getPPCells();
+
+		return ppCells.stream()
+			.collect(Collectors.groupingBy(PPCell::getParameterName, LinkedHashMap::new, Collectors.toList()));
+	}
+
+	/**
+	 * <p>
+	 * Groups parameter cells by their target category.
+	 * Cells without a target category are grouped under the <code>null</code> key.
+	 * </p>
+	 *
+	 * @param dataType The data type of target categories, or <code>null</code> if they should be left as-is.
+	 */
+	static
+	private Map<Object, List<PCell>> groupParameterCells(ParamMatrix paramMatrix, DataType dataType){
+		Map<Object, List<PCell>> result = new LinkedHashMap<>();
+
+		if(!paramMatrix.hasPCells()){
+			return result;
+		}
+
+		List<PCell> pCells = paramMatrix.getPCells();
+		for(PCell pCell : pCells){
+			Object targetCategory = pCell.getTargetCategory();
+
+			if(targetCategory != null && dataType != null){
+				targetCategory = TypeUtil.parseOrCast(dataType, targetCategory);
+			}
+
+			List<PCell> targetCategoryPCells = result.get(targetCategory);
+			if(targetCategoryPCells == null){
+				targetCategoryPCells = new ArrayList<>();
+
+				result.put(targetCategory, targetCategoryPCells);
+			}
+
+			targetCategoryPCells.add(pCell);
+		}
+
+		return result;
+	}
+}
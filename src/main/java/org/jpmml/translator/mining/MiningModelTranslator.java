@@ -18,12 +18,21 @@
  */
 package org.jpmml.translator.mining;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.InvalidValueTreatmentMethod;
 import org.dmg.pmml.LocalTransformations;
 import org.dmg.pmml.MiningField;
 import org.dmg.pmml.MiningSchema;
+import org.dmg.pmml.MissingValueTreatmentMethod;
 import org.dmg.pmml.Model;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.OutlierTreatmentMethod;
 import org.dmg.pmml.Output;
 import org.dmg.pmml.PMML;
 import org.dmg.pmml.Targets;
@@ -34,8 +43,10 @@ import org.dmg.pmml.mining.Segmentation;
 import org.jpmml.evaluator.InputFieldUtil;
 import org.jpmml.evaluator.MissingAttributeException;
 import org.jpmml.evaluator.MissingElementException;
+import org.jpmml.evaluator.UnsupportedAttributeException;
 import org.jpmml.evaluator.UnsupportedElementException;
 import org.jpmml.model.XPathUtil;
+import org.jpmml.model.visitors.FieldReferenceFinder;
 import org.jpmml.translator.ModelTranslator;
 import org.jpmml.translator.ModelTranslatorFactory;
 
@@ -82,7 +93,17 @@ public class MiningModelTranslator extends ModelTranslator<MiningModel> {
 		this.modelTranslatorFactory = modelTranslatorFactory;
 	}
 
-	static
+	/**
+	 * <p>
+	 * Checks that a segment model is accepted by some model translator.
+	 * </p>
+	 *
+	 * @throws UnsupportedElementException If the model cannot be translated.
+	 */
+	public void checkTranslatable(Model model){
+		newModelTranslator(model);
+	}
+
 	public void checkMiningSchema(Model model){
 		MiningSchema miningSchema = model.getMiningSchema();
 
@@ -104,12 +125,94 @@ public class MiningModelTranslator extends ModelTranslator<MiningModel> {
 				}
 
 				if(!InputFieldUtil.isDefault(null, miningField)){
-					throw new UnsupportedElementException(miningField);
+					checkMiningField(miningField);
 				}
 			}
 		}
 	}
 
+	/**
+	 * <p>
+	 * Checks that the input value treatment of a segment model can be translated to Java code.
+	 * </p>
+	 */
+	public void checkMiningField(MiningField miningField){
+		MiningModel miningModel = getModel();
+
+		OpType opType = miningField.getOpType();
+		if(opType != null){
+			throw new UnsupportedAttributeException(miningField, opType);
+		}
+
+		MissingValueTreatmentMethod missingValueTreatment = miningField.getMissingValueTreatment();
+		if(missingValueTreatment != null){
+
+			switch(missingValueTreatment){
+				case RETURN_INVALID:
+					throw new UnsupportedAttributeException(miningField, missingValueTreatment);
+				default:
+					break;
+			}
+		}
+
+		InvalidValueTreatmentMethod invalidValueTreatment = miningField.getInvalidValueTreatment();
+		switch(invalidValueTreatment){
+			case RETURN_INVALID:
+			case AS_IS:
+			case AS_MISSING:
+			case AS_VALUE:
+				{
+					MiningField parentMiningField = getMiningField(miningModel, miningField.getName());
+
+					// Invalid values reach the segment only if the parent model passes them through as-is
+					if(parentMiningField != null && (InvalidValueTreatmentMethod.AS_IS).equals(parentMiningField.getInvalidValueTreatment())){
+						throw new UnsupportedAttributeException(miningField, invalidValueTreatment);
+					}
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(miningField, invalidValueTreatment);
+		}
+
+		OutlierTreatmentMethod outlierTreatment = miningField.getOutlierTreatment();
+		switch(outlierTreatment){
+			case AS_IS:
+				break;
+			case AS_MISSING_VALUES:
+			case AS_EXTREME_VALUES:
+				{
+					if(miningField.getLowValue() == null){
+						throw new MissingAttributeException(miningField, org.dmg.pmml.PMMLAttributes.MININGFIELD_LOWVALUE);
+					} // End if
+
+					if(miningField.getHighValue() == null){
+						throw new MissingAttributeException(miningField, org.dmg.pmml.PMMLAttributes.MININGFIELD_HIGHVALUE);
+					}
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(miningField, outlierTreatment);
+		}
+	}
+
+	static
+	private MiningField getMiningField(Model model, FieldName name){
+		MiningSchema miningSchema = model.getMiningSchema();
+
+		if(miningSchema != null && miningSchema.hasMiningFields()){
+			List<MiningField> miningFields = miningSchema.getMiningFields();
+
+			for(MiningField miningField : miningFields){
+
+				if((name).equals(miningField.getName())){
+					return miningField;
+				}
+			}
+		}
+
+		return null;
+	}
+
 	static
 	public void checkLocalTransformations(Model model){
 		LocalTransformations localTransformations = model.getLocalTransformations();
@@ -119,6 +222,83 @@ public class MiningModelTranslator extends ModelTranslator<MiningModel> {
 		}
 	}
 
+	/**
+	 * <p>
+	 * Collects the names of derived fields that are about to be pulled up to the top level.
+	 * </p>
+	 *
+	 * @throws UnsupportedElementException If the name of a derived field is already taken.
+	 */
+	static
+	public void collectDerivedFieldNames(Model model, Set<FieldName> names){
+		LocalTransformations localTransformations = model.getLocalTransformations();
+
+		if(localTransformations != null && localTransformations.hasDerivedFields()){
+			List<DerivedField> derivedFields = localTransformations.getDerivedFields();
+
+			for(DerivedField derivedField : derivedFields){
+
+				if(!names.add(derivedField.getName())){
+					throw new UnsupportedElementException(derivedField);
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Checks that the derived fields of a segment model do not refer to active fields that have a non-default input value treatment.
+	 * After being pulled up to the top level, such derived fields would be computed from untreated field values.
+	 * </p>
+	 *
+	 * @throws UnsupportedElementException If some derived field refers to a treated active field.
+	 */
+	static
+	public void checkDerivedFields(Model model){
+		MiningSchema miningSchema = model.getMiningSchema();
+		LocalTransformations localTransformations = model.getLocalTransformations();
+
+		if(miningSchema == null || !miningSchema.hasMiningFields()){
+			return;
+		} // End if
+
+		if(localTransformations == null || !localTransformations.hasDerivedFields()){
+			return;
+		}
+
+		Set<FieldName> treatedNames = new HashSet<>();
+
+		List<MiningField> miningFields = miningSchema.getMiningFields();
+		for(MiningField miningField : miningFields){
+			MiningField.UsageType usageType = miningField.getUsageType();
+
+			switch(usageType){
+				case ACTIVE:
+					break;
+				default:
+					continue;
+			}
+
+			if(!InputFieldUtil.isDefault(null, miningField)){
+				treatedNames.add(miningField.getName());
+			}
+		}
+
+		if(treatedNames.isEmpty()){
+			return;
+		}
+
+		List<DerivedField> derivedFields = localTransformations.getDerivedFields();
+		for(DerivedField derivedField : derivedFields){
+			FieldReferenceFinder fieldReferenceFinder = new FieldReferenceFinder();
+			fieldReferenceFinder.applyTo(derivedField);
+
+			if(!Collections.disjoint(fieldReferenceFinder.getFieldNames(), treatedNames)){
+				throw new UnsupportedElementException(derivedField);
+			}
+		}
+	}
+
 	static
 	public void checkTargets(Model model){
 		Targets targets = model.getTargets();
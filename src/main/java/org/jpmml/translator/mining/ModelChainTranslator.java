@@ -18,13 +18,19 @@
  */
 package org.jpmml.translator.mining;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import com.google.common.collect.Iterables;
-import com.sun.codemodel.JExpression;
-import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.FieldName;
 import org.dmg.pmml.MathContext;
 import org.dmg.pmml.MiningFunction;
 import org.dmg.pmml.Model;
@@ -37,23 +43,17 @@ import org.dmg.pmml.True;
 import org.dmg.pmml.mining.MiningModel;
 import org.dmg.pmml.mining.Segment;
 import org.dmg.pmml.mining.Segmentation;
-import org.dmg.pmml.regression.NumericPredictor;
-import org.dmg.pmml.regression.RegressionModel;
-import org.dmg.pmml.regression.RegressionTable;
 import org.jpmml.evaluator.Classification;
-import org.jpmml.evaluator.InvalidElementException;
+import org.jpmml.evaluator.MissingAttributeException;
 import org.jpmml.evaluator.MissingElementException;
 import org.jpmml.evaluator.UnsupportedAttributeException;
 import org.jpmml.evaluator.UnsupportedElementException;
 import org.jpmml.model.XPathUtil;
+import org.jpmml.translator.ArgumentsRef;
 import org.jpmml.translator.IdentifierUtil;
 import org.jpmml.translator.MethodScope;
 import org.jpmml.translator.ModelTranslator;
-import org.jpmml.translator.PMMLObjectUtil;
 import org.jpmml.translator.TranslationContext;
-import org.jpmml.translator.ValueFactoryRef;
-import org.jpmml.translator.ValueMapBuilder;
-import org.jpmml.translator.regression.RegressionModelTranslator;
 
 public class ModelChainTranslator extends MiningModelTranslator {
 
@@ -80,6 +80,10 @@ public class ModelChainTranslator extends MiningModelTranslator {
 				throw new UnsupportedAttributeException(segmentation, multipleModelMethod);
 		}
 
+		Set<FieldName> derivedFieldNames = new HashSet<>();
+
+		collectDerivedFieldNames(miningModel, derivedFieldNames);
+
 		List<Segment> segments = segmentation.getSegments();
 
 		List<Segment> regressorSegments = segments.subList(0, segments.size() - 1);
@@ -106,6 +110,10 @@ public class ModelChainTranslator extends MiningModelTranslator {
 
 			checkMiningSchema(model);
 
+			// Regressor-level derived fields are pulled up to the top level
+			checkDerivedFields(model);
+			collectDerivedFieldNames(model, derivedFieldNames);
+
 			Output modelOutput = model.getOutput();
 			if(modelOutput == null){
 				throw new MissingElementException(MissingElementException.formatMessage(XPathUtil.formatElement(model.getClass()) + "/" + XPathUtil.formatElement(Output.class)), model);
@@ -127,14 +135,26 @@ public class ModelChainTranslator extends MiningModelTranslator {
 					default:
 						throw new UnsupportedAttributeException(outputField, resultFeature);
 				}
+
+				DataType dataType = outputField.getDataType();
+				if(dataType == null){
+					throw new MissingAttributeException(outputField, org.dmg.pmml.PMMLAttributes.OUTPUTFIELD_DATATYPE);
+				}
+
+				switch(dataType){
+					case FLOAT:
+					case DOUBLE:
+						break;
+					default:
+						throw new UnsupportedAttributeException(outputField, dataType);
+				}
 			} else
 
 			{
 				throw new MissingElementException(modelOutput, org.dmg.pmml.PMMLElements.OUTPUT_OUTPUTFIELDS);
 			}
 
-			@SuppressWarnings("unused")
-			ModelTranslator<?> modelTranslator = newModelTranslator(model);
+			checkTranslatable(model);
 		}
 
 		{
@@ -147,10 +167,6 @@ public class ModelChainTranslator extends MiningModelTranslator {
 				throw new UnsupportedElementException(predicate);
 			} // End if
 
-			if(!(model instanceof RegressionModel)){
-				throw new UnsupportedElementException(model);
-			}
-
 			MiningFunction modelMiningFunction = model.getMiningFunction();
 			switch(modelMiningFunction){
 				case CLASSIFICATION:
@@ -168,23 +184,7 @@ public class ModelChainTranslator extends MiningModelTranslator {
 			checkLocalTransformations(model);
 			checkTargets(model);
 
-			RegressionModel regressionModel = (RegressionModel)model;
-
-			List<RegressionTable> regressionTables = regressionModel.getRegressionTables();
-			for(RegressionTable regressionTable : regressionTables){
-
-				if(regressionTable.hasNumericPredictors()){
-					List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
-
-					if(numericPredictors.size() > 1){
-						throw new InvalidElementException(regressionTable);
-					}
-				} // End if
-
-				if(regressionTable.hasCategoricalPredictors() || regressionTable.hasPredictorTerms()){
-					throw new UnsupportedElementException(regressionTable);
-				}
-			}
+			checkTranslatable(model);
 		}
 	}
 
@@ -212,6 +212,8 @@ public class ModelChainTranslator extends MiningModelTranslator {
 
 		List<Segment> segments = segmentation.getSegments();
 
+		ArgumentsRef argumentsRef = context.getArgumentsVariable();
+
 		List<Segment> regressorSegments = segments.subList(0, segments.size() - 1);
 		for(Segment regressorSegment : regressorSegments){
 			Model model = regressorSegment.getModel();
@@ -226,60 +228,34 @@ public class ModelChainTranslator extends MiningModelTranslator {
 
 			JMethod evaluateMethod = modelTranslator.translateRegressor(context);
 
-			JInvocation methodInvocation = createEvaluatorMethodInvocation(evaluateMethod, context);
-
-			context.declare(context.getValueType(), IdentifierUtil.create("value", outputField.getName()), methodInvocation);
-		}
-
-		ValueMapBuilder valueMapBuilder = new ValueMapBuilder(context)
-			.construct("values");
-
-		{
-			Segment classifierSegment = segments.get(segments.size() - 1);
-
-			RegressionModel regressionModel = (RegressionModel)classifierSegment.getModel();
-
-			List<RegressionTable> regressionTables = regressionModel.getRegressionTables();
+			JFieldVar chainedFieldVar = argumentsRef.ensureChainedFieldVar(outputField, context);
 
-			pullUpOutputFields(miningModel, regressionModel);
+			JPrimitiveType type = (JPrimitiveType)chainedFieldVar.type();
 
-			for(RegressionTable regressionTable : regressionTables){
-				List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
+			// The result is either a Number (eg. tree models) or a Value object, both of which provide primitive accessor methods.
+			// It is dereferenced only once, and is not wrapped into a Value object
+			JVar resultVar = context.declare(evaluateMethod.type(), IdentifierUtil.create("result", outputField.getName()), createEvaluatorMethodInvocation(evaluateMethod, context));
 
-				Number intercept = regressionTable.getIntercept();
+			context._returnIf(resultVar.eq(JExpr._null()), JExpr._null());
 
-				JExpression valueExpr;
+			// Keep the intermediate value as a primitive, and make it available to subsequent segments
+			JVar primitiveValueVar = context.declare(type, IdentifierUtil.create(type.name(), outputField.getName()), resultVar.invoke(type.name() + "Value"));
 
-				NumericPredictor numericPredictor = Iterables.getFirst(numericPredictors, null);
-				if(numericPredictor != null){
-					valueExpr = context.getVariable(IdentifierUtil.create("value", numericPredictor.getField()));
-
-					Number coefficient = numericPredictor.getCoefficient();
-					if(coefficient != null && coefficient.doubleValue() != 1d){
-						valueExpr = context.invoke(valueExpr, "multiply", coefficient);
-					} // End if
+			(context.block()).assign((argumentsRef.getVariable()).ref(chainedFieldVar), primitiveValueVar);
+		}
 
-					if(intercept != null && intercept.doubleValue() != 0d){
-						valueExpr = context.invoke(valueExpr, "add", intercept);
-					}
-				} else
+		{
+			Segment classifierSegment = segments.get(segments.size() - 1);
 
-				{
-					ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+			Model model = classifierSegment.getModel();
 
-					if(intercept != null && intercept.doubleValue() != 0d){
-						valueExpr = valueFactoryRef.newValue(PMMLObjectUtil.createExpression(intercept, context));
-					} else
+			pullUpOutputFields(miningModel, model);
 
-					{
-						valueExpr = valueFactoryRef.newValue();
-					}
-				}
+			ModelTranslator<?> modelTranslator = newModelTranslator(model);
 
-				valueMapBuilder.update("put", regressionTable.getTargetCategory(), valueExpr);
-			}
+			JMethod evaluateMethod = modelTranslator.translateClassifier(context);
 
-			RegressionModelTranslator.computeClassification(valueMapBuilder, regressionModel, context);
+			context._return(createEvaluatorMethodInvocation(evaluateMethod, context));
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,644 @@
+/*
+ * Copyright (c) 2019 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.mining;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.ComplexArray;
+import org.dmg.pmml.CompoundPredicate;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.False;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Model;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.SimplePredicate;
+import org.dmg.pmml.SimpleSetPredicate;
+import org.dmg.pmml.True;
+import org.dmg.pmml.mining.MiningModel;
+import org.dmg.pmml.mining.Segment;
+import org.dmg.pmml.mining.Segmentation;
+import org.jpmml.evaluator.Classification;
+import org.jpmml.evaluator.TargetField;
+import org.jpmml.evaluator.TargetUtil;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.evaluator.Value;
+import org.jpmml.model.visitors.FieldReferenceFinder;
+import org.jpmml.translator.ClassificationBuilder;
+import org.jpmml.translator.Encoder;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.OperableRef;
+import org.jpmml.translator.OrdinalEncoder;
+import org.jpmml.translator.Scope;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.tree.TreeModelTranslator;
+
+public class SegmentSelectionTranslator extends MiningModelTranslator {
+
+	public SegmentSelectionTranslator(PMML pmml, MiningModel miningModel){
+		super(pmml, miningModel);
+
+		MiningFunction miningFunction = miningModel.getMiningFunction();
+		switch(miningFunction){
+			case REGRESSION:
+			case CLASSIFICATION:
+				break;
+			default:
+				throw new UnsupportedAttributeException(miningModel, miningFunction);
+		}
+
+		MathContext mathContext = miningModel.getMathContext();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		Segmentation.MultipleModelMethod multipleModelMethod = segmentation.getMultipleModelMethod();
+		switch(multipleModelMethod){
+			case SELECT_FIRST:
+			case SELECT_ALL:
+				break;
+			default:
+				throw new UnsupportedAttributeException(segmentation, multipleModelMethod);
+		}
+
+		// The result of the selected segment(s) is returned as-is
+		checkTargets(miningModel);
+
+		TargetField targetField = getTargetField();
+
+		Set<FieldName> derivedFieldNames = new HashSet<>();
+
+		collectDerivedFieldNames(miningModel, derivedFieldNames);
+
+		List<Segment> segments = segmentation.getSegments();
+		for(Segment segment : segments){
+			Predicate predicate = segment.getPredicate();
+			Model model = segment.getModel();
+
+			checkPredicate(predicate);
+
+			MiningFunction modelMiningFunction = model.getMiningFunction();
+			if(!Objects.equals(miningFunction, modelMiningFunction)){
+				throw new UnsupportedAttributeException(model, modelMiningFunction);
+			}
+
+			MathContext modelMathContext = model.getMathContext();
+			if(!Objects.equals(mathContext, modelMathContext)){
+				throw new UnsupportedAttributeException(model, modelMathContext);
+			}
+
+			checkMiningSchema(model);
+			checkTargets(model);
+			checkOutput(model);
+
+			ModelTranslator<?> modelTranslator = newModelTranslator(model);
+
+			// Segment-level derived fields are pulled up to the top level.
+			// The model translator may have pulled up nested segment-level derived fields to the segment level
+			checkDerivedFields(model);
+			collectDerivedFieldNames(model, derivedFieldNames);
+
+			TargetField modelTargetField = modelTranslator.getTargetField();
+			if(!Objects.equals(targetField.getName(), modelTargetField.getName())){
+				throw new UnsupportedElementException(model);
+			}
+		}
+	}
+
+	@Override
+	public void createEvaluateMethod(TranslationContext context){
+		MiningModel miningModel = getModel();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		Segmentation.MultipleModelMethod multipleModelMethod = segmentation.getMultipleModelMethod();
+		switch(multipleModelMethod){
+			case SELECT_FIRST:
+				super.createEvaluateMethod(context);
+				break;
+			case SELECT_ALL:
+				createSelectAllMethod(segmentation, context);
+				break;
+			default:
+				throw new UnsupportedAttributeException(segmentation, multipleModelMethod);
+		}
+	}
+
+	@Override
+	public JMethod translateRegressor(TranslationContext context){
+		return translateSelectFirst(Value.class, context);
+	}
+
+	@Override
+	public JMethod translateClassifier(TranslationContext context){
+		return translateSelectFirst(Classification.class, context);
+	}
+
+	@Override
+	public Map<FieldName, FieldInfo> getFieldInfos(Set<? extends PMMLObject> bodyObjects){
+		Map<FieldName, FieldInfo> fieldInfos = super.getFieldInfos(bodyObjects);
+
+		Set<Predicate> predicates = new LinkedHashSet<>();
+
+		for(PMMLObject bodyObject : bodyObjects){
+			Segmentation segmentation = (Segmentation)bodyObject;
+
+			List<Segment> segments = segmentation.getSegments();
+			for(Segment segment : segments){
+				predicates.add(segment.getPredicate());
+			}
+		}
+
+		FieldReferenceFinder fieldReferenceFinder = new FieldReferenceFinder();
+
+		for(Predicate predicate : predicates){
+			fieldReferenceFinder.applyTo(predicate);
+		}
+
+		// Keep segment selection fields, drop segment model fields
+		(fieldInfos.keySet()).retainAll(fieldReferenceFinder.getFieldNames());
+
+		fieldInfos = TreeModelTranslator.enhanceFieldInfos(predicates, fieldInfos);
+
+		return fieldInfos;
+	}
+
+	private JMethod translateSelectFirst(Class<?> type, TranslationContext context){
+		MiningModel miningModel = getModel();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		Segmentation.MultipleModelMethod multipleModelMethod = segmentation.getMultipleModelMethod();
+		switch(multipleModelMethod){
+			case SELECT_FIRST:
+				break;
+			default:
+				throw new UnsupportedAttributeException(segmentation, multipleModelMethod);
+		}
+
+		// Segment model methods must be translated before any segment selection variables are declared
+		Map<Segment, JMethod> segmentMethods = translateSegments(segmentation, true, context);
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(segmentation));
+
+		JMethod evaluateMethod = createEvaluatorMethod(type, segmentation, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			Segment defaultSegment = null;
+
+			List<Segment> selectableSegments = new ArrayList<>();
+
+			Collection<Map.Entry<Segment, JMethod>> entries = segmentMethods.entrySet();
+			for(Map.Entry<Segment, JMethod> entry : entries){
+				Segment segment = entry.getKey();
+
+				Predicate predicate = segment.getPredicate();
+
+				if(predicate instanceof True){
+					defaultSegment = segment;
+
+					break;
+				}
+
+				selectableSegments.add(segment);
+			}
+
+			OperableRef switchRef = getSwitchRef(selectableSegments, fieldInfos, context);
+
+			if(switchRef != null){
+				JSwitch switchBlock = (context.block())._switch(switchRef.getVariable());
+
+				OrdinalEncoder encoder = (OrdinalEncoder)(fieldInfos.get(getSwitchField(selectableSegments))).getEncoder();
+
+				// The first segment takes precedence over subsequent segments
+				Set<Integer> switchValues = new HashSet<>();
+
+				for(Segment segment : selectableSegments){
+					Collection<?> values = getSwitchValues(segment.getPredicate());
+
+					JBlock caseBlock = null;
+
+					for(Object value : values){
+						Integer switchValue = encoder.encode(value);
+
+						if(!switchValues.add(switchValue)){
+							continue;
+						}
+
+						caseBlock = (switchBlock._case(JExpr.lit(switchValue))).body();
+					}
+
+					// All values have been claimed by preceding segments
+					if(caseBlock == null){
+						continue;
+					}
+
+					translateSegmentResult(caseBlock, segment, segmentMethods.get(segment), context);
+				}
+
+				JBlock defaultBlock = (switchBlock._default()).body();
+
+				if(defaultSegment != null){
+					translateSegmentResult(defaultBlock, defaultSegment, segmentMethods.get(defaultSegment), context);
+				} else
+
+				{
+					defaultBlock._return(JExpr._null());
+				}
+
+				// Close the method scope
+				(context.getScope()).close();
+			} else
+
+			{
+				for(Segment segment : selectableSegments){
+					JExpression predicateExpr = TreeModelTranslator.translatePredicate(segment.getPredicate(), fieldInfos, context);
+
+					JBlock thenBlock = (context.block())._if(predicateExpr)._then();
+
+					translateSegmentResult(thenBlock, segment, segmentMethods.get(segment), context);
+				}
+
+				if(defaultSegment != null){
+					translateSegmentResult(context.block(), defaultSegment, segmentMethods.get(defaultSegment), context);
+
+					// Close the method scope
+					(context.getScope()).close();
+				} else
+
+				{
+					context._return(JExpr._null());
+				}
+			}
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	private void createSelectAllMethod(Segmentation segmentation, TranslationContext context){
+		MiningModel miningModel = getModel();
+
+		TargetField targetField = getTargetField();
+
+		MiningFunction miningFunction = miningModel.getMiningFunction();
+
+		Map<Segment, JMethod> segmentMethods = translateSegments(segmentation, false, context);
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(segmentation));
+
+		JMethod evaluateMethod;
+
+		switch(miningFunction){
+			case REGRESSION:
+				evaluateMethod = createEvaluatorMethod("evaluateRegression", context);
+				break;
+			case CLASSIFICATION:
+				evaluateMethod = createEvaluatorMethod("evaluateClassification", context);
+				break;
+			default:
+				throw new UnsupportedAttributeException(miningModel, miningFunction);
+		}
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			JDefinedClass argumentsClazz = ensureArgumentsType(context);
+
+			context.declare(argumentsClazz, Scope.VAR_ARGUMENTS, JExpr._new(argumentsClazz).arg((context.getContextVariable()).getVariable()));
+
+			JVar resultsVar = context.declare(context.ref(List.class).narrow(Object.class), "results", context._new(ArrayList.class));
+
+			Collection<Map.Entry<Segment, JMethod>> entries = segmentMethods.entrySet();
+			for(Map.Entry<Segment, JMethod> entry : entries){
+				Segment segment = entry.getKey();
+				JMethod segmentMethod = entry.getValue();
+
+				Predicate predicate = segment.getPredicate();
+
+				JBlock block;
+
+				if(predicate instanceof True){
+					block = context.block();
+				} else
+
+				{
+					JExpression predicateExpr = TreeModelTranslator.translatePredicate(predicate, fieldInfos, context);
+
+					block = (context.block())._if(predicateExpr)._then();
+				}
+
+				context.pushScope(new Scope(block));
+
+				try {
+					JInvocation methodInvocation = createEvaluatorMethodInvocation(segmentMethod, context);
+
+					JExpression resultExpr;
+
+					switch(miningFunction){
+						case REGRESSION:
+							{
+								JType type = segmentMethod.type();
+
+								if((type.erasure()).equals(context.ref(Value.class))){
+									JVar valueVar = context.declare(context.getValueType(), IdentifierUtil.create("value", segment), methodInvocation);
+
+									resultExpr = JOp.cond(valueVar.ne(JExpr._null()), valueVar.invoke("getValue"), JExpr._null());
+								} else
+
+								{
+									resultExpr = methodInvocation;
+								}
+							}
+							break;
+						case CLASSIFICATION:
+							{
+								DataType dataType = targetField.getDataType();
+
+								ClassificationBuilder classificationBuilder = new ClassificationBuilder(context)
+									.declare(IdentifierUtil.create("classification", segment), methodInvocation);
+
+								JVar classificationVar = classificationBuilder.getVariable();
+
+								JBlock thenBlock = (context.block())._if(classificationVar.ne(JExpr._null()))._then();
+
+								thenBlock.add(context.staticInvoke(TargetUtil.class, "computeResult", dataType, classificationVar));
+
+								resultExpr = classificationVar;
+							}
+							break;
+						default:
+							throw new UnsupportedAttributeException(miningModel, miningFunction);
+					}
+
+					context.add(resultsVar.invoke("add").arg(resultExpr));
+				} finally {
+					context.popScope();
+				}
+			}
+
+			// Mimic the interpreter, which returns an empty result if no segments were selected
+			context._returnIf(resultsVar.invoke("isEmpty"), context.staticInvoke(Collections.class, "emptyMap"));
+
+			context._return(context.staticInvoke(Collections.class, "singletonMap", context.constantFieldName(targetField.getName()), resultsVar));
+		} finally {
+			context.popScope();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Translates segment models in segment order.
+	 * </p>
+	 *
+	 * @param selectFirst <code>true</code> if segments that follow an always-true segment are unreachable, <code>false</code> otherwise.
+	 */
+	private Map<Segment, JMethod> translateSegments(Segmentation segmentation, boolean selectFirst, TranslationContext context){
+		MiningModel miningModel = getModel();
+
+		MiningFunction miningFunction = miningModel.getMiningFunction();
+
+		Map<Segment, JMethod> result = new LinkedHashMap<>();
+
+		List<Segment> segments = segmentation.getSegments();
+		for(Segment segment : segments){
+			Predicate predicate = segment.getPredicate();
+			Model model = segment.getModel();
+
+			if(predicate instanceof False){
+				continue;
+			}
+
+			pullUpDerivedFields(miningModel, model);
+
+			ModelTranslator<?> modelTranslator = newModelTranslator(model);
+
+			JMethod segmentMethod;
+
+			switch(miningFunction){
+				case REGRESSION:
+					segmentMethod = modelTranslator.translateRegressor(context);
+					break;
+				case CLASSIFICATION:
+					segmentMethod = modelTranslator.translateClassifier(context);
+					break;
+				default:
+					throw new UnsupportedAttributeException(miningModel, miningFunction);
+			}
+
+			result.put(segment, segmentMethod);
+
+			if(selectFirst && (predicate instanceof True)){
+				break;
+			}
+		}
+
+		return result;
+	}
+
+	static
+	private void translateSegmentResult(JBlock block, Segment segment, JMethod segmentMethod, TranslationContext context){
+		context.pushScope(new Scope(block));
+
+		try {
+			JInvocation methodInvocation = createEvaluatorMethodInvocation(segmentMethod, context);
+
+			JType type = segmentMethod.type();
+
+			// Number-returning regressors
+			if((type.erasure()).equals(context.ref(Number.class))){
+				JVar valueVar = context.declare(Number.class, IdentifierUtil.create("value", segment), methodInvocation);
+
+				context._return(valueVar.ne(JExpr._null()), (context.getValueFactoryVariable()).newValue(valueVar), JExpr._null());
+			} else
+
+			{
+				context._return(methodInvocation);
+			}
+		} finally {
+			context.popScope();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Checks if segment selection can be performed using a single switch statement.
+	 * </p>
+	 */
+	static
+	private OperableRef getSwitchRef(List<Segment> segments, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+
+		if(segments.size() < 2){
+			return null;
+		}
+
+		FieldName name = getSwitchField(segments);
+		if(name == null){
+			return null;
+		}
+
+		FieldInfo fieldInfo = fieldInfos.get(name);
+
+		Encoder encoder = fieldInfo.getEncoder();
+		if(!(encoder instanceof OrdinalEncoder)){
+			return null;
+		}
+
+		return context.ensureOperableVariable(fieldInfo);
+	}
+
+	static
+	private FieldName getSwitchField(List<Segment> segments){
+		FieldName result = null;
+
+		for(Segment segment : segments){
+			Predicate predicate = segment.getPredicate();
+
+			FieldName name;
+
+			if(predicate instanceof SimplePredicate){
+				SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+				SimplePredicate.Operator operator = simplePredicate.getOperator();
+				switch(operator){
+					case EQUAL:
+						break;
+					default:
+						return null;
+				}
+
+				name = simplePredicate.getField();
+			} else
+
+			if(predicate instanceof SimpleSetPredicate){
+				SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+				SimpleSetPredicate.BooleanOperator booleanOperator = simpleSetPredicate.getBooleanOperator();
+				switch(booleanOperator){
+					case IS_IN:
+						break;
+					default:
+						return null;
+				}
+
+				name = simpleSetPredicate.getField();
+			} else
+
+			{
+				return null;
+			} // End if
+
+			if(result == null){
+				result = name;
+			} else
+
+			if(!Objects.equals(result, name)){
+				return null;
+			}
+		}
+
+		return result;
+	}
+
+	static
+	private Collection<?> getSwitchValues(Predicate predicate){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			return Collections.singletonList(simplePredicate.getValue());
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			ComplexArray complexArray = (ComplexArray)simpleSetPredicate.getArray();
+
+			return complexArray.getValue();
+		}
+
+		throw new UnsupportedElementException(predicate);
+	}
+
+	static
+	private void checkPredicate(Predicate predicate){
+
+		if(predicate instanceof SimplePredicate || predicate instanceof SimpleSetPredicate){
+			return;
+		} else
+
+		if(predicate instanceof CompoundPredicate){
+			CompoundPredicate compoundPredicate = (CompoundPredicate)predicate;
+
+			CompoundPredicate.BooleanOperator booleanOperator = compoundPredicate.getBooleanOperator();
+			switch(booleanOperator){
+				case AND:
+				case OR:
+					break;
+				default:
+					throw new UnsupportedAttributeException(compoundPredicate, booleanOperator);
+			}
+
+			if(!compoundPredicate.hasPredicates()){
+				throw new UnsupportedElementException(compoundPredicate);
+			}
+
+			List<Predicate> predicates = compoundPredicate.getPredicates();
+			for(Predicate childPredicate : predicates){
+				checkPredicate(childPredicate);
+			}
+		} else
+
+		if(predicate instanceof True || predicate instanceof False){
+			return;
+		} else
+
+		{
+			throw new UnsupportedElementException(predicate);
+		}
+	}
+}
@@ -0,0 +1,625 @@
+/*
+ * Copyright (c) 2019 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.mining;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Iterables;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.Apply;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.Expression;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.MiningField;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.MiningSchema;
+import org.dmg.pmml.Model;
+import org.dmg.pmml.Output;
+import org.dmg.pmml.OutputField;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLFunctions;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.ResultFeature;
+import org.dmg.pmml.Target;
+import org.dmg.pmml.Targets;
+import org.dmg.pmml.True;
+import org.dmg.pmml.mining.MiningModel;
+import org.dmg.pmml.mining.Segment;
+import org.dmg.pmml.mining.Segmentation;
+import org.dmg.pmml.regression.NumericPredictor;
+import org.dmg.pmml.regression.RegressionModel;
+import org.dmg.pmml.regression.RegressionTable;
+import org.dmg.pmml.tree.Node;
+import org.dmg.pmml.tree.TreeModel;
+import org.jpmml.evaluator.Classification;
+import org.jpmml.evaluator.InputFieldUtil;
+import org.jpmml.evaluator.MissingElementException;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.model.XPathUtil;
+import org.jpmml.model.visitors.FieldReferenceFinder;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.JBinaryFileInitializer;
+import org.jpmml.translator.JDirectInitializer;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.PMMLObjectUtil;
+import org.jpmml.translator.Scope;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.regression.RegressionModelTranslator;
+import org.jpmml.translator.tree.NodeScoreManager;
+import org.jpmml.translator.tree.TreeModelTranslator;
+
+public class TreeModelAggregatorChainTranslator extends MiningModelTranslator {
+
+	public TreeModelAggregatorChainTranslator(PMML pmml, MiningModel miningModel){
+		super(pmml, miningModel);
+
+		MiningFunction miningFunction = miningModel.getMiningFunction();
+		switch(miningFunction){
+			case CLASSIFICATION:
+				break;
+			default:
+				throw new UnsupportedAttributeException(miningModel, miningFunction);
+		}
+
+		MathContext mathContext = miningModel.getMathContext();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		Segmentation.MultipleModelMethod multipleModelMethod = segmentation.getMultipleModelMethod();
+		switch(multipleModelMethod){
+			case MODEL_CHAIN:
+				break;
+			default:
+				throw new UnsupportedAttributeException(segmentation, multipleModelMethod);
+		}
+
+		List<Segment> segments = segmentation.getSegments();
+		if(segments.size() < 2){
+			throw new UnsupportedElementException(segmentation);
+		}
+
+		Set<FieldName> valueNames = new HashSet<>();
+
+		Set<FieldName> derivedFieldNames = new HashSet<>();
+
+		collectDerivedFieldNames(miningModel, derivedFieldNames);
+
+		List<Segment> regressorSegments = segments.subList(0, segments.size() - 1);
+		for(Segment regressorSegment : regressorSegments){
+			Predicate predicate = regressorSegment.getPredicate();
+			Model model = regressorSegment.getModel();
+
+			if(!(predicate instanceof True)){
+				throw new UnsupportedElementException(predicate);
+			} // End if
+
+			if(!(model instanceof MiningModel)){
+				throw new UnsupportedElementException(model);
+			}
+
+			MiningFunction modelMiningFunction = model.getMiningFunction();
+			switch(modelMiningFunction){
+				case REGRESSION:
+					break;
+				default:
+					throw new UnsupportedAttributeException(model, modelMiningFunction);
+			}
+
+			MathContext modelMathContext = model.getMathContext();
+			if(!Objects.equals(mathContext, modelMathContext)){
+				throw new UnsupportedAttributeException(model, modelMathContext);
+			}
+
+			checkMiningSchema(model);
+			checkDefaultMiningSchema(model);
+			checkRescaleTargets(model);
+
+			MiningModel regressorMiningModel = (MiningModel)model;
+
+			@SuppressWarnings("unused")
+			ModelTranslator<?> modelTranslator = new TreeModelAggregatorTranslator(pmml, regressorMiningModel);
+
+			// Regressor-level derived fields are pulled up to the top level
+			checkDerivedFields(regressorMiningModel);
+			collectDerivedFieldNames(regressorMiningModel, derivedFieldNames);
+
+			Segmentation regressorSegmentation = regressorMiningModel.getSegmentation();
+
+			Segmentation.MultipleModelMethod regressorMultipleModelMethod = regressorSegmentation.getMultipleModelMethod();
+			switch(regressorMultipleModelMethod){
+				case SUM:
+					break;
+				default:
+					throw new UnsupportedAttributeException(regressorSegmentation, regressorMultipleModelMethod);
+			}
+
+			// The margin of a target category must not depend on the margins of preceding target categories
+			FieldReferenceFinder fieldReferenceFinder = new FieldReferenceFinder();
+			fieldReferenceFinder.applyTo(regressorSegmentation);
+
+			if(!Collections.disjoint(fieldReferenceFinder.getFieldNames(), valueNames)){
+				throw new UnsupportedElementException(regressorSegmentation);
+			}
+
+			Output modelOutput = model.getOutput();
+			if(modelOutput == null){
+				throw new MissingElementException(MissingElementException.formatMessage(XPathUtil.formatElement(model.getClass()) + "/" + XPathUtil.formatElement(Output.class)), model);
+			} // End if
+
+			if(modelOutput.hasOutputFields()){
+				List<OutputField> outputFields = modelOutput.getOutputFields();
+
+				OutputField predictedOutputField = getPredictedOutputField(modelOutput);
+
+				for(OutputField outputField : outputFields){
+					DataType dataType = outputField.getDataType();
+
+					switch(dataType){
+						case FLOAT:
+							if(!(MathContext.FLOAT).equals(mathContext)){
+								throw new UnsupportedAttributeException(outputField, dataType);
+							}
+							break;
+						case DOUBLE:
+							break;
+						default:
+							throw new UnsupportedAttributeException(outputField, dataType);
+					}
+
+					ResultFeature resultFeature = outputField.getResultFeature();
+					switch(resultFeature){
+						case PREDICTED_VALUE:
+							break;
+						case TRANSFORMED_VALUE:
+							{
+								Expression expression = outputField.getExpression();
+
+								if(!isExp(expression, predictedOutputField.getName())){
+									throw new UnsupportedElementException(outputField);
+								}
+							}
+							break;
+						default:
+							throw new UnsupportedAttributeException(outputField, resultFeature);
+					}
+
+					valueNames.add(outputField.getName());
+				}
+			} else
+
+			{
+				throw new MissingElementException(modelOutput, org.dmg.pmml.PMMLElements.OUTPUT_OUTPUTFIELDS);
+			}
+		}
+
+		{
+			Segment classifierSegment = segments.get(segments.size() - 1);
+
+			Predicate predicate = classifierSegment.getPredicate();
+			Model model = classifierSegment.getModel();
+
+			if(!(predicate instanceof True)){
+				throw new UnsupportedElementException(predicate);
+			} // End if
+
+			if(!(model instanceof RegressionModel)){
+				throw new UnsupportedElementException(model);
+			}
+
+			MiningFunction modelMiningFunction = model.getMiningFunction();
+			switch(modelMiningFunction){
+				case CLASSIFICATION:
+					break;
+				default:
+					throw new UnsupportedAttributeException(model, modelMiningFunction);
+			}
+
+			MathContext modelMathContext = model.getMathContext();
+			if(!Objects.equals(mathContext, modelMathContext)){
+				throw new UnsupportedAttributeException(model, modelMathContext);
+			}
+
+			checkMiningSchema(model);
+			checkLocalTransformations(model);
+			checkTargets(model);
+
+			RegressionModel regressionModel = (RegressionModel)model;
+
+			List<RegressionTable> regressionTables = regressionModel.getRegressionTables();
+			if(regressionTables.size() < 2){
+				throw new UnsupportedElementException(regressionModel);
+			}
+
+			for(RegressionTable regressionTable : regressionTables){
+
+				if(regressionTable.hasNumericPredictors()){
+					List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
+
+					// Models with additional predictors are handled by the ModelChainTranslator
+					if(numericPredictors.size() > 1){
+						throw new UnsupportedElementException(regressionTable);
+					}
+
+					NumericPredictor numericPredictor = Iterables.getOnlyElement(numericPredictors);
+
+					Integer exponent = numericPredictor.getExponent();
+					if(exponent != null && exponent.intValue() != 1){
+						throw new UnsupportedElementException(numericPredictor);
+					} // End if
+
+					if(!valueNames.contains(numericPredictor.getField())){
+						throw new UnsupportedElementException(numericPredictor);
+					}
+				} // End if
+
+				if(regressionTable.hasCategoricalPredictors() || regressionTable.hasPredictorTerms()){
+					throw new UnsupportedElementException(regressionTable);
+				}
+			}
+		}
+	}
+
+	@Override
+	public JMethod translateClassifier(TranslationContext context){
+		MiningModel miningModel = getModel();
+
+		Segmentation segmentation = miningModel.getSegmentation();
+
+		JMethod evaluateMethod = createEvaluatorMethod(Classification.class, segmentation, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			translateSegmentation(segmentation, context);
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	@Override
+	public Map<FieldName, FieldInfo> getFieldInfos(Set<? extends PMMLObject> bodyObjects){
+		Map<FieldName, FieldInfo> fieldInfos = super.getFieldInfos(bodyObjects);
+
+		Set<Node> nodes = bodyObjects.stream()
+			.map(bodyObject -> (Segmentation)bodyObject)
+			.flatMap(segmentation -> (segmentation.getSegments()).stream())
+			.map(segment -> (TreeModel)segment.getModel())
+			.map(treeModel -> treeModel.getNode())
+			.collect(Collectors.toCollection(LinkedHashSet::new));
+
+		fieldInfos = TreeModelTranslator.enhanceFieldInfos(nodes, fieldInfos);
+
+		return fieldInfos;
+	}
+
+	private void translateSegmentation(Segmentation segmentation, TranslationContext context){
+		MiningModel miningModel = getModel();
+
+		MathContext mathContext = miningModel.getMathContext();
+
+		List<Segment> segments = segmentation.getSegments();
+
+		List<Segment> regressorSegments = segments.subList(0, segments.size() - 1);
+
+		Set<Segmentation> regressorSegmentations = new LinkedHashSet<>();
+
+		for(Segment regressorSegment : regressorSegments){
+			MiningModel regressorMiningModel = (MiningModel)regressorSegment.getModel();
+
+			pullUpDerivedFields(miningModel, regressorMiningModel);
+
+			regressorSegmentations.add(regressorMiningModel.getSegmentation());
+		}
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(regressorSegmentations);
+
+		JType intType = context._ref(int.class);
+		JPrimitiveType valueType = getPrimitiveType(miningModel, context);
+
+		List<NodeScoreManager> scoreManagers = new ArrayList<>();
+
+		List<JMethod> methods = new ArrayList<>();
+
+		// The tree model methods of the i-th regressor occupy the range [offsets[i], offsets[i + 1])
+		int[] offsets = new int[regressorSegments.size() + 1];
+
+		for(int i = 0; i < regressorSegments.size(); i++){
+			MiningModel regressorMiningModel = (MiningModel)(regressorSegments.get(i)).getModel();
+
+			Segmentation regressorSegmentation = regressorMiningModel.getSegmentation();
+
+			List<Segment> treeModelSegments = regressorSegmentation.getSegments();
+			for(Segment treeModelSegment : treeModelSegments){
+				TreeModel treeModel = (TreeModel)treeModelSegment.getModel();
+
+				Node node = treeModel.getNode();
+
+				NodeScoreManager scoreManager = new NodeScoreManager(context.ref(Number.class), IdentifierUtil.create("scores", node));
+
+				scoreManagers.add(scoreManager);
+
+				JMethod method = TreeModelAggregatorTranslator.createEvaluatorMethod(treeModel, node, scoreManager, fieldInfos, context);
+
+				methods.add(method);
+			}
+
+			offsets[i + 1] = methods.size();
+		}
+
+		JBinaryFileInitializer resourceInitializer = new JBinaryFileInitializer(context, IdentifierUtil.create(Segmentation.class.getSimpleName(), segmentation) + ".data");
+
+		List<Number[]> scoreValues = scoreManagers.stream()
+			.map(scoreManager -> scoreManager.getValues())
+			.collect(Collectors.toList());
+
+		JFieldVar scoresVar = resourceInitializer.initNumbersList(IdentifierUtil.create("scores", segmentation), mathContext, scoreValues);
+
+		JDirectInitializer codeInitializer = new JDirectInitializer(context);
+
+		JFieldVar methodsVar = codeInitializer.initLambdas(IdentifierUtil.create("methods", segmentation), (context.ref(ToIntFunction.class)).narrow(ensureArgumentsType(context)), methods);
+
+		List<JVar> marginVars = new ArrayList<>();
+
+		// The margins are accumulated into primitive local variables (one loop per regressor), so that no array is allocated on every evaluation
+		for(int i = 0; i < regressorSegments.size(); i++){
+			JVar marginVar = context.declare(valueType, "margin" + i, PMMLObjectUtil.createExpression(0d, mathContext));
+
+			JBlock block = context.block();
+
+			try {
+				JForLoop forLoop = block._for();
+
+				JVar loopVar = forLoop.init(intType, "i", JExpr.lit(offsets[i]));
+				forLoop.test(loopVar.lt(JExpr.lit(offsets[i + 1])));
+				forLoop.update(loopVar.incr());
+
+				JBlock forBlock = forLoop.body();
+
+				context.pushScope(new Scope(forBlock));
+
+				JVar indexExpr = context.declare(int.class, "index", (methodsVar.invoke("get").arg(loopVar)).invoke("applyAsInt").arg((context.getArgumentsVariable()).getVariable()));
+
+				context._returnIf(indexExpr.eq(TreeModelTranslator.NULL_RESULT), JExpr._null());
+
+				JExpression scoreExpr = (scoresVar.invoke("get").arg(loopVar)).component(indexExpr);
+
+				forBlock.assignPlus(marginVar, scoreExpr.invoke(valueType.name() + "Value"));
+			} finally {
+				context.popScope();
+			}
+
+			marginVars.add(marginVar);
+		}
+
+		Map<FieldName, JVar> valueVars = new LinkedHashMap<>();
+
+		for(int i = 0; i < regressorSegments.size(); i++){
+			MiningModel regressorMiningModel = (MiningModel)(regressorSegments.get(i)).getModel();
+
+			Output modelOutput = regressorMiningModel.getOutput();
+
+			OutputField predictedOutputField = getPredictedOutputField(modelOutput);
+
+			JExpression valueExpr = marginVars.get(i);
+
+			Targets targets = regressorMiningModel.getTargets();
+			if(targets != null && targets.hasTargets()){
+				Target target = Iterables.getOnlyElement(targets.getTargets());
+
+				Number rescaleFactor = target.getRescaleFactor();
+				if(rescaleFactor != null && rescaleFactor.doubleValue() != 1d){
+					valueExpr = valueExpr.mul(PMMLObjectUtil.createExpression(rescaleFactor, mathContext));
+				}
+
+				Number rescaleConstant = target.getRescaleConstant();
+				if(rescaleConstant != null && rescaleConstant.doubleValue() != 0d){
+					valueExpr = valueExpr.plus(PMMLObjectUtil.createExpression(rescaleConstant, mathContext));
+				}
+			}
+
+			JVar predictedValueVar = context.declare(valueType, IdentifierUtil.create("value", predictedOutputField.getName()), valueExpr);
+
+			valueVars.put(predictedOutputField.getName(), predictedValueVar);
+
+			List<OutputField> outputFields = modelOutput.getOutputFields();
+			for(OutputField outputField : outputFields){
+				ResultFeature resultFeature = outputField.getResultFeature();
+
+				switch(resultFeature){
+					case PREDICTED_VALUE:
+						break;
+					case TRANSFORMED_VALUE:
+						{
+							JExpression transformedValueExpr = context.staticInvoke(Math.class, "exp", predictedValueVar);
+
+							if((MathContext.FLOAT).equals(mathContext)){
+								transformedValueExpr = JExpr.cast(valueType, transformedValueExpr);
+							}
+
+							JVar transformedValueVar = context.declare(valueType, IdentifierUtil.create("value", outputField.getName()), transformedValueExpr);
+
+							valueVars.put(outputField.getName(), transformedValueVar);
+						}
+						break;
+					default:
+						throw new UnsupportedAttributeException(outputField, resultFeature);
+				}
+			}
+		}
+
+		{
+			Segment classifierSegment = segments.get(segments.size() - 1);
+
+			RegressionModel regressionModel = (RegressionModel)classifierSegment.getModel();
+
+			List<RegressionTable> regressionTables = regressionModel.getRegressionTables();
+
+			pullUpOutputFields(miningModel, regressionModel);
+
+			List<JExpression> valueExprs = new ArrayList<>();
+
+			for(RegressionTable regressionTable : regressionTables){
+				List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
+
+				Number intercept = regressionTable.getIntercept();
+
+				JExpression valueExpr;
+
+				NumericPredictor numericPredictor = Iterables.getFirst(numericPredictors, null);
+				if(numericPredictor != null){
+					valueExpr = valueVars.get(numericPredictor.getField());
+
+					Number coefficient = numericPredictor.getCoefficient();
+					if(coefficient != null && coefficient.doubleValue() != 1d){
+						valueExpr = (PMMLObjectUtil.createExpression(coefficient, mathContext)).mul(valueExpr);
+					} // End if
+
+					if(intercept != null && intercept.doubleValue() != 0d){
+						valueExpr = valueExpr.plus(PMMLObjectUtil.createExpression(intercept, mathContext));
+					}
+				} else
+
+				{
+					valueExpr = PMMLObjectUtil.createExpression(intercept != null ? intercept : 0d, mathContext);
+				}
+
+				valueExprs.add(valueExpr);
+			}
+
+			RegressionModelTranslator.computeClassification(valueExprs, regressionModel, context);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Checks that a regressor model does not specify any input value treatments,
+	 * because regressor models are flattened into their tree model segments.
+	 * </p>
+	 */
+	static
+	private void checkDefaultMiningSchema(Model model){
+		MiningSchema miningSchema = model.getMiningSchema();
+
+		if(miningSchema.hasMiningFields()){
+			List<MiningField> miningFields = miningSchema.getMiningFields();
+
+			for(MiningField miningField : miningFields){
+				MiningField.UsageType usageType = miningField.getUsageType();
+
+				switch(usageType){
+					case ACTIVE:
+						break;
+					default:
+						continue;
+				}
+
+				if(!InputFieldUtil.isDefault(null, miningField)){
+					throw new UnsupportedElementException(miningField);
+				}
+			}
+		}
+	}
+
+	static
+	private void checkRescaleTargets(Model model){
+		Targets targets = model.getTargets();
+
+		if(targets != null && targets.hasTargets()){
+			List<Target> targetList = targets.getTargets();
+
+			if(targetList.size() != 1){
+				throw new UnsupportedElementException(targets);
+			}
+
+			Target target = Iterables.getOnlyElement(targetList);
+
+			if(target.getField() != null || target.getMin() != null || target.getMax() != null || target.getCastInteger() != null || target.hasTargetValues()){
+				throw new UnsupportedElementException(target);
+			}
+		}
+	}
+
+	static
+	private OutputField getPredictedOutputField(Output output){
+		List<OutputField> outputFields = output.getOutputFields();
+
+		List<OutputField> predictedOutputFields = outputFields.stream()
+			.filter(outputField -> (ResultFeature.PREDICTED_VALUE).equals(outputField.getResultFeature()))
+			.collect(Collectors.toList());
+
+		if(predictedOutputFields.size() != 1){
+			throw new UnsupportedElementException(output);
+		}
+
+		return Iterables.getOnlyElement(predictedOutputFields);
+	}
+
+	static
+	private boolean isExp(Expression expression, FieldName name){
+
+		if(expression instanceof Apply){
+			Apply apply = (Apply)expression;
+
+			if(!(PMMLFunctions.EXP).equals(apply.getFunction()) || !apply.hasExpressions()){
+				return false;
+			}
+
+			List<Expression> expressions = apply.getExpressions();
+			if(expressions.size() != 1){
+				return false;
+			}
+
+			Expression argument = Iterables.getOnlyElement(expressions);
+
+			if(argument instanceof FieldRef){
+				FieldRef fieldRef = (FieldRef)argument;
+
+				return (name).equals(fieldRef.getField());
+			}
+		}
+
+		return false;
+	}
+}
@@ -21,6 +21,7 @@ package org.jpmml.translator.mining;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -29,12 +30,17 @@ import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JForLoop;
 import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
 import org.dmg.pmml.FieldName;
 import org.dmg.pmml.MathContext;
@@ -115,6 +121,10 @@ public class TreeModelAggregatorTranslator extends MiningModelTranslator {
 				throw new UnsupportedAttributeException(segmentation, missingPredictionTreatment);
 		}
 
+		Set<FieldName> derivedFieldNames = new HashSet<>();
+
+		collectDerivedFieldNames(miningModel, derivedFieldNames);
+
 		List<Segment> segments = segmentation.getSegments();
 		for(Segment segment : segments){
 			Predicate predicate = segment.getPredicate();
@@ -133,12 +143,19 @@ public class TreeModelAggregatorTranslator extends MiningModelTranslator {
 			}
 
 			checkMiningSchema(model);
-			checkLocalTransformations(model);
 			checkTargets(model);
 			checkOutput(model);
 
-			@SuppressWarnings("unused")
-			ModelTranslator<?> modelTranslator = newModelTranslator(model);
+			checkDerivedFields(model);
+			collectDerivedFieldNames(model, derivedFieldNames);
+
+			checkTranslatable(model);
+		}
+
+		// Segment-level derived fields are pulled up to the top level, where they are visible to all tree models.
+		// This is done eagerly, so that an enclosing model translator can pull them up further
+		for(Segment segment : segments){
+			pullUpDerivedFields(miningModel, segment.getModel());
 		}
 	}
 
@@ -210,20 +227,25 @@ public class TreeModelAggregatorTranslator extends MiningModelTranslator {
 
 		AggregatorBuilder aggregatorBuilder = new AggregatorBuilder(context);
 
+		// Median values are collected into thread-confined primitive arrays, and are selected (not sorted) in place
+		JVar valuesVar = null;
+		JVar weightValuesVar = null;
+
 		switch(multipleModelMethod){
 			case SUM:
 			case AVERAGE:
 				aggregatorBuilder.construct(ValueAggregator.UnivariateStatistic.class, "aggregator", valueFactoryRef);
 				break;
 			case MEDIAN:
-				aggregatorBuilder.construct(ValueAggregator.Median.class, "aggregator", valueFactoryRef, segments.size());
+				valuesVar = context.declare(double[].class, "values", (createBufferVar(IdentifierUtil.create("values", segmentation), segments.size(), context)).invoke("get"));
 				break;
 			case WEIGHTED_SUM:
 			case WEIGHTED_AVERAGE:
 				aggregatorBuilder.construct(ValueAggregator.WeightedUnivariateStatistic.class, "aggregator", valueFactoryRef);
 				break;
 			case WEIGHTED_MEDIAN:
-				aggregatorBuilder.construct(ValueAggregator.WeightedMedian.class, "aggregator", valueFactoryRef, segments.size());
+				valuesVar = context.declare(double[].class, "values", (createBufferVar(IdentifierUtil.create("values", segmentation), segments.size(), context)).invoke("get"));
+				weightValuesVar = context.declare(double[].class, "weightValues", (createBufferVar(IdentifierUtil.create("weightValues", segmentation), segments.size(), context)).invoke("get"));
 				break;
 			default:
 				throw new UnsupportedAttributeException(segmentation, multipleModelMethod);
@@ -312,15 +334,26 @@ public class TreeModelAggregatorTranslator extends MiningModelTranslator {
 			switch(multipleModelMethod){
 				case SUM:
 				case AVERAGE:
-				case MEDIAN:
 					aggregatorBuilder.update("add", scoreExpr);
 					break;
+				case MEDIAN:
+					forBlock.assign(valuesVar.component(loopVar), scoreExpr.invoke("doubleValue"));
+					break;
 				case WEIGHTED_SUM:
 				case WEIGHTED_AVERAGE:
+					{
+						JExpression weightExpr = weightsVar.invoke("get").arg(loopVar);
+
+						aggregatorBuilder.update("add", scoreExpr, weightExpr);
+					}
+					break;
 				case WEIGHTED_MEDIAN:
-					JExpression weightExpr = weightsVar.invoke("get").arg(loopVar);
+					{
+						JExpression weightExpr = weightsVar.invoke("get").arg(loopVar);
 
-					aggregatorBuilder.update("add", scoreExpr, weightExpr);
+						forBlock.assign(valuesVar.component(loopVar), scoreExpr.invoke("doubleValue"));
+						forBlock.assign(weightValuesVar.component(loopVar), weightExpr.invoke("doubleValue"));
+					}
 					break;
 				default:
 					throw new UnsupportedAttributeException(segmentation, multipleModelMethod);
@@ -347,10 +380,10 @@ public class TreeModelAggregatorTranslator extends MiningModelTranslator {
 				valueInit = aggregatorVar.invoke("weightedAverage");
 				break;
 			case MEDIAN:
-				valueInit = aggregatorVar.invoke("median");
+				valueInit = valueFactoryRef.newValue(JExpr.invoke(ensureMedianMethod(context)).arg(valuesVar).arg(JExpr.lit(segments.size())));
 				break;
 			case WEIGHTED_MEDIAN:
-				valueInit = aggregatorVar.invoke("weightedMedian");
+				valueInit = valueFactoryRef.newValue(JExpr.invoke(ensureWeightedMedianMethod(context)).arg(valuesVar).arg(weightValuesVar).arg(JExpr.lit(segments.size())));
 				break;
 			default:
 				throw new UnsupportedAttributeException(segmentation, multipleModelMethod);
@@ -512,9 +545,13 @@ public class TreeModelAggregatorTranslator extends MiningModelTranslator {
 		context._return(context._new(ProbabilityDistribution.class, valueMapInit));
 	}
 
-	private <S, ScoreManager extends ArrayManager<S> & ScoreFunction<S>> JMethod createEvaluatorMethod(TreeModel treeModel, Node node, ScoreManager scoreManager, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+	static
+	public <S, ScoreManager extends ArrayManager<S> & ScoreFunction<S>> JMethod createEvaluatorMethod(TreeModel treeModel, Node node, ScoreManager scoreManager, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
 		JMethod method = createEvaluatorMethod(int.class, node, false, context);
 
+		// Segment-level input value treatments
+		fieldInfos = applyMiningSchema(treeModel, fieldInfos);
+
 		try {
 			context.pushScope(new MethodScope(method));
 
@@ -525,4 +562,236 @@ public class TreeModelAggregatorTranslator extends MiningModelTranslator {
 
 		return method;
 	}
+
+	static
+	private JFieldVar createBufferVar(String name, int size, TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		JClass bufferClazz = (context.ref(ThreadLocal.class)).narrow(context.ref(double[].class));
+
+		JFieldVar bufferVar = owner.field(ModelTranslator.MEMBER_PRIVATE, bufferClazz, name, context.staticInvoke(ThreadLocal.class, "withInitial", JExpr.direct("() -> new double[" + size + "]")));
+
+		return bufferVar;
+	}
+
+	static
+	private JMethod ensureSelectMethod(TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		JType intType = context._ref(int.class);
+		JType doubleType = context._ref(double.class);
+
+		JMethod selectMethod = owner.getMethod("select", new JType[]{doubleType.array(), intType, intType, intType});
+		if(selectMethod != null){
+			return selectMethod;
+		}
+
+		selectMethod = owner.method(ModelTranslator.MEMBER_PRIVATE, doubleType, "select");
+
+		JVar valuesParam = selectMethod.param(doubleType.array(), "values");
+		JVar leftParam = selectMethod.param(intType, "left");
+		JVar rightParam = selectMethod.param(intType, "right");
+		JVar kParam = selectMethod.param(intType, "k");
+
+		JBlock block = selectMethod.body();
+
+		JBlock loopBlock = block._while(leftParam.lt(rightParam)).body();
+
+		JVar pivotVar = loopBlock.decl(doubleType, "pivot", valuesParam.component((leftParam.plus(rightParam)).div(JExpr.lit(2))));
+
+		JVar[] indexVars = partition(loopBlock, valuesParam, null, leftParam, rightParam, pivotVar, context);
+
+		JVar iVar = indexVars[0];
+		JVar jVar = indexVars[1];
+
+		JConditional ifStmt = loopBlock._if(kParam.lte(jVar));
+
+		ifStmt._then().assign(rightParam, jVar);
+
+		JConditional elseIfStmt = (ifStmt._else())._if(kParam.gte(iVar));
+
+		elseIfStmt._then().assign(leftParam, iVar);
+
+		// The k-th element is equal to the pivot value
+		elseIfStmt._else()._return(valuesParam.component(kParam));
+
+		block._return(valuesParam.component(kParam));
+
+		return selectMethod;
+	}
+
+	static
+	private JMethod ensureMedianMethod(TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		JType intType = context._ref(int.class);
+		JType doubleType = context._ref(double.class);
+
+		JMethod medianMethod = owner.getMethod("median", new JType[]{doubleType.array(), intType});
+		if(medianMethod != null){
+			return medianMethod;
+		}
+
+		JMethod selectMethod = ensureSelectMethod(context);
+
+		medianMethod = owner.method(ModelTranslator.MEMBER_PRIVATE, doubleType, "median");
+
+		JVar valuesParam = medianMethod.param(doubleType.array(), "values");
+		JVar sizeParam = medianMethod.param(intType, "size");
+
+		JBlock block = medianMethod.body();
+
+		JVar halfVar = block.decl(intType, "half", sizeParam.div(JExpr.lit(2)));
+
+		JVar upperVar = block.decl(doubleType, "upper", JExpr.invoke(selectMethod).arg(valuesParam).arg(JExpr.lit(0)).arg(sizeParam.minus(JExpr.lit(1))).arg(halfVar));
+
+		block._if((sizeParam.mod(JExpr.lit(2))).ne(JExpr.lit(0)))._then()._return(upperVar);
+
+		// After selection, all elements to the left of the upper middle element are less than or equal to it
+		JVar lowerVar = block.decl(doubleType, "lower", valuesParam.component(JExpr.lit(0)));
+
+		JForLoop forLoop = block._for();
+
+		JVar loopVar = forLoop.init(intType, "i", JExpr.lit(1));
+		forLoop.test(loopVar.lt(halfVar));
+		forLoop.update(loopVar.incr());
+
+		JBlock forBlock = forLoop.body();
+
+		forBlock._if(JOp.gt(valuesParam.component(loopVar), lowerVar))._then().assign(lowerVar, valuesParam.component(loopVar));
+
+		// The middle values are averaged in double precision (also for float models), and the result is narrowed by the value factory
+		block._return((lowerVar.plus(upperVar)).div(JExpr.lit(2d)));
+
+		return medianMethod;
+	}
+
+	static
+	private JMethod ensureWeightedMedianMethod(TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		JType intType = context._ref(int.class);
+		JType doubleType = context._ref(double.class);
+
+		JMethod weightedMedianMethod = owner.getMethod("weightedMedian", new JType[]{doubleType.array(), doubleType.array(), intType});
+		if(weightedMedianMethod != null){
+			return weightedMedianMethod;
+		}
+
+		weightedMedianMethod = owner.method(ModelTranslator.MEMBER_PRIVATE, doubleType, "weightedMedian");
+
+		JVar valuesParam = weightedMedianMethod.param(doubleType.array(), "values");
+		JVar weightsParam = weightedMedianMethod.param(doubleType.array(), "weights");
+		JVar sizeParam = weightedMedianMethod.param(intType, "size");
+
+		JBlock block = weightedMedianMethod.body();
+
+		JVar thresholdVar = block.decl(doubleType, "threshold", JExpr.lit(0d));
+
+		JForLoop sumForLoop = block._for();
+
+		JVar sumLoopVar = sumForLoop.init(intType, "k", JExpr.lit(0));
+		sumForLoop.test(sumLoopVar.lt(sizeParam));
+		sumForLoop.update(sumLoopVar.incr());
+
+		sumForLoop.body().assignPlus(thresholdVar, weightsParam.component(sumLoopVar));
+
+		block.assign(thresholdVar, thresholdVar.div(JExpr.lit(2d)));
+
+		JVar leftVar = block.decl(intType, "left", JExpr.lit(0));
+		JVar rightVar = block.decl(intType, "right", sizeParam.minus(JExpr.lit(1)));
+
+		JBlock loopBlock = block._while(leftVar.lt(rightVar)).body();
+
+		JVar pivotVar = loopBlock.decl(doubleType, "pivot", valuesParam.component((leftVar.plus(rightVar)).div(JExpr.lit(2))));
+
+		JVar[] indexVars = partition(loopBlock, valuesParam, weightsParam, leftVar, rightVar, pivotVar, context);
+
+		JVar iVar = indexVars[0];
+		JVar jVar = indexVars[1];
+
+		JVar lowerWeightVar = loopBlock.decl(doubleType, "lowerWeight", JExpr.lit(0d));
+
+		JForLoop lowerForLoop = loopBlock._for();
+
+		JVar lowerLoopVar = lowerForLoop.init(intType, "k", leftVar);
+		lowerForLoop.test(lowerLoopVar.lte(jVar));
+		lowerForLoop.update(lowerLoopVar.incr());
+
+		lowerForLoop.body().assignPlus(lowerWeightVar, weightsParam.component(lowerLoopVar));
+
+		JConditional ifStmt = loopBlock._if(lowerWeightVar.gte(thresholdVar));
+
+		// The weighted median is located in the lower partition
+		ifStmt._then().assign(rightVar, jVar);
+
+		JBlock elseBlock = ifStmt._else();
+
+		elseBlock.assign(thresholdVar, thresholdVar.minus(lowerWeightVar));
+
+		JVar middleWeightVar = elseBlock.decl(doubleType, "middleWeight", JExpr.lit(0d));
+
+		JForLoop middleForLoop = elseBlock._for();
+
+		JVar middleLoopVar = middleForLoop.init(intType, "k", jVar.plus(JExpr.lit(1)));
+		middleForLoop.test(middleLoopVar.lt(iVar));
+		middleForLoop.update(middleLoopVar.incr());
+
+		middleForLoop.body().assignPlus(middleWeightVar, weightsParam.component(middleLoopVar));
+
+		// The weighted median is equal to the pivot value
+		elseBlock._if((middleWeightVar.gte(thresholdVar)).cor(iVar.gt(rightVar)))._then()._return(pivotVar);
+
+		elseBlock.assign(thresholdVar, thresholdVar.minus(middleWeightVar));
+
+		// The weighted median is located in the upper partition
+		elseBlock.assign(leftVar, iVar);
+
+		block._return(valuesParam.component(leftVar));
+
+		return weightedMedianMethod;
+	}
+
+	/**
+	 * <p>
+	 * Generates Hoare's partitioning scheme.
+	 * Upon completion, elements <code>[left, j]</code> are less than or equal to the pivot value,
+	 * elements <code>(j, i)</code> are equal to the pivot value,
+	 * and elements <code>[i, right]</code> are greater than or equal to the pivot value.
+	 * </p>
+	 *
+	 * @param weightsVar Parallel array that is permuted together with the values array. May be <code>null</code>.
+	 *
+	 * @return Index variables <code>i</code> and <code>j</code>.
+	 */
+	static
+	private JVar[] partition(JBlock block, JVar valuesVar, JVar weightsVar, JVar leftVar, JVar rightVar, JVar pivotVar, TranslationContext context){
+		JType intType = context._ref(int.class);
+		JType doubleType = context._ref(double.class);
+
+		JVar iVar = block.decl(intType, "i", leftVar);
+		JVar jVar = block.decl(intType, "j", rightVar);
+
+		JBlock loopBlock = block._while(iVar.lte(jVar)).body();
+
+		loopBlock._while(JOp.lt(valuesVar.component(iVar), pivotVar)).body().assign(iVar, iVar.plus(JExpr.lit(1)));
+		loopBlock._while(JOp.gt(valuesVar.component(jVar), pivotVar)).body().assign(jVar, jVar.minus(JExpr.lit(1)));
+
+		JBlock swapBlock = loopBlock._if(iVar.lte(jVar))._then();
+
+		JVar valueVar = swapBlock.decl(doubleType, "value", valuesVar.component(iVar));
+		swapBlock.assign(valuesVar.component(iVar), valuesVar.component(jVar));
+		swapBlock.assign(valuesVar.component(jVar), valueVar);
+
+		if(weightsVar != null){
+			JVar weightVar = swapBlock.decl(doubleType, "weight", weightsVar.component(iVar));
+			swapBlock.assign(weightsVar.component(iVar), weightsVar.component(jVar));
+			swapBlock.assign(weightsVar.component(jVar), weightVar);
+		}
+
+		swapBlock.assign(iVar, iVar.plus(JExpr.lit(1)));
+		swapBlock.assign(jVar, jVar.minus(JExpr.lit(1)));
+
+		return new JVar[]{iVar, jVar};
+	}
 }
\ No newline at end of file
@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2020 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.naive_bayes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.ContinuousDistribution;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Field;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.GaussianDistribution;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.naive_bayes.BayesInput;
+import org.dmg.pmml.naive_bayes.BayesInputs;
+import org.dmg.pmml.naive_bayes.BayesOutput;
+import org.dmg.pmml.naive_bayes.NaiveBayesModel;
+import org.dmg.pmml.naive_bayes.PairCounts;
+import org.dmg.pmml.naive_bayes.TargetValueCount;
+import org.dmg.pmml.naive_bayes.TargetValueStat;
+import org.dmg.pmml.naive_bayes.TargetValueStats;
+import org.jpmml.evaluator.Classification;
+import org.jpmml.evaluator.InvalidElementException;
+import org.jpmml.evaluator.ProbabilityDistribution;
+import org.jpmml.evaluator.TargetField;
+import org.jpmml.evaluator.TypeUtil;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.translator.Encoder;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.JBinaryFileInitializer;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.MathUtil;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.OperableRef;
+import org.jpmml.translator.OrdinalEncoder;
+import org.jpmml.translator.OrdinalRef;
+import org.jpmml.translator.PMMLObjectUtil;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.ValueFactoryRef;
+import org.jpmml.translator.ValueMapBuilder;
+
+public class NaiveBayesModelTranslator extends ModelTranslator<NaiveBayesModel> {
+
+	public NaiveBayesModelTranslator(PMML pmml, NaiveBayesModel naiveBayesModel){
+		super(pmml, naiveBayesModel);
+
+		MiningFunction miningFunction = naiveBayesModel.getMiningFunction();
+		switch(miningFunction){
+			case CLASSIFICATION:
+				break;
+			default:
+				throw new UnsupportedAttributeException(naiveBayesModel, miningFunction);
+		}
+
+		BayesInputs bayesInputs = naiveBayesModel.getBayesInputs();
+
+		List<BayesInput> bayesInputList = bayesInputs.getBayesInputs();
+		for(BayesInput bayesInput : bayesInputList){
+			DerivedField derivedField = bayesInput.getDerivedField();
+			if(derivedField != null){
+				throw new UnsupportedElementException(derivedField);
+			}
+
+			TargetValueStats targetValueStats = bayesInput.getTargetValueStats();
+			if(targetValueStats != null){
+				List<TargetValueStat> targetValueStatList = targetValueStats.getTargetValueStats();
+
+				for(TargetValueStat targetValueStat : targetValueStatList){
+					ContinuousDistribution distribution = targetValueStat.getContinuousDistribution();
+
+					if(!(distribution instanceof GaussianDistribution)){
+						throw new UnsupportedElementException(distribution);
+					}
+				}
+			} else
+
+			if(!bayesInput.hasPairCounts()){
+				throw new InvalidElementException(bayesInput);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Accumulates class log-likelihoods using primitive <code>float</code> or <code>double</code> arithmetic.
+	 * </p>
+	 *
+	 * <p>
+	 * The conditional probabilities of discrete fields are precomputed into log-probability tables.
+	 * The table row of a field value is looked up by its ordinal.
+	 * The conditional probabilities of continuous fields are computed using the closed-form logarithm of the Gaussian density function.
+	 * The probability threshold is applied at translation time to zero counts, and in log space to continuous densities.
+	 * </p>
+	 */
+	@Override
+	public JMethod translateClassifier(TranslationContext context){
+		NaiveBayesModel naiveBayesModel = getModel();
+
+		MathContext mathContext = naiveBayesModel.getMathContext();
+		BayesInputs bayesInputs = naiveBayesModel.getBayesInputs();
+		BayesOutput bayesOutput = naiveBayesModel.getBayesOutput();
+
+		TargetField targetField = getTargetField();
+
+		DataType dataType = targetField.getDataType();
+
+		Map<Object, Number> targetValueCounts = parseTargetValueCounts(bayesOutput.getTargetValueCounts().getTargetValueCounts(), dataType);
+
+		List<Object> targetCategories = new ArrayList<>(targetValueCounts.keySet());
+
+		double logThreshold = Math.log((naiveBayesModel.getThreshold()).doubleValue());
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(bayesInputs));
+
+		JMethod evaluateMethod = createEvaluatorMethod(Classification.class, naiveBayesModel, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			JPrimitiveType type = getPrimitiveType(naiveBayesModel, context);
+
+			List<JVar> logLikelihoodVars = new ArrayList<>();
+
+			for(Object targetCategory : targetCategories){
+				double count = (targetValueCounts.get(targetCategory)).doubleValue();
+
+				logLikelihoodVars.add(context.declare(type, IdentifierUtil.create("logLikelihood", targetCategory), PMMLObjectUtil.createExpression(Math.log(count), mathContext)));
+			}
+
+			JBinaryFileInitializer resourceInitializer = null;
+
+			List<BayesInput> bayesInputList = bayesInputs.getBayesInputs();
+			for(BayesInput bayesInput : bayesInputList){
+				FieldInfo fieldInfo = getFieldInfo(bayesInput.getField(), fieldInfos);
+
+				TargetValueStats targetValueStats = bayesInput.getTargetValueStats();
+
+				if(targetValueStats != null){
+					translateTargetValueStats(fieldInfo, targetValueStats, dataType, targetCategories, logLikelihoodVars, logThreshold, type, mathContext, context);
+				} else
+
+				{
+					if(resourceInitializer == null){
+						resourceInitializer = new JBinaryFileInitializer(context, IdentifierUtil.create(NaiveBayesModel.class.getSimpleName(), naiveBayesModel) + ".data");
+					}
+
+					translatePairCounts(fieldInfo, bayesInput, dataType, targetCategories, logLikelihoodVars, logThreshold, mathContext, resourceInitializer, context);
+				}
+			}
+
+			List<String> expNames = targetCategories.stream()
+				.map(targetCategory -> IdentifierUtil.create("exp", targetCategory))
+				.collect(Collectors.toList());
+
+			List<JExpression> probabilityExprs = MathUtil.softmax(logLikelihoodVars, expNames, "max", "sum", type, context);
+
+			ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+			ValueMapBuilder valueMapBuilder = new ValueMapBuilder(context)
+				.construct("values");
+
+			for(int i = 0; i < targetCategories.size(); i++){
+				valueMapBuilder.update("put", targetCategories.get(i), valueFactoryRef.newValue(probabilityExprs.get(i)));
+			}
+
+			context._return(context._new(ProbabilityDistribution.class, valueMapBuilder));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	@Override
+	public Map<FieldName, FieldInfo> getFieldInfos(Set<? extends PMMLObject> bodyObjects){
+		NaiveBayesModel naiveBayesModel = getModel();
+
+		Map<FieldName, FieldInfo> fieldInfos = super.getFieldInfos(bodyObjects);
+
+		fieldInfos = NaiveBayesModelTranslator.enhanceFieldInfos(naiveBayesModel.getBayesInputs(), fieldInfos);
+
+		return fieldInfos;
+	}
+
+	/**
+	 * <p>
+	 * Adds the log-probability of a continuous field value.
+	 * The input is ignored if the field value is missing.
+	 * </p>
+	 */
+	static
+	private void translateTargetValueStats(FieldInfo fieldInfo, TargetValueStats targetValueStats, DataType dataType, List<Object> targetCategories, List<JVar> logLikelihoodVars, double logThreshold, JPrimitiveType type, MathContext mathContext, TranslationContext context){
+		OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+		JVar variable = operableRef.getVariable();
+
+		JBlock block = context.block();
+
+		if(!context.isNonMissing(variable)){
+			block = block._if(operableRef.isNotMissing())._then();
+		}
+
+		JVar valueVar = block.decl(type, IdentifierUtil.create("value", targetValueStats), MathUtil.toPrimitive(variable, type));
+
+		List<TargetValueStat> targetValueStatList = targetValueStats.getTargetValueStats();
+		for(TargetValueStat targetValueStat : targetValueStatList){
+			GaussianDistribution gaussianDistribution = (GaussianDistribution)targetValueStat.getContinuousDistribution();
+
+			int index = targetCategories.indexOf(TypeUtil.parseOrCast(dataType, targetValueStat.getValue()));
+			if(index < 0){
+				throw new InvalidElementException(targetValueStat);
+			}
+
+			double mean = (gaussianDistribution.getMean()).doubleValue();
+			double variance = (gaussianDistribution.getVariance()).doubleValue();
+
+			// log(pdf(x)) = -log(2 * pi * variance) / 2 - (x - mean) ^ 2 / (2 * variance)
+			JExpression diffExpr = valueVar.minus(PMMLObjectUtil.createExpression(mean, mathContext));
+
+			JExpression logProbabilityExpr = PMMLObjectUtil.createExpression(-Math.log(2d * Math.PI * variance) / 2d, mathContext).minus((diffExpr.mul(diffExpr)).mul(PMMLObjectUtil.createExpression(1d / (2d * variance), mathContext)));
+
+			if(!Double.isInfinite(logThreshold)){
+				logProbabilityExpr = context.staticInvoke(Math.class, "max", logProbabilityExpr, PMMLObjectUtil.createExpression(logThreshold, mathContext));
+			}
+
+			block.assignPlus(logLikelihoodVars.get(index), logProbabilityExpr);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Adds the log-probability of a discrete field value.
+	 * The input is ignored if the field value is missing, or if it does not have pair counts.
+	 * </p>
+	 */
+	static
+	private void translatePairCounts(FieldInfo fieldInfo, BayesInput bayesInput, DataType dataType, List<Object> targetCategories, List<JVar> logLikelihoodVars, double logThreshold, MathContext mathContext, JBinaryFileInitializer resourceInitializer, TranslationContext context){
+		List<PairCounts> pairCounts = bayesInput.getPairCounts();
+
+		int numberOfCategories = targetCategories.size();
+
+		Encoder encoder = fieldInfo.getEncoder();
+
+		OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+		JExpression ordinalExpr;
+
+		// Table rows are indexed by ordinals, the first row corresponds to an unknown value
+		List<PairCounts> rows;
+
+		if(encoder instanceof OrdinalEncoder){
+			OrdinalEncoder ordinalEncoder = (OrdinalEncoder)encoder;
+
+			rows = new ArrayList<>(Collections.nCopies((ordinalEncoder.getValues()).size() + 1, null));
+
+			for(PairCounts pairCount : pairCounts){
+				rows.set(ordinalEncoder.encode(pairCount.getValue()), pairCount);
+			}
+
+			ordinalExpr = ((OrdinalRef)operableRef).getVariable();
+		} else
+
+		{
+			rows = new ArrayList<>(Collections.nCopies(pairCounts.size() + 1, null));
+
+			JExpression indexExpr = JExpr.lit(0);
+
+			for(int i = pairCounts.size() - 1; i >= 0; i--){
+				PairCounts pairCount = pairCounts.get(i);
+
+				rows.set(i + 1, pairCount);
+
+				indexExpr = JOp.cond(operableRef.equalTo(pairCount.getValue(), context), JExpr.lit(i + 1), indexExpr);
+			}
+
+			if(!context.isNonMissing(operableRef.getVariable())){
+				indexExpr = JOp.cond(operableRef.isNotMissing(), indexExpr, JExpr.lit(0));
+			}
+
+			ordinalExpr = context.declare(context._ref(int.class), IdentifierUtil.create("ordinal", bayesInput), indexExpr);
+		}
+
+		double[] totals = new double[numberOfCategories];
+
+		for(PairCounts pairCount : pairCounts){
+			Map<Object, Number> counts = parseTargetValueCounts(pairCount.getTargetValueCounts().getTargetValueCounts(), dataType);
+
+			for(int i = 0; i < numberOfCategories; i++){
+				Number count = counts.get(targetCategories.get(i));
+
+				if(count != null){
+					totals[i] += count.doubleValue();
+				}
+			}
+		}
+
+		Number[] logProbabilities = new Number[rows.size() * numberOfCategories];
+
+		for(int row = 0; row < rows.size(); row++){
+			PairCounts pairCount = rows.get(row);
+
+			Map<Object, Number> counts = (pairCount != null ? parseTargetValueCounts(pairCount.getTargetValueCounts().getTargetValueCounts(), dataType) : Collections.emptyMap());
+
+			for(int i = 0; i < numberOfCategories; i++){
+				double logProbability;
+
+				if(pairCount == null){
+					logProbability = 0d;
+				} else
+
+				{
+					Number count = counts.get(targetCategories.get(i));
+
+					if(count == null || count.doubleValue() == 0d || totals[i] == 0d){
+						logProbability = logThreshold;
+					} else
+
+					{
+						logProbability = Math.log(count.doubleValue() / totals[i]);
+					}
+				}
+
+				logProbabilities[row * numberOfCategories + i] = logProbability;
+			}
+		}
+
+		JFieldVar tableVar = resourceInitializer.initFpPrimitiveArray(IdentifierUtil.create("logProbabilities", bayesInput), mathContext, logProbabilities);
+
+		JBlock block = context.block()._if(ordinalExpr.gt(JExpr.lit(0)))._then();
+
+		JVar offsetVar = block.decl(context._ref(int.class), IdentifierUtil.create("offset", bayesInput), ordinalExpr.mul(JExpr.lit(numberOfCategories)));
+
+		for(int i = 0; i < numberOfCategories; i++){
+			block.assignPlus(logLikelihoodVars.get(i), tableVar.component(i != 0 ? offsetVar.plus(JExpr.lit(i)) : offsetVar));
+		}
+	}
+
+	static
+	public Map<FieldName, FieldInfo> enhanceFieldInfos(BayesInputs bayesInputs, Map<FieldName, FieldInfo> fieldInfos){
+		Map<FieldName, Set<Object>> discreteFieldValues = new LinkedHashMap<>();
+
+		List<BayesInput> bayesInputList = bayesInputs.getBayesInputs();
+		for(BayesInput bayesInput : bayesInputList){
+
+			if(bayesInput.getTargetValueStats() != null || !bayesInput.hasPairCounts()){
+				continue;
+			}
+
+			Set<Object> values = discreteFieldValues.computeIfAbsent(bayesInput.getField(), key -> new LinkedHashSet<>());
+
+			List<PairCounts> pairCounts = bayesInput.getPairCounts();
+			for(PairCounts pairCount : pairCounts){
+				values.add(pairCount.getValue());
+			}
+		}
+
+		Collection<Map.Entry<FieldName, Set<Object>>> entries = discreteFieldValues.entrySet();
+		for(Map.Entry<FieldName, Set<Object>> entry : entries){
+			FieldInfo fieldInfo = getFieldInfo(entry.getKey(), fieldInfos);
+
+			Field<?> field = fieldInfo.getField();
+
+			OpType opType = field.getOpType();
+			DataType dataType = field.getDataType();
+
+			switch(opType){
+				case CATEGORICAL:
+					break;
+				default:
+					continue;
+			}
+
+			switch(dataType){
+				case STRING:
+				case INTEGER:
+					break;
+				default:
+					continue;
+			}
+
+			fieldInfo.setEncoder(new OrdinalEncoder(entry.getValue()));
+		}
+
+		return fieldInfos;
+	}
+
+	static
+	private Map<Object, Number> parseTargetValueCounts(List<TargetValueCount> targetValueCounts, DataType dataType){
+		Map<Object, Number> result = new LinkedHashMap<>();
+
+		for(TargetValueCount targetValueCount : targetValueCounts){
+			result.put(TypeUtil.parseOrCast(dataType, targetValueCount.getValue()), targetValueCount.getCount());
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,1016 @@
+/*
+ * Copyright (c) 2019 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.nearest_neighbor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Table;
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+import org.dmg.pmml.Chebychev;
+import org.dmg.pmml.CityBlock;
+import org.dmg.pmml.CompareFunction;
+import org.dmg.pmml.ComparisonMeasure;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.Euclidean;
+import org.dmg.pmml.Field;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.InlineTable;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.Measure;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Output;
+import org.dmg.pmml.OutputField;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.ResultFeature;
+import org.dmg.pmml.SquaredEuclidean;
+import org.dmg.pmml.TableLocator;
+import org.dmg.pmml.nearest_neighbor.InstanceField;
+import org.dmg.pmml.nearest_neighbor.InstanceFields;
+import org.dmg.pmml.nearest_neighbor.KNNInput;
+import org.dmg.pmml.nearest_neighbor.KNNInputs;
+import org.dmg.pmml.nearest_neighbor.NearestNeighborModel;
+import org.dmg.pmml.nearest_neighbor.PMMLElements;
+import org.dmg.pmml.nearest_neighbor.TrainingInstances;
+import org.jpmml.evaluator.InlineTableUtil;
+import org.jpmml.evaluator.InvalidElementException;
+import org.jpmml.evaluator.MissingElementException;
+import org.jpmml.evaluator.TargetField;
+import org.jpmml.evaluator.TypeUtil;
+import org.jpmml.evaluator.UndefinedResultException;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.evaluator.Value;
+import org.jpmml.evaluator.VoteDistribution;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.JBinaryFileInitializer;
+import org.jpmml.translator.JDirectInitializer;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.MathUtil;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.OperableRef;
+import org.jpmml.translator.PMMLObjectUtil;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.ValueFactoryRef;
+import org.jpmml.translator.ValueMapBuilder;
+
+public class NearestNeighborModelTranslator extends ModelTranslator<NearestNeighborModel> {
+
+	public NearestNeighborModelTranslator(PMML pmml, NearestNeighborModel nearestNeighborModel){
+		super(pmml, nearestNeighborModel);
+
+		MiningFunction miningFunction = nearestNeighborModel.getMiningFunction();
+		switch(miningFunction){
+			case REGRESSION:
+				{
+					NearestNeighborModel.ContinuousScoringMethod continuousScoringMethod = nearestNeighborModel.getContinuousScoringMethod();
+
+					switch(continuousScoringMethod){
+						case AVERAGE:
+						case MEDIAN:
+						case WEIGHTED_AVERAGE:
+							break;
+						default:
+							throw new UnsupportedAttributeException(nearestNeighborModel, continuousScoringMethod);
+					}
+				}
+				break;
+			case CLASSIFICATION:
+				{
+					NearestNeighborModel.CategoricalScoringMethod categoricalScoringMethod = nearestNeighborModel.getCategoricalScoringMethod();
+
+					switch(categoricalScoringMethod){
+						case MAJORITY_VOTE:
+						case WEIGHTED_MAJORITY_VOTE:
+							break;
+						default:
+							throw new UnsupportedAttributeException(nearestNeighborModel, categoricalScoringMethod);
+					}
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(nearestNeighborModel, miningFunction);
+		}
+
+		ComparisonMeasure comparisonMeasure = nearestNeighborModel.getComparisonMeasure();
+		if(comparisonMeasure == null){
+			throw new MissingElementException(nearestNeighborModel, PMMLElements.NEARESTNEIGHBORMODEL_COMPARISONMEASURE);
+		}
+
+		ComparisonMeasure.Kind kind = comparisonMeasure.getKind();
+		switch(kind){
+			case DISTANCE:
+				break;
+			default:
+				throw new UnsupportedAttributeException(comparisonMeasure, kind);
+		}
+
+		Measure measure = comparisonMeasure.getMeasure();
+		if(!(measure instanceof SquaredEuclidean) && !(measure instanceof Euclidean) && !(measure instanceof CityBlock) && !(measure instanceof Chebychev)){
+			throw new UnsupportedElementException(measure);
+		}
+
+		checkCompareFunction(comparisonMeasure, comparisonMeasure.getCompareFunction());
+
+		KNNInputs knnInputs = nearestNeighborModel.getKNNInputs();
+		if(knnInputs == null || !knnInputs.hasKNNInputs()){
+			throw new MissingElementException(nearestNeighborModel, PMMLElements.NEARESTNEIGHBORMODEL_KNNINPUTS);
+		}
+
+		for(KNNInput knnInput : knnInputs.getKNNInputs()){
+			CompareFunction compareFunction = knnInput.getCompareFunction();
+
+			if(compareFunction != null){
+				checkCompareFunction(knnInput, compareFunction);
+			}
+
+			Number fieldWeight = knnInput.getFieldWeight();
+			if(fieldWeight.doubleValue() < 0d){
+				throw new InvalidElementException(knnInput);
+			}
+		}
+
+		TrainingInstances trainingInstances = nearestNeighborModel.getTrainingInstances();
+		if(trainingInstances == null){
+			throw new MissingElementException(nearestNeighborModel, PMMLElements.NEARESTNEIGHBORMODEL_TRAININGINSTANCES);
+		}
+
+		TableLocator tableLocator = trainingInstances.getTableLocator();
+		if(tableLocator != null){
+			throw new UnsupportedElementException(tableLocator);
+		}
+
+		InlineTable inlineTable = trainingInstances.getInlineTable();
+		if(inlineTable == null){
+			throw new MissingElementException(trainingInstances, PMMLElements.TRAININGINSTANCES_INLINETABLE);
+		}
+
+		Output output = nearestNeighborModel.getOutput();
+		if(output != null && output.hasOutputFields()){
+			List<OutputField> outputFields = output.getOutputFields();
+
+			for(OutputField outputField : outputFields){
+				ResultFeature resultFeature = outputField.getResultFeature();
+
+				// The neighbour identities and their affinities are not retained
+				switch(resultFeature){
+					case ENTITY_ID:
+					case AFFINITY:
+					case ENTITY_AFFINITY:
+						throw new UnsupportedAttributeException(outputField, resultFeature);
+					default:
+						break;
+				}
+			}
+		}
+	}
+
+	@Override
+	public JMethod translateRegressor(TranslationContext context){
+		NearestNeighborModel nearestNeighborModel = getModel();
+
+		MathContext mathContext = nearestNeighborModel.getMathContext();
+
+		TargetField targetField = getTargetField();
+
+		TrainingData trainingData = parseTrainingData(nearestNeighborModel, targetField.getName(), DataType.DOUBLE);
+
+		List<Object> targetValues = trainingData.getTargetValues();
+
+		Number[] targets = new Number[targetValues.size()];
+
+		for(int i = 0; i < targetValues.size(); i++){
+			targets[i] = (Number)targetValues.get(i);
+		}
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(nearestNeighborModel.getKNNInputs()));
+
+		JMethod evaluateMethod = createEvaluatorMethod(Value.class, nearestNeighborModel, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			Neighbors neighbors = translateSearch(nearestNeighborModel, trainingData, fieldInfos, context);
+
+			JFieldVar targetsVar = neighbors.getResourceInitializer().initFpPrimitiveArray(IdentifierUtil.create("targets", nearestNeighborModel), mathContext, targets);
+
+			JPrimitiveType type = getPrimitiveType(nearestNeighborModel, context);
+			JType intType = context._ref(int.class);
+
+			int k = neighbors.getCount();
+
+			JVar indicesVar = neighbors.getIndicesVariable();
+
+			JExpression valueExpr;
+
+			NearestNeighborModel.ContinuousScoringMethod continuousScoringMethod = nearestNeighborModel.getContinuousScoringMethod();
+			switch(continuousScoringMethod){
+				case AVERAGE:
+					{
+						JVar sumVar = context.declare(type, "sum", PMMLObjectUtil.createExpression(0d, mathContext));
+
+						JForLoop forLoop = context.block()._for();
+
+						JVar iVar = forLoop.init(intType, "i", JExpr.lit(0));
+						forLoop.test(iVar.lt(JExpr.lit(k)));
+						forLoop.update(iVar.incr());
+
+						forLoop.body().assignPlus(sumVar, targetsVar.component(indicesVar.component(iVar)));
+
+						valueExpr = sumVar.div(PMMLObjectUtil.createExpression(k, mathContext));
+					}
+					break;
+				case MEDIAN:
+					{
+						JVar valuesVar = context.declare(type.array(), "values", JExpr.newArray(type, k));
+
+						JForLoop forLoop = context.block()._for();
+
+						JVar iVar = forLoop.init(intType, "i", JExpr.lit(0));
+						forLoop.test(iVar.lt(JExpr.lit(k)));
+						forLoop.update(iVar.incr());
+
+						forLoop.body().assign(valuesVar.component(iVar), targetsVar.component(indicesVar.component(iVar)));
+
+						context.add(context.staticInvoke(Arrays.class, "sort", valuesVar));
+
+						if(k % 2 == 1){
+							valueExpr = valuesVar.component(JExpr.lit(k / 2));
+						} else
+
+						{
+							valueExpr = JOp.div(JOp.plus(valuesVar.component(JExpr.lit(k / 2 - 1)), valuesVar.component(JExpr.lit(k / 2))), PMMLObjectUtil.createExpression(2d, mathContext));
+						}
+					}
+					break;
+				case WEIGHTED_AVERAGE:
+					{
+						JVar sumVar = context.declare(type, "sum", PMMLObjectUtil.createExpression(0d, mathContext));
+						JVar weightSumVar = context.declare(type, "weightSum", PMMLObjectUtil.createExpression(0d, mathContext));
+
+						JForLoop forLoop = context.block()._for();
+
+						JVar iVar = forLoop.init(intType, "i", JExpr.lit(0));
+						forLoop.test(iVar.lt(JExpr.lit(k)));
+						forLoop.update(iVar.incr());
+
+						JBlock forBody = forLoop.body();
+
+						JVar weightVar = forBody.decl(type, "neighborWeight", translateWeight(nearestNeighborModel, neighbors, iVar));
+
+						forBody.assignPlus(sumVar, weightVar.mul(targetsVar.component(indicesVar.component(iVar))));
+						forBody.assignPlus(weightSumVar, weightVar);
+
+						valueExpr = sumVar.div(weightSumVar);
+					}
+					break;
+				default:
+					throw new UnsupportedAttributeException(nearestNeighborModel, continuousScoringMethod);
+			}
+
+			context._return(context.getValueFactoryVariable().newValue(valueExpr));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	@Override
+	public JMethod translateClassifier(TranslationContext context){
+		NearestNeighborModel nearestNeighborModel = getModel();
+
+		MathContext mathContext = nearestNeighborModel.getMathContext();
+
+		TargetField targetField = getTargetField();
+
+		TrainingData trainingData = parseTrainingData(nearestNeighborModel, targetField.getName(), targetField.getDataType());
+
+		List<Object> targetValues = trainingData.getTargetValues();
+
+		List<Object> targetCategories = new ArrayList<>(new LinkedHashSet<>(targetValues));
+
+		int[] targets = new int[targetValues.size()];
+
+		for(int i = 0; i < targetValues.size(); i++){
+			targets[i] = targetCategories.indexOf(targetValues.get(i));
+		}
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(nearestNeighborModel.getKNNInputs()));
+
+		JMethod evaluateMethod = createEvaluatorMethod(VoteDistribution.class, nearestNeighborModel, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			Neighbors neighbors = translateSearch(nearestNeighborModel, trainingData, fieldInfos, context);
+
+			JFieldVar targetsVar = neighbors.getResourceInitializer().initIntArray(IdentifierUtil.create("targets", nearestNeighborModel), targets);
+
+			JPrimitiveType type = getPrimitiveType(nearestNeighborModel, context);
+			JType intType = context._ref(int.class);
+
+			int k = neighbors.getCount();
+
+			JVar indicesVar = neighbors.getIndicesVariable();
+
+			JVar votesVar = context.declare(type.array(), "votes", JExpr.newArray(type, targetCategories.size()));
+			JVar orderVar = context.declare(intType.array(), "order", JExpr.newArray(intType, targetCategories.size()));
+			JVar countVar = context.declare(intType, "count", JExpr.lit(0));
+
+			JForLoop forLoop = context.block()._for();
+
+			JVar iVar = forLoop.init(intType, "i", JExpr.lit(0));
+			forLoop.test(iVar.lt(JExpr.lit(k)));
+			forLoop.update(iVar.incr());
+
+			JBlock forBody = forLoop.body();
+
+			JVar labelVar = forBody.decl(intType, "label", targetsVar.component(indicesVar.component(iVar)));
+
+			// Categories are ordered by their first vote, which is cast by the nearest neighbour
+			forBody._if(JOp.eq(votesVar.component(labelVar), PMMLObjectUtil.createExpression(0d, mathContext)))._then().assign(orderVar.component(JOp.incr(countVar)), labelVar);
+
+			NearestNeighborModel.CategoricalScoringMethod categoricalScoringMethod = nearestNeighborModel.getCategoricalScoringMethod();
+			switch(categoricalScoringMethod){
+				case MAJORITY_VOTE:
+					forBody.assignPlus(votesVar.component(labelVar), PMMLObjectUtil.createExpression(1d, mathContext));
+					break;
+				case WEIGHTED_MAJORITY_VOTE:
+					forBody.assignPlus(votesVar.component(labelVar), translateWeight(nearestNeighborModel, neighbors, iVar));
+					break;
+				default:
+					throw new UnsupportedAttributeException(nearestNeighborModel, categoricalScoringMethod);
+			}
+
+			JDirectInitializer codeInitializer = new JDirectInitializer(context);
+
+			JFieldVar targetCategoriesVar = codeInitializer.initTargetCategories(IdentifierUtil.create("targetCategories", nearestNeighborModel), targetCategories);
+
+			ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+			ValueMapBuilder valueMapBuilder = new ValueMapBuilder(context)
+				.construct("values");
+
+			JForLoop valuesForLoop = context.block()._for();
+
+			JVar loopVar = valuesForLoop.init(intType, "i", JExpr.lit(0));
+			valuesForLoop.test(loopVar.lt(countVar));
+			valuesForLoop.update(loopVar.incr());
+
+			JBlock valuesForBody = valuesForLoop.body();
+
+			JVar indexVar = valuesForBody.decl(intType, "index", orderVar.component(loopVar));
+
+			valuesForBody.add((valueMapBuilder.getVariable().invoke("put")).arg(targetCategoriesVar.invoke("get").arg(indexVar)).arg(valueFactoryRef.newValue(votesVar.component(indexVar))));
+
+			context._return(context._new(VoteDistribution.class, valueMapBuilder));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	/**
+	 * <p>
+	 * Finds the k nearest training instances using a branch-and-bound search over a KD-tree.
+	 * </p>
+	 *
+	 * <p>
+	 * The KD-tree is built at translation time over the unscaled instance coordinates.
+	 * Instances are reordered so that every tree node covers a contiguous range of the packed coordinate array.
+	 * Ranges of at most {@link #LEAF_SIZE} instances are leaves, which are scanned with unrolled distance terms.
+	 * Other ranges are split at their median instance, along the axis of the largest weighted spread.
+	 * Subtrees whose lower distance bound exceeds the k-th best distance are skipped.
+	 * </p>
+	 *
+	 * <p>
+	 * Distance terms are computed the same way as in the interpreter, by multiplying the (squared) absolute difference with the field weight.
+	 * Neighbours are ranked by their final distance, and then by their position in the training table.
+	 * The missing value adjustment and the final root may map different sums of terms to the same distance,
+	 * so a sum is out of range only if its final distance is greater than the k-th best distance.
+	 * </p>
+	 */
+	static
+	private Neighbors translateSearch(NearestNeighborModel nearestNeighborModel, TrainingData trainingData, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		MathContext mathContext = nearestNeighborModel.getMathContext();
+		ComparisonMeasure comparisonMeasure = nearestNeighborModel.getComparisonMeasure();
+
+		Measure measure = comparisonMeasure.getMeasure();
+
+		List<KNNInput> knnInputs = (nearestNeighborModel.getKNNInputs()).getKNNInputs();
+
+		JPrimitiveType type = getPrimitiveType(nearestNeighborModel, context);
+		JType intType = context._ref(int.class);
+		JType booleanType = context._ref(boolean.class);
+
+		double[][] points = trainingData.getPoints();
+		double[] weights = trainingData.getWeights();
+
+		int numberOfInstances = points.length;
+		int numberOfFields = knnInputs.size();
+
+		int k = Math.min(nearestNeighborModel.getNumberOfNeighbors(), numberOfInstances);
+		if(k < 1){
+			throw new InvalidElementException(nearestNeighborModel);
+		}
+
+		int[] permutation = new int[numberOfInstances];
+		int[] axes = new int[numberOfInstances];
+		Number[] splits = new Number[numberOfInstances];
+
+		for(int i = 0; i < numberOfInstances; i++){
+			permutation[i] = i;
+			axes[i] = -1;
+			splits[i] = 0d;
+		}
+
+		int depth = buildTree(measure, points, weights, permutation, axes, splits, 0, numberOfInstances);
+
+		Number[] pointValues = new Number[numberOfInstances * numberOfFields];
+
+		for(int i = 0; i < numberOfInstances; i++){
+			double[] point = points[permutation[i]];
+
+			for(int j = 0; j < numberOfFields; j++){
+				pointValues[i * numberOfFields + j] = point[j];
+			}
+		}
+
+		JBinaryFileInitializer resourceInitializer = new JBinaryFileInitializer(context, IdentifierUtil.create(NearestNeighborModel.class.getSimpleName(), nearestNeighborModel) + ".data");
+
+		JFieldVar pointsVar = resourceInitializer.initFpPrimitiveArray(IdentifierUtil.create("points", nearestNeighborModel), mathContext, pointValues);
+		JFieldVar instanceIndicesVar = resourceInitializer.initIntArray(IdentifierUtil.create("instanceIndices", nearestNeighborModel), permutation);
+		JFieldVar axesVar = resourceInitializer.initIntArray(IdentifierUtil.create("axes", nearestNeighborModel), axes);
+		JFieldVar splitsVar = resourceInitializer.initFpPrimitiveArray(IdentifierUtil.create("splits", nearestNeighborModel), mathContext, splits);
+
+		Number[] weightValues = new Number[numberOfFields];
+
+		for(int i = 0; i < numberOfFields; i++){
+			weightValues[i] = weights[i];
+		}
+
+		JFieldVar weightsVar = resourceInitializer.initFpPrimitiveArray(IdentifierUtil.create("weights", nearestNeighborModel), mathContext, weightValues);
+
+		JArray queryArray = JExpr.newArray(type);
+		JArray presentArray = JExpr.newArray(booleanType);
+
+		List<JVar> presentVars = new ArrayList<>();
+
+		JExpression presentCountExpr = null;
+
+		for(int i = 0; i < numberOfFields; i++){
+			KNNInput knnInput = knnInputs.get(i);
+
+			FieldInfo fieldInfo = getFieldInfo(knnInput.getField(), fieldInfos);
+
+			Field<?> field = fieldInfo.getField();
+
+			DataType dataType = field.getDataType();
+			switch(dataType){
+				case INTEGER:
+				case FLOAT:
+				case DOUBLE:
+					break;
+				default:
+					throw new UnsupportedAttributeException(field, dataType);
+			}
+
+			OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+			JVar variable = operableRef.getVariable();
+
+			JExpression valueExpr = MathUtil.toPrimitive(variable, type);
+
+			if(context.isNonMissing(variable)){
+				queryArray.add(valueExpr);
+				presentArray.add(JExpr.TRUE);
+
+				presentVars.add(null);
+
+				continue;
+			}
+
+			JVar presentVar = context.declare(booleanType, IdentifierUtil.create("present", knnInput), operableRef.isMissing().not());
+
+			queryArray.add(JOp.cond(presentVar, valueExpr, PMMLObjectUtil.createExpression(0d, mathContext)));
+			presentArray.add(presentVar);
+
+			presentVars.add(presentVar);
+
+			JExpression countExpr = JOp.cond(presentVar, JExpr.lit(1), JExpr.lit(0));
+
+			presentCountExpr = (presentCountExpr != null ? presentCountExpr.plus(countExpr) : countExpr);
+		}
+
+		JVar adjustmentVar = null;
+		JVar presentVar = null;
+
+		if(presentCountExpr != null){
+			int nonMissingCount = Math.toIntExact(presentVars.stream().filter(var -> var == null).count());
+
+			if(nonMissingCount > 0){
+				presentCountExpr = JExpr.lit(nonMissingCount).plus(presentCountExpr);
+			}
+
+			JVar presentCountVar = context.declare(intType, "presentCount", presentCountExpr);
+
+			// The missing value adjustment is undefined
+			context.block()._if(presentCountVar.eq(JExpr.lit(0)))._then()._throw(context._new(UndefinedResultException.class));
+
+			// Distances are scaled up in proportion to the number of missing field values
+			adjustmentVar = context.declare(type, "adjustment", JOp.div(JExpr.cast(type, JExpr.lit(numberOfFields)), presentCountVar));
+
+			presentVar = context.declare(booleanType.array(), "present", presentArray);
+		}
+
+		JVar queryVar = context.declare(type.array(), "query", queryArray);
+
+		JVar distancesVar = context.declare(type.array(), "distances", JExpr.newArray(type, k));
+		JVar indicesVar = context.declare(intType.array(), "indices", JExpr.newArray(intType, k));
+
+		context.add(context.staticInvoke(Arrays.class, "fill", distancesVar, PMMLObjectUtil.createExpression(Double.POSITIVE_INFINITY, mathContext)));
+		context.add(context.staticInvoke(Arrays.class, "fill", indicesVar, JExpr.lit(Integer.MAX_VALUE)));
+
+		// Sums of terms are kept alongside final distances, unless they are the same
+		JVar sumsVar = distancesVar;
+
+		if((measure instanceof Euclidean) || adjustmentVar != null){
+			sumsVar = context.declare(type.array(), "sums", JExpr.newArray(type, k));
+
+			context.add(context.staticInvoke(Arrays.class, "fill", sumsVar, PMMLObjectUtil.createExpression(Double.POSITIVE_INFINITY, mathContext)));
+		}
+
+		int stackSize = depth + 2;
+
+		JVar stackLoVar = context.declare(intType.array(), "stackLo", JExpr.newArray(intType, stackSize));
+		JVar stackHiVar = context.declare(intType.array(), "stackHi", JExpr.newArray(intType, stackSize));
+		JVar stackBoundVar = context.declare(type.array(), "stackBound", JExpr.newArray(type, stackSize));
+
+		JVar topVar = context.declare(intType, "top", JExpr.lit(1));
+
+		JBlock block = context.block();
+
+		block.assign(stackHiVar.component(JExpr.lit(0)), JExpr.lit(numberOfInstances));
+
+		Neighbors neighbors = new Neighbors(resourceInitializer, k, distancesVar, indicesVar);
+
+		JExpression worstDistanceExpr = distancesVar.component(JExpr.lit(k - 1));
+		JExpression worstIndexExpr = indicesVar.component(JExpr.lit(k - 1));
+
+		JWhileLoop whileLoop = block._while(topVar.gt(JExpr.lit(0)));
+
+		JBlock whileBody = whileLoop.body();
+
+		whileBody.assign(topVar, topVar.minus(JExpr.lit(1)));
+
+		JVar loVar = whileBody.decl(intType, "lo", stackLoVar.component(topVar));
+		JVar hiVar = whileBody.decl(intType, "hi", stackHiVar.component(topVar));
+		JVar boundVar = whileBody.decl(type, "bound", stackBoundVar.component(topVar));
+
+		whileBody._if(translateOutOfRange(measure, boundVar, neighbors, sumsVar, adjustmentVar, type, context))._then()._continue();
+
+		JConditional ifStatement = whileBody._if((hiVar.minus(loVar)).lte(JExpr.lit(LEAF_SIZE)));
+
+		JBlock leafBlock = ifStatement._then();
+
+		JForLoop forLoop = leafBlock._for();
+
+		JVar jVar = forLoop.init(intType, "j", loVar);
+		forLoop.test(jVar.lt(hiVar));
+		forLoop.update(jVar.incr());
+
+		JBlock forBody = forLoop.body();
+
+		JVar offsetVar = forBody.decl(intType, "offset", jVar.mul(JExpr.lit(numberOfFields)));
+		JVar sumVar = forBody.decl(type, "sum", PMMLObjectUtil.createExpression(0d, mathContext));
+
+		for(int i = 0; i < numberOfFields; i++){
+			JBlock termBlock = forBody;
+
+			if(presentVars.get(i) != null){
+				termBlock = (forBody._if(presentVars.get(i)))._then();
+			}
+
+			JVar diffVar = termBlock.decl(type, "diff" + i, JOp.minus(queryVar.component(JExpr.lit(i)), pointsVar.component(offsetVar.plus(JExpr.lit(i)))));
+
+			translateTerm(measure, sumVar, diffVar, (weights[i] != 1d ? PMMLObjectUtil.createExpression(weights[i], mathContext) : null), termBlock, context);
+
+			// Terms are non-negative, so the partial sum can only grow
+			forBody._if(translateOutOfRange(measure, sumVar, neighbors, sumsVar, adjustmentVar, type, context))._then()._continue();
+		}
+
+		JVar distanceVar = sumVar;
+
+		if(sumsVar != distancesVar){
+			distanceVar = forBody.decl(type, "distance", translateDistance(measure, sumVar, adjustmentVar, type, context));
+		}
+
+		JVar indexVar = forBody.decl(intType, "index", instanceIndicesVar.component(jVar));
+
+		JBlock insertBlock = forBody._if(distanceVar.lt(worstDistanceExpr).cor(distanceVar.eq(worstDistanceExpr).cand(indexVar.lt(worstIndexExpr))))._then();
+
+		JVar pVar = insertBlock.decl(intType, "p", JExpr.lit(k - 1));
+
+		JExpression prevDistanceExpr = distancesVar.component(pVar.minus(JExpr.lit(1)));
+		JExpression prevIndexExpr = indicesVar.component(pVar.minus(JExpr.lit(1)));
+
+		JWhileLoop insertLoop = insertBlock._while(pVar.gt(JExpr.lit(0)).cand(prevDistanceExpr.gt(distanceVar).cor(prevDistanceExpr.eq(distanceVar).cand(prevIndexExpr.gt(indexVar)))));
+
+		JBlock insertBody = insertLoop.body();
+
+		insertBody.assign(distancesVar.component(pVar), prevDistanceExpr);
+		insertBody.assign(indicesVar.component(pVar), prevIndexExpr);
+
+		if(sumsVar != distancesVar){
+			insertBody.assign(sumsVar.component(pVar), sumsVar.component(pVar.minus(JExpr.lit(1))));
+		}
+
+		insertBody.assign(pVar, pVar.minus(JExpr.lit(1)));
+
+		insertBlock.assign(distancesVar.component(pVar), distanceVar);
+		insertBlock.assign(indicesVar.component(pVar), indexVar);
+
+		if(sumsVar != distancesVar){
+			insertBlock.assign(sumsVar.component(pVar), sumVar);
+		}
+
+		JBlock splitBlock = ifStatement._else();
+
+		JVar midVar = splitBlock.decl(intType, "mid", (loVar.plus(hiVar)).div(JExpr.lit(2)));
+		JVar axisVar = splitBlock.decl(intType, "axis", axesVar.component(midVar));
+		JVar diffVar = splitBlock.decl(type, "diff", JOp.minus(queryVar.component(axisVar), splitsVar.component(midVar)));
+
+		// Every instance on the far side is at least this far away along the axis
+		JExpression planeBoundExpr;
+
+		if((measure instanceof SquaredEuclidean) || (measure instanceof Euclidean)){
+			planeBoundExpr = (diffVar.mul(diffVar)).mul(weightsVar.component(axisVar));
+		} else
+
+		{
+			planeBoundExpr = (context.staticInvoke(Math.class, "abs", diffVar)).mul(weightsVar.component(axisVar));
+		} // End if
+
+		if(presentVar != null){
+			planeBoundExpr = JOp.cond(presentVar.component(axisVar), planeBoundExpr, PMMLObjectUtil.createExpression(0d, mathContext));
+		}
+
+		JVar farBoundVar = splitBlock.decl(type, "farBound", context.staticInvoke(Math.class, "max", boundVar, planeBoundExpr));
+
+		// The left range holds instances that are not greater than the split value along the axis, the right range holds instances that are not less
+		JConditional sideStatement = splitBlock._if(diffVar.lt(PMMLObjectUtil.createExpression(0d, mathContext)));
+
+		pushRanges(sideStatement._then(), stackLoVar, stackHiVar, stackBoundVar, topVar, new JExpression[]{midVar, hiVar, farBoundVar}, new JExpression[]{loVar, midVar, boundVar});
+		pushRanges(sideStatement._else(), stackLoVar, stackHiVar, stackBoundVar, topVar, new JExpression[]{loVar, midVar, farBoundVar}, new JExpression[]{midVar, hiVar, boundVar});
+
+		return neighbors;
+	}
+
+	static
+	private void pushRanges(JBlock block, JVar stackLoVar, JVar stackHiVar, JVar stackBoundVar, JVar topVar, JExpression[] farRange, JExpression[] nearRange){
+
+		// The near range is pushed last, so that it is searched first
+		for(JExpression[] range : Arrays.asList(farRange, nearRange)){
+			block.assign(stackLoVar.component(topVar), range[0]);
+			block.assign(stackHiVar.component(topVar), range[1]);
+			block.assign(stackBoundVar.component(topVar), range[2]);
+			block.assignPlus(topVar, JExpr.lit(1));
+		}
+	}
+
+	static
+	private void translateTerm(Measure measure, JVar sumVar, JVar diffVar, JExpression weightExpr, JBlock block, TranslationContext context){
+		JExpression termExpr;
+
+		if((measure instanceof SquaredEuclidean) || (measure instanceof Euclidean)){
+			termExpr = diffVar.mul(diffVar);
+		} else
+
+		if((measure instanceof CityBlock) || (measure instanceof Chebychev)){
+			termExpr = context.staticInvoke(Math.class, "abs", diffVar);
+		} else
+
+		{
+			throw new UnsupportedElementException(measure);
+		} // End if
+
+		if(weightExpr != null){
+			termExpr = termExpr.mul(weightExpr);
+		} // End if
+
+		if(measure instanceof Chebychev){
+			block.assign(sumVar, context.staticInvoke(Math.class, "max", sumVar, termExpr));
+		} else
+
+		{
+			block.assignPlus(sumVar, termExpr);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Applies the missing value adjustment and the final root to a sum of terms.
+	 * </p>
+	 */
+	static
+	private JExpression translateDistance(Measure measure, JExpression sumExpr, JVar adjustmentVar, JPrimitiveType type, TranslationContext context){
+		JExpression distanceExpr = sumExpr;
+
+		if(adjustmentVar != null){
+			distanceExpr = distanceExpr.mul(adjustmentVar);
+		} // End if
+
+		if(measure instanceof Euclidean){
+			// The interpreter raises to the power of 1/2, which may differ from the square root in the last digit
+			distanceExpr = MathUtil.castPrimitive(context.staticInvoke(Math.class, "pow", distanceExpr, JExpr.lit(0.5d)), type);
+		}
+
+		return distanceExpr;
+	}
+
+	static
+	private JExpression translateOutOfRange(Measure measure, JVar sumVar, Neighbors neighbors, JVar sumsVar, JVar adjustmentVar, JPrimitiveType type, TranslationContext context){
+		int k = neighbors.getCount();
+
+		JVar distancesVar = neighbors.getDistancesVariable();
+
+		if(sumsVar == distancesVar){
+			return sumVar.gt(distancesVar.component(JExpr.lit(k - 1)));
+		}
+
+		// The final distance is computed only if the sum is greater than that of the k-th best neighbour
+		return (sumVar.gt(sumsVar.component(JExpr.lit(k - 1)))).cand(translateDistance(measure, sumVar, adjustmentVar, type, context).gt(distancesVar.component(JExpr.lit(k - 1))));
+	}
+
+	static
+	private JExpression translateWeight(NearestNeighborModel nearestNeighborModel, Neighbors neighbors, JVar iVar){
+		MathContext mathContext = nearestNeighborModel.getMathContext();
+
+		// Distances are final
+		JExpression distanceExpr = (neighbors.getDistancesVariable()).component(iVar);
+
+		JExpression thresholdExpr = PMMLObjectUtil.createExpression(nearestNeighborModel.getThreshold(), mathContext);
+
+		return PMMLObjectUtil.createExpression(1d, mathContext).div(distanceExpr.plus(thresholdExpr));
+	}
+
+	static
+	private TrainingData parseTrainingData(NearestNeighborModel nearestNeighborModel, FieldName targetName, DataType targetDataType){
+		TrainingInstances trainingInstances = nearestNeighborModel.getTrainingInstances();
+
+		List<KNNInput> knnInputs = (nearestNeighborModel.getKNNInputs()).getKNNInputs();
+
+		InstanceFields instanceFields = trainingInstances.getInstanceFields();
+		InlineTable inlineTable = trainingInstances.getInlineTable();
+
+		Table<Integer, String, Object> table = InlineTableUtil.getContent(inlineTable);
+
+		List<Integer> rowKeys = new ArrayList<>(table.rowKeySet());
+
+		Collections.sort(rowKeys);
+
+		double[] weights = new double[knnInputs.size()];
+
+		List<String> columns = new ArrayList<>();
+
+		for(int i = 0; i < knnInputs.size(); i++){
+			KNNInput knnInput = knnInputs.get(i);
+
+			weights[i] = (knnInput.getFieldWeight()).doubleValue();
+
+			columns.add(getColumn(instanceFields, knnInput.getField(), knnInput));
+		}
+
+		String targetColumn = getColumn(instanceFields, targetName, trainingInstances);
+
+		double[][] points = new double[rowKeys.size()][knnInputs.size()];
+
+		List<Object> targetValues = new ArrayList<>();
+
+		for(int i = 0; i < rowKeys.size(); i++){
+			Integer rowKey = rowKeys.get(i);
+
+			for(int j = 0; j < columns.size(); j++){
+				Object value = table.get(rowKey, columns.get(j));
+
+				if(value == null){
+					throw new InvalidElementException(inlineTable);
+				}
+
+				points[i][j] = ((Number)TypeUtil.parseOrCast(DataType.DOUBLE, value)).doubleValue();
+			}
+
+			Object targetValue = table.get(rowKey, targetColumn);
+
+			if(targetValue == null){
+				throw new InvalidElementException(inlineTable);
+			}
+
+			targetValues.add(TypeUtil.parseOrCast(targetDataType, targetValue));
+		}
+
+		return new TrainingData(points, weights, targetValues);
+	}
+
+	static
+	private String getColumn(InstanceFields instanceFields, FieldName name, PMMLObject context){
+
+		for(InstanceField instanceField : instanceFields.getInstanceFields()){
+
+			if((name).equals(instanceField.getField())){
+				String column = instanceField.getColumn();
+
+				return (column != null ? column : name.getValue());
+			}
+		}
+
+		throw new InvalidElementException(context);
+	}
+
+	/**
+	 * <p>
+	 * Builds a KD-tree in place, by sorting the range of the permutation array.
+	 * </p>
+	 *
+	 * <p>
+	 * The split value is recorded separately, because sorting the right subrange moves the median instance away from the split position.
+	 * </p>
+	 *
+	 * @return The depth of the subtree.
+	 */
+	static
+	private int buildTree(Measure measure, double[][] points, double[] weights, int[] permutation, int[] axes, Number[] splits, int lo, int hi){
+
+		if(hi - lo <= LEAF_SIZE){
+			return 0;
+		}
+
+		int numberOfFields = points[0].length;
+
+		int axis = 0;
+		double maxSpread = -1d;
+
+		for(int j = 0; j < numberOfFields; j++){
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+
+			for(int i = lo; i < hi; i++){
+				double value = points[permutation[i]][j];
+
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+
+			double spread = (max - min);
+
+			if((measure instanceof SquaredEuclidean) || (measure instanceof Euclidean)){
+				spread *= spread;
+			}
+
+			spread *= weights[j];
+
+			if(spread > maxSpread){
+				axis = j;
+				maxSpread = spread;
+			}
+		}
+
+		int splitAxis = axis;
+
+		Integer[] range = new Integer[hi - lo];
+
+		for(int i = lo; i < hi; i++){
+			range[i - lo] = permutation[i];
+		}
+
+		Arrays.sort(range, (left, right) -> Double.compare(points[left][splitAxis], points[right][splitAxis]));
+
+		for(int i = lo; i < hi; i++){
+			permutation[i] = range[i - lo];
+		}
+
+		int mid = (lo + hi) / 2;
+
+		axes[mid] = splitAxis;
+		splits[mid] = points[permutation[mid]][splitAxis];
+
+		int leftDepth = buildTree(measure, points, weights, permutation, axes, splits, lo, mid);
+		int rightDepth = buildTree(measure, points, weights, permutation, axes, splits, mid, hi);
+
+		return 1 + Math.max(leftDepth, rightDepth);
+	}
+
+	static
+	private void checkCompareFunction(PMMLObject object, CompareFunction compareFunction){
+
+		switch(compareFunction){
+			case ABS_DIFF:
+				break;
+			default:
+				throw new UnsupportedAttributeException(object, compareFunction);
+		}
+	}
+
+	static
+	private class TrainingData {
+
+		private double[][] points = null;
+
+		private double[] weights = null;
+
+		private List<Object> targetValues = null;
+
+
+		private TrainingData(double[][] points, double[] weights, List<Object> targetValues){
+			this.points = points;
+			this.weights = weights;
+			this.targetValues = targetValues;
+		}
+
+		public double[][] getPoints(){
+			return this.points;
+		}
+
+		public double[] getWeights(){
+			return this.weights;
+		}
+
+		public List<Object> getTargetValues(){
+			return this.targetValues;
+		}
+	}
+
+	static
+	private class Neighbors {
+
+		private JBinaryFileInitializer resourceInitializer = null;
+
+		private int count = 0;
+
+		private JVar distancesVar = null;
+
+		private JVar indicesVar = null;
+
+
+		private Neighbors(JBinaryFileInitializer resourceInitializer, int count, JVar distancesVar, JVar indicesVar){
+			this.resourceInitializer = resourceInitializer;
+			this.count = count;
+			this.distancesVar = distancesVar;
+			this.indicesVar = indicesVar;
+		}
+
+		public JBinaryFileInitializer getResourceInitializer(){
+			return this.resourceInitializer;
+		}
+
+		public int getCount(){
+			return this.count;
+		}
+
+		public JVar getDistancesVariable(){
+			return this.distancesVar;
+		}
+
+		public JVar getIndicesVariable(){
+			return this.indicesVar;
+		}
+	}
+
+	private static final int LEAF_SIZE = 16;
+}
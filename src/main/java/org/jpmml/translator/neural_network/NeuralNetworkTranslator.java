@@ -0,0 +1,862 @@
+/*
+ * Copyright (c) 2020 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.neural_network;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Expression;
+import org.dmg.pmml.Field;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.LinearNorm;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.NormContinuous;
+import org.dmg.pmml.NormDiscrete;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.OutlierTreatmentMethod;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.neural_network.Connection;
+import org.dmg.pmml.neural_network.NeuralInput;
+import org.dmg.pmml.neural_network.NeuralInputs;
+import org.dmg.pmml.neural_network.NeuralLayer;
+import org.dmg.pmml.neural_network.NeuralNetwork;
+import org.dmg.pmml.neural_network.NeuralOutput;
+import org.dmg.pmml.neural_network.NeuralOutputs;
+import org.dmg.pmml.neural_network.Neuron;
+import org.dmg.pmml.neural_network.PMMLElements;
+import org.jpmml.evaluator.Classification;
+import org.jpmml.evaluator.InvalidElementException;
+import org.jpmml.evaluator.MissingElementException;
+import org.jpmml.evaluator.ProbabilityDistribution;
+import org.jpmml.evaluator.TargetField;
+import org.jpmml.evaluator.TypeUtil;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.evaluator.Value;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.JBinaryFileInitializer;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.MathUtil;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.OperableRef;
+import org.jpmml.translator.OrdinalEncoder;
+import org.jpmml.translator.PMMLObjectUtil;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.ValueFactoryRef;
+import org.jpmml.translator.ValueMapBuilder;
+
+public class NeuralNetworkTranslator extends ModelTranslator<NeuralNetwork> {
+
+	public NeuralNetworkTranslator(PMML pmml, NeuralNetwork neuralNetwork){
+		super(pmml, neuralNetwork);
+
+		MiningFunction miningFunction = neuralNetwork.getMiningFunction();
+		switch(miningFunction){
+			case REGRESSION:
+			case CLASSIFICATION:
+				break;
+			default:
+				throw new UnsupportedAttributeException(neuralNetwork, miningFunction);
+		}
+
+		NeuralInputs neuralInputs = neuralNetwork.getNeuralInputs();
+		if(neuralInputs == null || !neuralInputs.hasNeuralInputs()){
+			throw new MissingElementException(neuralNetwork, PMMLElements.NEURALNETWORK_NEURALINPUTS);
+		}
+
+		for(NeuralInput neuralInput : neuralInputs.getNeuralInputs()){
+			DerivedField derivedField = neuralInput.getDerivedField();
+			if(derivedField == null){
+				throw new MissingElementException(neuralInput, PMMLElements.NEURALINPUT_DERIVEDFIELD);
+			}
+
+			Expression expression = derivedField.getExpression();
+
+			if(expression instanceof FieldRef){
+				// Ignored
+			} else
+
+			if(expression instanceof NormContinuous){
+				NormContinuous normContinuous = (NormContinuous)expression;
+
+				OutlierTreatmentMethod outlierTreatmentMethod = normContinuous.getOutliers();
+				switch(outlierTreatmentMethod){
+					case AS_IS:
+					case AS_EXTREME_VALUES:
+						break;
+					default:
+						throw new UnsupportedAttributeException(normContinuous, outlierTreatmentMethod);
+				}
+
+				List<LinearNorm> linearNorms = normContinuous.getLinearNorms();
+				if(linearNorms.size() < 2){
+					throw new InvalidElementException(normContinuous);
+				}
+			} else
+
+			if(expression instanceof NormDiscrete){
+				// Ignored
+			} else
+
+			{
+				throw new UnsupportedElementException(expression);
+			}
+		}
+
+		if(!neuralNetwork.hasNeuralLayers()){
+			throw new MissingElementException(neuralNetwork, PMMLElements.NEURALNETWORK_NEURALLAYERS);
+		}
+
+		Set<String> previousIds = getIds(neuralInputs);
+
+		List<NeuralLayer> neuralLayers = neuralNetwork.getNeuralLayers();
+		for(NeuralLayer neuralLayer : neuralLayers){
+			NeuralNetwork.ActivationFunction activationFunction = getActivationFunction(neuralNetwork, neuralLayer);
+
+			switch(activationFunction){
+				case RADIAL_BASIS:
+					throw new UnsupportedAttributeException(neuralLayer, activationFunction);
+				default:
+					break;
+			}
+
+			NeuralNetwork.NormalizationMethod normalizationMethod = getNormalizationMethod(neuralNetwork, neuralLayer);
+			switch(normalizationMethod){
+				case NONE:
+				case SIMPLEMAX:
+				case SOFTMAX:
+					break;
+				default:
+					throw new UnsupportedAttributeException(neuralLayer, normalizationMethod);
+			}
+
+			if(!neuralLayer.hasNeurons()){
+				throw new InvalidElementException(neuralLayer);
+			}
+
+			List<Neuron> neurons = neuralLayer.getNeurons();
+			for(Neuron neuron : neurons){
+
+				if(!neuron.hasConnections()){
+					continue;
+				}
+
+				List<Connection> connections = neuron.getConnections();
+				for(Connection connection : connections){
+
+					// Connections are only allowed between adjacent layers
+					if(!previousIds.contains(connection.getFrom())){
+						throw new UnsupportedElementException(connection);
+					}
+				}
+			}
+
+			previousIds = getIds(neuralLayer);
+		}
+
+		NeuralOutputs neuralOutputs = neuralNetwork.getNeuralOutputs();
+		if(neuralOutputs == null || !neuralOutputs.hasNeuralOutputs()){
+			throw new MissingElementException(neuralNetwork, PMMLElements.NEURALNETWORK_NEURALOUTPUTS);
+		}
+
+		for(NeuralOutput neuralOutput : neuralOutputs.getNeuralOutputs()){
+			DerivedField derivedField = neuralOutput.getDerivedField();
+			if(derivedField == null){
+				throw new MissingElementException(neuralOutput, PMMLElements.NEURALOUTPUT_DERIVEDFIELD);
+			} // End if
+
+			if(!previousIds.contains(neuralOutput.getOutputNeuron())){
+				throw new InvalidElementException(neuralOutput);
+			}
+
+			Expression expression = derivedField.getExpression();
+
+			switch(miningFunction){
+				case REGRESSION:
+					{
+						if(expression instanceof FieldRef){
+							// Ignored
+						} else
+
+						if(expression instanceof NormContinuous){
+							NormContinuous normContinuous = (NormContinuous)expression;
+
+							List<LinearNorm> linearNorms = normContinuous.getLinearNorms();
+							if(linearNorms.size() != 2){
+								throw new UnsupportedElementException(normContinuous);
+							}
+						} else
+
+						{
+							throw new UnsupportedElementException(expression);
+						}
+					}
+					break;
+				case CLASSIFICATION:
+					{
+						if(!(expression instanceof NormDiscrete)){
+							throw new UnsupportedElementException(expression);
+						}
+					}
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	@Override
+	public JMethod translateRegressor(TranslationContext context){
+		NeuralNetwork neuralNetwork = getModel();
+
+		NeuralOutputs neuralOutputs = neuralNetwork.getNeuralOutputs();
+		List<NeuralOutput> outputs = neuralOutputs.getNeuralOutputs();
+		if(outputs.size() != 1){
+			throw new InvalidElementException(neuralOutputs);
+		}
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(neuralNetwork.getNeuralInputs()));
+
+		JMethod evaluateMethod = createEvaluatorMethod(Value.class, neuralNetwork, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			Map<String, JExpression> entityExprs = translateNeuralNetwork(neuralNetwork, fieldInfos, context);
+
+			NeuralOutput neuralOutput = outputs.get(0);
+
+			JExpression valueExpr = entityExprs.get(neuralOutput.getOutputNeuron());
+
+			DerivedField derivedField = neuralOutput.getDerivedField();
+
+			Expression expression = derivedField.getExpression();
+
+			if(expression instanceof FieldRef){
+				// Ignored
+			} else
+
+			if(expression instanceof NormContinuous){
+				valueExpr = translateDenormalization((NormContinuous)expression, valueExpr, neuralNetwork.getMathContext());
+			} else
+
+			{
+				throw new UnsupportedElementException(expression);
+			}
+
+			context._return(context.getValueFactoryVariable().newValue(valueExpr));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	@Override
+	public JMethod translateClassifier(TranslationContext context){
+		NeuralNetwork neuralNetwork = getModel();
+
+		NeuralOutputs neuralOutputs = neuralNetwork.getNeuralOutputs();
+
+		TargetField targetField = getTargetField();
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(neuralNetwork.getNeuralInputs()));
+
+		JMethod evaluateMethod = createEvaluatorMethod(Classification.class, neuralNetwork, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			Map<String, JExpression> entityExprs = translateNeuralNetwork(neuralNetwork, fieldInfos, context);
+
+			ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+			ValueMapBuilder valueMapBuilder = new ValueMapBuilder(context)
+				.construct("values");
+
+			for(NeuralOutput neuralOutput : neuralOutputs.getNeuralOutputs()){
+				DerivedField derivedField = neuralOutput.getDerivedField();
+
+				NormDiscrete normDiscrete = (NormDiscrete)derivedField.getExpression();
+
+				if(!(targetField.getName()).equals(normDiscrete.getField())){
+					throw new InvalidElementException(normDiscrete);
+				}
+
+				Object targetCategory = TypeUtil.parseOrCast(targetField.getDataType(), normDiscrete.getValue());
+
+				valueMapBuilder.update("put", targetCategory, valueFactoryRef.newValue(entityExprs.get(neuralOutput.getOutputNeuron())));
+			}
+
+			context._return(context._new(ProbabilityDistribution.class, valueMapBuilder));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	@Override
+	public Map<FieldName, FieldInfo> getFieldInfos(Set<? extends PMMLObject> bodyObjects){
+		NeuralNetwork neuralNetwork = getModel();
+
+		Map<FieldName, FieldInfo> fieldInfos = super.getFieldInfos(bodyObjects);
+
+		fieldInfos = NeuralNetworkTranslator.enhanceFieldInfos(neuralNetwork.getNeuralInputs(), fieldInfos);
+
+		return fieldInfos;
+	}
+
+	/**
+	 * <p>
+	 * Propagates input values through the network using primitive <code>float</code> or <code>double</code> arithmetic.
+	 * </p>
+	 *
+	 * <p>
+	 * Small layers are unrolled into one local variable per neuron, with weights and biases inlined as literals.
+	 * Large layers are computed in loops over weight and bias arrays, which are loaded from a class resource.
+	 * </p>
+	 *
+	 * @return A mapping from neural entity identifiers to their value expressions.
+	 */
+	static
+	private Map<String, JExpression> translateNeuralNetwork(NeuralNetwork neuralNetwork, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		MathContext mathContext = neuralNetwork.getMathContext();
+
+		JPrimitiveType type = getPrimitiveType(neuralNetwork, context);
+
+		Map<String, JExpression> result = new LinkedHashMap<>();
+
+		List<String> ids = new ArrayList<>();
+		List<JExpression> valueExprs = new ArrayList<>();
+
+		NeuralInputs neuralInputs = neuralNetwork.getNeuralInputs();
+		for(NeuralInput neuralInput : neuralInputs.getNeuralInputs()){
+			JVar inputVar = context.declare(type, IdentifierUtil.create("input", neuralInput), translateNeuralInput(neuralInput, type, mathContext, fieldInfos, context));
+
+			ids.add(neuralInput.getId());
+			valueExprs.add(inputVar);
+		}
+
+		JVar valuesVar = null;
+
+		JBinaryFileInitializer resourceInitializer = null;
+
+		List<NeuralLayer> neuralLayers = neuralNetwork.getNeuralLayers();
+		for(NeuralLayer neuralLayer : neuralLayers){
+			List<Neuron> neurons = neuralLayer.getNeurons();
+
+			NeuralNetwork.ActivationFunction activationFunction = getActivationFunction(neuralNetwork, neuralLayer);
+			NeuralNetwork.NormalizationMethod normalizationMethod = getNormalizationMethod(neuralNetwork, neuralLayer);
+			Number threshold = getThreshold(neuralNetwork, neuralLayer);
+
+			List<JExpression> layerValueExprs = new ArrayList<>();
+
+			if((neurons.size() * ids.size()) <= NeuralNetworkTranslator.UNROLL_THRESHOLD){
+				Map<String, JExpression> previousValueExprs = new LinkedHashMap<>();
+
+				for(int i = 0; i < ids.size(); i++){
+					previousValueExprs.put(ids.get(i), valueExprs.get(i));
+				}
+
+				for(Neuron neuron : neurons){
+					JExpression sumExpr = null;
+
+					List<Connection> connections = neuron.hasConnections() ? neuron.getConnections() : Collections.emptyList();
+					for(Connection connection : connections){
+						JExpression termExpr = (PMMLObjectUtil.createExpression(connection.getWeight(), mathContext)).mul(previousValueExprs.get(connection.getFrom()));
+
+						sumExpr = (sumExpr != null ? sumExpr.plus(termExpr) : termExpr);
+					}
+
+					Number bias = neuron.getBias();
+					if(bias != null && bias.doubleValue() != 0d){
+						JExpression biasExpr = PMMLObjectUtil.createExpression(bias, mathContext);
+
+						sumExpr = (sumExpr != null ? sumExpr.plus(biasExpr) : biasExpr);
+					} // End if
+
+					if(sumExpr == null){
+						sumExpr = PMMLObjectUtil.createExpression(0d, mathContext);
+					}
+
+					JVar neuronVar = context.declare(type, IdentifierUtil.create("neuron", neuron), sumExpr);
+
+					JExpression activationExpr = translateActivationFunction(activationFunction, threshold, neuronVar, type, mathContext, context);
+					if(activationExpr != neuronVar){
+						context.block().assign(neuronVar, activationExpr);
+					}
+
+					layerValueExprs.add(neuronVar);
+				}
+
+				valuesVar = null;
+			} else
+
+			{
+				if(resourceInitializer == null){
+					resourceInitializer = new JBinaryFileInitializer(context, IdentifierUtil.create(NeuralNetwork.class.getSimpleName(), neuralNetwork) + ".data");
+				} // End if
+
+				if(valuesVar == null){
+					JArray arrayExpr = JExpr.newArray(type);
+
+					for(JExpression valueExpr : valueExprs){
+						arrayExpr.add(valueExpr);
+					}
+
+					valuesVar = context.declare(type.array(), IdentifierUtil.create("inputs", neuralLayer), arrayExpr);
+				}
+
+				Map<String, Integer> previousIndices = new LinkedHashMap<>();
+
+				for(int i = 0; i < ids.size(); i++){
+					previousIndices.put(ids.get(i), i);
+				}
+
+				// Row-major layout, with missing connections having zero weight
+				Number[] weights = new Number[neurons.size() * ids.size()];
+				Number[] biases = new Number[neurons.size()];
+
+				for(int i = 0; i < neurons.size(); i++){
+					Neuron neuron = neurons.get(i);
+
+					for(int j = 0; j < ids.size(); j++){
+						weights[i * ids.size() + j] = 0d;
+					}
+
+					List<Connection> connections = neuron.hasConnections() ? neuron.getConnections() : Collections.emptyList();
+					for(Connection connection : connections){
+						int index = i * ids.size() + previousIndices.get(connection.getFrom());
+
+						weights[index] = (weights[index]).doubleValue() + (connection.getWeight()).doubleValue();
+					}
+
+					Number bias = neuron.getBias();
+
+					biases[i] = (bias != null ? bias : 0d);
+				}
+
+				JFieldVar weightsVar = resourceInitializer.initFpPrimitiveArray(IdentifierUtil.create("weights", neuralLayer), mathContext, weights);
+				JFieldVar biasesVar = resourceInitializer.initFpPrimitiveArray(IdentifierUtil.create("biases", neuralLayer), mathContext, biases);
+
+				JVar layerValuesVar = context.declare(type.array(), IdentifierUtil.create("values", neuralLayer), JExpr.newArray(type, neurons.size()));
+
+				JType intType = context._ref(int.class);
+
+				JForLoop forLoop = context.block()._for();
+
+				JVar iVar = forLoop.init(intType, "i", JExpr.lit(0));
+				forLoop.test(iVar.lt(JExpr.lit(neurons.size())));
+				forLoop.update(iVar.incr());
+
+				JBlock forBody = forLoop.body();
+
+				JVar sumVar = forBody.decl(type, "sum", PMMLObjectUtil.createExpression(0d, mathContext));
+				JVar offsetVar = forBody.decl(intType, "offset", iVar.mul(JExpr.lit(ids.size())));
+
+				JForLoop innerForLoop = forBody._for();
+
+				JVar jVar = innerForLoop.init(intType, "j", JExpr.lit(0));
+				innerForLoop.test(jVar.lt(JExpr.lit(ids.size())));
+				innerForLoop.update(jVar.incr());
+
+				innerForLoop.body().assignPlus(sumVar, JOp.mul(weightsVar.component(offsetVar.plus(jVar)), valuesVar.component(jVar)));
+
+				forBody.assignPlus(sumVar, biasesVar.component(iVar));
+				forBody.assign(layerValuesVar.component(iVar), translateActivationFunction(activationFunction, threshold, sumVar, type, mathContext, context));
+
+				for(int i = 0; i < neurons.size(); i++){
+					layerValueExprs.add(layerValuesVar.component(JExpr.lit(i)));
+				}
+
+				valuesVar = layerValuesVar;
+			}
+
+			switch(normalizationMethod){
+				case NONE:
+					break;
+				case SIMPLEMAX:
+				case SOFTMAX:
+					layerValueExprs = translateNormalizationMethod(normalizationMethod, neuralLayer, layerValueExprs, type, context);
+					valuesVar = null;
+					break;
+				default:
+					throw new UnsupportedAttributeException(neuralLayer, normalizationMethod);
+			}
+
+			ids = new ArrayList<>(getIds(neuralLayer));
+			valueExprs = layerValueExprs;
+
+			for(int i = 0; i < ids.size(); i++){
+				result.put(ids.get(i), valueExprs.get(i));
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Computes the value of a neural input.
+	 * Returns early with a <code>null</code> result if the input field value is missing, and there is no replacement value for it.
+	 * </p>
+	 */
+	static
+	private JExpression translateNeuralInput(NeuralInput neuralInput, JPrimitiveType type, MathContext mathContext, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		DerivedField derivedField = neuralInput.getDerivedField();
+
+		Expression expression = derivedField.getExpression();
+
+		if(expression instanceof FieldRef){
+			FieldRef fieldRef = (FieldRef)expression;
+
+			// The replacement value of a field reference is a string, which must be parsed
+			Number mapMissingTo = (fieldRef.getMapMissingTo() != null ? (Number)TypeUtil.parseOrCast(DataType.DOUBLE, fieldRef.getMapMissingTo()) : null);
+
+			OperableRef operableRef = ensureNonMissing(fieldRef.getField(), mapMissingTo, fieldInfos, context);
+
+			JExpression valueExpr = MathUtil.toPrimitive(operableRef.getVariable(), type);
+
+			return withMapMissingTo(operableRef, valueExpr, mapMissingTo, mathContext, context);
+		} else
+
+		if(expression instanceof NormContinuous){
+			NormContinuous normContinuous = (NormContinuous)expression;
+
+			OperableRef operableRef = ensureNonMissing(normContinuous.getField(), normContinuous.getMapMissingTo(), fieldInfos, context);
+
+			JExpression valueExpr = translateNormalization(normContinuous, MathUtil.toPrimitive(operableRef.getVariable(), type), mathContext);
+
+			return withMapMissingTo(operableRef, valueExpr, normContinuous.getMapMissingTo(), mathContext, context);
+		} else
+
+		if(expression instanceof NormDiscrete){
+			NormDiscrete normDiscrete = (NormDiscrete)expression;
+
+			OperableRef operableRef = ensureNonMissing(normDiscrete.getField(), normDiscrete.getMapMissingTo(), fieldInfos, context);
+
+			JExpression valueExpr = JOp.cond(operableRef.equalTo(normDiscrete.getValue(), context), PMMLObjectUtil.createExpression(1d, mathContext), PMMLObjectUtil.createExpression(0d, mathContext));
+
+			return withMapMissingTo(operableRef, valueExpr, normDiscrete.getMapMissingTo(), mathContext, context);
+		} else
+
+		{
+			throw new UnsupportedElementException(expression);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Maps an input value to a normalized value using piecewise linear interpolation.
+	 * Input values outside of the first and last segments are either extrapolated, or clamped to extreme normalized values.
+	 * </p>
+	 */
+	static
+	private JExpression translateNormalization(NormContinuous normContinuous, JExpression valueExpr, MathContext mathContext){
+		OutlierTreatmentMethod outlierTreatmentMethod = normContinuous.getOutliers();
+		List<LinearNorm> linearNorms = normContinuous.getLinearNorms();
+
+		LinearNorm start = linearNorms.get(0);
+		LinearNorm end = linearNorms.get(linearNorms.size() - 1);
+
+		JExpression result = translateLinearNorm(linearNorms.get(linearNorms.size() - 2), end, valueExpr, mathContext);
+
+		for(int i = linearNorms.size() - 2; i > 0; i--){
+			LinearNorm linearNorm = linearNorms.get(i);
+
+			result = JOp.cond(valueExpr.lt(PMMLObjectUtil.createExpression(linearNorm.getOrig(), mathContext)), translateLinearNorm(linearNorms.get(i - 1), linearNorm, valueExpr, mathContext), result);
+		}
+
+		switch(outlierTreatmentMethod){
+			case AS_IS:
+				break;
+			case AS_EXTREME_VALUES:
+				{
+					result = JOp.cond(valueExpr.lt(PMMLObjectUtil.createExpression(start.getOrig(), mathContext)), PMMLObjectUtil.createExpression(start.getNorm(), mathContext), result);
+					result = JOp.cond(valueExpr.gt(PMMLObjectUtil.createExpression(end.getOrig(), mathContext)), PMMLObjectUtil.createExpression(end.getNorm(), mathContext), result);
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(normContinuous, outlierTreatmentMethod);
+		}
+
+		return result;
+	}
+
+	static
+	private JExpression translateLinearNorm(LinearNorm start, LinearNorm end, JExpression valueExpr, MathContext mathContext){
+		JExpression origStartExpr = PMMLObjectUtil.createExpression(start.getOrig(), mathContext);
+		JExpression origEndExpr = PMMLObjectUtil.createExpression(end.getOrig(), mathContext);
+		JExpression normStartExpr = PMMLObjectUtil.createExpression(start.getNorm(), mathContext);
+		JExpression normEndExpr = PMMLObjectUtil.createExpression(end.getNorm(), mathContext);
+
+		// norm1 + (x - orig1) / (orig2 - orig1) * (norm2 - norm1)
+		return normStartExpr.plus(((valueExpr.minus(origStartExpr)).div(origEndExpr.minus(origStartExpr))).mul(normEndExpr.minus(normStartExpr)));
+	}
+
+	static
+	private JExpression translateDenormalization(NormContinuous normContinuous, JExpression valueExpr, MathContext mathContext){
+		List<LinearNorm> linearNorms = normContinuous.getLinearNorms();
+
+		LinearNorm start = linearNorms.get(0);
+		LinearNorm end = linearNorms.get(1);
+
+		JExpression origStartExpr = PMMLObjectUtil.createExpression(start.getOrig(), mathContext);
+		JExpression origEndExpr = PMMLObjectUtil.createExpression(end.getOrig(), mathContext);
+		JExpression normStartExpr = PMMLObjectUtil.createExpression(start.getNorm(), mathContext);
+		JExpression normEndExpr = PMMLObjectUtil.createExpression(end.getNorm(), mathContext);
+
+		// orig1 + (y - norm1) / (norm2 - norm1) * (orig2 - orig1)
+		return origStartExpr.plus(((valueExpr.minus(normStartExpr)).div(normEndExpr.minus(normStartExpr))).mul(origEndExpr.minus(origStartExpr)));
+	}
+
+	static
+	private JExpression translateActivationFunction(NeuralNetwork.ActivationFunction activationFunction, Number threshold, JVar valueVar, JPrimitiveType type, MathContext mathContext, TranslationContext context){
+		JExpression result;
+
+		switch(activationFunction){
+			case THRESHOLD:
+				return JOp.cond(valueVar.gt(PMMLObjectUtil.createExpression(threshold, mathContext)), PMMLObjectUtil.createExpression(1d, mathContext), PMMLObjectUtil.createExpression(0d, mathContext));
+			case LOGISTIC:
+				result = MathUtil.logistic(valueVar, context);
+				break;
+			case TANH:
+				result = context.staticInvoke(Math.class, "tanh", valueVar);
+				break;
+			case IDENTITY:
+				return valueVar;
+			case EXPONENTIAL:
+				result = context.staticInvoke(Math.class, "exp", valueVar);
+				break;
+			case RECIPROCAL:
+				return PMMLObjectUtil.createExpression(1d, mathContext).div(valueVar);
+			case SQUARE:
+				return valueVar.mul(valueVar);
+			case GAUSS:
+				// exp(-(x * x))
+				result = context.staticInvoke(Math.class, "exp", (valueVar.mul(valueVar)).minus());
+				break;
+			case SINE:
+				result = context.staticInvoke(Math.class, "sin", valueVar);
+				break;
+			case COSINE:
+				result = context.staticInvoke(Math.class, "cos", valueVar);
+				break;
+			case ELLIOTT:
+				// x / (1 + |x|)
+				return valueVar.div(PMMLObjectUtil.createExpression(1d, mathContext).plus(context.staticInvoke(Math.class, "abs", valueVar)));
+			case ARCTAN:
+				// 2 * atan(x) / pi
+				result = JExpr.lit(2d).mul(context.staticInvoke(Math.class, "atan", valueVar)).div(context.ref(Math.class).staticRef("PI"));
+				break;
+			case RECTIFIER:
+				return context.staticInvoke(Math.class, "max", PMMLObjectUtil.createExpression(0d, mathContext), valueVar);
+			default:
+				throw new IllegalArgumentException(activationFunction.value());
+		}
+
+		return MathUtil.castPrimitive(result, type);
+	}
+
+	static
+	private List<JExpression> translateNormalizationMethod(NeuralNetwork.NormalizationMethod normalizationMethod, NeuralLayer neuralLayer, List<JExpression> valueExprs, JPrimitiveType type, TranslationContext context){
+		List<JExpression> result = new ArrayList<>();
+
+		switch(normalizationMethod){
+			case SIMPLEMAX:
+				{
+					JVar sumVar = context.declare(type, IdentifierUtil.create("sum", neuralLayer), MathUtil.sum(valueExprs));
+
+					for(JExpression valueExpr : valueExprs){
+						result.add(valueExpr.div(sumVar));
+					}
+				}
+				break;
+			case SOFTMAX:
+				{
+					List<String> expNames = valueExprs.stream()
+						.map(valueExpr -> IdentifierUtil.create("exp", valueExpr))
+						.collect(Collectors.toList());
+
+					result.addAll(MathUtil.softmax(valueExprs, expNames, IdentifierUtil.create("max", neuralLayer), IdentifierUtil.create("sum", neuralLayer), type, context));
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(neuralLayer, normalizationMethod);
+		}
+
+		return result;
+	}
+
+	static
+	public Map<FieldName, FieldInfo> enhanceFieldInfos(NeuralInputs neuralInputs, Map<FieldName, FieldInfo> fieldInfos){
+		Map<FieldName, Set<Object>> discreteFieldValues = new LinkedHashMap<>();
+
+		for(NeuralInput neuralInput : neuralInputs.getNeuralInputs()){
+			DerivedField derivedField = neuralInput.getDerivedField();
+
+			Expression expression = derivedField.getExpression();
+
+			if(expression instanceof NormDiscrete){
+				NormDiscrete normDiscrete = (NormDiscrete)expression;
+
+				Set<Object> values = discreteFieldValues.computeIfAbsent(normDiscrete.getField(), key -> new LinkedHashSet<>());
+
+				values.add(normDiscrete.getValue());
+			}
+		}
+
+		Collection<Map.Entry<FieldName, Set<Object>>> entries = discreteFieldValues.entrySet();
+		for(Map.Entry<FieldName, Set<Object>> entry : entries){
+			FieldInfo fieldInfo = getFieldInfo(entry.getKey(), fieldInfos);
+
+			Field<?> field = fieldInfo.getField();
+
+			OpType opType = field.getOpType();
+			DataType dataType = field.getDataType();
+
+			switch(opType){
+				case CATEGORICAL:
+					break;
+				default:
+					continue;
+			}
+
+			switch(dataType){
+				case STRING:
+				case INTEGER:
+					break;
+				default:
+					continue;
+			}
+
+			fieldInfo.setEncoder(new OrdinalEncoder(entry.getValue()));
+		}
+
+		return fieldInfos;
+	}
+
+	static
+	private OperableRef ensureNonMissing(FieldName name, Number mapMissingTo, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		FieldInfo fieldInfo = getFieldInfo(name, fieldInfos);
+
+		OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+		if(mapMissingTo == null && !context.isNonMissing(operableRef.getVariable())){
+			context._returnIf(operableRef.isMissing(), JExpr._null());
+
+			context.markNonMissing(operableRef.getVariable());
+		}
+
+		return operableRef;
+	}
+
+	static
+	private JExpression withMapMissingTo(OperableRef operableRef, JExpression valueExpr, Number mapMissingTo, MathContext mathContext, TranslationContext context){
+
+		if(mapMissingTo == null || context.isNonMissing(operableRef.getVariable())){
+			return valueExpr;
+		}
+
+		return JOp.cond(operableRef.isMissing(), PMMLObjectUtil.createExpression(mapMissingTo, mathContext), valueExpr);
+	}
+
+	static
+	private NeuralNetwork.ActivationFunction getActivationFunction(NeuralNetwork neuralNetwork, NeuralLayer neuralLayer){
+		NeuralNetwork.ActivationFunction activationFunction = neuralLayer.getActivationFunction();
+
+		if(activationFunction == null){
+			activationFunction = neuralNetwork.getActivationFunction();
+		}
+
+		return activationFunction;
+	}
+
+	static
+	private NeuralNetwork.NormalizationMethod getNormalizationMethod(NeuralNetwork neuralNetwork, NeuralLayer neuralLayer){
+		NeuralNetwork.NormalizationMethod normalizationMethod = neuralLayer.getNormalizationMethod();
+
+		if(normalizationMethod == null){
+			normalizationMethod = neuralNetwork.getNormalizationMethod();
+		}
+
+		return normalizationMethod;
+	}
+
+	static
+	private Number getThreshold(NeuralNetwork neuralNetwork, NeuralLayer neuralLayer){
+		Number threshold = neuralLayer.getThreshold();
+
+		if(threshold == null){
+			threshold = neuralNetwork.getThreshold();
+		}
+
+		return threshold;
+	}
+
+	static
+	private Set<String> getIds(NeuralInputs neuralInputs){
+		Set<String> result = new LinkedHashSet<>();
+
+		for(NeuralInput neuralInput : neuralInputs.getNeuralInputs()){
+			result.add(neuralInput.getId());
+		}
+
+		return result;
+	}
+
+	static
+	private Set<String> getIds(NeuralLayer neuralLayer){
+		Set<String> result = new LinkedHashSet<>();
+
+		List<Neuron> neurons = neuralLayer.getNeurons();
+		for(Neuron neuron : neurons){
+			result.add(neuron.getId());
+		}
+
+		return result;
+	}
+
+	private static final int UNROLL_THRESHOLD = 256;
+}
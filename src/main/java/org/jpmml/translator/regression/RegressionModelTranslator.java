@@ -18,23 +18,39 @@
  */
 package org.jpmml.translator.regression;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Iterables;
+import com.sun.codemodel.JArray;
 import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.Field;
 import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.MathContext;
 import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.OpType;
 import org.dmg.pmml.Output;
 import org.dmg.pmml.OutputField;
 import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
 import org.dmg.pmml.ResultFeature;
 import org.dmg.pmml.regression.CategoricalPredictor;
 import org.dmg.pmml.regression.NumericPredictor;
@@ -45,18 +61,23 @@ import org.jpmml.evaluator.Classification;
 import org.jpmml.evaluator.InvalidElementException;
 import org.jpmml.evaluator.ProbabilityDistribution;
 import org.jpmml.evaluator.UnsupportedAttributeException;
-import org.jpmml.evaluator.UnsupportedElementException;
 import org.jpmml.evaluator.Value;
 import org.jpmml.evaluator.VoteDistribution;
 import org.jpmml.evaluator.regression.RegressionModelUtil;
+import org.jpmml.translator.ArgumentsRef;
+import org.jpmml.translator.Encoder;
 import org.jpmml.translator.FieldInfo;
 import org.jpmml.translator.IdentifierUtil;
 import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.MathUtil;
 import org.jpmml.translator.ModelTranslator;
 import org.jpmml.translator.OperableRef;
-import org.jpmml.translator.Scope;
+import org.jpmml.translator.OrdinalEncoder;
+import org.jpmml.translator.OrdinalRef;
+import org.jpmml.translator.PMMLObjectUtil;
 import org.jpmml.translator.TranslationContext;
 import org.jpmml.translator.ValueBuilder;
+import org.jpmml.translator.ValueFactoryRef;
 import org.jpmml.translator.ValueMapBuilder;
 
 public class RegressionModelTranslator extends ModelTranslator<RegressionModel> {
@@ -89,9 +110,9 @@ public class RegressionModelTranslator extends ModelTranslator<RegressionModel>
 		try {
 			context.pushScope(new MethodScope(evaluateMethod));
 
-			ValueBuilder valueBuilder = translateRegressionTable(regressionTable, fieldInfos, context);
+			JVar resultVar = translateRegressionTableResult(regressionTable, regressionModel, fieldInfos, context);
 
-			computeValue(valueBuilder, regressionModel, context);
+			computeValue(resultVar, regressionModel, context);
 		} finally {
 			context.popScope();
 		}
@@ -112,26 +133,16 @@ public class RegressionModelTranslator extends ModelTranslator<RegressionModel>
 		try {
 			context.pushScope(new MethodScope(evaluateListMethod));
 
-			ValueMapBuilder valueMapBuilder = new ValueMapBuilder(context)
-				.construct("values");
+			List<JVar> resultVars = new ArrayList<>();
 
+			// All regression tables are translated into the same method scope, so that field values and their ordinals are looked up only once
 			for(RegressionTable regressionTable : regressionTables){
-				JMethod evaluateMethod = createEvaluatorMethod(Value.class, regressionTable, true, context);
-
-				try {
-					context.pushScope(new MethodScope(evaluateMethod));
-
-					ValueBuilder valueBuilder = translateRegressionTable(regressionTable, fieldInfos, context);
-
-					context._return(valueBuilder.getVariable());
-				} finally {
-					context.popScope();
-				}
+				JVar resultVar = translateRegressionTableResult(regressionTable, regressionModel, fieldInfos, context);
 
-				valueMapBuilder.update("put", regressionTable.getTargetCategory(), createEvaluatorMethodInvocation(evaluateMethod, context));
+				resultVars.add(resultVar);
 			}
 
-			computeClassification(valueMapBuilder, regressionModel, context);
+			computeClassification(resultVars, regressionModel, context);
 		} finally {
 			context.popScope();
 		}
@@ -139,6 +150,21 @@ public class RegressionModelTranslator extends ModelTranslator<RegressionModel>
 		return evaluateListMethod;
 	}
 
+	@Override
+	public Map<FieldName, FieldInfo> getFieldInfos(Set<? extends PMMLObject> bodyObjects){
+		RegressionModel regressionModel = getModel();
+
+		Map<FieldName, FieldInfo> fieldInfos = super.getFieldInfos(bodyObjects);
+
+		List<RegressionTable> regressionTables = (regressionModel.getRegressionTables()).stream()
+			.filter(regressionTable -> bodyObjects.contains(regressionTable))
+			.collect(Collectors.toList());
+
+		fieldInfos = RegressionModelTranslator.enhanceFieldInfos(regressionTables, fieldInfos);
+
+		return fieldInfos;
+	}
+
 	static
 	public void computeValue(ValueBuilder valueBuilder, RegressionModel regressionModel, TranslationContext context){
 		RegressionModel.NormalizationMethod normalizationMethod = regressionModel.getNormalizationMethod();
@@ -154,11 +180,54 @@ public class RegressionModelTranslator extends ModelTranslator<RegressionModel>
 		context._return(valueBuilder.getVariable());
 	}
 
+	/**
+	 * <p>
+	 * Computes the value from a primitive <code>float</code> or <code>double</code> regression table value.
+	 * Normalization methods that are expressible using {@link Math} functions are inlined into the method body,
+	 * the remaining ones are delegated to {@link RegressionModelUtil}.
+	 * </p>
+	 */
+	static
+	public void computeValue(JVar resultVar, RegressionModel regressionModel, TranslationContext context){
+		RegressionModel.NormalizationMethod normalizationMethod = regressionModel.getNormalizationMethod();
+
+		JPrimitiveType type = getPrimitiveType(regressionModel, context);
+
+		ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+		JExpression valueExpr;
+
+		switch(normalizationMethod){
+			case NONE:
+				valueExpr = resultVar;
+				break;
+			case SOFTMAX:
+				valueExpr = inverseLink(RegressionModel.NormalizationMethod.LOGIT, resultVar, type, context);
+				break;
+			case EXP:
+				valueExpr = MathUtil.castPrimitive(context.staticInvoke(Math.class, "exp", resultVar), type);
+				break;
+			default:
+				valueExpr = inverseLink(normalizationMethod, resultVar, type, context);
+				break;
+		}
+
+		if(valueExpr == null){
+			ValueBuilder valueBuilder = new ValueBuilder(context)
+				.declare(IdentifierUtil.create("value", resultVar), valueFactoryRef.newValue(resultVar));
+
+			computeValue(valueBuilder, regressionModel, context);
+
+			return;
+		}
+
+		context._return(valueFactoryRef.newValue(valueExpr));
+	}
+
 	static
 	public void computeClassification(ValueMapBuilder valueMapBuilder, RegressionModel regressionModel, TranslationContext context){
 		RegressionModel.NormalizationMethod normalizationMethod = regressionModel.getNormalizationMethod();
 		List<RegressionTable> regressionTables = regressionModel.getRegressionTables();
-		Output output = regressionModel.getOutput();
 
 		if(regressionTables.size() == 2){
 			valueMapBuilder.staticUpdate(RegressionModelUtil.class, "computeBinomialProbabilities", normalizationMethod);
@@ -172,49 +241,145 @@ public class RegressionModelTranslator extends ModelTranslator<RegressionModel>
 			throw new InvalidElementException(regressionModel);
 		}
 
-		boolean probabilistic = false;
+		context._return(createClassification(valueMapBuilder, regressionModel, context));
+	}
 
-		if(output != null && output.hasOutputFields()){
-			List<OutputField> outputFields = output.getOutputFields();
+	/**
+	 * <p>
+	 * Computes the classification from primitive <code>float</code> or <code>double</code> regression table values.
+	 * Normalization methods that are expressible using {@link Math} functions are inlined into the method body,
+	 * the remaining ones are delegated to {@link RegressionModelUtil}.
+	 * </p>
+	 *
+	 * @param valueExprs Regression table values, in regression table order.
+	 */
+	static
+	public void computeClassification(List<? extends JExpression> valueExprs, RegressionModel regressionModel, TranslationContext context){
+		RegressionModel.NormalizationMethod normalizationMethod = regressionModel.getNormalizationMethod();
+		MathContext mathContext = regressionModel.getMathContext();
+		List<RegressionTable> regressionTables = regressionModel.getRegressionTables();
 
-			List<OutputField> probabilityOutputFields = outputFields.stream()
-				.filter(outputField -> {
-					ResultFeature resultFeature = outputField.getResultFeature();
+		if(regressionTables.size() < 2 || regressionTables.size() != valueExprs.size()){
+			throw new InvalidElementException(regressionModel);
+		}
 
-					switch(resultFeature){
-						case PROBABILITY:
-							return true;
-						default:
-							return false;
-					}
+		JPrimitiveType type = getPrimitiveType(regressionModel, context);
 
-				})
-				.collect(Collectors.toList());
+		ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
 
-			probabilistic = (regressionTables.size() == probabilityOutputFields.size());
+		List<JVar> valueVars = new ArrayList<>();
+
+		for(int i = 0; i < regressionTables.size(); i++){
+			RegressionTable regressionTable = regressionTables.get(i);
+
+			valueVars.add(context.declare(type, IdentifierUtil.create("value", regressionTable), valueExprs.get(i)));
 		}
 
-		JExpression classificationExpr;
+		List<JExpression> probabilityExprs = null;
 
-		if(probabilistic){
-			classificationExpr = context._new(ProbabilityDistribution.class, valueMapBuilder);
+		if(regressionTables.size() == 2){
+			RegressionTable secondRegressionTable = regressionTables.get(1);
+
+			// The value of the second regression table must be strictly zero
+			boolean zero = !secondRegressionTable.hasNumericPredictors() && !secondRegressionTable.hasCategoricalPredictors() && !secondRegressionTable.hasPredictorTerms() && (secondRegressionTable.getIntercept()).doubleValue() == 0d;
+
+			// The probability of the first category is the inverse link of its value, the probability of the second category is the residual
+			JExpression probabilityExpr = (zero ? inverseLink(normalizationMethod, valueVars.get(0), type, context) : null);
+			if(probabilityExpr != null){
+				JVar probabilityVar = context.declare(type, "probability", probabilityExpr);
+
+				probabilityExprs = Arrays.asList(probabilityVar, PMMLObjectUtil.createExpression(1d, mathContext).minus(probabilityVar));
+			}
 		} else
 
 		{
-			classificationExpr = context._new(VoteDistribution.class, valueMapBuilder);
+			switch(normalizationMethod){
+				case SIMPLEMAX:
+					{
+						JVar sumVar = context.declare(type, "sum", MathUtil.sum(valueVars));
+
+						probabilityExprs = valueVars.stream()
+							.map(valueVar -> valueVar.div(sumVar))
+							.collect(Collectors.toList());
+					}
+					break;
+				case SOFTMAX:
+					{
+						List<String> expNames = regressionTables.stream()
+							.map(regressionTable -> IdentifierUtil.create("exp", regressionTable))
+							.collect(Collectors.toList());
+
+						probabilityExprs = MathUtil.softmax(valueVars, expNames, "max", "sum", type, context);
+					}
+					break;
+				default:
+					break;
+			}
 		}
 
-		context._return(classificationExpr);
+		ValueMapBuilder valueMapBuilder = new ValueMapBuilder(context)
+			.construct("values");
+
+		if(probabilityExprs != null){
+
+			for(int i = 0; i < regressionTables.size(); i++){
+				RegressionTable regressionTable = regressionTables.get(i);
+
+				valueMapBuilder.update("put", regressionTable.getTargetCategory(), valueFactoryRef.newValue(probabilityExprs.get(i)));
+			}
+
+			context._return(createClassification(valueMapBuilder, regressionModel, context));
+		} else
+
+		{
+			for(int i = 0; i < regressionTables.size(); i++){
+				RegressionTable regressionTable = regressionTables.get(i);
+
+				valueMapBuilder.update("put", regressionTable.getTargetCategory(), valueFactoryRef.newValue(valueVars.get(i)));
+			}
+
+			computeClassification(valueMapBuilder, regressionModel, context);
+		}
 	}
 
+	/**
+	 * <p>
+	 * Computes the value of a regression table using primitive <code>float</code> or <code>double</code> arithmetic,
+	 * and materializes it as a {@link Value} object only at the end.
+	 * </p>
+	 */
 	static
-	public ValueBuilder translateRegressionTable(RegressionTable regressionTable, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+	public ValueBuilder translateRegressionTable(RegressionTable regressionTable, RegressionModel regressionModel, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		JVar resultVar = translateRegressionTableResult(regressionTable, regressionModel, fieldInfos, context);
+
 		ValueBuilder valueBuilder = new ValueBuilder(context)
-			.declare(IdentifierUtil.create("result", regressionTable), context.getValueFactoryVariable().newValue());
+			.declare(IdentifierUtil.create("value", regressionTable), context.getValueFactoryVariable().newValue(resultVar));
+
+		return valueBuilder;
+	}
+
+	/**
+	 * <p>
+	 * Computes the value of a regression table using primitive <code>float</code> or <code>double</code> arithmetic.
+	 * </p>
+	 *
+	 * <p>
+	 * Terms are accumulated in the same order and with the same precision as by the {@link Value#add(Number)} family of methods.
+	 * </p>
+	 */
+	static
+	public JVar translateRegressionTableResult(RegressionTable regressionTable, RegressionModel regressionModel, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		MathContext mathContext = regressionModel.getMathContext();
+
+		JPrimitiveType type = getPrimitiveType(regressionModel, context);
+
+		JVar resultVar = context.declare(type, IdentifierUtil.create("result", regressionTable), PMMLObjectUtil.createExpression(0d, mathContext));
 
 		if(regressionTable.hasNumericPredictors()){
 			List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
 
+			JBlock block = context.block();
+
 			for(NumericPredictor numericPredictor : numericPredictors){
 				FieldInfo fieldInfo = getFieldInfo(numericPredictor, fieldInfos);
 
@@ -223,19 +388,17 @@ public class RegressionModelTranslator extends ModelTranslator<RegressionModel>
 				Number coefficient = numericPredictor.getCoefficient();
 				Integer exponent = numericPredictor.getExponent();
 
-				if(exponent != null && exponent.intValue() != 1){
-					valueBuilder.update("add", coefficient, operableRef.getVariable(), exponent);
-				} else
+				JExpression valueExpr = MathUtil.toPrimitive(operableRef.getVariable(), type);
 
-				{
-					if(coefficient.doubleValue() != 1d){
-						valueBuilder.update("add", coefficient, operableRef.getVariable());
-					} else
+				if(exponent != null && exponent.intValue() != 1){
+					valueExpr = MathUtil.castPrimitive(context.staticInvoke(Math.class, "pow", valueExpr, JExpr.lit(exponent.intValue())), type);
+				} // End if
 
-					{
-						valueBuilder.update("add", operableRef.getVariable());
-					}
+				if(coefficient.doubleValue() != 1d){
+					valueExpr = PMMLObjectUtil.createExpression(coefficient, mathContext).mul(valueExpr);
 				}
+
+				block.assignPlus(resultVar, valueExpr);
 			}
 		} // End if
 
@@ -249,6 +412,13 @@ public class RegressionModelTranslator extends ModelTranslator<RegressionModel>
 			for(Map.Entry<FieldName, List<CategoricalPredictor>> entry : entries){
 				FieldInfo fieldInfo = getFieldInfo(entry.getKey(), fieldInfos);
 
+				Encoder encoder = fieldInfo.getEncoder();
+				if(encoder instanceof OrdinalEncoder){
+					translateCategoricalPredictors(fieldInfo, (OrdinalEncoder)encoder, entry.getValue(), resultVar, mathContext, context);
+
+					continue;
+				}
+
 				JMethod evaluateCategoryMethod = createEvaluatorMethod(Number.class, entry.getValue(), false, context);
 
 				try {
@@ -264,31 +434,249 @@ public class RegressionModelTranslator extends ModelTranslator<RegressionModel>
 					context.popScope();
 				}
 
-				JVar categoryValueVar = context.declare(Number.class, IdentifierUtil.create("lookup", entry.getKey()), createEvaluatorMethodInvocation(evaluateCategoryMethod, context));
+				JVar categoryValueVar = context.declare(Number.class, IdentifierUtil.create("lookup", Iterables.getFirst(entry.getValue(), null)), createEvaluatorMethodInvocation(evaluateCategoryMethod, context));
 
-				JBlock thenBlock = block._if(categoryValueVar.ne(JExpr._null()))._then();
-
-				try {
-					context.pushScope(new Scope(thenBlock));
-
-					valueBuilder.update("add", categoryValueVar);
-				} finally {
-					context.popScope();
-				}
+				block._if(categoryValueVar.ne(JExpr._null()))._then().assignPlus(resultVar, MathUtil.toPrimitive(categoryValueVar, type));
 			}
 		} // End if
 
 		if(regressionTable.hasPredictorTerms()){
 			List<PredictorTerm> predictorTerms = regressionTable.getPredictorTerms();
 
-			throw new UnsupportedElementException(Iterables.getFirst(predictorTerms, null));
+			ArgumentsRef argumentsRef = context.getArgumentsVariable();
+
+			JBlock block = context.block();
+
+			for(PredictorTerm predictorTerm : predictorTerms){
+				Number coefficient = predictorTerm.getCoefficient();
+
+				if(!predictorTerm.hasFieldRefs()){
+					throw new InvalidElementException(predictorTerm);
+				}
+
+				List<FieldInfo> termFieldInfos = (predictorTerm.getFieldRefs()).stream()
+					.map(fieldRef -> getFieldInfo(fieldRef, fieldInfos))
+					.collect(Collectors.toList());
+
+				JExpression valueExpr;
+
+				if(termFieldInfos.size() == 1){
+					OperableRef operableRef = context.ensureOperableVariable(termFieldInfos.get(0));
+
+					valueExpr = MathUtil.toPrimitive(operableRef.getVariable(), type);
+				} else
+
+				{
+					// Products are cached in the Arguments object, and are shared between terms and regression tables
+					JMethod productMethod = argumentsRef.getProductMethod(termFieldInfos, type, context);
+
+					valueExpr = argumentsRef.invoke(productMethod);
+				} // End if
+
+				if(coefficient.doubleValue() != 1d){
+					valueExpr = PMMLObjectUtil.createExpression(coefficient, mathContext).mul(valueExpr);
+				}
+
+				block.assignPlus(resultVar, valueExpr);
+			}
 		}
 
 		Number intercept = regressionTable.getIntercept();
 		if(intercept != null && intercept.doubleValue() != 0d){
-			valueBuilder.update("add", intercept);
+			(context.block()).assignPlus(resultVar, PMMLObjectUtil.createExpression(intercept, mathContext));
 		}
 
-		return valueBuilder;
+		return resultVar;
+	}
+
+	/**
+	 * <p>
+	 * Looks up the coefficient from a primitive array, which is indexed by the ordinal of the field value.
+	 * The ordinal of unknown values is <code>0</code>, which maps to a zero coefficient.
+	 * </p>
+	 */
+	static
+	private void translateCategoricalPredictors(FieldInfo fieldInfo, OrdinalEncoder encoder, List<CategoricalPredictor> categoricalPredictors, JVar resultVar, MathContext mathContext, TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		JType type = resultVar.type();
+
+		double[] coefficients = new double[(encoder.getValues()).size() + 1];
+
+		for(CategoricalPredictor categoricalPredictor : categoricalPredictors){
+			int index = encoder.encode(categoricalPredictor.getValue());
+			if(index == 0){
+				throw new IllegalArgumentException();
+			}
+
+			coefficients[index] += (categoricalPredictor.getCoefficient()).doubleValue();
+		}
+
+		JArray array = JExpr.newArray(type);
+
+		for(double coefficient : coefficients){
+			array.add(PMMLObjectUtil.createExpression(coefficient, mathContext));
+		}
+
+		JFieldVar coefficientsVar = owner.field(ModelTranslator.MEMBER_PRIVATE, type.array(), IdentifierUtil.create("coefficients", categoricalPredictors.get(0)), array);
+
+		OrdinalRef ordinalRef = (OrdinalRef)context.ensureOperableVariable(fieldInfo);
+
+		JVar ordinalVar = ordinalRef.getVariable();
+
+		JExpression valueExpr = coefficientsVar.component(ordinalVar);
+
+		JBlock block = context.block();
+
+		if(context.isNonMissing(ordinalVar)){
+			block.assignPlus(resultVar, valueExpr);
+		} else
+
+		{
+			block._if(ordinalRef.isNotMissing())._then().assignPlus(resultVar, valueExpr);
+		}
+	}
+
+	static
+	public Map<FieldName, FieldInfo> enhanceFieldInfos(List<RegressionTable> regressionTables, Map<FieldName, FieldInfo> fieldInfos){
+		Map<FieldName, Set<Object>> discreteFieldValues = new LinkedHashMap<>();
+
+		Set<FieldName> continuousNames = new HashSet<>();
+
+		for(RegressionTable regressionTable : regressionTables){
+
+			if(regressionTable.hasNumericPredictors()){
+				List<NumericPredictor> numericPredictors = regressionTable.getNumericPredictors();
+
+				for(NumericPredictor numericPredictor : numericPredictors){
+					continuousNames.add(numericPredictor.getField());
+				}
+			} // End if
+
+			if(regressionTable.hasCategoricalPredictors()){
+				List<CategoricalPredictor> categoricalPredictors = regressionTable.getCategoricalPredictors();
+
+				for(CategoricalPredictor categoricalPredictor : categoricalPredictors){
+					Set<Object> values = discreteFieldValues.computeIfAbsent(categoricalPredictor.getField(), name -> new LinkedHashSet<>());
+
+					values.add(categoricalPredictor.getValue());
+				}
+			} // End if
+
+			if(regressionTable.hasPredictorTerms()){
+				List<PredictorTerm> predictorTerms = regressionTable.getPredictorTerms();
+
+				for(PredictorTerm predictorTerm : predictorTerms){
+					List<FieldRef> fieldRefs = predictorTerm.getFieldRefs();
+
+					for(FieldRef fieldRef : fieldRefs){
+						continuousNames.add(fieldRef.getField());
+					}
+				}
+			}
+		}
+
+		Collection<Map.Entry<FieldName, Set<Object>>> entries = discreteFieldValues.entrySet();
+		for(Map.Entry<FieldName, Set<Object>> entry : entries){
+			FieldName name = entry.getKey();
+
+			if(continuousNames.contains(name)){
+				continue;
+			}
+
+			FieldInfo fieldInfo = getFieldInfo(name, fieldInfos);
+
+			Field<?> field = fieldInfo.getField();
+
+			OpType opType = field.getOpType();
+			DataType dataType = field.getDataType();
+
+			switch(opType){
+				case CATEGORICAL:
+					break;
+				default:
+					continue;
+			}
+
+			switch(dataType){
+				case STRING:
+				case INTEGER:
+					break;
+				default:
+					continue;
+			}
+
+			fieldInfo.setEncoder(new OrdinalEncoder(entry.getValue()));
+		}
+
+		return fieldInfos;
+	}
+
+	static
+	private JExpression createClassification(ValueMapBuilder valueMapBuilder, RegressionModel regressionModel, TranslationContext context){
+		List<RegressionTable> regressionTables = regressionModel.getRegressionTables();
+		Output output = regressionModel.getOutput();
+
+		boolean probabilistic = false;
+
+		if(output != null && output.hasOutputFields()){
+			List<OutputField> outputFields = output.getOutputFields();
+
+			List<OutputField> probabilityOutputFields = outputFields.stream()
+				.filter(outputField -> {
+					ResultFeature resultFeature = outputField.getResultFeature();
+
+					switch(resultFeature){
+						case PROBABILITY:
+							return true;
+						default:
+							return false;
+					}
+
+				})
+				.collect(Collectors.toList());
+
+			probabilistic = (regressionTables.size() == probabilityOutputFields.size());
+		}
+
+		if(probabilistic){
+			return context._new(ProbabilityDistribution.class, valueMapBuilder);
+		} else
+
+		{
+			return context._new(VoteDistribution.class, valueMapBuilder);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Translates the inverse of a binary link function.
+	 * </p>
+	 *
+	 * @return The probability expression, or <code>null</code> if the normalization method is not inlineable.
+	 */
+	static
+	private JExpression inverseLink(RegressionModel.NormalizationMethod normalizationMethod, JExpression valueExpr, JPrimitiveType type, TranslationContext context){
+		JExpression result;
+
+		switch(normalizationMethod){
+			case LOGIT:
+				result = MathUtil.logistic(valueExpr, context);
+				break;
+			case CLOGLOG:
+				result = MathUtil.inverseCloglog(valueExpr, context);
+				break;
+			case LOGLOG:
+				result = MathUtil.inverseLoglog(valueExpr, context);
+				break;
+			case CAUCHIT:
+				result = MathUtil.inverseCauchit(valueExpr, context);
+				break;
+			default:
+				// PROBIT requires the normal cumulative distribution function, which is not available in java.lang.Math
+				return null;
+		}
+
+		return MathUtil.castPrimitive(result, type);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2019 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.rule_set;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.False;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.Output;
+import org.dmg.pmml.OutputField;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.Predicate;
+import org.dmg.pmml.ResultFeature;
+import org.dmg.pmml.True;
+import org.dmg.pmml.rule_set.CompoundRule;
+import org.dmg.pmml.rule_set.PMMLAttributes;
+import org.dmg.pmml.rule_set.PMMLElements;
+import org.dmg.pmml.rule_set.Rule;
+import org.dmg.pmml.rule_set.RuleSelectionMethod;
+import org.dmg.pmml.rule_set.RuleSet;
+import org.dmg.pmml.rule_set.RuleSetModel;
+import org.dmg.pmml.rule_set.SimpleRule;
+import org.jpmml.evaluator.MissingAttributeException;
+import org.jpmml.evaluator.MissingElementException;
+import org.jpmml.evaluator.TargetField;
+import org.jpmml.evaluator.TypeUtil;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.evaluator.VoteDistribution;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.JDirectInitializer;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.PMMLObjectUtil;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.ValueFactoryRef;
+import org.jpmml.translator.tree.TreeModelTranslator;
+
+public class RuleSetModelTranslator extends ModelTranslator<RuleSetModel> {
+
+	public RuleSetModelTranslator(PMML pmml, RuleSetModel ruleSetModel){
+		super(pmml, ruleSetModel);
+
+		MiningFunction miningFunction = ruleSetModel.getMiningFunction();
+		switch(miningFunction){
+			case CLASSIFICATION:
+				break;
+			default:
+				throw new UnsupportedAttributeException(ruleSetModel, miningFunction);
+		}
+
+		RuleSet ruleSet = ruleSetModel.getRuleSet();
+
+		RuleSelectionMethod ruleSelectionMethod = getRuleSelectionMethod(ruleSet);
+
+		RuleSelectionMethod.Criterion criterion = ruleSelectionMethod.getCriterion();
+		switch(criterion){
+			case FIRST_HIT:
+			case WEIGHTED_SUM:
+			case WEIGHTED_MAX:
+				break;
+			default:
+				throw new UnsupportedAttributeException(ruleSelectionMethod, criterion);
+		}
+
+		Output output = ruleSetModel.getOutput();
+		if(output != null && output.hasOutputFields()){
+			List<OutputField> outputFields = output.getOutputFields();
+
+			for(OutputField outputField : outputFields){
+				ResultFeature resultFeature = outputField.getResultFeature();
+
+				// The selected rules and their confidences are not retained
+				switch(resultFeature){
+					case ENTITY_ID:
+					case RULE_VALUE:
+					case CONFIDENCE:
+						throw new UnsupportedAttributeException(outputField, resultFeature);
+					default:
+						break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Compiles rules into a flat sequence of boolean tests.
+	 * </p>
+	 *
+	 * <p>
+	 * The predicate of a compound rule is computed once into a local variable,
+	 * which then guards the tests of its nested rules.
+	 * All tests are emitted into the same scope, so that rules that test the same field share a single read of its value.
+	 * The first hit criterion returns from a separate rule index method as soon as a rule fires.
+	 * The weighted sum criterion accumulates rule weights into a primitive <code>float</code> or <code>double</code> array that is indexed by target category.
+	 * The weighted max criterion keeps the heaviest rule of every target category, and then selects between target categories by rule confidence.
+	 * </p>
+	 *
+	 * <p>
+	 * The result is a vote distribution between the target categories of selected rules, the same way as in the interpreter.
+	 * Votes are rule confidences, except for the weighted sum criterion, where they are rule weight sums divided by the number of selected rules.
+	 * The default score receives the default confidence.
+	 * </p>
+	 */
+	@Override
+	public JMethod translateClassifier(TranslationContext context){
+		RuleSetModel ruleSetModel = getModel();
+
+		MathContext mathContext = ruleSetModel.getMathContext();
+		RuleSet ruleSet = ruleSetModel.getRuleSet();
+
+		TargetField targetField = getTargetField();
+
+		DataType dataType = targetField.getDataType();
+
+		RuleSelectionMethod ruleSelectionMethod = getRuleSelectionMethod(ruleSet);
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(ruleSet));
+
+		List<SimpleRule> simpleRules = new ArrayList<>();
+
+		collectSimpleRules(ruleSet.getRules(), simpleRules);
+
+		List<Object> targetCategories = new ArrayList<>();
+
+		JArray ruleCategoriesArray = JExpr.newArray(context._ref(int.class));
+		JArray ruleWeightsArray = JExpr.newArray(getPrimitiveType(ruleSetModel, context));
+		JArray ruleConfidencesArray = JExpr.newArray(getPrimitiveType(ruleSetModel, context));
+
+		for(SimpleRule simpleRule : simpleRules){
+			Object score = TypeUtil.parseOrCast(dataType, simpleRule.getScore());
+
+			int index = targetCategories.indexOf(score);
+			if(index < 0){
+				index = targetCategories.size();
+
+				targetCategories.add(score);
+			}
+
+			ruleCategoriesArray.add(JExpr.lit(index));
+			ruleWeightsArray.add(PMMLObjectUtil.createExpression(simpleRule.getWeight(), mathContext));
+			ruleConfidencesArray.add(PMMLObjectUtil.createExpression(simpleRule.getConfidence(), mathContext));
+		}
+
+		JPrimitiveType type = getPrimitiveType(ruleSetModel, context);
+		JType intType = context._ref(int.class);
+
+		JDefinedClass owner = context.getOwner();
+
+		JFieldVar ruleCategoriesVar = owner.field(ModelTranslator.MEMBER_PRIVATE, intType.array(), IdentifierUtil.create("ruleCategories", ruleSet), ruleCategoriesArray);
+		JFieldVar ruleWeightsVar = owner.field(ModelTranslator.MEMBER_PRIVATE, type.array(), IdentifierUtil.create("ruleWeights", ruleSet), ruleWeightsArray);
+		JFieldVar ruleConfidencesVar = owner.field(ModelTranslator.MEMBER_PRIVATE, type.array(), IdentifierUtil.create("ruleConfidences", ruleSet), ruleConfidencesArray);
+
+		JDirectInitializer codeInitializer = new JDirectInitializer(context);
+
+		JFieldVar targetCategoriesVar = codeInitializer.initTargetCategories(IdentifierUtil.create("targetCategories", ruleSetModel), targetCategories);
+
+		RuleSelectionMethod.Criterion criterion = ruleSelectionMethod.getCriterion();
+
+		JMethod evaluateRuleSetMethod = null;
+
+		switch(criterion){
+			case FIRST_HIT:
+				{
+					evaluateRuleSetMethod = createEvaluatorMethod(int.class, ruleSet, false, context);
+
+					try {
+						context.pushScope(new MethodScope(evaluateRuleSetMethod));
+
+						// Rule predicates are translated one at a time, so that field values are read only if the preceding rules did not fire
+						translateRules(ruleSet.getRules(), null, 0, (ruleExpr, index) -> context._returnIf(ruleExpr, JExpr.lit(index)), fieldInfos, context);
+
+						context._return(JExpr.lit(-1));
+					} finally {
+						context.popScope();
+					}
+				}
+				break;
+			default:
+				break;
+		}
+
+		JMethod evaluateMethod = createEvaluatorMethod(VoteDistribution.class, ruleSetModel, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			JBlock block = context.block();
+
+			switch(criterion){
+				case FIRST_HIT:
+					{
+						JVar indexVar = context.declare(intType, "index", createEvaluatorMethodInvocation(evaluateRuleSetMethod, context));
+
+						JBlock thenBlock = block._if(indexVar.gte(JExpr.lit(0)))._then();
+
+						thenBlock._return(createVoteDistribution(targetCategoriesVar.invoke("get").arg(ruleCategoriesVar.component(indexVar)), ruleConfidencesVar.component(indexVar), thenBlock, context));
+					}
+					break;
+				case WEIGHTED_SUM:
+					{
+						JVar votesVar = context.declare(type.array(), "votes", JExpr.newArray(type, targetCategories.size()));
+						JVar hitsVar = context.declare(intType.array(), "hits", JExpr.newArray(intType, targetCategories.size()));
+						JVar orderVar = context.declare(intType.array(), "order", JExpr.newArray(intType, targetCategories.size()));
+						JVar countVar = context.declare(intType, "count", JExpr.lit(0));
+						JVar ruleCountVar = context.declare(intType, "ruleCount", JExpr.lit(0));
+
+						translateRules(ruleSet.getRules(), null, 0, (ruleExpr, index) -> {
+							JBlock thenBlock = block._if(ruleExpr)._then();
+
+							JVar categoryVar = thenBlock.decl(intType, "category", ruleCategoriesVar.component(JExpr.lit(index)));
+
+							// Categories are ordered by their first hit
+							thenBlock._if(JOp.eq(JOp.incr(hitsVar.component(categoryVar)), JExpr.lit(0)))._then().assign(orderVar.component(JOp.incr(countVar)), categoryVar);
+							thenBlock.assignPlus(votesVar.component(categoryVar), ruleWeightsVar.component(JExpr.lit(index)));
+							thenBlock.assignPlus(ruleCountVar, JExpr.lit(1));
+						}, fieldInfos, context);
+
+						// Weight sums are averaged over all selected rules
+						translateVoteDistribution(targetCategoriesVar, orderVar, countVar, (categoryVar) -> JOp.div(votesVar.component(categoryVar), ruleCountVar), targetCategories.size(), block, context);
+					}
+					break;
+				case WEIGHTED_MAX:
+					{
+						JVar bestRulesVar = context.declare(intType.array(), "bestRules", JExpr.newArray(intType, targetCategories.size()));
+						JVar orderVar = context.declare(intType.array(), "order", JExpr.newArray(intType, targetCategories.size()));
+						JVar countVar = context.declare(intType, "count", JExpr.lit(0));
+
+						translateRules(ruleSet.getRules(), null, 0, (ruleExpr, index) -> {
+							JBlock thenBlock = block._if(ruleExpr)._then();
+
+							JVar categoryVar = thenBlock.decl(intType, "category", ruleCategoriesVar.component(JExpr.lit(index)));
+
+							// Rule indices are stored with an offset of one, so that zero denotes a category without selected rules
+							JVar bestRuleVar = thenBlock.decl(intType, "bestRule", JOp.minus(bestRulesVar.component(categoryVar), JExpr.lit(1)));
+
+							// Categories are ordered by their first hit
+							JConditional ifStatement = thenBlock._if(bestRuleVar.lt(JExpr.lit(0)));
+
+							JBlock firstBlock = ifStatement._then();
+
+							firstBlock.assign(orderVar.component(JOp.incr(countVar)), categoryVar);
+							firstBlock.assign(bestRulesVar.component(categoryVar), JExpr.lit(index + 1));
+
+							// Ties are resolved in favour of the first rule
+							ifStatement._elseif(JOp.gt(ruleWeightsVar.component(JExpr.lit(index)), ruleWeightsVar.component(bestRuleVar)))._then().assign(bestRulesVar.component(categoryVar), JExpr.lit(index + 1));
+						}, fieldInfos, context);
+
+						// The winner is the category whose best rule has the highest confidence
+						translateVoteDistribution(targetCategoriesVar, orderVar, countVar, (categoryVar) -> ruleConfidencesVar.component(JOp.minus(bestRulesVar.component(categoryVar), JExpr.lit(1))), targetCategories.size(), block, context);
+					}
+					break;
+				default:
+					throw new UnsupportedAttributeException(ruleSelectionMethod, criterion);
+			}
+
+			Object defaultScore = ruleSet.getDefaultScore();
+			if(defaultScore != null){
+				defaultScore = TypeUtil.parseOrCast(dataType, defaultScore);
+
+				Number defaultConfidence = ruleSet.getDefaultConfidence();
+				if(defaultConfidence == null){
+					throw new MissingAttributeException(ruleSet, PMMLAttributes.RULESET_DEFAULTCONFIDENCE);
+				}
+
+				context._return(createVoteDistribution(PMMLObjectUtil.createExpression(defaultScore, context), PMMLObjectUtil.createExpression(defaultConfidence, mathContext), block, context));
+			} else
+
+			{
+				context._return(JExpr._null());
+			}
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	@Override
+	public Map<FieldName, FieldInfo> getFieldInfos(Set<? extends PMMLObject> bodyObjects){
+		Map<FieldName, FieldInfo> fieldInfos = super.getFieldInfos(bodyObjects);
+
+		fieldInfos = TreeModelTranslator.enhanceFieldInfos(bodyObjects, fieldInfos);
+
+		return fieldInfos;
+	}
+
+	static
+	private int translateRules(List<Rule> rules, JVar guardVar, int index, ObjIntConsumer<JExpression> ruleConsumer, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+
+		for(Rule rule : rules){
+			Predicate predicate = rule.getPredicate();
+
+			if(predicate instanceof False){
+				continue;
+			}
+
+			JExpression predicateExpr = (predicate instanceof True) ? null : TreeModelTranslator.translatePredicate(predicate, fieldInfos, context);
+
+			JExpression ruleExpr;
+
+			if(guardVar != null){
+				ruleExpr = (predicateExpr != null ? guardVar.cand(predicateExpr) : guardVar);
+			} else
+
+			{
+				ruleExpr = (predicateExpr != null ? predicateExpr : JExpr.TRUE);
+			} // End if
+
+			if(rule instanceof SimpleRule){
+				ruleConsumer.accept(ruleExpr, index);
+
+				index++;
+			} else
+
+			if(rule instanceof CompoundRule){
+				CompoundRule compoundRule = (CompoundRule)rule;
+
+				JVar compoundGuardVar = context.declare(boolean.class, IdentifierUtil.create("guard", compoundRule), ruleExpr);
+
+				index = translateRules(compoundRule.getRules(), compoundGuardVar, index, ruleConsumer, fieldInfos, context);
+			} else
+
+			{
+				throw new UnsupportedElementException(rule);
+			}
+		}
+
+		return index;
+	}
+
+	static
+	private void collectSimpleRules(List<Rule> rules, List<SimpleRule> simpleRules){
+
+		for(Rule rule : rules){
+			Predicate predicate = rule.getPredicate();
+			if(predicate == null){
+				throw new MissingElementException(rule, PMMLElements.SIMPLERULE_PREDICATE);
+			} // End if
+
+			if(predicate instanceof False){
+				continue;
+			} // End if
+
+			if(rule instanceof SimpleRule){
+				simpleRules.add((SimpleRule)rule);
+			} else
+
+			if(rule instanceof CompoundRule){
+				CompoundRule compoundRule = (CompoundRule)rule;
+
+				collectSimpleRules(compoundRule.getRules(), simpleRules);
+			} else
+
+			{
+				throw new UnsupportedElementException(rule);
+			}
+		}
+	}
+
+	static
+	private JExpression createVoteDistribution(JExpression categoryExpr, JExpression voteExpr, JBlock block, TranslationContext context){
+		ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+		JVar valuesVar = block.decl(context.getValueMapType(), "values", context._new(context.getValueMapType(), JExpr.lit(2)));
+
+		block.add((valuesVar.invoke("put")).arg(categoryExpr).arg(valueFactoryRef.newValue(voteExpr)));
+
+		return context._new(VoteDistribution.class, valuesVar);
+	}
+
+	static
+	private void translateVoteDistribution(JFieldVar targetCategoriesVar, JVar orderVar, JVar countVar, Function<JVar, JExpression> voteFunction, int size, JBlock block, TranslationContext context){
+		ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+		JType intType = context._ref(int.class);
+
+		JBlock thenBlock = block._if(countVar.gt(JExpr.lit(0)))._then();
+
+		JVar valuesVar = thenBlock.decl(context.getValueMapType(), "values", context._new(context.getValueMapType(), JExpr.lit(2 * size)));
+
+		JForLoop forLoop = thenBlock._for();
+
+		JVar loopVar = forLoop.init(intType, "i", JExpr.lit(0));
+		forLoop.test(loopVar.lt(countVar));
+		forLoop.update(loopVar.incr());
+
+		JBlock forBody = forLoop.body();
+
+		JVar categoryVar = forBody.decl(intType, "category", orderVar.component(loopVar));
+
+		forBody.add((valuesVar.invoke("put")).arg(targetCategoriesVar.invoke("get").arg(categoryVar)).arg(valueFactoryRef.newValue(voteFunction.apply(categoryVar))));
+
+		thenBlock._return(context._new(VoteDistribution.class, valuesVar));
+	}
+
+	static
+	private RuleSelectionMethod getRuleSelectionMethod(RuleSet ruleSet){
+
+		if(!ruleSet.hasRuleSelectionMethods()){
+			throw new MissingElementException(ruleSet, PMMLElements.RULESET_RULESELECTIONMETHODS);
+		}
+
+		List<RuleSelectionMethod> ruleSelectionMethods = ruleSet.getRuleSelectionMethods();
+
+		// The first rule selection method is the default one
+		return ruleSelectionMethods.get(0);
+	}
+}
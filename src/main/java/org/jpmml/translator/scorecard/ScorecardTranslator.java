@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2020 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.scorecard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JTypeVar;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.Targets;
+import org.dmg.pmml.scorecard.Attribute;
+import org.dmg.pmml.scorecard.Characteristic;
+import org.dmg.pmml.scorecard.Characteristics;
+import org.dmg.pmml.scorecard.PMMLAttributes;
+import org.dmg.pmml.scorecard.Scorecard;
+import org.jpmml.evaluator.HasReasonCodeRanking;
+import org.jpmml.evaluator.MissingAttributeException;
+import org.jpmml.evaluator.Regression;
+import org.jpmml.evaluator.TargetField;
+import org.jpmml.evaluator.TargetUtil;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.evaluator.Value;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.PMMLObjectUtil;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.ValueFactoryRef;
+import org.jpmml.translator.tree.TreeModelTranslator;
+
+public class ScorecardTranslator extends ModelTranslator<Scorecard> {
+
+	public ScorecardTranslator(PMML pmml, Scorecard scorecard){
+		super(pmml, scorecard);
+
+		MiningFunction miningFunction = scorecard.getMiningFunction();
+		switch(miningFunction){
+			case REGRESSION:
+				break;
+			default:
+				throw new UnsupportedAttributeException(scorecard, miningFunction);
+		}
+
+		boolean useReasonCodes = scorecard.isUseReasonCodes();
+
+		if(useReasonCodes){
+			Targets targets = scorecard.getTargets();
+
+			if(targets != null){
+				throw new UnsupportedElementException(targets);
+			}
+		}
+
+		Characteristics characteristics = scorecard.getCharacteristics();
+
+		List<Characteristic> characteristicList = characteristics.getCharacteristics();
+		for(Characteristic characteristic : characteristicList){
+
+			if(useReasonCodes){
+				Number baselineScore = characteristic.getBaselineScore();
+
+				if(baselineScore == null && scorecard.getBaselineScore() == null){
+					throw new MissingAttributeException(characteristic, PMMLAttributes.CHARACTERISTIC_BASELINESCORE);
+				}
+			}
+
+			List<Attribute> attributes = characteristic.getAttributes();
+			for(Attribute attribute : attributes){
+
+				if(attribute.getComplexPartialScore() != null){
+					throw new UnsupportedElementException(attribute.getComplexPartialScore());
+				} // End if
+
+				if(attribute.getPartialScore() == null){
+					throw new MissingAttributeException(attribute, PMMLAttributes.ATTRIBUTE_PARTIALSCORE);
+				} // End if
+
+				if(useReasonCodes){
+					String reasonCode = getReasonCode(characteristic, attribute);
+
+					if(reasonCode == null){
+						throw new MissingAttributeException(attribute, PMMLAttributes.ATTRIBUTE_REASONCODE);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public JMethod translateRegressor(TranslationContext context){
+		Scorecard scorecard = getModel();
+
+		Characteristics characteristics = scorecard.getCharacteristics();
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(characteristics));
+
+		JMethod evaluateMethod = createEvaluatorMethod(Value.class, scorecard, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			JVar scoreVar = translateCharacteristics(scorecard, null, null, fieldInfos, context);
+
+			context._return(context.getValueFactoryVariable().newValue(scoreVar));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	/**
+	 * <p>
+	 * Replaces the plain regression result with a {@link HasReasonCodeRanking} regression result if the scorecard uses reason codes.
+	 * </p>
+	 */
+	@Override
+	public JMethod createEvaluateRegressionMethod(JMethod evaluateMethod, TranslationContext context){
+		Scorecard scorecard = getModel();
+
+		if(!scorecard.isUseReasonCodes()){
+			return super.createEvaluateRegressionMethod(evaluateMethod, context);
+		}
+
+		TargetField targetField = getTargetField();
+
+		JMethod reasonCodeRankingMethod = translateReasonCodeRanking(context);
+
+		JMethod evaluateRegressionMethod = createEvaluatorMethod("evaluateRegression", context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateRegressionMethod));
+
+			context.pushScope(declareArgumentsWorkspace(context));
+
+			try {
+				JVar regressionVar = context.declare(context.ref(Regression.class).narrow(context.getNumberTypeVariable()), "regression", createEvaluatorMethodInvocation(reasonCodeRankingMethod, context));
+
+				context._returnIf(regressionVar.eq(JExpr._null()), context.staticInvoke(Collections.class, "singletonMap", context.constantFieldName(targetField.getName()), JExpr._null()));
+
+				context.add(context.staticInvoke(TargetUtil.class, "computeResult", targetField.getDataType(), regressionVar));
+
+				context._return(context.staticInvoke(Collections.class, "singletonMap", context.constantFieldName(targetField.getName()), regressionVar));
+			} finally {
+				context.popScope();
+			}
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateRegressionMethod;
+	}
+
+	@Override
+	public Map<FieldName, FieldInfo> getFieldInfos(Set<? extends PMMLObject> bodyObjects){
+		Map<FieldName, FieldInfo> fieldInfos = super.getFieldInfos(bodyObjects);
+
+		fieldInfos = TreeModelTranslator.enhanceFieldInfos(bodyObjects, fieldInfos);
+
+		return fieldInfos;
+	}
+
+	/**
+	 * <p>
+	 * Computes the score together with the reason code ranking.
+	 * </p>
+	 *
+	 * <p>
+	 * Reason code points are accumulated in a primitive array, which is indexed by reason code ordinals.
+	 * Reason codes are then ranked by a stable selection sort over a fixed-size ordinals array,
+	 * where ties are broken by the order of first contribution.
+	 * The ranking is emitted directly, so that the result does not need to sort reason code points again.
+	 * Reason codes with negative points are excluded from the ranking, the same way as in the interpreter.
+	 * </p>
+	 */
+	private JMethod translateReasonCodeRanking(TranslationContext context){
+		Scorecard scorecard = getModel();
+
+		Characteristics characteristics = scorecard.getCharacteristics();
+
+		List<String> reasonCodes = getReasonCodes(scorecard);
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(characteristics));
+
+		JDefinedClass owner = context.getOwner();
+
+		JDefinedClass reasonCodeRankingClazz = ensureReasonCodeRankingType(context);
+
+		JMethod evaluateMethod = createEvaluatorMethod(Regression.class, characteristics, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			JPrimitiveType type = getPrimitiveType(scorecard, context);
+			JType intType = context._ref(int.class);
+
+			JVar pointsVar = context.declare(type.array(), "points", JExpr.newArray(type, reasonCodes.size()));
+			JVar hitsVar = context.declare(intType.array(), "hits", JExpr.newArray(intType, reasonCodes.size()));
+			JVar orderVar = context.declare(intType.array(), "order", JExpr.newArray(intType, reasonCodes.size()));
+			JVar countVar = context.declare(intType, "count", JExpr.lit(0));
+
+			ReasonCodeVars reasonCodeVars = new ReasonCodeVars(pointsVar, hitsVar, orderVar, countVar);
+
+			JVar scoreVar = translateCharacteristics(scorecard, reasonCodes, reasonCodeVars, fieldInfos, context);
+
+			JArray reasonCodesArray = JExpr.newArray(context.ref(String.class));
+
+			for(String reasonCode : reasonCodes){
+				reasonCodesArray.add(JExpr.lit(reasonCode));
+			}
+
+			JFieldVar reasonCodesVar = owner.field(ModelTranslator.MEMBER_PRIVATE, context.ref(String.class).array(), IdentifierUtil.create("reasonCodes", characteristics), reasonCodesArray);
+
+			ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+			JClass listClazz = context.ref(List.class).narrow(String.class);
+
+			JVar rankingVar = context.declare(listClazz, "ranking", context._new(context.ref(ArrayList.class).narrow(String.class), countVar));
+
+			JBlock block = context.block();
+
+			JForLoop forLoop = block._for();
+
+			JVar iVar = forLoop.init(intType, "i", JExpr.lit(0));
+			forLoop.test(iVar.lt(countVar));
+			forLoop.update(iVar.incr());
+
+			JBlock forBody = forLoop.body();
+
+			JVar maxVar = forBody.decl(intType, "max", iVar);
+
+			JForLoop innerForLoop = forBody._for();
+
+			JVar jVar = innerForLoop.init(intType, "j", iVar.plus(JExpr.lit(1)));
+			innerForLoop.test(jVar.lt(countVar));
+			innerForLoop.update(jVar.incr());
+
+			innerForLoop.body()._if(JOp.gt(pointsVar.component(orderVar.component(jVar)), pointsVar.component(orderVar.component(maxVar))))._then().assign(maxVar, jVar);
+
+			JVar codeVar = forBody.decl(intType, "code", orderVar.component(maxVar));
+
+			// All remaining reason codes have negative points
+			forBody._if(JOp.lt(pointsVar.component(codeVar), PMMLObjectUtil.createExpression(0d, scorecard.getMathContext())))._then()._break();
+
+			// Shift preceding elements to the right, in order to keep the sort stable
+			JForLoop shiftForLoop = forBody._for();
+
+			JVar kVar = shiftForLoop.init(intType, "k", maxVar);
+			shiftForLoop.test(kVar.gt(iVar));
+			shiftForLoop.update(kVar.decr());
+
+			shiftForLoop.body().assign(orderVar.component(kVar), orderVar.component(kVar.minus(JExpr.lit(1))));
+
+			forBody.assign(orderVar.component(iVar), codeVar);
+
+			forBody.add(rankingVar.invoke("add").arg(reasonCodesVar.component(codeVar)));
+
+			context._return(JExpr._new(reasonCodeRankingClazz.narrow(context.getNumberTypeVariable())).arg(valueFactoryRef.newValue(scoreVar)).arg(rankingVar));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	/**
+	 * <p>
+	 * Accumulates partial scores using primitive <code>float</code> or <code>double</code> arithmetic.
+	 * The attributes of a characteristic are checked in order, the first matching attribute wins.
+	 * Returns early with a <code>null</code> result if no attribute matches.
+	 * </p>
+	 *
+	 * <p>
+	 * Reason code points are precomputed at translation time.
+	 * </p>
+	 */
+	static
+	private JVar translateCharacteristics(Scorecard scorecard, List<String> reasonCodes, ReasonCodeVars reasonCodeVars, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		MathContext mathContext = scorecard.getMathContext();
+		Characteristics characteristics = scorecard.getCharacteristics();
+
+		JPrimitiveType type = getPrimitiveType(scorecard, context);
+
+		JVar scoreVar = context.declare(type, "score", PMMLObjectUtil.createExpression(scorecard.getInitialScore(), mathContext));
+
+		List<Characteristic> characteristicList = characteristics.getCharacteristics();
+		for(Characteristic characteristic : characteristicList){
+			List<Attribute> attributes = characteristic.getAttributes();
+
+			// Field variables must be declared before the first if statement of the chain
+			List<JExpression> predicateExprs = new ArrayList<>();
+
+			for(Attribute attribute : attributes){
+				JExpression predicateExpr = TreeModelTranslator.translatePredicate(attribute.getPredicate(), fieldInfos, context);
+
+				predicateExprs.add(predicateExpr);
+			}
+
+			JBlock block = context.block();
+
+			for(int i = 0; i < attributes.size(); i++){
+				Attribute attribute = attributes.get(i);
+
+				JConditional ifStmt = block._if(predicateExprs.get(i));
+
+				JBlock thenBlock = ifStmt._then();
+
+				thenBlock.assignPlus(scoreVar, PMMLObjectUtil.createExpression(attribute.getPartialScore(), mathContext));
+
+				if(reasonCodeVars != null){
+					int reasonCodeIndex = reasonCodes.indexOf(getReasonCode(characteristic, attribute));
+
+					JExpression indexExpr = JExpr.lit(reasonCodeIndex);
+
+					thenBlock.assignPlus(reasonCodeVars.pointsVar.component(indexExpr), PMMLObjectUtil.createExpression(computePoints(scorecard, characteristic, attribute), mathContext));
+					thenBlock._if((JOp.incr(reasonCodeVars.hitsVar.component(indexExpr))).eq(JExpr.lit(0)))._then().assign(reasonCodeVars.orderVar.component((reasonCodeVars.countVar).incr()), indexExpr);
+				}
+
+				block = ifStmt._else();
+			}
+
+			block._return(JExpr._null());
+		}
+
+		return scoreVar;
+	}
+
+	/**
+	 * <p>
+	 * Ensures a regression result class that holds a precomputed reason code ranking.
+	 * </p>
+	 */
+	static
+	private JDefinedClass ensureReasonCodeRankingType(TranslationContext context){
+		JDefinedClass owner = context.getOwner();
+
+		for(Iterator<JDefinedClass> it = owner.classes(); it.hasNext(); ){
+			JDefinedClass clazz = it.next();
+
+			if(("ReasonCodeRanking").equals(clazz.name())){
+				return clazz;
+			}
+		}
+
+		JDefinedClass reasonCodeRankingClazz = PMMLObjectUtil.createMemberClass(ModelTranslator.MEMBER_PUBLIC, "ReasonCodeRanking", context);
+
+		JTypeVar numberTypeVar = reasonCodeRankingClazz.generify(MethodScope.TYPEVAR_NUMBER, Number.class);
+
+		reasonCodeRankingClazz._extends(context.ref(Regression.class).narrow(numberTypeVar));
+		reasonCodeRankingClazz._implements(HasReasonCodeRanking.class);
+
+		JClass listClazz = context.ref(List.class).narrow(String.class);
+
+		JFieldVar rankingVar = reasonCodeRankingClazz.field(JMod.PRIVATE, listClazz, "ranking");
+
+		JMethod constructor = reasonCodeRankingClazz.constructor(JMod.PUBLIC);
+
+		JVar valueParam = constructor.param(context.ref(Value.class).narrow(numberTypeVar), "value");
+		JVar rankingParam = constructor.param(listClazz, "ranking");
+
+		JBlock block = constructor.body();
+
+		block.invoke("super").arg(valueParam);
+		block.assign(JExpr.refthis(rankingVar.name()), rankingParam);
+
+		JMethod getterMethod = reasonCodeRankingClazz.method(JMod.PUBLIC, listClazz, "getReasonCodeRanking");
+		getterMethod.annotate(Override.class);
+
+		getterMethod.body()._return(rankingVar);
+
+		return reasonCodeRankingClazz;
+	}
+
+	static
+	private Number computePoints(Scorecard scorecard, Characteristic characteristic, Attribute attribute){
+		Scorecard.ReasonCodeAlgorithm reasonCodeAlgorithm = scorecard.getReasonCodeAlgorithm();
+		MathContext mathContext = scorecard.getMathContext();
+
+		Number baselineScore = characteristic.getBaselineScore();
+		if(baselineScore == null){
+			baselineScore = scorecard.getBaselineScore();
+		}
+
+		Number partialScore = attribute.getPartialScore();
+
+		switch(reasonCodeAlgorithm){
+			case POINTS_ABOVE:
+				return subtract(partialScore, baselineScore, mathContext);
+			case POINTS_BELOW:
+				return subtract(baselineScore, partialScore, mathContext);
+			default:
+				throw new UnsupportedAttributeException(scorecard, reasonCodeAlgorithm);
+		}
+	}
+
+	static
+	private Number subtract(Number left, Number right, MathContext mathContext){
+
+		switch(mathContext){
+			case FLOAT:
+				return left.floatValue() - right.floatValue();
+			case DOUBLE:
+				return left.doubleValue() - right.doubleValue();
+			default:
+				throw new IllegalArgumentException();
+		}
+	}
+
+	static
+	private List<String> getReasonCodes(Scorecard scorecard){
+		List<String> result = new ArrayList<>();
+
+		Characteristics characteristics = scorecard.getCharacteristics();
+
+		List<Characteristic> characteristicList = characteristics.getCharacteristics();
+		for(Characteristic characteristic : characteristicList){
+			List<Attribute> attributes = characteristic.getAttributes();
+
+			for(Attribute attribute : attributes){
+				String reasonCode = getReasonCode(characteristic, attribute);
+
+				if(!result.contains(reasonCode)){
+					result.add(reasonCode);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	static
+	private String getReasonCode(Characteristic characteristic, Attribute attribute){
+		String reasonCode = attribute.getReasonCode();
+
+		if(reasonCode == null){
+			reasonCode = characteristic.getReasonCode();
+		}
+
+		return reasonCode;
+	}
+
+	static
+	private class ReasonCodeVars {
+
+		private JVar pointsVar = null;
+
+		private JVar hitsVar = null;
+
+		private JVar orderVar = null;
+
+		private JVar countVar = null;
+
+
+		private ReasonCodeVars(JVar pointsVar, JVar hitsVar, JVar orderVar, JVar countVar){
+			this.pointsVar = pointsVar;
+			this.hitsVar = hitsVar;
+			this.orderVar = orderVar;
+			this.countVar = countVar;
+		}
+	}
+}
@@ -0,0 +1,632 @@
+/*
+ * Copyright (c) 2020 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator.support_vector_machine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import org.dmg.pmml.Array;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.MathContext;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.PMMLObject;
+import org.dmg.pmml.RealSparseArray;
+import org.dmg.pmml.support_vector_machine.Coefficient;
+import org.dmg.pmml.support_vector_machine.Coefficients;
+import org.dmg.pmml.support_vector_machine.Kernel;
+import org.dmg.pmml.support_vector_machine.LinearKernel;
+import org.dmg.pmml.support_vector_machine.PMMLAttributes;
+import org.dmg.pmml.support_vector_machine.PolynomialKernel;
+import org.dmg.pmml.support_vector_machine.RadialBasisKernel;
+import org.dmg.pmml.support_vector_machine.SigmoidKernel;
+import org.dmg.pmml.support_vector_machine.SupportVector;
+import org.dmg.pmml.support_vector_machine.SupportVectorMachine;
+import org.dmg.pmml.support_vector_machine.SupportVectorMachineModel;
+import org.dmg.pmml.support_vector_machine.VectorDictionary;
+import org.dmg.pmml.support_vector_machine.VectorFields;
+import org.dmg.pmml.support_vector_machine.VectorInstance;
+import org.jpmml.evaluator.ArrayUtil;
+import org.jpmml.evaluator.Classification;
+import org.jpmml.evaluator.InvalidElementException;
+import org.jpmml.evaluator.MissingAttributeException;
+import org.jpmml.evaluator.MissingValueException;
+import org.jpmml.evaluator.TargetField;
+import org.jpmml.evaluator.TypeUtil;
+import org.jpmml.evaluator.UnsupportedAttributeException;
+import org.jpmml.evaluator.UnsupportedElementException;
+import org.jpmml.evaluator.Value;
+import org.jpmml.evaluator.VoteDistribution;
+import org.jpmml.translator.FieldInfo;
+import org.jpmml.translator.IdentifierUtil;
+import org.jpmml.translator.JBinaryFileInitializer;
+import org.jpmml.translator.JDirectInitializer;
+import org.jpmml.translator.MethodScope;
+import org.jpmml.translator.MathUtil;
+import org.jpmml.translator.ModelTranslator;
+import org.jpmml.translator.OperableRef;
+import org.jpmml.translator.PMMLObjectUtil;
+import org.jpmml.translator.TranslationContext;
+import org.jpmml.translator.ValueFactoryRef;
+import org.jpmml.translator.ValueMapBuilder;
+
+public class SupportVectorMachineModelTranslator extends ModelTranslator<SupportVectorMachineModel> {
+
+	public SupportVectorMachineModelTranslator(PMML pmml, SupportVectorMachineModel supportVectorMachineModel){
+		super(pmml, supportVectorMachineModel);
+
+		MiningFunction miningFunction = supportVectorMachineModel.getMiningFunction();
+		List<SupportVectorMachine> supportVectorMachines = supportVectorMachineModel.getSupportVectorMachines();
+
+		switch(miningFunction){
+			case REGRESSION:
+				{
+					if(supportVectorMachines.size() != 1){
+						throw new InvalidElementException(supportVectorMachineModel);
+					}
+				}
+				break;
+			case CLASSIFICATION:
+				{
+					SupportVectorMachineModel.ClassificationMethod classificationMethod = supportVectorMachineModel.getClassificationMethod();
+
+					switch(classificationMethod){
+						case ONE_AGAINST_ONE:
+							break;
+						default:
+							throw new UnsupportedAttributeException(supportVectorMachineModel, classificationMethod);
+					}
+
+					for(SupportVectorMachine supportVectorMachine : supportVectorMachines){
+
+						if(supportVectorMachine.getTargetCategory() == null){
+							throw new MissingAttributeException(supportVectorMachine, PMMLAttributes.SUPPORTVECTORMACHINE_TARGETCATEGORY);
+						} // End if
+
+						if(supportVectorMachine.getAlternateTargetCategory() == null){
+							throw new MissingAttributeException(supportVectorMachine, PMMLAttributes.SUPPORTVECTORMACHINE_ALTERNATETARGETCATEGORY);
+						}
+					}
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(supportVectorMachineModel, miningFunction);
+		}
+
+		Kernel kernel = supportVectorMachineModel.getKernel();
+
+		SupportVectorMachineModel.Representation representation = supportVectorMachineModel.getRepresentation();
+		switch(representation){
+			case SUPPORT_VECTORS:
+				{
+					if(kernel instanceof LinearKernel || kernel instanceof PolynomialKernel || kernel instanceof RadialBasisKernel || kernel instanceof SigmoidKernel){
+						// Ignored
+					} else
+
+					{
+						throw new UnsupportedElementException(kernel);
+					}
+				}
+				break;
+			case COEFFICIENTS:
+				{
+					if(!(kernel instanceof LinearKernel)){
+						throw new UnsupportedAttributeException(supportVectorMachineModel, representation);
+					}
+				}
+				break;
+			default:
+				throw new UnsupportedAttributeException(supportVectorMachineModel, representation);
+		}
+
+		VectorDictionary vectorDictionary = supportVectorMachineModel.getVectorDictionary();
+
+		VectorFields vectorFields = vectorDictionary.getVectorFields();
+
+		List<PMMLObject> content = vectorFields.getContent();
+		for(PMMLObject object : content){
+
+			if(!(object instanceof FieldRef)){
+				throw new UnsupportedElementException(object);
+			}
+		}
+	}
+
+	@Override
+	public JMethod translateRegressor(TranslationContext context){
+		SupportVectorMachineModel supportVectorMachineModel = getModel();
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(supportVectorMachineModel.getVectorDictionary()));
+
+		JMethod evaluateMethod = createEvaluatorMethod(Value.class, supportVectorMachineModel, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			List<JVar> valueVars = translateSupportVectorMachines(supportVectorMachineModel, fieldInfos, context);
+
+			context._return(context.getValueFactoryVariable().newValue(valueVars.get(0)));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	/**
+	 * <p>
+	 * Translates one-against-one classification.
+	 * Votes are counted in primitive <code>int</code> arrays.
+	 * Categories are entered into the vote distribution in the order of their first vote, which determines the winner in case of a tie.
+	 * </p>
+	 */
+	@Override
+	public JMethod translateClassifier(TranslationContext context){
+		SupportVectorMachineModel supportVectorMachineModel = getModel();
+
+		List<SupportVectorMachine> supportVectorMachines = supportVectorMachineModel.getSupportVectorMachines();
+		MathContext mathContext = supportVectorMachineModel.getMathContext();
+
+		TargetField targetField = getTargetField();
+
+		List<Object> targetCategories = new ArrayList<>(targetField.getCategories());
+
+		Map<FieldName, FieldInfo> fieldInfos = getFieldInfos(Collections.singleton(supportVectorMachineModel.getVectorDictionary()));
+
+		JMethod evaluateMethod = createEvaluatorMethod(Classification.class, supportVectorMachineModel, true, context);
+
+		try {
+			context.pushScope(new MethodScope(evaluateMethod));
+
+			List<JVar> valueVars = translateSupportVectorMachines(supportVectorMachineModel, fieldInfos, context);
+
+			JType intType = context._ref(int.class);
+
+			JVar votesVar = context.declare(intType.array(), "votes", JExpr.newArray(intType, targetCategories.size()));
+			JVar orderVar = context.declare(intType.array(), "order", JExpr.newArray(intType, targetCategories.size()));
+			JVar countVar = context.declare(intType, "count", JExpr.lit(0));
+
+			JBlock block = context.block();
+
+			for(int i = 0; i < supportVectorMachines.size(); i++){
+				SupportVectorMachine supportVectorMachine = supportVectorMachines.get(i);
+
+				int targetIndex = targetCategories.indexOf(TypeUtil.parseOrCast(targetField.getDataType(), supportVectorMachine.getTargetCategory()));
+				int alternateTargetIndex = targetCategories.indexOf(TypeUtil.parseOrCast(targetField.getDataType(), supportVectorMachine.getAlternateTargetCategory()));
+
+				if(targetIndex < 0 || alternateTargetIndex < 0){
+					throw new InvalidElementException(supportVectorMachine);
+				}
+
+				Number threshold = supportVectorMachine.getThreshold();
+				if(threshold == null){
+					threshold = supportVectorMachineModel.getThreshold();
+				}
+
+				JVar valueVar = valueVars.get(i);
+
+				JExpression thresholdExpr = PMMLObjectUtil.createExpression(threshold, mathContext);
+
+				JExpression targetExpr = (supportVectorMachineModel.isMaxWins() ? valueVar.gt(thresholdExpr) : valueVar.lt(thresholdExpr));
+
+				JVar labelVar = context.declare(intType, IdentifierUtil.create("label", supportVectorMachine), JOp.cond(targetExpr, JExpr.lit(targetIndex), JExpr.lit(alternateTargetIndex)));
+
+				block._if((JOp.incr(votesVar.component(labelVar))).eq(JExpr.lit(0)))._then().assign(orderVar.component(countVar.incr()), labelVar);
+			}
+
+			JDirectInitializer codeInitializer = new JDirectInitializer(context);
+
+			JFieldVar targetCategoriesVar = codeInitializer.initTargetCategories(IdentifierUtil.create("targetCategories", supportVectorMachineModel), targetCategories);
+
+			ValueFactoryRef valueFactoryRef = context.getValueFactoryVariable();
+
+			ValueMapBuilder valueMapBuilder = new ValueMapBuilder(context)
+				.construct("values");
+
+			JForLoop forLoop = block._for();
+
+			JVar loopVar = forLoop.init(intType, "i", JExpr.lit(0));
+			forLoop.test(loopVar.lt(countVar));
+			forLoop.update(loopVar.incr());
+
+			JBlock forBody = forLoop.body();
+
+			JVar indexVar = forBody.decl(intType, "index", orderVar.component(loopVar));
+
+			forBody.add((valueMapBuilder.getVariable().invoke("put")).arg(targetCategoriesVar.invoke("get").arg(indexVar)).arg(valueFactoryRef.newValue(votesVar.component(indexVar))));
+
+			context._return(context._new(VoteDistribution.class, valueMapBuilder));
+		} finally {
+			context.popScope();
+		}
+
+		return evaluateMethod;
+	}
+
+	/**
+	 * <p>
+	 * Computes the decision function value of every support vector machine using primitive <code>float</code> or <code>double</code> arithmetic.
+	 * </p>
+	 *
+	 * <p>
+	 * Linear kernels are collapsed into a single weight vector per support vector machine, which is inlined as literals.
+	 * Other kernels are evaluated once per support vector, with support vectors packed into a contiguous row-major array.
+	 * The kernel values are then shared between all support vector machines.
+	 * </p>
+	 */
+	static
+	private List<JVar> translateSupportVectorMachines(SupportVectorMachineModel supportVectorMachineModel, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		Kernel kernel = supportVectorMachineModel.getKernel();
+		List<SupportVectorMachine> supportVectorMachines = supportVectorMachineModel.getSupportVectorMachines();
+		SupportVectorMachineModel.Representation representation = supportVectorMachineModel.getRepresentation();
+		MathContext mathContext = supportVectorMachineModel.getMathContext();
+
+		JPrimitiveType type = getPrimitiveType(supportVectorMachineModel, context);
+
+		VectorDictionary vectorDictionary = supportVectorMachineModel.getVectorDictionary();
+
+		List<JExpression> inputExprs = translateVectorFields(vectorDictionary.getVectorFields(), type, fieldInfos, context);
+
+		Map<String, double[]> vectors = parseVectorInstances(vectorDictionary, inputExprs.size());
+
+		List<JVar> result = new ArrayList<>();
+
+		if(kernel instanceof LinearKernel){
+
+			for(SupportVectorMachine supportVectorMachine : supportVectorMachines){
+				Coefficients coefficients = supportVectorMachine.getCoefficients();
+
+				double[] weights;
+
+				switch(representation){
+					case SUPPORT_VECTORS:
+						weights = collapseSupportVectors(supportVectorMachine, vectors, inputExprs.size());
+						break;
+					case COEFFICIENTS:
+						weights = toDoubleArray(coefficients, inputExprs.size());
+						break;
+					default:
+						throw new UnsupportedAttributeException(supportVectorMachineModel, representation);
+				}
+
+				JExpression valueExpr = null;
+
+				for(int i = 0; i < weights.length; i++){
+
+					if(weights[i] == 0d){
+						continue;
+					}
+
+					JExpression termExpr = (PMMLObjectUtil.createExpression(weights[i], mathContext)).mul(inputExprs.get(i));
+
+					valueExpr = (valueExpr != null ? valueExpr.plus(termExpr) : termExpr);
+				}
+
+				JExpression absoluteValueExpr = PMMLObjectUtil.createExpression(coefficients.getAbsoluteValue(), mathContext);
+
+				valueExpr = (valueExpr != null ? valueExpr.plus(absoluteValueExpr) : absoluteValueExpr);
+
+				result.add(context.declare(type, IdentifierUtil.create("value", supportVectorMachine), valueExpr));
+			}
+
+			return result;
+		}
+
+		List<String> ids = new ArrayList<>(vectors.keySet());
+
+		Map<String, Integer> indices = new LinkedHashMap<>();
+
+		for(int i = 0; i < ids.size(); i++){
+			indices.put(ids.get(i), i);
+		}
+
+		int numberOfFields = inputExprs.size();
+
+		Number[] vectorValues = new Number[ids.size() * numberOfFields];
+
+		for(int i = 0; i < ids.size(); i++){
+			double[] vector = vectors.get(ids.get(i));
+
+			for(int j = 0; j < numberOfFields; j++){
+				vectorValues[i * numberOfFields + j] = vector[j];
+			}
+		}
+
+		JBinaryFileInitializer resourceInitializer = new JBinaryFileInitializer(context, IdentifierUtil.create(SupportVectorMachineModel.class.getSimpleName(), supportVectorMachineModel) + ".data");
+
+		JFieldVar vectorsVar = resourceInitializer.initFpPrimitiveArray(IdentifierUtil.create("vectors", vectorDictionary), mathContext, vectorValues);
+
+		JArray inputArray = JExpr.newArray(type);
+
+		for(JExpression inputExpr : inputExprs){
+			inputArray.add(inputExpr);
+		}
+
+		JVar inputVar = context.declare(type.array(), "input", inputArray);
+
+		JVar kernelsVar = context.declare(type.array(), "kernels", JExpr.newArray(type, ids.size()));
+
+		JType intType = context._ref(int.class);
+
+		JForLoop forLoop = context.block()._for();
+
+		JVar iVar = forLoop.init(intType, "i", JExpr.lit(0));
+		forLoop.test(iVar.lt(JExpr.lit(ids.size())));
+		forLoop.update(iVar.incr());
+
+		JBlock forBody = forLoop.body();
+
+		JVar sumVar = forBody.decl(type, "sum", PMMLObjectUtil.createExpression(0d, mathContext));
+		JVar offsetVar = forBody.decl(intType, "offset", iVar.mul(JExpr.lit(numberOfFields)));
+
+		JForLoop innerForLoop = forBody._for();
+
+		JVar jVar = innerForLoop.init(intType, "j", JExpr.lit(0));
+		innerForLoop.test(jVar.lt(JExpr.lit(numberOfFields)));
+		innerForLoop.update(jVar.incr());
+
+		JBlock innerForBody = innerForLoop.body();
+
+		if(kernel instanceof RadialBasisKernel){
+			JVar diffVar = innerForBody.decl(type, "diff", JOp.minus(inputVar.component(jVar), vectorsVar.component(offsetVar.plus(jVar))));
+
+			innerForBody.assignPlus(sumVar, diffVar.mul(diffVar));
+		} else
+
+		{
+			innerForBody.assignPlus(sumVar, JOp.mul(vectorsVar.component(offsetVar.plus(jVar)), inputVar.component(jVar)));
+		}
+
+		forBody.assign(kernelsVar.component(iVar), translateKernel(kernel, sumVar, type, context));
+
+		for(SupportVectorMachine supportVectorMachine : supportVectorMachines){
+			Coefficients coefficients = supportVectorMachine.getCoefficients();
+
+			List<SupportVector> supportVectors = supportVectorMachine.getSupportVectors().getSupportVectors();
+			List<Coefficient> coefficientList = coefficients.getCoefficients();
+
+			if(supportVectors.size() != coefficientList.size()){
+				throw new InvalidElementException(supportVectorMachine);
+			}
+
+			int[] vectorIndices = new int[supportVectors.size()];
+			Number[] alphas = new Number[supportVectors.size()];
+
+			for(int i = 0; i < supportVectors.size(); i++){
+				Integer index = indices.get(supportVectors.get(i).getVectorId());
+				if(index == null){
+					throw new InvalidElementException(supportVectors.get(i));
+				}
+
+				vectorIndices[i] = index;
+				alphas[i] = coefficientList.get(i).getValue();
+			}
+
+			JFieldVar indicesVar = resourceInitializer.initIntArray(IdentifierUtil.create("indices", supportVectorMachine), vectorIndices);
+			JFieldVar alphasVar = resourceInitializer.initFpPrimitiveArray(IdentifierUtil.create("alphas", supportVectorMachine), mathContext, alphas);
+
+			JVar valueVar = context.declare(type, IdentifierUtil.create("value", supportVectorMachine), PMMLObjectUtil.createExpression(0d, mathContext));
+
+			JForLoop svmForLoop = context.block()._for();
+
+			JVar kVar = svmForLoop.init(intType, "i", JExpr.lit(0));
+			svmForLoop.test(kVar.lt(JExpr.lit(vectorIndices.length)));
+			svmForLoop.update(kVar.incr());
+
+			svmForLoop.body().assignPlus(valueVar, JOp.mul(alphasVar.component(kVar), kernelsVar.component(indicesVar.component(kVar))));
+
+			context.block().assignPlus(valueVar, PMMLObjectUtil.createExpression(coefficients.getAbsoluteValue(), mathContext));
+
+			result.add(valueVar);
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Throws a {@link MissingValueException} if any vector field value is missing, like the interpreter does.
+	 * </p>
+	 */
+	static
+	private List<JExpression> translateVectorFields(VectorFields vectorFields, JPrimitiveType type, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+		List<JExpression> result = new ArrayList<>();
+
+		List<PMMLObject> content = vectorFields.getContent();
+		for(PMMLObject object : content){
+			FieldRef fieldRef = (FieldRef)object;
+
+			FieldInfo fieldInfo = getFieldInfo(fieldRef.getField(), fieldInfos);
+
+			OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+			if(!context.isNonMissing(operableRef.getVariable())){
+				context.block()._if(operableRef.isMissing())._then()._throw(context._new(MissingValueException.class, fieldRef.getField()));
+
+				context.markNonMissing(operableRef.getVariable());
+			}
+
+			result.add(MathUtil.toPrimitive(operableRef.getVariable(), type));
+		}
+
+		return result;
+	}
+
+	static
+	private JExpression translateKernel(Kernel kernel, JVar sumVar, JPrimitiveType type, TranslationContext context){
+		JExpression result;
+
+		if(kernel instanceof PolynomialKernel){
+			PolynomialKernel polynomialKernel = (PolynomialKernel)kernel;
+
+			// (gamma * x + coef0) ^ degree
+			result = context.staticInvoke(Math.class, "pow", (JExpr.lit((polynomialKernel.getGamma()).doubleValue()).mul(sumVar)).plus(JExpr.lit((polynomialKernel.getCoef0()).doubleValue())), JExpr.lit((polynomialKernel.getDegree()).doubleValue()));
+		} else
+
+		if(kernel instanceof RadialBasisKernel){
+			RadialBasisKernel radialBasisKernel = (RadialBasisKernel)kernel;
+
+			// exp(-gamma * x)
+			result = context.staticInvoke(Math.class, "exp", JExpr.lit(-(radialBasisKernel.getGamma()).doubleValue()).mul(sumVar));
+		} else
+
+		if(kernel instanceof SigmoidKernel){
+			SigmoidKernel sigmoidKernel = (SigmoidKernel)kernel;
+
+			// tanh(gamma * x + coef0)
+			result = context.staticInvoke(Math.class, "tanh", (JExpr.lit((sigmoidKernel.getGamma()).doubleValue()).mul(sumVar)).plus(JExpr.lit((sigmoidKernel.getCoef0()).doubleValue())));
+		} else
+
+		{
+			throw new UnsupportedElementException(kernel);
+		}
+
+		return MathUtil.castPrimitive(result, type);
+	}
+
+	static
+	private Map<String, double[]> parseVectorInstances(VectorDictionary vectorDictionary, int length){
+		Map<String, double[]> result = new LinkedHashMap<>();
+
+		if(!vectorDictionary.hasVectorInstances()){
+			return result;
+		}
+
+		List<VectorInstance> vectorInstances = vectorDictionary.getVectorInstances();
+		for(VectorInstance vectorInstance : vectorInstances){
+			double[] values;
+
+			Array array = vectorInstance.getArray();
+			RealSparseArray sparseArray = vectorInstance.getRealSparseArray();
+
+			if(array != null){
+				List<?> content = ArrayUtil.getContent(array);
+
+				if(content.size() != length){
+					throw new InvalidElementException(array);
+				}
+
+				values = new double[length];
+
+				for(int i = 0; i < length; i++){
+					values[i] = ((Number)TypeUtil.parseOrCast(DataType.DOUBLE, content.get(i))).doubleValue();
+				}
+			} else
+
+			if(sparseArray != null){
+				values = new double[length];
+
+				if(sparseArray.hasIndices()){
+					List<Integer> sparseIndices = sparseArray.getIndices();
+					List<? extends Number> sparseEntries = sparseArray.getEntries();
+
+					if(sparseIndices.size() != sparseEntries.size()){
+						throw new InvalidElementException(sparseArray);
+					}
+
+					for(int i = 0; i < sparseIndices.size(); i++){
+						int index = sparseIndices.get(i);
+
+						// Sparse array indices are 1-based
+						if(index < 1 || index > length){
+							throw new InvalidElementException(sparseArray);
+						}
+
+						values[index - 1] = (sparseEntries.get(i)).doubleValue();
+					}
+				}
+			} else
+
+			{
+				throw new InvalidElementException(vectorInstance);
+			}
+
+			result.put(vectorInstance.getId(), values);
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Sums support vectors (weighted by their coefficients) into a single weight vector.
+	 * </p>
+	 */
+	static
+	private double[] collapseSupportVectors(SupportVectorMachine supportVectorMachine, Map<String, double[]> vectors, int length){
+		List<SupportVector> supportVectors = supportVectorMachine.getSupportVectors().getSupportVectors();
+		List<Coefficient> coefficients = supportVectorMachine.getCoefficients().getCoefficients();
+
+		if(supportVectors.size() != coefficients.size()){
+			throw new InvalidElementException(supportVectorMachine);
+		}
+
+		double[] result = new double[length];
+
+		for(int i = 0; i < supportVectors.size(); i++){
+			SupportVector supportVector = supportVectors.get(i);
+
+			double[] vector = vectors.get(supportVector.getVectorId());
+			if(vector == null){
+				throw new InvalidElementException(supportVector);
+			}
+
+			double coefficient = (coefficients.get(i).getValue()).doubleValue();
+
+			for(int j = 0; j < length; j++){
+				result[j] += coefficient * vector[j];
+			}
+		}
+
+		return result;
+	}
+
+	static
+	private double[] toDoubleArray(Coefficients coefficients, int length){
+		List<Coefficient> coefficientList = coefficients.getCoefficients();
+
+		if(coefficientList.size() != length){
+			throw new InvalidElementException(coefficients);
+		}
+
+		double[] result = new double[length];
+
+		for(int i = 0; i < length; i++){
+			result[i] = (coefficientList.get(i).getValue()).doubleValue();
+		}
+
+		return result;
+	}
+}
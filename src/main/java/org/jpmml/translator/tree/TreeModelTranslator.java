@@ -32,6 +32,7 @@ import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
 import org.dmg.pmml.ComplexArray;
+import org.dmg.pmml.CompoundPredicate;
 import org.dmg.pmml.DataType;
 import org.dmg.pmml.False;
 import org.dmg.pmml.Field;
@@ -424,16 +425,147 @@ public class TreeModelTranslator extends ModelTranslator<TreeModel> {
 		}
 	}
 
+	/**
+	 * <p>
+	 * Translates a predicate into a boolean expression.
+	 * The expression evaluates to <code>true</code> if the predicate evaluates to <code>TRUE</code>,
+	 * and to <code>false</code> if the predicate evaluates to <code>FALSE</code> or <code>UNKNOWN</code>.
+	 * </p>
+	 */
+	static
+	public JExpression translatePredicate(Predicate predicate, Map<FieldName, FieldInfo> fieldInfos, TranslationContext context){
+
+		if(predicate instanceof SimplePredicate){
+			SimplePredicate simplePredicate = (SimplePredicate)predicate;
+
+			FieldInfo fieldInfo = getFieldInfo(simplePredicate, fieldInfos);
+
+			OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+			SimplePredicate.Operator operator = simplePredicate.getOperator();
+			switch(operator){
+				case IS_MISSING:
+					return operableRef.isMissing();
+				case IS_NOT_MISSING:
+					return operableRef.isNotMissing();
+				default:
+					break;
+			}
+
+			Object value = simplePredicate.getValue();
+
+			JExpression valueExpr;
+
+			switch(operator){
+				case EQUAL:
+					valueExpr = operableRef.equalTo(value, context);
+					break;
+				case NOT_EQUAL:
+					valueExpr = operableRef.notEqualTo(value, context);
+					break;
+				case LESS_THAN:
+					valueExpr = operableRef.lessThan(value, context);
+					break;
+				case LESS_OR_EQUAL:
+					valueExpr = operableRef.lessOrEqual(value, context);
+					break;
+				case GREATER_OR_EQUAL:
+					valueExpr = operableRef.greaterOrEqual(value, context);
+					break;
+				case GREATER_THAN:
+					valueExpr = operableRef.greaterThan(value, context);
+					break;
+				default:
+					throw new UnsupportedAttributeException(predicate, operator);
+			}
+
+			return ensureNotMissing(operableRef, valueExpr, context);
+		} else
+
+		if(predicate instanceof SimpleSetPredicate){
+			SimpleSetPredicate simpleSetPredicate = (SimpleSetPredicate)predicate;
+
+			FieldInfo fieldInfo = getFieldInfo(simpleSetPredicate, fieldInfos);
+
+			OperableRef operableRef = context.ensureOperableVariable(fieldInfo);
+
+			ComplexArray complexArray = (ComplexArray)simpleSetPredicate.getArray();
+
+			Collection<?> values = complexArray.getValue();
+
+			JExpression valueExpr;
+
+			SimpleSetPredicate.BooleanOperator booleanOperator = simpleSetPredicate.getBooleanOperator();
+			switch(booleanOperator){
+				case IS_IN:
+					valueExpr = operableRef.isIn(values, context);
+					break;
+				case IS_NOT_IN:
+					valueExpr = operableRef.isNotIn(values, context);
+					break;
+				default:
+					throw new UnsupportedAttributeException(predicate, booleanOperator);
+			}
+
+			return ensureNotMissing(operableRef, valueExpr, context);
+		} else
+
+		if(predicate instanceof CompoundPredicate){
+			CompoundPredicate compoundPredicate = (CompoundPredicate)predicate;
+
+			List<Predicate> predicates = compoundPredicate.getPredicates();
+
+			JExpression result = null;
+
+			// Predicates that evaluate to UNKNOWN are indistinguishable from predicates that evaluate to FALSE
+			CompoundPredicate.BooleanOperator booleanOperator = compoundPredicate.getBooleanOperator();
+			switch(booleanOperator){
+				case AND:
+					for(Predicate childPredicate : predicates){
+						JExpression childExpr = translatePredicate(childPredicate, fieldInfos, context);
+
+						result = (result != null ? result.cand(childExpr) : childExpr);
+					}
+					break;
+				case OR:
+					for(Predicate childPredicate : predicates){
+						JExpression childExpr = translatePredicate(childPredicate, fieldInfos, context);
+
+						result = (result != null ? result.cor(childExpr) : childExpr);
+					}
+					break;
+				default:
+					throw new UnsupportedAttributeException(predicate, booleanOperator);
+			}
+
+			if(result == null){
+				throw new UnsupportedElementException(predicate);
+			}
+
+			return result;
+		} else
+
+		if(predicate instanceof True){
+			return JExpr.TRUE;
+		} else
+
+		if(predicate instanceof False){
+			return JExpr.FALSE;
+		} else
+
+		{
+			throw new UnsupportedElementException(predicate);
+		}
+	}
+
 	static
 	public Map<FieldName, FieldInfo> enhanceFieldInfos(Set<? extends PMMLObject> bodyObjects, Map<FieldName, FieldInfo> fieldInfos){
 		PrimaryFieldReferenceFinder primaryFieldReferenceFinder = new PrimaryFieldReferenceFinder();
 		DiscreteValueFinder discreteValueFinder = new DiscreteValueFinder();
 
 		for(PMMLObject bodyObject : bodyObjects){
-			Node node = (Node)bodyObject;
-
-			primaryFieldReferenceFinder.applyTo(node);
-			discreteValueFinder.applyTo(node);
+			primaryFieldReferenceFinder.applyTo(bodyObject);
+			discreteValueFinder.applyTo(bodyObject);
 		}
 
 		Set<FieldName> primaryFieldNames = primaryFieldReferenceFinder.getFieldNames();
@@ -466,6 +598,14 @@ public class TreeModelTranslator extends ModelTranslator<TreeModel> {
 					break;
 				case CATEGORICAL:
 					{
+						switch(dataType){
+							case STRING:
+							case INTEGER:
+								break;
+							default:
+								continue;
+						}
+
 						Set<?> values = discreteFieldValues.get(name);
 						if(values != null && values.size() > 0){
 							fieldInfo.setEncoder(new OrdinalEncoder(values));
@@ -496,6 +636,21 @@ public class TreeModelTranslator extends ModelTranslator<TreeModel> {
 		return valueMapBuilder;
 	}
 
+	static
+	private JExpression ensureNotMissing(OperableRef operableRef, JExpression valueExpr, TranslationContext context){
+		JVar variable = operableRef.getVariable();
+
+		if(!context.isNonMissing(variable)){
+			JType type = operableRef.type();
+
+			if(type.isReference()){
+				return (operableRef.isNotMissing()).cand(valueExpr);
+			}
+		}
+
+		return valueExpr;
+	}
+
 	static
 	private Scope createBranch(JBlock block, JExpression testExpr){
 		JBlock thenBlock = block._if(testExpr)._then();
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.dmg.pmml.Apply;
+import org.dmg.pmml.Constant;
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Expression;
+import org.dmg.pmml.Field;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.InvalidValueTreatmentMethod;
+import org.dmg.pmml.LinearNorm;
+import org.dmg.pmml.NormContinuous;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.OutlierTreatmentMethod;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpressionTranslatorTest {
+
+	private Map<FieldName, Field<?>> fields = new HashMap<>();
+
+	{
+		register(new DataField(FieldName.create("x"), OpType.CONTINUOUS, DataType.DOUBLE));
+		register(new DataField(FieldName.create("y"), OpType.CONTINUOUS, DataType.DOUBLE));
+		register(new DataField(FieldName.create("n"), OpType.CONTINUOUS, DataType.INTEGER));
+		register(new DataField(FieldName.create("f"), OpType.CONTINUOUS, DataType.FLOAT));
+
+		// Translatable
+		register(new DerivedField(FieldName.create("x/2"), OpType.CONTINUOUS, DataType.DOUBLE, apply("/", new FieldRef(FieldName.create("x")), constant(2))));
+
+		// Not translatable
+		register(new DerivedField(FieldName.create("x/y"), OpType.CONTINUOUS, DataType.DOUBLE, apply("/", new FieldRef(FieldName.create("x")), new FieldRef(FieldName.create("y")))));
+	}
+
+	@Test
+	public void isTranslatable(){
+		FieldRef x = new FieldRef(FieldName.create("x"));
+		FieldRef y = new FieldRef(FieldName.create("y"));
+		FieldRef n = new FieldRef(FieldName.create("n"));
+		FieldRef f = new FieldRef(FieldName.create("f"));
+
+		assertTrue(isTranslatable(x));
+		assertTrue(isTranslatable(n));
+		assertFalse(isTranslatable(f));
+
+		assertTrue(isTranslatable(constant(1)));
+		assertFalse(isTranslatable(constant(Double.NaN)));
+
+		// Inf - Inf
+		assertTrue(isTranslatable(apply("+", x, constant(1))));
+		assertTrue(isTranslatable(apply("-", x, n)));
+		assertFalse(isTranslatable(apply("-", x, y)));
+		assertTrue(isTranslatable(apply("-", x, y).setInvalidValueTreatment(InvalidValueTreatmentMethod.AS_MISSING)));
+
+		// 0 * Inf
+		assertTrue(isTranslatable(apply("*", x, constant(2))));
+		assertFalse(isTranslatable(apply("*", x, constant(0))));
+		assertFalse(isTranslatable(apply("*", x, y)));
+		assertTrue(isTranslatable(apply("*", n, apply("abs", n))));
+
+		// 0 / 0, Inf / Inf
+		assertTrue(isTranslatable(apply("/", x, constant(2))));
+		assertTrue(isTranslatable(apply("/", constant(1), x)));
+		assertFalse(isTranslatable(apply("/", x, constant(0))));
+		assertFalse(isTranslatable(apply("/", x, y)));
+		assertFalse(isTranslatable(apply("/", x, y).setInvalidValueTreatment(InvalidValueTreatmentMethod.AS_IS)));
+		assertTrue(isTranslatable(apply("/", x, y).setInvalidValueTreatment(InvalidValueTreatmentMethod.AS_MISSING)));
+
+		assertTrue(isTranslatable(apply("exp", x)));
+		assertTrue(isTranslatable(apply("floor", x)));
+
+		// Negative arguments
+		assertFalse(isTranslatable(apply("sqrt", x)));
+		assertFalse(isTranslatable(apply("ln", constant(-1))));
+		assertTrue(isTranslatable(apply("ln", constant(0))));
+		assertTrue(isTranslatable(apply("ln", apply("exp", x))));
+		assertTrue(isTranslatable(apply("log10", apply("abs", x))));
+		assertTrue(isTranslatable(apply("sqrt", x).setInvalidValueTreatment(InvalidValueTreatmentMethod.AS_MISSING)));
+
+		// Negative base, non-integer exponent
+		assertTrue(isTranslatable(apply("pow", x, constant(2))));
+		assertFalse(isTranslatable(apply("pow", x, constant(0.5))));
+		assertFalse(isTranslatable(apply("pow", x, y)));
+
+		assertTrue(isTranslatable(apply("*", new FieldRef(FieldName.create("x/2")), constant(2))));
+		assertFalse(isTranslatable(apply("*", new FieldRef(FieldName.create("x/y")), constant(2))));
+		assertFalse(isTranslatable(new FieldRef(FieldName.create("x/y"))));
+
+		assertTrue(isTranslatable(normContinuous(x, OutlierTreatmentMethod.AS_IS, 0d, 0.5d, 0.5d, 1d)));
+		assertTrue(isTranslatable(normContinuous(n, OutlierTreatmentMethod.AS_IS, 0d, 0d, 1d)));
+		assertTrue(isTranslatable(normContinuous(x, OutlierTreatmentMethod.AS_EXTREME_VALUES, 0d, 0d, 1d)));
+		assertFalse(isTranslatable(normContinuous(x, OutlierTreatmentMethod.AS_IS, 0d, 0d, 1d)));
+		assertFalse(isTranslatable(normContinuous(x, OutlierTreatmentMethod.AS_IS, 0d, 1d, 1d)));
+	}
+
+	private boolean isTranslatable(Expression expression){
+		return ExpressionTranslator.isTranslatable(expression, DataType.DOUBLE, this.fields::get);
+	}
+
+	private void register(Field<?> field){
+		this.fields.put(field.getName(), field);
+	}
+
+	static
+	private Apply apply(String function, Expression... expressions){
+		Apply apply = new Apply(function);
+
+		(apply.getExpressions()).addAll(Arrays.asList(expressions));
+
+		return apply;
+	}
+
+	static
+	private Constant constant(double value){
+		return new Constant(value)
+			.setDataType(DataType.DOUBLE);
+	}
+
+	static
+	private NormContinuous normContinuous(FieldRef fieldRef, OutlierTreatmentMethod outlierTreatment, double... norms){
+		NormContinuous normContinuous = new NormContinuous(fieldRef.getField(), null)
+			.setOutliers(outlierTreatment);
+
+		for(int i = 0; i < norms.length; i++){
+			normContinuous.addLinearNorms(new LinearNorm(i, norms[i]));
+		}
+
+		return normContinuous;
+	}
+}
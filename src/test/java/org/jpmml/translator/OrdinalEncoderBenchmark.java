@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2019 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.dmg.pmml.FieldName;
+
+/**
+ * <p>
+ * Compares the perfect hash lookup against the <code>switch</code> statement on high-cardinality <code>String</code> categories.
+ * </p>
+ *
+ * <p>
+ * Both variants are translated from the same regression model.
+ * The <code>switch</code> statement is forced by adding a pair of categories that have the same hash code.
+ * </p>
+ *
+ * Usage: <code>OrdinalEncoderBenchmark [levels] [unknown fraction]</code>
+ */
+public class OrdinalEncoderBenchmark {
+
+	static
+	public void main(String... args) throws Exception {
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		double unknownFraction = (args.length > 1) ? Double.parseDouble(args[1]) : 0.1d;
+
+		FieldName name = FieldName.create("x");
+		FieldName targetName = FieldName.create("y");
+
+		List<String> categories = new ArrayList<>();
+
+		for(int i = 0; i < size; i++){
+			categories.add("category_" + i);
+		}
+
+		List<String> collidingCategories = new ArrayList<>(categories);
+		collidingCategories.add("Aa");
+		collidingCategories.add("BB");
+
+		RawEvaluator perfectHashEvaluator = (RawEvaluator)OrdinalEncoderTest.translate(OrdinalEncoderTest.createRegressionModel(name, targetName, categories));
+		RawEvaluator switchEvaluator;
+
+		try {
+			switchEvaluator = (RawEvaluator)OrdinalEncoderTest.translate(OrdinalEncoderTest.createRegressionModel(name, targetName, collidingCategories));
+		} catch(IOException ioe){
+			// The switch statement exceeds the 64 kB method size limit (between 1500 and 2000 levels)
+			switchEvaluator = null;
+		}
+
+		Random random = new Random(42L);
+
+		List<Map<FieldName, ?>> arguments = new ArrayList<>();
+
+		for(int i = 0; i < 10000; i++){
+			String value = (random.nextDouble() < unknownFraction) ? ("unknown_" + i) : categories.get(random.nextInt(size));
+
+			// Cache the hash code, as in the case of long-lived strings
+			value.hashCode();
+
+			arguments.add(Collections.singletonMap(name, value));
+		}
+
+		System.out.println("Levels: " + size + ", unknown fraction: " + unknownFraction);
+
+		for(int round = 0; round < 3; round++){
+			System.out.println("Perfect hash: " + measure(perfectHashEvaluator, arguments, targetName) + " ns/op");
+			System.out.println("Switch: " + ((switchEvaluator != null) ? (measure(switchEvaluator, arguments, targetName) + " ns/op") : "not compilable"));
+		}
+	}
+
+	static
+	private double measure(RawEvaluator rawEvaluator, List<Map<FieldName, ?>> arguments, FieldName targetName){
+		double sum = 0d;
+
+		// Warmup
+		for(int i = 0; i < 50; i++){
+			sum += run(rawEvaluator, arguments, targetName);
+		}
+
+		long[] times = new long[20];
+
+		for(int i = 0; i < times.length; i++){
+			long begin = System.nanoTime();
+
+			sum += run(rawEvaluator, arguments, targetName);
+
+			times[i] = System.nanoTime() - begin;
+		}
+
+		// Keep the results alive
+		if(sum == Double.NEGATIVE_INFINITY){
+			throw new AssertionError();
+		}
+
+		Arrays.sort(times);
+
+		return (double)times[times.length / 2] / arguments.size();
+	}
+
+	static
+	private double run(RawEvaluator rawEvaluator, List<Map<FieldName, ?>> arguments, FieldName targetName){
+		double sum = 0d;
+
+		for(Map<FieldName, ?> argument : arguments){
+			Map<FieldName, ?> result = rawEvaluator.evaluateRaw(argument);
+
+			sum += (Double)result.get(targetName);
+		}
+
+		return sum;
+	}
+}
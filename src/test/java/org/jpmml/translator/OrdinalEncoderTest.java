@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2019 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.translator;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.codemodel.JCodeModel;
+import org.dmg.pmml.DataDictionary;
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.Header;
+import org.dmg.pmml.MiningField;
+import org.dmg.pmml.MiningFunction;
+import org.dmg.pmml.MiningSchema;
+import org.dmg.pmml.Model;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.Value;
+import org.dmg.pmml.Version;
+import org.dmg.pmml.regression.CategoricalPredictor;
+import org.dmg.pmml.regression.RegressionModel;
+import org.dmg.pmml.regression.RegressionTable;
+import org.jpmml.codemodel.JCodeModelClassLoader;
+import org.jpmml.model.PMMLUtil;
+import org.jpmml.transpiler.TranspilerUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OrdinalEncoderTest {
+
+	@Test
+	public void perfectHash(){
+		Map<Object, Integer> indexMap = new LinkedHashMap<>();
+
+		for(int i = 0; i < 5000; i++){
+			indexMap.put("category_" + i, i + 1);
+		}
+
+		OrdinalEncoder.PerfectHash perfectHash = OrdinalEncoder.PerfectHash.build(indexMap);
+
+		assertNotNull(perfectHash);
+
+		assertEquals(indexMap.size(), perfectHash.size());
+
+		for(Map.Entry<Object, Integer> entry : indexMap.entrySet()){
+			assertEquals((int)entry.getValue(), perfectHash.lookup((String)entry.getKey()));
+		}
+
+		assertEquals(0, perfectHash.lookup("category_5000"));
+		assertEquals(0, perfectHash.lookup(""));
+	}
+
+	@Test
+	public void perfectHashCollision(){
+		Map<Object, Integer> indexMap = new LinkedHashMap<>();
+
+		// "Aa" and "BB" have the same hash code
+		indexMap.put("Aa", 1);
+		indexMap.put("BB", 2);
+
+		assertNull(OrdinalEncoder.PerfectHash.build(indexMap));
+	}
+
+	@Test
+	public void translatePerfectHash() throws Exception {
+		FieldName name = FieldName.create("x");
+		FieldName targetName = FieldName.create("y");
+
+		int size = 1000;
+
+		List<String> categories = new ArrayList<>();
+
+		for(int i = 0; i < size; i++){
+			categories.add("category_" + i);
+		}
+
+		Model model = translate(createRegressionModel(name, targetName, categories));
+
+		Method mixMethod = findMethod(model.getClass(), "mix", int.class, int.class);
+
+		assertNotNull(mixMethod);
+		assertTrue(Modifier.isStatic(mixMethod.getModifiers()));
+
+		mixMethod.setAccessible(true);
+
+		for(int i = 0; i < size; i++){
+			int hash = ("category_" + i).hashCode();
+
+			for(int seed = 0; seed < 3; seed++){
+				assertEquals(OrdinalEncoder.PerfectHash.mix(hash, seed), mixMethod.invoke(null, hash, seed));
+			}
+		}
+
+		// "Aa" and "BB" have the same hash code, which forces the switch statement
+		List<String> collidingCategories = new ArrayList<>(categories);
+		collidingCategories.add("Aa");
+		collidingCategories.add("BB");
+
+		Model switchModel = translate(createRegressionModel(name, targetName, collidingCategories));
+
+		assertNull(findMethod(switchModel.getClass(), "mix", int.class, int.class));
+
+		RawEvaluator rawEvaluator = (RawEvaluator)model;
+		RawEvaluator switchRawEvaluator = (RawEvaluator)switchModel;
+
+		for(int i = 0; i < size; i++){
+			Map<FieldName, ?> arguments = Collections.singletonMap(name, "category_" + i);
+
+			assertEquals((double)(i + 1), rawEvaluator.evaluateRaw(arguments).get(targetName));
+			assertEquals((double)(i + 1), switchRawEvaluator.evaluateRaw(arguments).get(targetName));
+		}
+
+		List<String> unknownCategories = new ArrayList<>();
+		unknownCategories.add("category_" + size);
+		unknownCategories.add("CATEGORY_0");
+		unknownCategories.add("");
+
+		for(int i = 0; i < size; i += 100){
+			String category = "category_" + i;
+
+			int length = category.length();
+
+			// A different string with the same hash code
+			String collidingCategory = category.substring(0, length - 2) + (char)(category.charAt(length - 2) + 1) + (char)(category.charAt(length - 1) - 31);
+
+			assertEquals(category.hashCode(), collidingCategory.hashCode());
+
+			unknownCategories.add(collidingCategory);
+		}
+
+		// Unknown categories do not match any categorical predictor
+		for(String unknownCategory : unknownCategories){
+			Map<FieldName, ?> arguments = Collections.singletonMap(name, unknownCategory);
+
+			assertEquals(0d, rawEvaluator.evaluateRaw(arguments).get(targetName));
+			assertEquals(0d, switchRawEvaluator.evaluateRaw(arguments).get(targetName));
+		}
+	}
+
+	static
+	PMML createRegressionModel(FieldName name, FieldName targetName, List<String> categories){
+		DataField dataField = new DataField(name, OpType.CATEGORICAL, DataType.STRING);
+
+		RegressionTable regressionTable = new RegressionTable(0d);
+
+		for(int i = 0; i < categories.size(); i++){
+			String category = categories.get(i);
+
+			dataField.addValues(new Value(category));
+
+			regressionTable.addCategoricalPredictors(new CategoricalPredictor(name, category, (double)(i + 1)));
+		}
+
+		DataDictionary dataDictionary = new DataDictionary()
+			.addDataFields(dataField, new DataField(targetName, OpType.CONTINUOUS, DataType.DOUBLE));
+
+		MiningSchema miningSchema = new MiningSchema()
+			.addMiningFields(new MiningField(name), new MiningField(targetName).setUsageType(MiningField.UsageType.TARGET));
+
+		RegressionModel regressionModel = new RegressionModel(MiningFunction.REGRESSION, miningSchema, null)
+			.addRegressionTables(regressionTable);
+
+		PMML pmml = new PMML(Version.PMML_4_3.getVersion(), new Header(), dataDictionary)
+			.addModels(regressionModel);
+
+		return pmml;
+	}
+
+	static
+	Model translate(PMML xmlPmml) throws Exception {
+		JCodeModel codeModel = TranspilerUtil.translate(xmlPmml, null);
+
+		TranspilerUtil.compile(codeModel);
+
+		PMML javaPmml = PMMLUtil.load(new JCodeModelClassLoader(codeModel));
+
+		List<Model> models = javaPmml.getModels();
+
+		return models.get(0);
+	}
+
+	static
+	private Method findMethod(Class<?> clazz, String name, Class<?>... parameterTypes){
+
+		try {
+			return clazz.getDeclaredMethod(name, parameterTypes);
+		} catch(NoSuchMethodException nsme){
+			// Ignored
+		}
+
+		Class<?>[] memberClazzes = clazz.getDeclaredClasses();
+		for(Class<?> memberClazz : memberClazzes){
+			Method method = findMethod(memberClazz, name, parameterTypes);
+
+			if(method != null){
+				return method;
+			}
+		}
+
+		return null;
+	}
+}
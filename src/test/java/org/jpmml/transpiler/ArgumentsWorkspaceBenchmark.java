@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.transpiler;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.codemodel.JCodeModel;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.PMML;
+import org.jpmml.codemodel.JCodeModelClassLoader;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.InputField;
+import org.jpmml.evaluator.ModelEvaluatorBuilder;
+import org.jpmml.evaluator.testing.CsvUtil;
+import org.jpmml.model.PMMLUtil;
+
+/**
+ * <p>
+ * Measures the number of bytes allocated per evaluation of a translated model.
+ * </p>
+ *
+ * <p>
+ * The allocation counter is the one that the JMH GC profiler reports as <code>gc.alloc.rate.norm</code>.
+ * </p>
+ *
+ * Usage: <code>ArgumentsWorkspaceBenchmark [model] [dataset]</code>
+ */
+public class ArgumentsWorkspaceBenchmark {
+
+	static
+	public void main(String... args) throws Exception {
+		String name = (args.length > 0) ? args[0] : "DecisionTreeAuto";
+		String dataset = (args.length > 1) ? args[1] : "Auto";
+
+		PMML xmlPmml;
+
+		try(InputStream is = ArgumentsWorkspaceBenchmark.class.getResourceAsStream("/pmml/" + name + ".pmml")){
+			xmlPmml = PMMLUtil.unmarshal(is);
+		}
+
+		JCodeModel codeModel = TranspilerUtil.translate(xmlPmml, null);
+
+		TranspilerUtil.compile(codeModel);
+
+		PMML javaPmml = PMMLUtil.load(new JCodeModelClassLoader(codeModel));
+
+		Evaluator evaluator = new ModelEvaluatorBuilder(javaPmml)
+			.build();
+
+		List<Map<FieldName, FieldValue>> arguments = loadArguments(evaluator, dataset);
+
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+		long threadId = Thread.currentThread().getId();
+
+		System.out.println("Model: " + name + ", dataset: " + dataset + " (" + arguments.size() + " records)");
+
+		// Warmup
+		for(int i = 0; i < 200; i++){
+			run(evaluator, arguments);
+		}
+
+		int passes = 200;
+
+		for(int round = 0; round < 3; round++){
+			long begin = threadMXBean.getThreadAllocatedBytes(threadId);
+			long beginTime = System.nanoTime();
+
+			for(int i = 0; i < passes; i++){
+				run(evaluator, arguments);
+			}
+
+			long endTime = System.nanoTime();
+			long end = threadMXBean.getThreadAllocatedBytes(threadId);
+
+			long ops = (long)passes * arguments.size();
+
+			System.out.println((double)(end - begin) / ops + " B/op, " + (double)(endTime - beginTime) / ops + " ns/op");
+		}
+	}
+
+	static
+	private void run(Evaluator evaluator, List<Map<FieldName, FieldValue>> arguments){
+
+		for(Map<FieldName, FieldValue> argument : arguments){
+			Map<FieldName, ?> result = evaluator.evaluate(argument);
+
+			if(result.isEmpty()){
+				throw new AssertionError();
+			}
+		}
+	}
+
+	static
+	private List<Map<FieldName, FieldValue>> loadArguments(Evaluator evaluator, String dataset) throws Exception {
+		CsvUtil.Table table;
+
+		try(InputStream is = ArgumentsWorkspaceBenchmark.class.getResourceAsStream("/csv/" + dataset + ".csv")){
+			table = CsvUtil.readTable(is, ",");
+		}
+
+		List<String> header = table.get(0);
+
+		List<InputField> inputFields = evaluator.getInputFields();
+
+		List<Map<FieldName, FieldValue>> result = new ArrayList<>();
+
+		for(List<String> row : table.subList(1, table.size())){
+			Map<FieldName, FieldValue> argument = new LinkedHashMap<>();
+
+			for(InputField inputField : inputFields){
+				FieldName fieldName = inputField.getName();
+
+				String value = row.get(header.indexOf(fieldName.getValue()));
+
+				argument.put(fieldName, inputField.prepare(("N/A").equals(value) ? null : value));
+			}
+
+			result.add(argument);
+		}
+
+		return result;
+	}
+}
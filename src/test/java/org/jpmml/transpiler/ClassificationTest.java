@@ -34,6 +34,11 @@ public class ClassificationTest extends TranspilerTest {
 		evaluate("DecisionTree", "Audit");
 	}
 
+	@Test
+	public void evaluateGeneralRegressionAudit() throws Exception {
+		evaluate("GeneralRegression", "Audit");
+	}
+
 	@Test
 	public void evaluateGradientBoostingAudit() throws Exception {
 		evaluate("GradientBoosting", "Audit");
@@ -54,11 +59,41 @@ public class ClassificationTest extends TranspilerTest {
 		evaluate("LogisticRegression", "Audit");
 	}
 
+	@Test
+	public void evaluateModelChainAudit() throws Exception {
+		evaluate("ModelChain", "Audit");
+	}
+
+	@Test
+	public void evaluateNaiveBayesAudit() throws Exception {
+		evaluate("NaiveBayes", "Audit");
+	}
+
+	@Test
+	public void evaluateNaiveBayesAuditNA() throws Exception {
+		evaluate("NaiveBayes", "AuditNA");
+	}
+
 	@Test
 	public void evaluateRandomForestAudit() throws Exception {
 		evaluate("RandomForest", "Audit");
 	}
 
+	@Test
+	public void evaluateRuleSetAudit() throws Exception {
+		evaluate("RuleSet", "Audit");
+	}
+
+	@Test
+	public void evaluateRuleSetAuditNA() throws Exception {
+		evaluate("RuleSet", "AuditNA");
+	}
+
+	@Test
+	public void evaluateStackingAudit() throws Exception {
+		evaluate("Stacking", "Audit");
+	}
+
 	@Test
 	public void evaluateXGBoostAudit() throws Exception {
 		evaluate("XGBoost", "Audit", excludeFields(FieldName.create("probability(0)")), new FloatEquivalence(12));
@@ -69,11 +104,21 @@ public class ClassificationTest extends TranspilerTest {
 		evaluate("XGBoost", "AuditNA", excludeFields(FieldName.create("probability(0)")), new FloatEquivalence(8));
 	}
 
+	@Test
+	public void evaluateXGBoostStackingAudit() throws Exception {
+		evaluate("XGBoostStacking", "Audit", excludeFields(FieldName.create("probability(0)")), new FloatEquivalence(12));
+	}
+
 	@Test
 	public void evaluateDecisionTreeIris() throws Exception {
 		evaluate("DecisionTree", "Iris");
 	}
 
+	@Test
+	public void evaluateGeneralRegressionIris() throws Exception {
+		evaluate("GeneralRegression", "Iris");
+	}
+
 	@Test
 	public void evaluateGradientBoostingIris() throws Exception {
 		evaluate("GradientBoosting", "Iris");
@@ -89,11 +134,31 @@ public class ClassificationTest extends TranspilerTest {
 		evaluate("LogisticRegression", "Iris");
 	}
 
+	@Test
+	public void evaluateNearestNeighborIris() throws Exception {
+		evaluate("NearestNeighbor", "Iris");
+	}
+
+	@Test
+	public void evaluateNeuralNetworkIris() throws Exception {
+		evaluate("NeuralNetwork", "Iris");
+	}
+
 	@Test
 	public void evaluateRandomForestIris() throws Exception {
 		evaluate("RandomForest", "Iris");
 	}
 
+	@Test
+	public void evaluateRuleSetIris() throws Exception {
+		evaluate("RuleSet", "Iris");
+	}
+
+	@Test
+	public void evaluateSupportVectorMachineIris() throws Exception {
+		evaluate("SupportVectorMachine", "Iris");
+	}
+
 	@Test
 	public void evaluateXGBoostIris() throws Exception {
 		evaluate("XGBoost", "Iris", new FloatEquivalence(8));
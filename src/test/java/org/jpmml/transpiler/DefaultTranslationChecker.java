@@ -21,13 +21,31 @@ package org.jpmml.transpiler;
 import org.dmg.pmml.PMML;
 import org.dmg.pmml.PMMLObject;
 import org.dmg.pmml.VisitorAction;
+import org.dmg.pmml.clustering.ClusteringModel;
+import org.dmg.pmml.general_regression.GeneralRegressionModel;
 import org.dmg.pmml.mining.MiningModel;
+import org.dmg.pmml.naive_bayes.NaiveBayesModel;
+import org.dmg.pmml.nearest_neighbor.NearestNeighborModel;
+import org.dmg.pmml.neural_network.NeuralNetwork;
 import org.dmg.pmml.regression.RegressionModel;
+import org.dmg.pmml.rule_set.RuleSetModel;
+import org.dmg.pmml.scorecard.Scorecard;
+import org.dmg.pmml.support_vector_machine.SupportVectorMachineModel;
 import org.dmg.pmml.tree.TreeModel;
 import org.jpmml.model.visitors.AbstractVisitor;
 
 public class DefaultTranslationChecker extends AbstractVisitor {
 
+	@Override
+	public VisitorAction visit(ClusteringModel clusteringModel){
+		throw new UntranslatedElementException(clusteringModel);
+	}
+
+	@Override
+	public VisitorAction visit(GeneralRegressionModel generalRegressionModel){
+		throw new UntranslatedElementException(generalRegressionModel);
+	}
+
 	@Override
 	public VisitorAction visit(MiningModel miningModel){
 		PMMLObject parent = getParent();
@@ -39,11 +57,41 @@ public class DefaultTranslationChecker extends AbstractVisitor {
 		return super.visit(miningModel);
 	}
 
+	@Override
+	public VisitorAction visit(NaiveBayesModel naiveBayesModel){
+		throw new UntranslatedElementException(naiveBayesModel);
+	}
+
+	@Override
+	public VisitorAction visit(NearestNeighborModel nearestNeighborModel){
+		throw new UntranslatedElementException(nearestNeighborModel);
+	}
+
+	@Override
+	public VisitorAction visit(NeuralNetwork neuralNetwork){
+		throw new UntranslatedElementException(neuralNetwork);
+	}
+
 	@Override
 	public VisitorAction visit(RegressionModel regressionModel){
 		throw new UntranslatedElementException(regressionModel);
 	}
 
+	@Override
+	public VisitorAction visit(RuleSetModel ruleSetModel){
+		throw new UntranslatedElementException(ruleSetModel);
+	}
+
+	@Override
+	public VisitorAction visit(Scorecard scorecard){
+		throw new UntranslatedElementException(scorecard);
+	}
+
+	@Override
+	public VisitorAction visit(SupportVectorMachineModel supportVectorMachineModel){
+		throw new UntranslatedElementException(supportVectorMachineModel);
+	}
+
 	@Override
 	public VisitorAction visit(TreeModel treeModel){
 		throw new UntranslatedElementException(treeModel);
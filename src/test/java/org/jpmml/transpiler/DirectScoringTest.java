@@ -0,0 +1,814 @@
+/*
+ * Copyright (c) 2020 Villu Ruusmann
+ *
+ * This file is part of JPMML-Transpiler
+ *
+ * JPMML-Transpiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JPMML-Transpiler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with JPMML-Transpiler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpmml.transpiler;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import com.sun.codemodel.JCodeModel;
+import org.dmg.pmml.Apply;
+import org.dmg.pmml.Constant;
+import org.dmg.pmml.DataType;
+import org.dmg.pmml.Discretize;
+import org.dmg.pmml.DiscretizeBin;
+import org.dmg.pmml.Expression;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.Interval;
+import org.dmg.pmml.MiningField;
+import org.dmg.pmml.MiningSchema;
+import org.dmg.pmml.Model;
+import org.dmg.pmml.OpType;
+import org.dmg.pmml.OutlierTreatmentMethod;
+import org.dmg.pmml.Output;
+import org.dmg.pmml.OutputField;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.ResultFeature;
+import org.dmg.pmml.clustering.ClusteringField;
+import org.dmg.pmml.clustering.ClusteringModel;
+import org.dmg.pmml.mining.MiningModel;
+import org.dmg.pmml.mining.Segmentation;
+import org.jpmml.codemodel.JCodeModelClassLoader;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.EvaluatorUtil;
+import org.jpmml.evaluator.FieldValue;
+import org.jpmml.evaluator.HasAffinity;
+import org.jpmml.evaluator.InputField;
+import org.jpmml.evaluator.MissingValueException;
+import org.jpmml.evaluator.ModelEvaluatorBuilder;
+import org.jpmml.evaluator.UndefinedResultException;
+import org.jpmml.evaluator.testing.CsvUtil;
+import org.jpmml.model.PMMLUtil;
+import org.jpmml.translator.BatchEvaluator;
+import org.jpmml.translator.FeatureVectorClassifier;
+import org.jpmml.translator.FeatureVectorRegressor;
+import org.jpmml.translator.RawEvaluator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DirectScoringTest {
+
+	@Test
+	public void evaluateLinearRegressionAuto() throws Exception {
+		Model model = loadModel("LinearRegressionAuto");
+
+		assertTrue(model instanceof RawEvaluator);
+		assertTrue(model instanceof BatchEvaluator);
+		assertTrue(model instanceof FeatureVectorRegressor);
+
+		List<String> features = loadFeatures(model);
+
+		List<Map<String, String>> arguments = loadRecords("Auto");
+		List<Map<String, String>> results = loadRecords("LinearRegressionAuto");
+
+		int size = arguments.size();
+
+		Object[] columns = new Object[features.size()];
+
+		for(int j = 0; j < features.size(); j++){
+			String feature = features.get(j);
+
+			if(isInteger(feature)){
+				int[] column = new int[size];
+
+				for(int i = 0; i < size; i++){
+					column[i] = Integer.parseInt((arguments.get(i)).get(feature));
+				}
+
+				columns[j] = column;
+			} else
+
+			{
+				double[] column = new double[size];
+
+				for(int i = 0; i < size; i++){
+					column[i] = Double.parseDouble((arguments.get(i)).get(feature));
+				}
+
+				columns[j] = column;
+			}
+		}
+
+		double[] batchResult = new double[size];
+
+		((BatchEvaluator<double[]>)model).evaluateBatch(columns, new BitSet[features.size()], size, batchResult);
+
+		for(int i = 0; i < size; i++){
+			Map<String, String> argument = arguments.get(i);
+
+			double expected = Double.parseDouble((results.get(i)).get("mpg"));
+
+			Map<FieldName, Object> values = new LinkedHashMap<>();
+
+			double[] x = new double[features.size()];
+
+			for(int j = 0; j < features.size(); j++){
+				String feature = features.get(j);
+
+				String value = argument.get(feature);
+
+				values.put(FieldName.create(feature), isInteger(feature) ? (Object)Integer.valueOf(value) : (Object)Double.valueOf(value));
+
+				x[j] = Double.parseDouble(value);
+			}
+
+			Map<FieldName, ?> rawResult = ((RawEvaluator)model).evaluateRaw(values);
+
+			assertEquals(expected, (Double)rawResult.get(FieldName.create("mpg")), 1e-10);
+
+			assertEquals(expected, ((FeatureVectorRegressor)model).predict(x), 1e-10);
+
+			assertEquals(expected, batchResult[i], 1e-10);
+		}
+	}
+
+	@Test
+	public void evaluateLogisticRegressionIris() throws Exception {
+		Model model = loadModel("LogisticRegressionIris");
+
+		assertTrue(model instanceof RawEvaluator);
+		assertTrue(model instanceof BatchEvaluator);
+		assertTrue(model instanceof FeatureVectorClassifier);
+
+		List<String> features = loadFeatures(model);
+
+		List<Map<String, String>> arguments = loadRecords("Iris");
+		List<Map<String, String>> results = loadRecords("LogisticRegressionIris");
+
+		List<String> categories = new ArrayList<>();
+		categories.add("setosa");
+		categories.add("versicolor");
+		categories.add("virginica");
+
+		int size = arguments.size();
+
+		Object[] columns = new Object[features.size()];
+
+		for(int j = 0; j < features.size(); j++){
+			double[] column = new double[size];
+
+			for(int i = 0; i < size; i++){
+				column[i] = Double.parseDouble((arguments.get(i)).get(features.get(j)));
+			}
+
+			columns[j] = column;
+		}
+
+		int[] batchResult = new int[size];
+
+		((BatchEvaluator<int[]>)model).evaluateBatch(columns, null, size, batchResult);
+
+		for(int i = 0; i < size; i++){
+			Map<String, String> argument = arguments.get(i);
+			Map<String, String> result = results.get(i);
+
+			Map<FieldName, Object> values = new LinkedHashMap<>();
+
+			double[] x = new double[features.size()];
+
+			for(int j = 0; j < features.size(); j++){
+				String feature = features.get(j);
+
+				values.put(FieldName.create(feature), Double.valueOf(argument.get(feature)));
+
+				x[j] = Double.parseDouble(argument.get(feature));
+			}
+
+			Map<FieldName, ?> rawResult = ((RawEvaluator)model).evaluateRaw(values);
+
+			assertEquals(result.get("Species"), EvaluatorUtil.decode(rawResult.get(FieldName.create("Species"))));
+
+			double[] probabilities = new double[categories.size()];
+
+			int index = ((FeatureVectorClassifier)model).classify(x, probabilities);
+
+			assertEquals(result.get("Species"), categories.get(index));
+
+			for(int k = 0; k < categories.size(); k++){
+				String name = "probability(" + categories.get(k) + ")";
+
+				double expected = Double.parseDouble(result.get(name));
+
+				assertEquals(expected, (Double)rawResult.get(FieldName.create(name)), 1e-13);
+				assertEquals(expected, probabilities[k], 1e-13);
+			}
+
+			assertEquals(index, batchResult[i]);
+		}
+	}
+
+	@Test
+	public void evaluateLinearRegressionAutoTreatment() throws Exception {
+		Consumer<Model> customizer = (model) -> {
+			MiningField miningField = getMiningField(model, FieldName.create("horsepower"));
+
+			miningField
+				.setOutlierTreatment(OutlierTreatmentMethod.AS_EXTREME_VALUES)
+				.setLowValue(50)
+				.setHighValue(150);
+		};
+
+		PMML xmlPmml = loadPMML("LinearRegressionAuto");
+
+		customizer.accept((xmlPmml.getModels()).get(0));
+
+		PMML javaPmml = loadJavaPMML("LinearRegressionAuto", customizer);
+
+		Model model = (javaPmml.getModels()).get(0);
+
+		// The direct scoring methods would bypass the outlier treatment
+		assertFalse(model instanceof RawEvaluator);
+		assertFalse(model instanceof BatchEvaluator);
+		assertFalse(model instanceof FeatureVectorRegressor);
+
+		Evaluator xmlEvaluator = new ModelEvaluatorBuilder(xmlPmml)
+			.build();
+
+		Evaluator javaEvaluator = new ModelEvaluatorBuilder(javaPmml)
+			.build();
+
+		List<Map<String, String>> arguments = loadRecords("Auto");
+
+		for(Map<String, String> argument : arguments){
+			Object expected = EvaluatorUtil.decode((evaluate(xmlEvaluator, argument)).get(FieldName.create("mpg")));
+			Object actual = EvaluatorUtil.decode((evaluate(javaEvaluator, argument)).get(FieldName.create("mpg")));
+
+			assertEquals((Double)expected, (Double)actual, 1e-10);
+		}
+	}
+
+	@Test
+	public void evaluateRandomForestAutoNASegmentTreatment() throws Exception {
+		Consumer<Model> customizer = (model) -> {
+			Segmentation segmentation = ((MiningModel)model).getSegmentation();
+
+			Model segmentModel = (segmentation.getSegments()).get(0).getModel();
+
+			// The derived field "seg1(weight_t)" refers to the treated active field
+			MiningField miningField = getMiningField(segmentModel, FieldName.create("weight"));
+
+			miningField
+				.setOutlierTreatment(OutlierTreatmentMethod.AS_EXTREME_VALUES)
+				.setLowValue(1800)
+				.setHighValue(4500);
+		};
+
+		PMML xmlPmml = loadPMML("RandomForestAutoNA");
+
+		customizer.accept((xmlPmml.getModels()).get(0));
+
+		PMML javaPmml = loadJavaPMML("RandomForestAutoNA", customizer);
+
+		Model model = (javaPmml.getModels()).get(0);
+
+		// Pulling up segment-level derived fields would bypass the outlier treatment
+		assertEquals(MiningModel.class, model.getClass());
+
+		Evaluator xmlEvaluator = new ModelEvaluatorBuilder(xmlPmml)
+			.build();
+
+		Evaluator javaEvaluator = new ModelEvaluatorBuilder(javaPmml)
+			.build();
+
+		List<Map<String, String>> arguments = loadRecords("AutoNA");
+
+		for(Map<String, String> argument : arguments){
+			Object expected = EvaluatorUtil.decode((evaluate(xmlEvaluator, argument)).get(FieldName.create("mpg")));
+			Object actual = EvaluatorUtil.decode((evaluate(javaEvaluator, argument)).get(FieldName.create("mpg")));
+
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void evaluateNearestNeighborAutoMissing() throws Exception {
+		PMML xmlPmml = loadPMML("NearestNeighborAuto");
+		PMML javaPmml = loadJavaPMML("NearestNeighborAuto", xmlModel -> {});
+
+		Evaluator xmlEvaluator = new ModelEvaluatorBuilder(xmlPmml)
+			.build();
+
+		Evaluator javaEvaluator = new ModelEvaluatorBuilder(javaPmml)
+			.build();
+
+		// When only the acceleration field is present, then many training instances are equally far away
+		for(String acceleration : Arrays.asList("11.5", "14.5", "15.5", "16.0")){
+			Map<String, String> argument = Collections.singletonMap("acceleration", acceleration);
+
+			Object expected = EvaluatorUtil.decode((evaluate(xmlEvaluator, argument)).get(FieldName.create("mpg")));
+			Object actual = EvaluatorUtil.decode((evaluate(javaEvaluator, argument)).get(FieldName.create("mpg")));
+
+			assertEquals(expected, actual);
+		}
+
+		// When all fields are missing, then the missing value adjustment is undefined
+		for(Evaluator evaluator : Arrays.asList(xmlEvaluator, javaEvaluator)){
+
+			try {
+				evaluate(evaluator, Collections.emptyMap());
+
+				fail();
+			} catch(UndefinedResultException ure){
+				// Ignored
+			}
+		}
+	}
+
+	@Test
+	public void evaluateSupportVectorMachineMissing() throws Exception {
+		evaluateSupportVectorMachineMissing("SupportVectorMachineAuto", "Auto", "horsepower");
+		evaluateSupportVectorMachineMissing("SupportVectorMachineIris", "Iris", "Sepal.Width");
+	}
+
+	@Test
+	public void evaluateKMeansAutoNA() throws Exception {
+		evaluateClustering("KMeans", "AutoNA");
+	}
+
+	@Test
+	public void evaluateKMeansAutoNAWeighted() throws Exception {
+		Consumer<Model> customizer = (model) -> {
+			ClusteringModel clusteringModel = (ClusteringModel)model;
+
+			double[] fieldWeights = {9.155469346623555e-05, 6.766861879781222e-04, 1.389575596322983e-06, 0.13171907971236446};
+
+			List<ClusteringField> clusteringFields = clusteringModel.getClusteringFields();
+
+			for(int i = 0; i < clusteringFields.size(); i++){
+				ClusteringField clusteringField = clusteringFields.get(i);
+
+				clusteringField.setFieldWeight(fieldWeights[i]);
+			}
+		};
+
+		PMML xmlPmml = loadPMML("KMeansAutoNA");
+
+		customizer.accept((xmlPmml.getModels()).get(0));
+
+		Evaluator evaluator = new ModelEvaluatorBuilder(xmlPmml)
+			.build();
+
+		Model model = loadModel("KMeansAutoNA", customizer);
+
+		List<Map<String, String>> arguments = loadRecords("AutoNA");
+
+		for(Map<String, String> argument : arguments){
+			Map<FieldName, Object> values = new LinkedHashMap<>();
+			Map<FieldName, FieldValue> fieldValues = new LinkedHashMap<>();
+
+			List<InputField> inputFields = evaluator.getInputFields();
+			for(InputField inputField : inputFields){
+				FieldName fieldName = inputField.getName();
+
+				String value = argument.get(fieldName.getValue());
+
+				Object rawValue = ("N/A").equals(value) ? null : Double.valueOf(value);
+
+				values.put(fieldName, rawValue);
+				fieldValues.put(fieldName, inputField.prepare(rawValue));
+			}
+
+			Map<FieldName, ?> expectedResult;
+
+			try {
+				expectedResult = evaluator.evaluate(fieldValues);
+			} catch(UndefinedResultException ure){
+
+				try {
+					((RawEvaluator)model).evaluateRaw(values);
+
+					fail();
+				} catch(UndefinedResultException ureToo){
+					// Ignored
+				}
+
+				continue;
+			}
+
+			Map<FieldName, ?> rawResult = ((RawEvaluator)model).evaluateRaw(values);
+
+			Object expectedValue = expectedResult.get(Evaluator.DEFAULT_TARGET_NAME);
+			Object actualValue = rawResult.get(Evaluator.DEFAULT_TARGET_NAME);
+
+			assertEquals(EvaluatorUtil.decode(expectedValue), EvaluatorUtil.decode(actualValue));
+
+			// Field weights are applied the same way as in the interpreter, so the affinities are exactly the same
+			for(String id : Arrays.asList("1", "2", "3", "4")){
+				assertEquals((Double)((HasAffinity)expectedValue).getAffinity(id), (Double)((HasAffinity)actualValue).getAffinity(id));
+			}
+		}
+	}
+
+	@Test
+	public void evaluateKMeansIris() throws Exception {
+		evaluateClustering("KMeans", "Iris");
+	}
+
+	@Test
+	public void evaluateLinearRegressionAutoOutput() throws Exception {
+		Output output = new Output()
+			.addOutputFields(
+				new OutputField(FieldName.create("predicted(mpg)"), OpType.CONTINUOUS, DataType.DOUBLE)
+					.setResultFeature(ResultFeature.PREDICTED_VALUE),
+				new OutputField(FieldName.create("predicted(mpg, float)"), OpType.CONTINUOUS, DataType.FLOAT)
+					.setResultFeature(ResultFeature.PREDICTED_VALUE),
+				new OutputField(FieldName.create("gallons(100 miles)"), OpType.CONTINUOUS, DataType.DOUBLE)
+					.setResultFeature(ResultFeature.TRANSFORMED_VALUE)
+					.setFinalResult(false)
+					.setExpression(apply("/", constant(100d), new FieldRef(FieldName.create("predicted(mpg)")))),
+				new OutputField(FieldName.create("efficiency"), OpType.CATEGORICAL, DataType.STRING)
+					.setResultFeature(ResultFeature.DECISION)
+					.setExpression(discretize(FieldName.create("gallons(100 miles)"), 4d, "efficient", "inefficient"))
+			);
+
+		evaluateOutput("LinearRegressionAuto", "Auto", output, true);
+	}
+
+	@Test
+	public void evaluateLogisticRegressionIrisOutput() throws Exception {
+		Output output = new Output()
+			.addOutputFields(
+				new OutputField(FieldName.create("predicted(Species)"), OpType.CATEGORICAL, DataType.STRING)
+					.setResultFeature(ResultFeature.PREDICTED_VALUE),
+				new OutputField(FieldName.create("probability(setosa)"), OpType.CONTINUOUS, DataType.DOUBLE)
+					.setResultFeature(ResultFeature.PROBABILITY)
+					.setValue("setosa")
+					.setFinalResult(false),
+				new OutputField(FieldName.create("probability(versicolor)"), OpType.CONTINUOUS, DataType.DOUBLE)
+					.setResultFeature(ResultFeature.PROBABILITY)
+					.setValue("versicolor"),
+				new OutputField(FieldName.create("probability(virginica)"), OpType.CONTINUOUS, DataType.DOUBLE)
+					.setResultFeature(ResultFeature.PROBABILITY)
+					.setValue("virginica"),
+				new OutputField(FieldName.create("percentage(setosa)"), OpType.CONTINUOUS, DataType.DOUBLE)
+					.setResultFeature(ResultFeature.TRANSFORMED_VALUE)
+					.setExpression(apply("*", new FieldRef(FieldName.create("probability(setosa)")), constant(100d))),
+				new OutputField(FieldName.create("setosa"), OpType.CATEGORICAL, DataType.STRING)
+					.setResultFeature(ResultFeature.DECISION)
+					.setExpression(discretize(FieldName.create("percentage(setosa)"), 50d, "no", "yes"))
+			);
+
+		evaluateOutput("LogisticRegressionIris", "Iris", output, true);
+	}
+
+	@Test
+	public void evaluateLogisticRegressionIrisEntityIdOutput() throws Exception {
+		Output output = new Output()
+			.addOutputFields(
+				new OutputField(FieldName.create("predicted(Species)"), OpType.CATEGORICAL, DataType.STRING)
+					.setResultFeature(ResultFeature.PREDICTED_VALUE),
+				new OutputField(FieldName.create("entityId"), OpType.CATEGORICAL, DataType.STRING)
+					.setResultFeature(ResultFeature.ENTITY_ID)
+			);
+
+		// The regression model result does not provide entity identifiers, so output fields are not translated
+		evaluateOutput("LogisticRegressionIris", "Iris", output, false);
+	}
+
+	static
+	private void evaluateSupportVectorMachineMissing(String name, String dataset, String missingFeature) throws Exception {
+		PMML xmlPmml = loadPMML(name);
+		PMML javaPmml = loadJavaPMML(name, xmlModel -> {});
+
+		Evaluator xmlEvaluator = new ModelEvaluatorBuilder(xmlPmml)
+			.build();
+
+		Evaluator javaEvaluator = new ModelEvaluatorBuilder(javaPmml)
+			.build();
+
+		Map<String, String> argument = new LinkedHashMap<>((loadRecords(dataset)).get(0));
+		argument.put(missingFeature, "N/A");
+
+		// The interpreter does not define a missing value strategy for vector fields
+		for(Evaluator evaluator : Arrays.asList(xmlEvaluator, javaEvaluator)){
+
+			try {
+				evaluate(evaluator, argument);
+
+				fail();
+			} catch(MissingValueException mve){
+				assertTrue((mve.getMessage()).contains("\"" + missingFeature + "\""));
+			}
+		}
+	}
+
+	static
+	private void evaluateClustering(String algorithm, String dataset) throws Exception {
+		Model model = loadModel(algorithm + dataset);
+
+		// Clustering models can only be evaluated directly
+		assertTrue(model instanceof RawEvaluator);
+
+		List<Map<String, String>> arguments = loadRecords(dataset);
+		List<Map<String, String>> results = loadRecords(algorithm + dataset);
+
+		MiningSchema miningSchema = model.getMiningSchema();
+
+		List<MiningField> miningFields = miningSchema.getMiningFields();
+
+		for(int i = 0; i < arguments.size(); i++){
+			Map<String, String> argument = arguments.get(i);
+			Map<String, String> result = results.get(i);
+
+			Map<FieldName, Object> values = new LinkedHashMap<>();
+
+			for(MiningField miningField : miningFields){
+				FieldName name = miningField.getName();
+
+				String value = argument.get(name.getValue());
+
+				values.put(name, ("N/A").equals(value) ? null : Double.valueOf(value));
+			}
+
+			// When all fields are missing, then the missing value adjustment is undefined
+			if(("N/A").equals(result.get("cluster"))){
+
+				try {
+					((RawEvaluator)model).evaluateRaw(values);
+
+					fail();
+				} catch(UndefinedResultException ure){
+					// Ignored
+				}
+
+				continue;
+			}
+
+			Map<FieldName, ?> rawResult = ((RawEvaluator)model).evaluateRaw(values);
+
+			Object targetValue = rawResult.get(Evaluator.DEFAULT_TARGET_NAME);
+
+			assertEquals(result.get("cluster"), EvaluatorUtil.decode(targetValue));
+
+			HasAffinity hasAffinity = (HasAffinity)targetValue;
+
+			for(Map.Entry<String, String> entry : result.entrySet()){
+				String name = entry.getKey();
+
+				if(!name.startsWith("affinity(")){
+					continue;
+				}
+
+				String id = name.substring("affinity(".length(), name.length() - 1);
+
+				assertEquals(Double.parseDouble(entry.getValue()), hasAffinity.getAffinity(id), 1e-13);
+			}
+		}
+	}
+
+	/**
+	 * @param translated <code>true</code> if the output fields are expected to be part of the direct scoring result, <code>false</code> otherwise.
+	 */
+	static
+	private void evaluateOutput(String name, String dataset, Output output, boolean translated) throws Exception {
+		PMML xmlPmml = loadPMML(name);
+
+		// Untranslated output fields are not supported by the interpreter either
+		if(translated){
+			Model xmlModel = (xmlPmml.getModels()).get(0);
+
+			xmlModel.setOutput(output);
+		}
+
+		Evaluator evaluator = new ModelEvaluatorBuilder(xmlPmml)
+			.build();
+
+		Model model = loadModel(name, javaModel -> javaModel.setOutput(output));
+
+		assertTrue(model instanceof RawEvaluator);
+
+		List<Map<String, String>> arguments = loadRecords(dataset);
+
+		for(Map<String, String> argument : arguments){
+			Map<FieldName, Object> values = new LinkedHashMap<>();
+			Map<FieldName, FieldValue> fieldValues = new LinkedHashMap<>();
+
+			List<InputField> inputFields = evaluator.getInputFields();
+			for(InputField inputField : inputFields){
+				FieldName fieldName = inputField.getName();
+
+				String value = argument.get(fieldName.getValue());
+
+				Object rawValue = ("N/A").equals(value) ? null : (isInteger(fieldName.getValue()) ? (Object)Integer.valueOf(value) : (Object)Double.valueOf(value));
+
+				values.put(fieldName, rawValue);
+				fieldValues.put(fieldName, inputField.prepare(rawValue));
+			}
+
+			Map<FieldName, ?> expectedResult = evaluator.evaluate(fieldValues);
+			Map<FieldName, ?> rawResult = ((RawEvaluator)model).evaluateRaw(values);
+
+			if(!translated){
+				FieldName targetName = (evaluator.getTargetFields()).get(0).getName();
+
+				assertEquals(Collections.singleton(targetName), rawResult.keySet());
+
+				assertEquals(EvaluatorUtil.decode(expectedResult.get(targetName)), EvaluatorUtil.decode(rawResult.get(targetName)));
+
+				continue;
+			}
+
+			// Non-final output fields are not part of the direct scoring result
+			Map<FieldName, Object> finalExpectedResult = new LinkedHashMap<>(expectedResult);
+
+			for(OutputField outputField : output.getOutputFields()){
+
+				if(!outputField.isFinalResult()){
+					finalExpectedResult.remove(outputField.getName());
+				}
+			}
+
+			assertEquals(finalExpectedResult.keySet(), rawResult.keySet());
+
+			for(Map.Entry<FieldName, ?> entry : finalExpectedResult.entrySet()){
+				Object expectedValue = EvaluatorUtil.decode(entry.getValue());
+				Object actualValue = EvaluatorUtil.decode(rawResult.get(entry.getKey()));
+
+				if(expectedValue instanceof Number){
+					assertEquals(((Number)expectedValue).doubleValue(), ((Number)actualValue).doubleValue(), 1e-6);
+				} else
+
+				{
+					assertEquals(expectedValue, actualValue);
+				}
+			}
+		}
+	}
+
+	static
+	private Model loadModel(String name) throws Exception {
+		return loadModel(name, xmlModel -> {});
+	}
+
+	static
+	private Model loadModel(String name, Consumer<Model> customizer) throws Exception {
+		PMML javaPmml = loadJavaPMML(name, customizer);
+
+		List<Model> models = javaPmml.getModels();
+
+		return models.get(0);
+	}
+
+	static
+	private PMML loadJavaPMML(String name, Consumer<Model> customizer) throws Exception {
+		PMML xmlPmml = loadPMML(name);
+
+		customizer.accept((xmlPmml.getModels()).get(0));
+
+		JCodeModel codeModel = TranspilerUtil.translate(xmlPmml, null);
+
+		TranspilerUtil.compile(codeModel);
+
+		return PMMLUtil.load(new JCodeModelClassLoader(codeModel));
+	}
+
+	static
+	private Map<FieldName, ?> evaluate(Evaluator evaluator, Map<String, String> argument){
+		Map<FieldName, FieldValue> arguments = new LinkedHashMap<>();
+
+		List<InputField> inputFields = evaluator.getInputFields();
+		for(InputField inputField : inputFields){
+			FieldName name = inputField.getName();
+
+			String value = argument.get(name.getValue());
+
+			arguments.put(name, inputField.prepare(("N/A").equals(value) ? null : value));
+		}
+
+		return evaluator.evaluate(arguments);
+	}
+
+	static
+	private MiningField getMiningField(Model model, FieldName name){
+		MiningSchema miningSchema = model.getMiningSchema();
+
+		for(MiningField miningField : miningSchema.getMiningFields()){
+
+			if((name).equals(miningField.getName())){
+				return miningField;
+			}
+		}
+
+		throw new IllegalArgumentException(name.getValue());
+	}
+
+	static
+	private PMML loadPMML(String name) throws Exception {
+
+		try(InputStream is = DirectScoringTest.class.getResourceAsStream("/pmml/" + name + ".pmml")){
+			return PMMLUtil.unmarshal(is);
+		}
+	}
+
+	static
+	private Apply apply(String function, Expression... expressions){
+		Apply apply = new Apply(function);
+
+		(apply.getExpressions()).addAll(Arrays.asList(expressions));
+
+		return apply;
+	}
+
+	static
+	private Constant constant(double value){
+		return new Constant(value)
+			.setDataType(DataType.DOUBLE);
+	}
+
+	static
+	private Discretize discretize(FieldName name, double threshold, String lowValue, String highValue){
+		Discretize discretize = new Discretize(name)
+			.addDiscretizeBins(
+				new DiscretizeBin(lowValue, new Interval(Interval.Closure.OPEN_CLOSED).setRightMargin(threshold)),
+				new DiscretizeBin(highValue, new Interval(Interval.Closure.OPEN_OPEN).setLeftMargin(threshold))
+			);
+
+		return discretize;
+	}
+
+	static
+	private List<String> loadFeatures(Model model) throws Exception {
+		Class<?> clazz = model.getClass();
+
+		Properties properties = new Properties();
+
+		try(InputStream is = clazz.getResourceAsStream(clazz.getSimpleName() + ".features.properties")){
+			properties.load(is);
+		}
+
+		List<String> result = new ArrayList<>();
+
+		int size = Integer.parseInt(properties.getProperty("size"));
+		for(int i = 0; i < size; i++){
+			result.add(properties.getProperty("feature." + i + ".name"));
+		}
+
+		return result;
+	}
+
+	static
+	private List<Map<String, String>> loadRecords(String name) throws Exception {
+		CsvUtil.Table table;
+
+		try(InputStream is = DirectScoringTest.class.getResourceAsStream("/csv/" + name + ".csv")){
+			table = CsvUtil.readTable(is, ",");
+		}
+
+		List<String> header = table.get(0);
+
+		List<Map<String, String>> result = new ArrayList<>();
+
+		for(List<String> row : table.subList(1, table.size())){
+			Map<String, String> record = new LinkedHashMap<>();
+
+			for(int i = 0; i < header.size(); i++){
+				record.put(header.get(i), row.get(i));
+			}
+
+			result.add(record);
+		}
+
+		return result;
+	}
+
+	static
+	private boolean isInteger(String feature){
+
+		switch(feature){
+			case "cylinders":
+			case "model_year":
+			case "origin":
+				return true;
+			default:
+				return false;
+		}
+	}
+}
@@ -28,6 +28,11 @@ public class RegressionTest extends TranspilerTest {
 		super(new PMMLEquivalence(1e-13, 1e-13));
 	}
 
+	@Test
+	public void evaluateScorecardAudit() throws Exception {
+		evaluate("Scorecard", "Audit");
+	}
+
 	@Test
 	public void evaluateAdaBoostAuto() throws Exception {
 		evaluate("AdaBoost", "Auto");
@@ -38,6 +43,11 @@ public class RegressionTest extends TranspilerTest {
 		evaluate("DecisionTree", "Auto");
 	}
 
+	@Test
+	public void evaluateGeneralRegressionAuto() throws Exception {
+		evaluate("GeneralRegression", "Auto");
+	}
+
 	@Test
 	public void evaluateGradientBoostingAuto() throws Exception {
 		evaluate("GradientBoosting", "Auto");
@@ -58,11 +68,56 @@ public class RegressionTest extends TranspilerTest {
 		evaluate("LinearRegression", "Auto");
 	}
 
+	@Test
+	public void evaluateLinearRegressionAutoNA() throws Exception {
+		evaluate("LinearRegression", "AutoNA");
+	}
+
+	@Test
+	public void evaluateNearestNeighborAuto() throws Exception {
+		evaluate("NearestNeighbor", "Auto");
+	}
+
+	@Test
+	public void evaluateNearestNeighborAutoNA() throws Exception {
+		evaluate("NearestNeighbor", "AutoNA");
+	}
+
+	@Test
+	public void evaluateNeuralNetworkAuto() throws Exception {
+		evaluate("NeuralNetwork", "Auto");
+	}
+
 	@Test
 	public void evaluateRandomForestAuto() throws Exception {
 		evaluate("RandomForest", "Auto");
 	}
 
+	@Test
+	public void evaluateRandomForestAutoNA() throws Exception {
+		evaluate("RandomForest", "AutoNA");
+	}
+
+	@Test
+	public void evaluateRandomForestMedianAuto() throws Exception {
+		evaluate("RandomForestMedian", "Auto");
+	}
+
+	@Test
+	public void evaluateRandomForestTreatmentAutoNA() throws Exception {
+		evaluate("RandomForestTreatment", "AutoNA");
+	}
+
+	@Test
+	public void evaluateRandomForestWeightedMedianAuto() throws Exception {
+		evaluate("RandomForestWeightedMedian", "Auto");
+	}
+
+	@Test
+	public void evaluateSupportVectorMachineAuto() throws Exception {
+		evaluate("SupportVectorMachine", "Auto", new PMMLEquivalence(1e-11, 1e-11));
+	}
+
 	@Test
 	public void evaluateVotingEnsembleAuto() throws Exception {
 		evaluate("VotingEnsemble", "Auto");